@@ -1,15 +1,24 @@
 package org.ardeu.librarymanagementsystem;
 
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.fxml.FXMLLoader;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
 import javafx.scene.Scene;
+import javafx.scene.control.Label;
 import javafx.scene.control.MenuBar;
+import javafx.scene.control.ProgressBar;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.Pane;
+import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
 import org.ardeu.librarymanagementsystem.domain.config.ServiceConfig;
 import org.ardeu.librarymanagementsystem.domain.sampledata.SampleData;
+import org.ardeu.librarymanagementsystem.domain.services.LoanService;
 import org.ardeu.librarymanagementsystem.domain.services.registry.ServiceRegistry;
+import org.ardeu.librarymanagementsystem.domain.services.scheduling.OverdueLoanSweeper;
+import org.ardeu.librarymanagementsystem.ui.components.ErrorAlert;
 import org.ardeu.librarymanagementsystem.ui.components.SharedMenuBar;
 import org.ardeu.librarymanagementsystem.ui.viewcontrollers.author.AddAuthorViewController;
 import org.ardeu.librarymanagementsystem.ui.viewcontrollers.author.AuthorsViewController;
@@ -27,6 +36,8 @@ import org.ardeu.librarymanagementsystem.ui.viewcontrollers.member.AddMemberView
 import org.ardeu.librarymanagementsystem.ui.viewcontrollers.member.MembersViewController;
 
 import java.io.IOException;
+import java.util.Objects;
+import java.util.concurrent.CompletionException;
 
 public class LibraryApplication extends Application {
 
@@ -34,12 +45,49 @@ public class LibraryApplication extends Application {
 
     /**
      * The main entry point for the JavaFX application.
+     * Shows a loading screen while the services load their data in the background, then the home view.
      *
      * @param stage the primary stage for this application
-     * @throws IOException if an I/O error occurs
      */
     @Override
-    public void start(Stage stage) throws IOException {
+    public void start(Stage stage) {
+        Label loadingLabel = new Label("Loading library data...");
+        ProgressBar loadingBar = new ProgressBar(0);
+        loadingBar.setPrefWidth(300);
+        VBox loadingView = new VBox(10, loadingLabel, loadingBar);
+        loadingView.setAlignment(Pos.CENTER);
+        loadingView.setPadding(new Insets(40));
+
+        stage.setTitle("Library Management System");
+        stage.setScene(new Scene(loadingView));
+        stage.show();
+
+        serviceRegistry.loadDataAsync(progress -> Platform.runLater(() -> {
+                    loadingBar.setProgress(Math.max(loadingBar.getProgress(), progress.fraction()));
+                    loadingLabel.setText(String.format("Loaded %s (%d/%d)",
+                            progress.serviceName(), progress.completed(), progress.total()));
+                }))
+                .whenComplete((_, error) -> Platform.runLater(() -> {
+                    if (Objects.nonNull(error)) {
+                        showStartupError(error instanceof CompletionException ? error.getCause() : error);
+                        return;
+                    }
+                    try {
+                        showLibrary(stage);
+                    } catch (IOException e) {
+                        showStartupError(e);
+                    }
+                }));
+    }
+
+    /**
+     * Loads the views and shows the home view. Must be called once the services are loaded,
+     * since the view controllers read their data when they are created.
+     *
+     * @param stage the primary stage for this application
+     * @throws IOException if a view cannot be loaded
+     */
+    private void showLibrary(Stage stage) throws IOException {
 
         //loading the views
         FXMLLoader homeFxmlLoader = new FXMLLoader(
@@ -98,6 +146,10 @@ public class LibraryApplication extends Application {
                 LibraryApplication.class.getResource("views/revenue/revenue-view.fxml"));
         Pane revenueView = revenueFxmlLoader.load();
 
+        FXMLLoader leaderboardFxmlLoader = new FXMLLoader(
+                LibraryApplication.class.getResource("views/revenue/leaderboard-view.fxml"));
+        Pane leaderboardView = leaderboardFxmlLoader.load();
+
 
         // initial view
         BorderPane rootLayout = new BorderPane();
@@ -105,7 +157,6 @@ public class LibraryApplication extends Application {
 
         // main scene
         Scene scene = new Scene(rootLayout);
-        stage.setTitle("Library Management System");
         stage.setScene(scene);
 
         // initialize the ScreenController
@@ -124,6 +175,7 @@ public class LibraryApplication extends Application {
         screenViewController.addScreen(ScreenName.LOANS, loansView, loansFxmlLoader.getController());
         screenViewController.addScreen(ScreenName.ADD_LOAN, addLoanView, addLoanFxmlLoader.getController());
         screenViewController.addScreen(ScreenName.REVENUE, revenueView, revenueFxmlLoader.getController());
+        screenViewController.addScreen(ScreenName.LEADERBOARD, leaderboardView, leaderboardFxmlLoader.getController());
 
 
         //screenController DI
@@ -168,10 +220,32 @@ public class LibraryApplication extends Application {
         MenuBar menuBar = new SharedMenuBar(screenViewController);
         rootLayout.setTop(menuBar);
 
+        // overdue loans are marked now and then every day at midnight, on the FX thread
+        OverdueLoanSweeper overdueLoanSweeper = new OverdueLoanSweeper(
+                serviceRegistry.getService(LoanService.class), Platform::runLater, loansViewController::showOverdueLoans);
+        overdueLoanSweeper.start();
+
         //on close
-        stage.setOnCloseRequest(_ -> serviceRegistry.saveData());
+        stage.setOnCloseRequest(_ -> {
+            overdueLoanSweeper.close();
+            serviceRegistry.saveData();
+        });
 
-        stage.show();
+        stage.sizeToScene();
+        stage.centerOnScreen();
+    }
+
+    /**
+     * Reports an error that prevented the application from starting and exits.
+     * Nothing is saved, so the data files are left as they were.
+     *
+     * @param error the error that occurred
+     */
+    private void showStartupError(Throwable error) {
+        ErrorAlert alert = new ErrorAlert("Error");
+        alert.setContent("The library data could not be loaded: " + error.getMessage());
+        alert.showAlert();
+        Platform.exit();
     }
 
     /**
@@ -185,8 +259,6 @@ public class LibraryApplication extends Application {
         ServiceConfig serviceConfig = new ServiceConfig(serviceRegistry);
         serviceConfig.configureServices();
 
-        serviceRegistry.loadData();
-
 //        SampleData sampleData = new SampleData();
 //        sampleData.resetFiles();
 //        sampleData.populateData();
@@ -1,10 +1,19 @@
 package org.ardeu.librarymanagementsystem.domain.config;
 
+import org.ardeu.librarymanagementsystem.domain.filerepository.codecs.AuthorBinaryCodec;
+import org.ardeu.librarymanagementsystem.domain.filerepository.codecs.BookBinaryCodec;
+import org.ardeu.librarymanagementsystem.domain.filerepository.codecs.GenreBinaryCodec;
+import org.ardeu.librarymanagementsystem.domain.filerepository.codecs.InventoryBinaryCodec;
+import org.ardeu.librarymanagementsystem.domain.filerepository.codecs.LoanBinaryCodec;
+import org.ardeu.librarymanagementsystem.domain.filerepository.codecs.MemberBinaryCodec;
 import org.ardeu.librarymanagementsystem.domain.filerepository.config.FilePathConfig;
 import org.ardeu.librarymanagementsystem.domain.filerepository.handlers.BinaryMapFileHandler;
 import org.ardeu.librarymanagementsystem.domain.filerepository.handlers.BookMapFileHandler;
 import org.ardeu.librarymanagementsystem.domain.filerepository.handlers.InventoryMapFileHandler;
 import org.ardeu.librarymanagementsystem.domain.filerepository.handlers.LoanMapFileHandler;
+import org.ardeu.librarymanagementsystem.domain.filerepository.handlers.LsmMapFileHandler;
+import org.ardeu.librarymanagementsystem.domain.filerepository.handlers.PartitionedLoanFileHandler;
+import org.ardeu.librarymanagementsystem.domain.filerepository.journal.WriteAheadJournal;
 import org.ardeu.librarymanagementsystem.domain.services.*;
 import org.ardeu.librarymanagementsystem.domain.services.registry.ServiceRegistry;
 
@@ -12,8 +21,9 @@ import org.ardeu.librarymanagementsystem.domain.services.registry.ServiceRegistr
  * Configuration class for registering and configuring services in the {@link ServiceRegistry}.
  * <p>
  * This class is responsible for creating and registering services that interact with various data
- * sources. It uses specific file handlers for each service to persist data to file paths
- * defined in {@link FilePathConfig}.
+ * sources. It uses specific file handlers for each service to persist snapshots to file paths
+ * defined in {@link FilePathConfig}, and a {@link WriteAheadJournal} per service to record the
+ * changes made between snapshots.
  */
 public record ServiceConfig(ServiceRegistry serviceRegistry) {
 
@@ -30,32 +40,50 @@ public record ServiceConfig(ServiceRegistry serviceRegistry) {
 
     /**
      * Registers the various services in the {@link ServiceRegistry}. Each service is configured with
-     * an appropriate file handler to manage its respective data.
+     * an appropriate file handler to manage its respective data and a journal for its changes.
+     * The book service also gets the author and genre services, whose names it indexes for search,
+     * and the loan service gets the book service, through whose books it counts loans per author and genre.
+     * Members are kept in an LSM store, so a snapshot only writes the members that changed.
+     * Journals encode their entities with the same binary codecs as the snapshots.
      */
     public void configureServices() {
-        serviceRegistry.register(
-                AuthorService.class,
-                new AuthorService(new BinaryMapFileHandler<>(FilePathConfig.AUTHORS_PATH)));
+        AuthorService authorService = new AuthorService(
+                new BinaryMapFileHandler<>(FilePathConfig.AUTHORS_PATH, new AuthorBinaryCodec()),
+                new WriteAheadJournal<>(FilePathConfig.AUTHORS_JOURNAL_PATH, new AuthorBinaryCodec()));
+        serviceRegistry.register(AuthorService.class, authorService);
 
-        serviceRegistry.register(
-                BookService.class,
-                new BookService(new BookMapFileHandler(FilePathConfig.BOOKS_PATH)));
+        GenreService genreService = new GenreService(
+                new BinaryMapFileHandler<>(FilePathConfig.GENRES_PATH, new GenreBinaryCodec()),
+                new WriteAheadJournal<>(FilePathConfig.GENRES_JOURNAL_PATH, new GenreBinaryCodec()));
+        serviceRegistry.register(GenreService.class, genreService);
 
-        serviceRegistry.register(
-                GenreService.class,
-                new GenreService(new BinaryMapFileHandler<>(FilePathConfig.GENRES_PATH)));
+        BookService bookService = new BookService(
+                new BookMapFileHandler(FilePathConfig.BOOKS_PATH),
+                new WriteAheadJournal<>(FilePathConfig.BOOKS_JOURNAL_PATH, new BookBinaryCodec()),
+                authorService,
+                genreService);
+        serviceRegistry.register(BookService.class, bookService);
 
         serviceRegistry.register(
                 InventoryService.class,
-                new InventoryService(new InventoryMapFileHandler(FilePathConfig.INVENTORIES_PATH)));
+                new InventoryService(
+                        new InventoryMapFileHandler(FilePathConfig.INVENTORIES_PATH),
+                        new WriteAheadJournal<>(FilePathConfig.INVENTORIES_JOURNAL_PATH, new InventoryBinaryCodec())));
 
         serviceRegistry.register(
                 LoanService.class,
-                new LoanService(new LoanMapFileHandler(FilePathConfig.LOANS_PATH)));
+                new LoanService(
+                        new PartitionedLoanFileHandler(FilePathConfig.LOANS_PATH,
+                                new LoanMapFileHandler(FilePathConfig.LEGACY_LOANS_PATH)),
+                        new WriteAheadJournal<>(FilePathConfig.LOANS_JOURNAL_PATH, new LoanBinaryCodec()),
+                        bookService));
 
         serviceRegistry.register(
                 MemberService.class,
-                new MemberService(new BinaryMapFileHandler<>(FilePathConfig.MEMBERS_PATH)));
+                new MemberService(
+                        new LsmMapFileHandler<>(FilePathConfig.MEMBERS_STORE_PATH, new MemberBinaryCodec(),
+                                new BinaryMapFileHandler<>(FilePathConfig.MEMBERS_PATH, new MemberBinaryCodec())),
+                        new WriteAheadJournal<>(FilePathConfig.MEMBERS_JOURNAL_PATH, new MemberBinaryCodec())));
     }
 }
 
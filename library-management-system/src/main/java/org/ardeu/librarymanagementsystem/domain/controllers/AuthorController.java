@@ -19,7 +19,6 @@ import org.ardeu.librarymanagementsystem.domain.validators.base.Validator;
 
 import java.io.*;
 import java.util.List;
-import java.util.Set;
 import java.util.UUID;
 
 /**
@@ -62,6 +61,17 @@ public class AuthorController {
         }
     }
 
+    /**
+     * Finds the authors whose name is closest to a possibly misspelled name.
+     *
+     * @param name the name typed by the user
+     * @param limit the maximum number of authors returned
+     * @return a Result containing the closest authors, closest first
+     */
+    public Result<List<Author>> findClosestAuthors(String name, int limit) {
+        return Result.success(this.authorService.findClosestByName(name, limit));
+    }
+
     /**
      * Adds a new author to the system.
      *
@@ -83,20 +93,13 @@ public class AuthorController {
     }
 
     /**
-     * Retrieves the total number of loans for books by a specific author, identified by genre ID.
+     * Retrieves the total number of loans for books by a specific author, identified by author ID.
      *
-     * @param genreId the UUID of the genre to retrieve loan counts for
-     * @return a Result containing the total number of loans for books by the specified author, or a failure message if the author is not found
+     * @param authorId the UUID of the author to retrieve loan counts for
+     * @return a Result containing the total number of loans for books by the specified author
      */
-    public Result<Long> getLoansCount(UUID genreId) {
-        try {
-            Set<UUID> books = this.authorService.getBookIds(genreId);
-            this.loanService.getTotalLoansByBookId(books);
-            long loansCount = this.loanService.getTotalLoansByBookId(books);
-            return Result.success(loansCount);
-        } catch (AuthorNotFoundException e) {
-            return Result.failure(e.getMessage());
-        }
+    public Result<Long> getLoansCount(UUID authorId) {
+        return Result.success(this.loanService.getTotalLoansByAuthorId(authorId));
     }
 
     /**
@@ -119,14 +122,13 @@ public class AuthorController {
                                              new FileOutputStream(file))), csvFormat)) {
             for (Author author : authorList) {
                 double booksCount = this.authorService.getBooksCount(author.getId());
-                Set<UUID> bookIds = this.authorService.getBookIds(author.getId());
                 printer.printRecord(
                         checkModel.stream()
                                 .map(field -> switch (field) {
                                     case ID -> author.getId();
                                     case NAME -> author.getName();
                                     case BOOKS_COUNT -> booksCount;
-                                    case TOTAL_LOANS -> this.loanService.getTotalLoansByBookId(bookIds);
+                                    case TOTAL_LOANS -> this.loanService.getTotalLoansByAuthorId(author.getId());
                                 }).toArray());
             }
             return Result.success();
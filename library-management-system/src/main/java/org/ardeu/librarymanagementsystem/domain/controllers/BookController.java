@@ -20,6 +20,7 @@ import org.ardeu.librarymanagementsystem.domain.exceptions.inventory.InventoryNo
 import org.ardeu.librarymanagementsystem.domain.exceptions.validation.ValidationException;
 import org.ardeu.librarymanagementsystem.domain.services.*;
 import org.ardeu.librarymanagementsystem.domain.services.registry.ServiceRegistry;
+import org.ardeu.librarymanagementsystem.domain.services.search.BookSearchField;
 import org.ardeu.librarymanagementsystem.domain.validators.base.Validator;
 import org.ardeu.librarymanagementsystem.domain.validators.book.BookDTOValidator;
 import org.ardeu.librarymanagementsystem.domain.validators.inventory.InventoryDTOValidator;
@@ -27,7 +28,9 @@ import org.ardeu.librarymanagementsystem.domain.validators.inventory.InventoryDT
 import java.io.*;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Predicate;
 
 /**
  * BookController is responsible for handling author-related operations.
@@ -51,6 +54,40 @@ public class BookController {
         return Result.success(books);
     }
 
+    /**
+     * Searches the books by title, description, author name and genre name.
+     *
+     * @param query the whitespace-separated search terms, all of which must match
+     * @param limit the maximum number of books returned
+     * @return a Result containing the best matching books, best first
+     */
+    public Result<List<Book>> searchBooks(String query, int limit) {
+        return Result.success(this.bookService.search(query, limit));
+    }
+
+    /**
+     * Finds the books in which one of the given fields contains a text, ignoring casing and whitespace differences.
+     *
+     * @param text the text to look for
+     * @param fields the fields to look in, or none to look in every field
+     * @return a Result containing the IDs of the matching books
+     */
+    public Result<Set<UUID>> findBookIdsContaining(String text, BookSearchField... fields) {
+        return Result.success(this.bookService.findIdsContaining(text, fields));
+    }
+
+    /**
+     * Completes a prefix typed into a book search box against book titles.
+     *
+     * @param prefix the prefix typed so far
+     * @param limit the maximum number of books returned
+     * @param filter the filter the returned books must pass
+     * @return a Result containing the first matching books
+     */
+    public Result<List<Book>> completeBookTitles(String prefix, int limit, Predicate<Book> filter) {
+        return Result.success(this.bookService.completeTitle(prefix, limit, filter));
+    }
+
     /**
      * Adds a new book to the system.
      *
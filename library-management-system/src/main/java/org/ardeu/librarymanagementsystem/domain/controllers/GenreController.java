@@ -19,7 +19,6 @@ import org.ardeu.librarymanagementsystem.domain.validators.genre.GenreDTOValidat
 
 import java.io.*;
 import java.util.List;
-import java.util.Set;
 import java.util.UUID;
 
 /**
@@ -86,17 +85,10 @@ public class GenreController {
      * Retrieves the total number of loans for books by a specific genre, identified by genre ID.
      *
      * @param genreId the UUID of the genre to retrieve loan counts for
-     * @return a Result containing the total number of loans for books by the specified genre, or a failure message if the genre is not found
+     * @return a Result containing the total number of loans for books by the specified genre
      */
     public Result<Long> getLoansCount(UUID genreId) {
-        try {
-            Set<UUID> books = this.genreService.getBookIds(genreId);
-            this.loanService.getTotalLoansByBookId(books);
-            long loansCount = this.loanService.getTotalLoansByBookId(books);
-            return Result.success(loansCount);
-        } catch (GenreNotFoundException e) {
-            return Result.failure(e.getMessage());
-        }
+        return Result.success(this.loanService.getTotalLoansByGenreId(genreId));
     }
 
     /**
@@ -120,14 +112,13 @@ public class GenreController {
 
             for (Genre genre : genreList) {
                 double booksCount = this.genreService.getBooksCount(genre.getId());
-                Set<UUID> books = this.genreService.getBookIds(genre.getId());
 
                 printer.printRecord(
                         checkModel.stream().map(field -> switch (field) {
                             case ID -> genre.getId();
                             case NAME -> genre.getName();
                             case BOOKS_COUNT -> booksCount;
-                            case TOTAL_LOANS -> this.loanService.getTotalLoansByBookId(books);
+                            case TOTAL_LOANS -> this.loanService.getTotalLoansByGenreId(genre.getId());
                         }).toArray());
             }
             return Result.success();
@@ -23,13 +23,23 @@ import org.ardeu.librarymanagementsystem.domain.exceptions.loan.LoanNotFoundExce
 import org.ardeu.librarymanagementsystem.domain.exceptions.member.MemberNotFoundException;
 import org.ardeu.librarymanagementsystem.domain.exceptions.validation.ValidationException;
 import org.ardeu.librarymanagementsystem.domain.services.*;
+import org.ardeu.librarymanagementsystem.domain.services.aggregates.LoanCube;
+import org.ardeu.librarymanagementsystem.domain.services.aggregates.PopularityDimension;
+import org.ardeu.librarymanagementsystem.domain.services.aggregates.RankedCount;
+import org.ardeu.librarymanagementsystem.domain.services.aggregates.TrendingLoans;
+import org.ardeu.librarymanagementsystem.domain.services.base.ItemChangeListener;
 import org.ardeu.librarymanagementsystem.domain.services.registry.ServiceRegistry;
+import org.ardeu.librarymanagementsystem.domain.services.reporting.RevenueDimension;
+import org.ardeu.librarymanagementsystem.domain.services.reporting.RevenueQuery;
+import org.ardeu.librarymanagementsystem.domain.services.reporting.RevenueRow;
 import org.ardeu.librarymanagementsystem.domain.validators.base.Validator;
 import org.ardeu.librarymanagementsystem.domain.validators.loan.LoanDTOValidator;
 
 import java.io.*;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 /**
  * LoanController is responsible for handling loan-related operations.
@@ -53,6 +63,16 @@ public class LoanController {
         return Result.success(loans);
     }
 
+    /**
+     * Registers a listener notified of every loan change, including loans whose status is updated in place,
+     * such as returned or overdue loans, which the map returned by {@link #getAllLoans()} does not report.
+     *
+     * @param listener the listener to register
+     */
+    public void addLoanChangeListener(ItemChangeListener<? super Loan> listener) {
+        loanService.addItemChangeListener(listener);
+    }
+
     /**
      * Adds multiple loans for a user.
      *
@@ -112,15 +132,17 @@ public class LoanController {
      */
     public Result<Loan> handleLoanReturn(UUID id, LocalDate value) {
         Loan loan = null;
+        LoanStatus status = null;
         try {
             loan = this.loanService.getById(id);
+            status = loan.getStatus();
             this.loanService.markLoanAsReturned(loan, value);
             this.inventoryService.returnBook(loan.getBookId());
             return Result.success(loan);
         } catch (LoanNotFoundException | InvalidReturnDateException e) {
             return Result.failure(e.getMessage());
         } catch (InventoryNotFoundException e) {
-            this.loanService.markLoanAsBorrowed(loan);
+            this.loanService.revertLoanReturn(loan, status);
             return Result.failure(e.getMessage());
         }
     }
@@ -152,6 +174,16 @@ public class LoanController {
         return Result.success(this.loanService.getRevenueForPastYear());
     }
 
+    /**
+     * Retrieves the revenue of each month of a year.
+     *
+     * @param year the year
+     * @return a Result containing the revenue of each month, January first
+     */
+    public Result<double[]> getRevenuePerMonth(int year) {
+        return Result.success(this.loanService.getRevenuePerMonth(year));
+    }
+
     /**
      * Retrieves loans from a specific year.
      *
@@ -162,6 +194,36 @@ public class LoanController {
         return Result.success(this.loanService.getLoansFrom(year));
     }
 
+    /**
+     * Retrieves the loans made between two dates.
+     *
+     * @param from the first loan date, inclusive
+     * @param to the last loan date, inclusive
+     * @return a Result containing the loans made between the two dates, ordered by loan date
+     */
+    public Result<List<Loan>> getLoansBetween(LocalDate from, LocalDate to) {
+        return Result.success(this.loanService.getLoansBetween(from, to));
+    }
+
+    /**
+     * Retrieves the loans not yet returned whose due date is before the given date.
+     *
+     * @param date the date, exclusive
+     * @return a Result containing the loans due before the date, ordered by due date
+     */
+    public Result<List<Loan>> getActiveLoansDueBefore(LocalDate date) {
+        return Result.success(this.loanService.getActiveLoansDueBefore(date));
+    }
+
+    /**
+     * Retrieves the loans marked as overdue by the last sweep.
+     *
+     * @return a Result containing the overdue loans, ordered by due date
+     */
+    public Result<List<Loan>> getOverdueLoans() {
+        return Result.success(this.loanService.getOverdueLoans());
+    }
+
     /**
      * Retrieves the revenue per year.
      *
@@ -171,6 +233,94 @@ public class LoanController {
         return Result.success(this.loanService.getRevenuePerYear());
     }
 
+    /**
+     * Rolls the loan counts and revenue of the whole history up into groups of months, genres, authors
+     * or statuses, without scanning the loans.
+     *
+     * @param filter the filter the cells must pass
+     * @param groupBy the function giving the group of a cell
+     * @param <K> the type of the groups
+     * @return a Result containing the loan count and revenue of each group
+     */
+    public <K> Result<Map<K, LoanCube.Measures>> getLoanStatistics(Predicate<? super LoanCube.Cell> filter,
+                                                                  Function<? super LoanCube.Cell, ? extends K> groupBy) {
+        return Result.success(this.loanService.getLoanStatistics(filter, groupBy));
+    }
+
+    /**
+     * Ranks the most borrowed books, authors or genres of all time.
+     *
+     * @param dimension what the loans are counted against
+     * @param limit the maximum number of entries returned
+     * @return a Result containing the most borrowed entries with their exact loan counts, most borrowed first
+     */
+    public Result<List<RankedCount>> getMostBorrowed(PopularityDimension dimension, int limit) {
+        return Result.success(this.loanService.getMostBorrowed(dimension, limit));
+    }
+
+    /**
+     * Estimates the most borrowed books, authors or genres of the last days.
+     *
+     * @param dimension what the loans are counted against
+     * @param days the number of days ranked, today included, at most {@link TrendingLoans#MAX_DAYS}
+     * @param limit the maximum number of entries returned
+     * @return a Result containing the most borrowed entries with their estimated loan counts, most borrowed first
+     */
+    public Result<List<RankedCount>> getTrending(PopularityDimension dimension, int days, int limit) {
+        return Result.success(this.loanService.getTrending(dimension, days, limit));
+    }
+
+    /**
+     * Names a book, author or genre ranked by popularity.
+     *
+     * @param dimension what the ID refers to
+     * @param id the ID of the book, author or genre
+     * @return the title of the book or the name of the author or genre, or "Unknown"
+     */
+    public String describePopularityKey(PopularityDimension dimension, UUID id) {
+        return describeRevenueKey(switch (dimension) {
+            case BOOK -> RevenueDimension.BOOK;
+            case AUTHOR -> RevenueDimension.AUTHOR;
+            case GENRE -> RevenueDimension.GENRE;
+        }, id);
+    }
+
+    /**
+     * Runs a revenue report grouping the loans of a date range by some dimensions.
+     *
+     * @param query the report
+     * @return a Result containing the groups of the report, highest revenue first
+     */
+    public Result<List<RevenueRow>> queryRevenue(RevenueQuery query) {
+        return Result.success(this.loanService.queryRevenue(query));
+    }
+
+    /**
+     * Describes the key of a revenue group in a dimension, naming the genres, authors and books.
+     *
+     * @param dimension the dimension of the key
+     * @param key the key, possibly null
+     * @return the description of the key
+     */
+    public String describeRevenueKey(RevenueDimension dimension, Object key) {
+        String description = switch (dimension) {
+            case GENRE -> {
+                Genre genre = this.genreService.getItems().get(key);
+                yield Objects.isNull(genre) ? null : genre.getName();
+            }
+            case AUTHOR -> {
+                Author author = this.authorService.getItems().get(key);
+                yield Objects.isNull(author) ? null : author.getName();
+            }
+            case BOOK -> {
+                Book book = this.bookService.getItems().get(key);
+                yield Objects.isNull(book) ? null : book.getTitle();
+            }
+            default -> Objects.isNull(key) ? null : key.toString();
+        };
+        return Objects.isNull(description) ? "Unknown" : description;
+    }
+
     /**
      * Exports the loan data to a CSV file with a specified set of fields.
      *
@@ -233,7 +383,7 @@ public class LoanController {
         try {
             Loan loan = this.loanService.getById(id);
 
-            if (LoanStatus.ACTIVE.equals(loan.getStatus())) {
+            if (!LoanStatus.RETURNED.equals(loan.getStatus())) {
                 this.inventoryService.returnBook(loan.getBookId());
             }
 
@@ -71,6 +71,39 @@ public class MemberController {
         }
     }
 
+    /**
+     * Completes a prefix typed into a member search box against member emails and names.
+     *
+     * @param prefix the prefix typed so far
+     * @param limit the maximum number of members returned
+     * @return a Result containing the first matching members
+     */
+    public Result<List<Member>> completeMembers(String prefix, int limit) {
+        return Result.success(this.memberService.complete(prefix, limit));
+    }
+
+    /**
+     * Finds the members whose name is closest to a possibly misspelled name.
+     *
+     * @param name the name typed by the user
+     * @param limit the maximum number of members returned
+     * @return a Result containing the closest members, closest first
+     */
+    public Result<List<Member>> findClosestMembersByName(String name, int limit) {
+        return Result.success(this.memberService.findClosestByName(name, limit));
+    }
+
+    /**
+     * Finds the members whose email is closest to a possibly misspelled email.
+     *
+     * @param email the email typed by the user
+     * @param limit the maximum number of members returned
+     * @return a Result containing the closest members, closest first
+     */
+    public Result<List<Member>> findClosestMembersByEmail(String email, int limit) {
+        return Result.success(this.memberService.findClosestByEmail(email, limit));
+    }
+
     /**
      * Exports the member data to a CSV file with a specified set of fields.
      *
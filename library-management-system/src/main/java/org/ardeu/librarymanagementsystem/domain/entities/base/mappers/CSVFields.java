@@ -0,0 +1,590 @@
+package org.ardeu.librarymanagementsystem.domain.entities.base.mappers;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Allocation-free parsing and formatting of the field types used in the CSV data files.
+ * <p>
+ * Fields are parsed straight from a {@link CharSequence} or a {@link ByteBuffer} between two offsets,
+ * without creating substrings, and formatted as ASCII into a {@link ByteBuffer}. The formats match
+ * {@link UUID#toString()}, {@link LocalDate#toString()}, {@link Integer#toString(int)} and
+ * {@link Double#toString(double)}. Values outside the common fast paths (scientific notation,
+ * years beyond four digits, and so on) fall back to the JDK parsers and formatters.
+ * </p>
+ */
+public final class CSVFields {
+
+    /**
+     * The character separating two fields.
+     */
+    public static final char SEPARATOR = ',';
+
+    /**
+     * The length of a formatted {@link UUID}.
+     */
+    public static final int UUID_LENGTH = 36;
+
+    /**
+     * The maximum length of a formatted {@link LocalDate}.
+     */
+    public static final int MAX_DATE_LENGTH = 16;
+
+    /**
+     * The maximum length of a formatted int.
+     */
+    public static final int MAX_INT_LENGTH = 11;
+
+    /**
+     * The maximum length of a formatted double.
+     */
+    public static final int MAX_DOUBLE_LENGTH = 25;
+
+    /**
+     * The number of fraction digits tried by the fast path of {@link #putDouble(ByteBuffer, double)}.
+     */
+    private static final int MAX_FRACTION_DIGITS = 6;
+
+    /**
+     * The powers of ten that are exactly representable as a double.
+     */
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /**
+     * The largest mantissa that is exactly representable as a double.
+     */
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * Private constructor to prevent instantiation of the utility class.
+     */
+    private CSVFields() {}
+
+    /**
+     * Finds the end of the field starting at the given offset.
+     *
+     * @param s the text holding the field
+     * @param start the start of the field
+     * @param end the end of the line
+     * @return the offset of the next separator, or {@code end} if this is the last field
+     */
+    public static int fieldEnd(CharSequence s, int start, int end) {
+        int i = start;
+        while (i < end && s.charAt(i) != SEPARATOR) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Finds the end of the field starting at the given offset.
+     *
+     * @param buffer the buffer holding the field
+     * @param start the start of the field
+     * @param end the end of the line
+     * @return the offset of the next separator, or {@code end} if this is the last field
+     */
+    public static int fieldEnd(ByteBuffer buffer, int start, int end) {
+        int i = start;
+        while (i < end && buffer.get(i) != SEPARATOR) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Returns the start of the field following the one ending at {@code fieldEnd}.
+     *
+     * @param fieldEnd the end of the current field
+     * @param end the end of the line
+     * @return the start of the next field
+     * @throws IllegalArgumentException if the current field is the last one on the line
+     */
+    public static int nextField(int fieldEnd, int end) {
+        if (fieldEnd >= end) {
+            throw new IllegalArgumentException("Missing field");
+        }
+        return fieldEnd + 1;
+    }
+
+    /**
+     * Checks whether a field holds exactly the given ASCII text.
+     *
+     * @param s the text holding the field
+     * @param start the start of the field
+     * @param end the end of the field
+     * @param expected the expected text
+     * @return true if the field equals {@code expected}, false otherwise
+     */
+    public static boolean matches(CharSequence s, int start, int end, String expected) {
+        if (end - start != expected.length()) {
+            return false;
+        }
+        for (int i = 0; i < expected.length(); i++) {
+            if (s.charAt(start + i) != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether a field holds exactly the given ASCII text.
+     *
+     * @param buffer the buffer holding the field
+     * @param start the start of the field
+     * @param end the end of the field
+     * @param expected the expected text
+     * @return true if the field equals {@code expected}, false otherwise
+     */
+    public static boolean matches(ByteBuffer buffer, int start, int end, String expected) {
+        if (end - start != expected.length()) {
+            return false;
+        }
+        for (int i = 0; i < expected.length(); i++) {
+            if (buffer.get(start + i) != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parses a {@link UUID} field.
+     *
+     * @param s the text holding the field
+     * @param start the start of the field
+     * @param end the end of the field
+     * @return the parsed UUID
+     * @throws IllegalArgumentException if the field is not a valid UUID
+     */
+    public static UUID parseUuid(CharSequence s, int start, int end) {
+        if (end - start != UUID_LENGTH || s.charAt(start + 8) != '-' || s.charAt(start + 13) != '-'
+                || s.charAt(start + 18) != '-' || s.charAt(start + 23) != '-') {
+            return UUID.fromString(s.subSequence(start, end).toString());
+        }
+        long msb = 0;
+        long lsb = 0;
+        for (int i = 0; i < UUID_LENGTH; i++) {
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                continue;
+            }
+            int digit = hexValue(s.charAt(start + i));
+            if (i < 18) {
+                msb = (msb << 4) | digit;
+            } else {
+                lsb = (lsb << 4) | digit;
+            }
+        }
+        return new UUID(msb, lsb);
+    }
+
+    /**
+     * Parses a {@link UUID} field.
+     *
+     * @param buffer the buffer holding the field
+     * @param start the start of the field
+     * @param end the end of the field
+     * @return the parsed UUID
+     * @throws IllegalArgumentException if the field is not a valid UUID
+     */
+    public static UUID parseUuid(ByteBuffer buffer, int start, int end) {
+        if (end - start != UUID_LENGTH || buffer.get(start + 8) != '-' || buffer.get(start + 13) != '-'
+                || buffer.get(start + 18) != '-' || buffer.get(start + 23) != '-') {
+            return UUID.fromString(ascii(buffer, start, end));
+        }
+        long msb = 0;
+        long lsb = 0;
+        for (int i = 0; i < UUID_LENGTH; i++) {
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                continue;
+            }
+            int digit = hexValue(buffer.get(start + i));
+            if (i < 18) {
+                msb = (msb << 4) | digit;
+            } else {
+                lsb = (lsb << 4) | digit;
+            }
+        }
+        return new UUID(msb, lsb);
+    }
+
+    /**
+     * Parses an int field.
+     *
+     * @param s the text holding the field
+     * @param start the start of the field
+     * @param end the end of the field
+     * @return the parsed value
+     * @throws NumberFormatException if the field is not a valid int
+     */
+    public static int parseInt(CharSequence s, int start, int end) {
+        int i = start;
+        boolean negative = i < end && s.charAt(i) == '-';
+        if (negative || (i < end && s.charAt(i) == '+')) {
+            i++;
+        }
+        if (i == end || end - i > 10) {
+            throw new NumberFormatException("Invalid int: " + s.subSequence(start, end));
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            value = value * 10 + decimalValue(s.charAt(i));
+        }
+        return toInt(negative ? -value : value);
+    }
+
+    /**
+     * Parses an int field.
+     *
+     * @param buffer the buffer holding the field
+     * @param start the start of the field
+     * @param end the end of the field
+     * @return the parsed value
+     * @throws NumberFormatException if the field is not a valid int
+     */
+    public static int parseInt(ByteBuffer buffer, int start, int end) {
+        int i = start;
+        boolean negative = i < end && buffer.get(i) == '-';
+        if (negative || (i < end && buffer.get(i) == '+')) {
+            i++;
+        }
+        if (i == end || end - i > 10) {
+            throw new NumberFormatException("Invalid int: " + ascii(buffer, start, end));
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            value = value * 10 + decimalValue(buffer.get(i));
+        }
+        return toInt(negative ? -value : value);
+    }
+
+    /**
+     * Parses a double field. Plain decimals with at most 18 digits are converted exactly without
+     * allocating; anything else is handed to {@link Double#parseDouble(String)}.
+     *
+     * @param s the text holding the field
+     * @param start the start of the field
+     * @param end the end of the field
+     * @return the parsed value
+     * @throws NumberFormatException if the field is not a valid double
+     */
+    public static double parseDouble(CharSequence s, int start, int end) {
+        int i = start;
+        boolean negative = i < end && s.charAt(i) == '-';
+        if (negative || (i < end && s.charAt(i) == '+')) {
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int scale = -1;
+        for (; i < end; i++) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9' && digits < 18) {
+                mantissa = mantissa * 10 + (c - '0');
+                digits++;
+                if (scale >= 0) {
+                    scale++;
+                }
+            } else if (c == '.' && scale < 0) {
+                scale = 0;
+            } else {
+                return Double.parseDouble(s.subSequence(start, end).toString());
+            }
+        }
+        if (digits == 0 || mantissa > MAX_EXACT_MANTISSA || scale >= POWERS_OF_TEN.length) {
+            return Double.parseDouble(s.subSequence(start, end).toString());
+        }
+        return exactDouble(negative, mantissa, scale);
+    }
+
+    /**
+     * Parses a double field. Plain decimals with at most 18 digits are converted exactly without
+     * allocating; anything else is handed to {@link Double#parseDouble(String)}.
+     *
+     * @param buffer the buffer holding the field
+     * @param start the start of the field
+     * @param end the end of the field
+     * @return the parsed value
+     * @throws NumberFormatException if the field is not a valid double
+     */
+    public static double parseDouble(ByteBuffer buffer, int start, int end) {
+        int i = start;
+        boolean negative = i < end && buffer.get(i) == '-';
+        if (negative || (i < end && buffer.get(i) == '+')) {
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int scale = -1;
+        for (; i < end; i++) {
+            byte c = buffer.get(i);
+            if (c >= '0' && c <= '9' && digits < 18) {
+                mantissa = mantissa * 10 + (c - '0');
+                digits++;
+                if (scale >= 0) {
+                    scale++;
+                }
+            } else if (c == '.' && scale < 0) {
+                scale = 0;
+            } else {
+                return Double.parseDouble(ascii(buffer, start, end));
+            }
+        }
+        if (digits == 0 || mantissa > MAX_EXACT_MANTISSA || scale >= POWERS_OF_TEN.length) {
+            return Double.parseDouble(ascii(buffer, start, end));
+        }
+        return exactDouble(negative, mantissa, scale);
+    }
+
+    /**
+     * Parses an ISO-8601 date field ({@code yyyy-MM-dd}).
+     *
+     * @param s the text holding the field
+     * @param start the start of the field
+     * @param end the end of the field
+     * @return the parsed date
+     * @throws java.time.DateTimeException if the field is not a valid date
+     */
+    public static LocalDate parseDate(CharSequence s, int start, int end) {
+        if (end - start != 10 || s.charAt(start + 4) != '-' || s.charAt(start + 7) != '-') {
+            return LocalDate.parse(s.subSequence(start, end));
+        }
+        return LocalDate.of(
+                parseInt(s, start, start + 4),
+                parseInt(s, start + 5, start + 7),
+                parseInt(s, start + 8, start + 10));
+    }
+
+    /**
+     * Parses an ISO-8601 date field ({@code yyyy-MM-dd}).
+     *
+     * @param buffer the buffer holding the field
+     * @param start the start of the field
+     * @param end the end of the field
+     * @return the parsed date
+     * @throws java.time.DateTimeException if the field is not a valid date
+     */
+    public static LocalDate parseDate(ByteBuffer buffer, int start, int end) {
+        if (end - start != 10 || buffer.get(start + 4) != '-' || buffer.get(start + 7) != '-') {
+            return LocalDate.parse(ascii(buffer, start, end));
+        }
+        return LocalDate.of(
+                parseInt(buffer, start, start + 4),
+                parseInt(buffer, start + 5, start + 7),
+                parseInt(buffer, start + 8, start + 10));
+    }
+
+    /**
+     * Writes a {@link UUID} in its canonical form.
+     *
+     * @param out the buffer to write to
+     * @param id the UUID to write
+     */
+    public static void putUuid(ByteBuffer out, UUID id) {
+        putHex(out, id.getMostSignificantBits() >>> 32, 8);
+        out.put((byte) '-');
+        putHex(out, id.getMostSignificantBits() >>> 16, 4);
+        out.put((byte) '-');
+        putHex(out, id.getMostSignificantBits(), 4);
+        out.put((byte) '-');
+        putHex(out, id.getLeastSignificantBits() >>> 48, 4);
+        out.put((byte) '-');
+        putHex(out, id.getLeastSignificantBits(), 12);
+    }
+
+    /**
+     * Writes an int in decimal.
+     *
+     * @param out the buffer to write to
+     * @param value the value to write
+     */
+    public static void putInt(ByteBuffer out, int value) {
+        if (value < 0) {
+            out.put((byte) '-');
+        }
+        putDigits(out, Math.abs((long) value), 1);
+    }
+
+    /**
+     * Writes a double the way {@link Double#toString(double)} does. Values that can be written in
+     * plain notation with at most six fraction digits are formatted without allocating.
+     *
+     * @param out the buffer to write to
+     * @param value the value to write
+     */
+    public static void putDouble(ByteBuffer out, double value) {
+        double magnitude = Math.abs(value);
+        boolean plain = (magnitude >= 1e-3 && magnitude < 1e7) || Double.doubleToRawLongBits(value) == 0;
+        if (plain) {
+            for (int scale = 1; scale <= MAX_FRACTION_DIGITS; scale++) {
+                double scaled = magnitude * POWERS_OF_TEN[scale];
+                long mantissa = (long) scaled;
+                if (mantissa == scaled && mantissa / POWERS_OF_TEN[scale] == magnitude) {
+                    while (scale > 1 && mantissa % 10 == 0) {
+                        mantissa /= 10;
+                        scale--;
+                    }
+                    if (value < 0) {
+                        out.put((byte) '-');
+                    }
+                    long unit = (long) POWERS_OF_TEN[scale];
+                    putDigits(out, mantissa / unit, 1);
+                    out.put((byte) '.');
+                    putDigits(out, mantissa % unit, scale);
+                    return;
+                }
+            }
+        }
+        putAscii(out, Double.toString(value));
+    }
+
+    /**
+     * Writes a date in ISO-8601 form ({@code yyyy-MM-dd}).
+     *
+     * @param out the buffer to write to
+     * @param date the date to write
+     */
+    public static void putDate(ByteBuffer out, LocalDate date) {
+        int year = date.getYear();
+        if (year < 0 || year > 9999) {
+            putAscii(out, date.toString());
+            return;
+        }
+        putDigits(out, year, 4);
+        out.put((byte) '-');
+        putDigits(out, date.getMonthValue(), 2);
+        out.put((byte) '-');
+        putDigits(out, date.getDayOfMonth(), 2);
+    }
+
+    /**
+     * Writes an ASCII string.
+     *
+     * @param out the buffer to write to
+     * @param s the string to write; every character must be ASCII
+     */
+    public static void putAscii(ByteBuffer out, String s) {
+        for (int i = 0; i < s.length(); i++) {
+            out.put((byte) s.charAt(i));
+        }
+    }
+
+    /**
+     * Writes a non-negative number in decimal, left-padded with zeros to the given width.
+     *
+     * @param out the buffer to write to
+     * @param value the value to write
+     * @param minDigits the minimum number of digits to write
+     */
+    private static void putDigits(ByteBuffer out, long value, int minDigits) {
+        int digits = 1;
+        for (long rest = value / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        digits = Math.max(digits, minDigits);
+        int position = out.position();
+        long rest = value;
+        for (int i = digits - 1; i >= 0; i--) {
+            out.put(position + i, (byte) ('0' + rest % 10));
+            rest /= 10;
+        }
+        out.position(position + digits);
+    }
+
+    /**
+     * Writes the lowest {@code digits} hex digits of a value.
+     *
+     * @param out the buffer to write to
+     * @param value the value to write
+     * @param digits the number of hex digits to write
+     */
+    private static void putHex(ByteBuffer out, long value, int digits) {
+        for (int shift = (digits - 1) * 4; shift >= 0; shift -= 4) {
+            out.put(HEX_DIGITS[(int) (value >>> shift) & 0xF]);
+        }
+    }
+
+    /**
+     * Converts a decimal mantissa and scale to a double. Both the mantissa and the power of ten are
+     * exactly representable, so the single division is correctly rounded.
+     *
+     * @param negative whether the value is negative
+     * @param mantissa the decimal digits of the value, at most 2^53
+     * @param scale the number of fraction digits, or -1 if there is no decimal point
+     * @return the parsed value
+     */
+    private static double exactDouble(boolean negative, long mantissa, int scale) {
+        double value = scale <= 0 ? mantissa : mantissa / POWERS_OF_TEN[scale];
+        return negative ? -value : value;
+    }
+
+    /**
+     * Narrows a parsed long to an int.
+     *
+     * @param value the parsed value
+     * @return the value as an int
+     * @throws NumberFormatException if the value is out of range
+     */
+    private static int toInt(long value) {
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Value out of int range: " + value);
+        }
+        return (int) value;
+    }
+
+    /**
+     * Returns the value of a decimal digit.
+     *
+     * @param c the digit
+     * @return the value of the digit
+     * @throws NumberFormatException if the character is not a decimal digit
+     */
+    private static int decimalValue(int c) {
+        if (c < '0' || c > '9') {
+            throw new NumberFormatException("Invalid digit: " + (char) c);
+        }
+        return c - '0';
+    }
+
+    /**
+     * Returns the value of a hex digit.
+     *
+     * @param c the digit
+     * @return the value of the digit
+     * @throws IllegalArgumentException if the character is not a hex digit
+     */
+    private static int hexValue(int c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        throw new IllegalArgumentException("Invalid hex digit: " + (char) c);
+    }
+
+    /**
+     * Decodes a range of a buffer as ASCII text. Only used on the slow paths.
+     *
+     * @param buffer the buffer holding the text
+     * @param start the start of the range
+     * @param end the end of the range
+     * @return the decoded text
+     */
+    private static String ascii(ByteBuffer buffer, int start, int end) {
+        byte[] bytes = new byte[end - start];
+        buffer.get(start, bytes);
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+}
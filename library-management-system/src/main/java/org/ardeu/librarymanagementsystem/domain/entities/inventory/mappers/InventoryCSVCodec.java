@@ -0,0 +1,129 @@
+package org.ardeu.librarymanagementsystem.domain.entities.inventory.mappers;
+
+import org.ardeu.librarymanagementsystem.domain.entities.base.mappers.CSVFields;
+import org.ardeu.librarymanagementsystem.domain.entities.inventory.Inventory;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Hand-written codec for the CSV representation of an inventory entry.
+ * <p>
+ * Lines are parsed field by field straight from a {@link CharSequence} or a {@link ByteBuffer},
+ * without splitting them into substrings, and encoded as ASCII into a caller-provided, reusable
+ * {@link ByteBuffer}. The format is:
+ * <pre>
+ * ID,BookID,AvailableCopies,TotalCopies,Price
+ * </pre>
+ * The codec is stateless and may be shared between threads.
+ * </p>
+ * @see Inventory
+ */
+public class InventoryCSVCodec {
+
+    /**
+     * The maximum length of an encoded inventory entry, used to size encoding buffers.
+     */
+    public static final int MAX_LINE_LENGTH = 2 * CSVFields.UUID_LENGTH
+            + 2 * CSVFields.MAX_INT_LENGTH
+            + CSVFields.MAX_DOUBLE_LENGTH
+            + 4;
+
+    /**
+     * Parses an inventory entry from a range of a character sequence.
+     *
+     * @param line the text holding the line
+     * @param start the start of the line, inclusive
+     * @param end the end of the line, exclusive
+     * @return the parsed inventory entry
+     * @throws IllegalArgumentException if the line is in an invalid format or contains invalid data
+     */
+    public Inventory decode(CharSequence line, int start, int end) {
+        try {
+            int fieldEnd = CSVFields.fieldEnd(line, start, end);
+            UUID id = CSVFields.parseUuid(line, start, fieldEnd);
+            int fieldStart = CSVFields.nextField(fieldEnd, end);
+
+            fieldEnd = CSVFields.fieldEnd(line, fieldStart, end);
+            UUID bookId = CSVFields.parseUuid(line, fieldStart, fieldEnd);
+            fieldStart = CSVFields.nextField(fieldEnd, end);
+
+            fieldEnd = CSVFields.fieldEnd(line, fieldStart, end);
+            int availableCopies = CSVFields.parseInt(line, fieldStart, fieldEnd);
+            fieldStart = CSVFields.nextField(fieldEnd, end);
+
+            fieldEnd = CSVFields.fieldEnd(line, fieldStart, end);
+            int totalCopies = CSVFields.parseInt(line, fieldStart, fieldEnd);
+            fieldStart = CSVFields.nextField(fieldEnd, end);
+
+            fieldEnd = CSVFields.fieldEnd(line, fieldStart, end);
+            double price = CSVFields.parseDouble(line, fieldStart, fieldEnd);
+            if (fieldEnd != end) {
+                throw new IllegalArgumentException("Trailing fields");
+            }
+            return new Inventory(id, bookId, availableCopies, totalCopies, price);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid CSV format for Inventory: " + line.subSequence(start, end), e);
+        }
+    }
+
+    /**
+     * Parses an inventory entry from a range of a byte buffer holding ASCII text.
+     *
+     * @param buffer the buffer holding the line
+     * @param start the start of the line, inclusive
+     * @param end the end of the line, exclusive
+     * @return the parsed inventory entry
+     * @throws IllegalArgumentException if the line is in an invalid format or contains invalid data
+     */
+    public Inventory decode(ByteBuffer buffer, int start, int end) {
+        try {
+            int fieldEnd = CSVFields.fieldEnd(buffer, start, end);
+            UUID id = CSVFields.parseUuid(buffer, start, fieldEnd);
+            int fieldStart = CSVFields.nextField(fieldEnd, end);
+
+            fieldEnd = CSVFields.fieldEnd(buffer, fieldStart, end);
+            UUID bookId = CSVFields.parseUuid(buffer, fieldStart, fieldEnd);
+            fieldStart = CSVFields.nextField(fieldEnd, end);
+
+            fieldEnd = CSVFields.fieldEnd(buffer, fieldStart, end);
+            int availableCopies = CSVFields.parseInt(buffer, fieldStart, fieldEnd);
+            fieldStart = CSVFields.nextField(fieldEnd, end);
+
+            fieldEnd = CSVFields.fieldEnd(buffer, fieldStart, end);
+            int totalCopies = CSVFields.parseInt(buffer, fieldStart, fieldEnd);
+            fieldStart = CSVFields.nextField(fieldEnd, end);
+
+            fieldEnd = CSVFields.fieldEnd(buffer, fieldStart, end);
+            double price = CSVFields.parseDouble(buffer, fieldStart, fieldEnd);
+            if (fieldEnd != end) {
+                throw new IllegalArgumentException("Trailing fields");
+            }
+            return new Inventory(id, bookId, availableCopies, totalCopies, price);
+        } catch (IllegalArgumentException e) {
+            byte[] bytes = new byte[end - start];
+            buffer.get(start, bytes);
+            throw new IllegalArgumentException("Invalid CSV format for Inventory: "
+                    + new String(bytes, StandardCharsets.US_ASCII), e);
+        }
+    }
+
+    /**
+     * Encodes an inventory entry as ASCII at the buffer's position, without line terminator.
+     *
+     * @param inventory the inventory entry to encode
+     * @param out the buffer to write to; must have at least {@link #MAX_LINE_LENGTH} bytes remaining
+     */
+    public void encode(Inventory inventory, ByteBuffer out) {
+        CSVFields.putUuid(out, inventory.getId());
+        out.put((byte) CSVFields.SEPARATOR);
+        CSVFields.putUuid(out, inventory.getBookId());
+        out.put((byte) CSVFields.SEPARATOR);
+        CSVFields.putInt(out, inventory.getAvailableCopies());
+        out.put((byte) CSVFields.SEPARATOR);
+        CSVFields.putInt(out, inventory.getTotalCopies());
+        out.put((byte) CSVFields.SEPARATOR);
+        CSVFields.putDouble(out, inventory.getPrice());
+    }
+}
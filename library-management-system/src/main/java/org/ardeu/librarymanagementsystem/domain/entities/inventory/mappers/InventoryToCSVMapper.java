@@ -2,13 +2,19 @@ package org.ardeu.librarymanagementsystem.domain.entities.inventory.mappers;
 
 import org.ardeu.librarymanagementsystem.domain.entities.inventory.Inventory;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.function.Function;
 
 /**
  * This class is responsible for mapping an {@link Inventory} object to a CSV string.
- * It implements the {@link Function} interface and converts an Inventory entity into a comma-separated string.
+ * It implements the {@link Function} interface and converts an Inventory entity into a comma-separated string
+ * using {@link InventoryCSVCodec}.
  */
 public class InventoryToCSVMapper implements Function<Inventory, String> {
+
+    private static final InventoryCSVCodec CODEC = new InventoryCSVCodec();
+
     /**
      * Converts an {@link Inventory} object into a CSV string.
      * The resulting string will be in the following format:
@@ -19,12 +25,8 @@ public class InventoryToCSVMapper implements Function<Inventory, String> {
      */
     @Override
     public String apply(Inventory inventory) {
-        return String.join(",",
-                inventory.getId().toString(),
-                inventory.getBookId().toString(),
-                String.valueOf(inventory.getAvailableCopies()),
-                String.valueOf(inventory.getTotalCopies()),
-                String.valueOf(inventory.getPrice())
-        );
+        ByteBuffer buffer = ByteBuffer.allocate(InventoryCSVCodec.MAX_LINE_LENGTH);
+        CODEC.encode(inventory, buffer);
+        return new String(buffer.array(), 0, buffer.position(), StandardCharsets.US_ASCII);
     }
 }
@@ -2,7 +2,8 @@ package org.ardeu.librarymanagementsystem.domain.entities.loan;
 
 /**
  * Enum representing the possible statuses of a loan.
- * A loan can be either active or returned.
+ * A loan is active until its book is returned, and overdue once its due date has passed without the
+ * book being returned.
  */
 public enum LoanStatus {
 
@@ -14,5 +15,10 @@ public enum LoanStatus {
     /**
      * The loan has been completed, and the book has been returned.
      */
-    RETURNED;
+    RETURNED,
+
+    /**
+     * The due date of the loan has passed, and the book has not been returned.
+     */
+    OVERDUE;
 }
\ No newline at end of file
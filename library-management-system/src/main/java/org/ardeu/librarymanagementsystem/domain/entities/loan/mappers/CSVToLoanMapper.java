@@ -1,19 +1,19 @@
 package org.ardeu.librarymanagementsystem.domain.entities.loan.mappers;
 
 import org.ardeu.librarymanagementsystem.domain.entities.loan.Loan;
-import org.ardeu.librarymanagementsystem.domain.entities.loan.LoanStatus;
 
-import java.time.LocalDate;
-import java.util.UUID;
 import java.util.function.Function;
 
 /**
  * Maps a CSV string representation of a loan to a Loan object.
  * @see Loan
+ * @see LoanCSVCodec
  * @see Function
  */
 public class CSVToLoanMapper implements Function<String, Loan> {
 
+    private static final LoanCSVCodec CODEC = new LoanCSVCodec();
+
     /**
      * Converts a CSV string into a Loan object.
      * <p>
@@ -28,19 +28,6 @@ public class CSVToLoanMapper implements Function<String, Loan> {
      */
     @Override
     public Loan apply(String s) {
-        String[] values = s.split(",");
-        if (values.length != 8) {
-            throw new IllegalArgumentException("Invalid CSV string: " + s);
-        }
-        return new Loan(
-                UUID.fromString(values[0]),
-                UUID.fromString(values[1]),
-                UUID.fromString(values[2]),
-                Double.parseDouble(values[3]),
-                LocalDate.parse(values[4]),
-                LocalDate.parse(values[5]),
-                values[6].isEmpty() ? null : LocalDate.parse(values[6]),
-                LoanStatus.valueOf(values[7])
-        );
+        return CODEC.decode(s, 0, s.length());
     }
 }
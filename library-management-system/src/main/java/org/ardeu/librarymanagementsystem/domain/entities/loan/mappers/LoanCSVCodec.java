@@ -0,0 +1,193 @@
+package org.ardeu.librarymanagementsystem.domain.entities.loan.mappers;
+
+import org.ardeu.librarymanagementsystem.domain.entities.base.mappers.CSVFields;
+import org.ardeu.librarymanagementsystem.domain.entities.loan.Loan;
+import org.ardeu.librarymanagementsystem.domain.entities.loan.LoanStatus;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Hand-written codec for the CSV representation of a loan.
+ * <p>
+ * Lines are parsed field by field straight from a {@link CharSequence} or a {@link ByteBuffer},
+ * without splitting them into substrings, and encoded as ASCII into a caller-provided, reusable
+ * {@link ByteBuffer}. The only objects created per line are the ones making up the {@link Loan}.
+ * The format is:
+ * <pre>
+ * ID,Member ID,Book ID,Price,Loan Date,Due Date,Return Date (optional),Status
+ * </pre>
+ * The codec is stateless and may be shared between threads.
+ * </p>
+ * @see Loan
+ */
+public class LoanCSVCodec {
+
+    /**
+     * The maximum length of an encoded loan, used to size encoding buffers.
+     */
+    public static final int MAX_LINE_LENGTH = 3 * CSVFields.UUID_LENGTH
+            + CSVFields.MAX_DOUBLE_LENGTH
+            + 3 * CSVFields.MAX_DATE_LENGTH
+            + maxStatusLength()
+            + 7;
+
+    private static final LoanStatus[] STATUSES = LoanStatus.values();
+
+    /**
+     * Parses a loan from a range of a character sequence.
+     *
+     * @param line the text holding the line
+     * @param start the start of the line, inclusive
+     * @param end the end of the line, exclusive
+     * @return the parsed loan
+     * @throws IllegalArgumentException if the line is in an invalid format or contains invalid data
+     */
+    public Loan decode(CharSequence line, int start, int end) {
+        try {
+            int fieldEnd = CSVFields.fieldEnd(line, start, end);
+            UUID id = CSVFields.parseUuid(line, start, fieldEnd);
+            int fieldStart = CSVFields.nextField(fieldEnd, end);
+
+            fieldEnd = CSVFields.fieldEnd(line, fieldStart, end);
+            UUID memberId = CSVFields.parseUuid(line, fieldStart, fieldEnd);
+            fieldStart = CSVFields.nextField(fieldEnd, end);
+
+            fieldEnd = CSVFields.fieldEnd(line, fieldStart, end);
+            UUID bookId = CSVFields.parseUuid(line, fieldStart, fieldEnd);
+            fieldStart = CSVFields.nextField(fieldEnd, end);
+
+            fieldEnd = CSVFields.fieldEnd(line, fieldStart, end);
+            double price = CSVFields.parseDouble(line, fieldStart, fieldEnd);
+            fieldStart = CSVFields.nextField(fieldEnd, end);
+
+            fieldEnd = CSVFields.fieldEnd(line, fieldStart, end);
+            LocalDate loanDate = CSVFields.parseDate(line, fieldStart, fieldEnd);
+            fieldStart = CSVFields.nextField(fieldEnd, end);
+
+            fieldEnd = CSVFields.fieldEnd(line, fieldStart, end);
+            LocalDate dueDate = CSVFields.parseDate(line, fieldStart, fieldEnd);
+            fieldStart = CSVFields.nextField(fieldEnd, end);
+
+            fieldEnd = CSVFields.fieldEnd(line, fieldStart, end);
+            LocalDate returnDate = fieldEnd == fieldStart ? null : CSVFields.parseDate(line, fieldStart, fieldEnd);
+            fieldStart = CSVFields.nextField(fieldEnd, end);
+
+            fieldEnd = CSVFields.fieldEnd(line, fieldStart, end);
+            LoanStatus status = null;
+            for (LoanStatus candidate : STATUSES) {
+                if (CSVFields.matches(line, fieldStart, fieldEnd, candidate.name())) {
+                    status = candidate;
+                    break;
+                }
+            }
+            if (Objects.isNull(status) || fieldEnd != end) {
+                throw new IllegalArgumentException("Invalid status or trailing fields");
+            }
+            return new Loan(id, memberId, bookId, price, loanDate, dueDate, returnDate, status);
+        } catch (IllegalArgumentException | DateTimeException e) {
+            throw new IllegalArgumentException("Invalid CSV string: " + line.subSequence(start, end), e);
+        }
+    }
+
+    /**
+     * Parses a loan from a range of a byte buffer holding ASCII text.
+     *
+     * @param buffer the buffer holding the line
+     * @param start the start of the line, inclusive
+     * @param end the end of the line, exclusive
+     * @return the parsed loan
+     * @throws IllegalArgumentException if the line is in an invalid format or contains invalid data
+     */
+    public Loan decode(ByteBuffer buffer, int start, int end) {
+        try {
+            int fieldEnd = CSVFields.fieldEnd(buffer, start, end);
+            UUID id = CSVFields.parseUuid(buffer, start, fieldEnd);
+            int fieldStart = CSVFields.nextField(fieldEnd, end);
+
+            fieldEnd = CSVFields.fieldEnd(buffer, fieldStart, end);
+            UUID memberId = CSVFields.parseUuid(buffer, fieldStart, fieldEnd);
+            fieldStart = CSVFields.nextField(fieldEnd, end);
+
+            fieldEnd = CSVFields.fieldEnd(buffer, fieldStart, end);
+            UUID bookId = CSVFields.parseUuid(buffer, fieldStart, fieldEnd);
+            fieldStart = CSVFields.nextField(fieldEnd, end);
+
+            fieldEnd = CSVFields.fieldEnd(buffer, fieldStart, end);
+            double price = CSVFields.parseDouble(buffer, fieldStart, fieldEnd);
+            fieldStart = CSVFields.nextField(fieldEnd, end);
+
+            fieldEnd = CSVFields.fieldEnd(buffer, fieldStart, end);
+            LocalDate loanDate = CSVFields.parseDate(buffer, fieldStart, fieldEnd);
+            fieldStart = CSVFields.nextField(fieldEnd, end);
+
+            fieldEnd = CSVFields.fieldEnd(buffer, fieldStart, end);
+            LocalDate dueDate = CSVFields.parseDate(buffer, fieldStart, fieldEnd);
+            fieldStart = CSVFields.nextField(fieldEnd, end);
+
+            fieldEnd = CSVFields.fieldEnd(buffer, fieldStart, end);
+            LocalDate returnDate = fieldEnd == fieldStart ? null : CSVFields.parseDate(buffer, fieldStart, fieldEnd);
+            fieldStart = CSVFields.nextField(fieldEnd, end);
+
+            fieldEnd = CSVFields.fieldEnd(buffer, fieldStart, end);
+            LoanStatus status = null;
+            for (LoanStatus candidate : STATUSES) {
+                if (CSVFields.matches(buffer, fieldStart, fieldEnd, candidate.name())) {
+                    status = candidate;
+                    break;
+                }
+            }
+            if (Objects.isNull(status) || fieldEnd != end) {
+                throw new IllegalArgumentException("Invalid status or trailing fields");
+            }
+            return new Loan(id, memberId, bookId, price, loanDate, dueDate, returnDate, status);
+        } catch (IllegalArgumentException | DateTimeException e) {
+            byte[] bytes = new byte[end - start];
+            buffer.get(start, bytes);
+            throw new IllegalArgumentException("Invalid CSV string: " + new String(bytes, StandardCharsets.US_ASCII), e);
+        }
+    }
+
+    /**
+     * Encodes a loan as ASCII at the buffer's position, without line terminator.
+     *
+     * @param loan the loan to encode
+     * @param out the buffer to write to; must have at least {@link #MAX_LINE_LENGTH} bytes remaining
+     */
+    public void encode(Loan loan, ByteBuffer out) {
+        CSVFields.putUuid(out, loan.getId());
+        out.put((byte) CSVFields.SEPARATOR);
+        CSVFields.putUuid(out, loan.getMemberId());
+        out.put((byte) CSVFields.SEPARATOR);
+        CSVFields.putUuid(out, loan.getBookId());
+        out.put((byte) CSVFields.SEPARATOR);
+        CSVFields.putDouble(out, loan.getPrice());
+        out.put((byte) CSVFields.SEPARATOR);
+        CSVFields.putDate(out, loan.getLoanDate());
+        out.put((byte) CSVFields.SEPARATOR);
+        CSVFields.putDate(out, loan.getDueDate());
+        out.put((byte) CSVFields.SEPARATOR);
+        if (Objects.nonNull(loan.getReturnDate())) {
+            CSVFields.putDate(out, loan.getReturnDate());
+        }
+        out.put((byte) CSVFields.SEPARATOR);
+        CSVFields.putAscii(out, loan.getStatus().name());
+    }
+
+    /**
+     * Returns the length of the longest status name.
+     *
+     * @return the maximum length of an encoded status
+     */
+    private static int maxStatusLength() {
+        int length = 0;
+        for (LoanStatus status : LoanStatus.values()) {
+            length = Math.max(length, status.name().length());
+        }
+        return length;
+    }
+}
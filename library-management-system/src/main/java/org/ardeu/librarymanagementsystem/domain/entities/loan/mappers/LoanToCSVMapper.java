@@ -2,15 +2,20 @@ package org.ardeu.librarymanagementsystem.domain.entities.loan.mappers;
 
 import org.ardeu.librarymanagementsystem.domain.entities.loan.Loan;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.function.Function;
 
 /**
  * Maps a Loan object to its CSV string representation.
  * @see Loan
+ * @see LoanCSVCodec
  * @see Function
  */
 public class LoanToCSVMapper implements Function<Loan, String> {
 
+    private static final LoanCSVCodec CODEC = new LoanCSVCodec();
+
     /**
      * Converts a Loan object into a CSV string representation.
      * <p>
@@ -24,15 +29,8 @@ public class LoanToCSVMapper implements Function<Loan, String> {
      */
     @Override
     public String apply(Loan loan) {
-        return String.join(",",
-                loan.getId().toString(),
-                loan.getMemberId().toString(),
-                loan.getBookId().toString(),
-                String.valueOf(loan.getPrice()),
-                loan.getLoanDate().toString(),
-                loan.getDueDate().toString(),
-                loan.getReturnDate() == null ? "" : loan.getReturnDate().toString(),
-                loan.getStatus().toString()
-        );
+        ByteBuffer buffer = ByteBuffer.allocate(LoanCSVCodec.MAX_LINE_LENGTH);
+        CODEC.encode(loan, buffer);
+        return new String(buffer.array(), 0, buffer.position(), StandardCharsets.US_ASCII);
     }
 }
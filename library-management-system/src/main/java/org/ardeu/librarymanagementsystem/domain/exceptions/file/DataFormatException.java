@@ -9,6 +9,15 @@ import java.io.IOException;
  */
 public class DataFormatException extends IOException {
 
+    /**
+     * Constructs a new {@link DataFormatException} with the specified detail message.
+     *
+     * @param message the detail message (which is saved for later retrieval by the {@link Throwable#getMessage()} method)
+     */
+    public DataFormatException(String message) {
+        super(message);
+    }
+
     /**
      * Constructs a new {@link DataFormatException} with the specified detail message and cause.
      *
@@ -0,0 +1,41 @@
+package org.ardeu.librarymanagementsystem.domain.exceptions.service;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Exception thrown when loading or saving the data of one or more services fails.
+ * It collects the error of every failed service, so that a failure in one service does not hide
+ * the others.
+ */
+public class ServiceDataException extends RuntimeException {
+
+    /**
+     * The error of every failed service, keyed by service name.
+     */
+    private final Map<String, Throwable> failures;
+
+    /**
+     * Constructs a new {@link ServiceDataException} for the given action and failures.
+     *
+     * @param action the action that failed ("loading" or "saving")
+     * @param failures the error of every failed service, keyed by service name
+     */
+    public ServiceDataException(String action, Map<String, Throwable> failures) {
+        super("Error " + action + " data for " + failures.entrySet().stream()
+                .map(failure -> failure.getKey() + " (" + failure.getValue().getMessage() + ")")
+                .collect(Collectors.joining(", ")));
+        this.failures = Collections.unmodifiableMap(failures);
+        failures.values().forEach(this::addSuppressed);
+    }
+
+    /**
+     * Gets the error of every failed service.
+     *
+     * @return the errors keyed by service name
+     */
+    public Map<String, Throwable> getFailures() {
+        return failures;
+    }
+}
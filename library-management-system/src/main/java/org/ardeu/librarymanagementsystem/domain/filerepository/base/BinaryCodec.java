@@ -0,0 +1,31 @@
+package org.ardeu.librarymanagementsystem.domain.filerepository.base;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * A generic interface for encoding values of type {@link T} to a binary stream and decoding them back.
+ *
+ * @param <T> the type of value handled by the codec
+ */
+public interface BinaryCodec<T> {
+
+    /**
+     * Writes the given value to the output.
+     *
+     * @param out the output to write to
+     * @param value the value to write
+     * @throws IOException if an I/O error occurs while writing
+     */
+    void write(DataOutput out, T value) throws IOException;
+
+    /**
+     * Reads a value from the input.
+     *
+     * @param in the input to read from
+     * @return the value read from the input
+     * @throws IOException if an I/O error occurs or the data is malformed
+     */
+    T read(DataInput in) throws IOException;
+}
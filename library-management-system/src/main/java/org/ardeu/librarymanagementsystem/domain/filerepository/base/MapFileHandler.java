@@ -2,6 +2,7 @@ package org.ardeu.librarymanagementsystem.domain.filerepository.base;
 
 import java.io.IOException;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Abstract class for handling file operations related to a map (key-value pairs).
@@ -39,6 +40,23 @@ public abstract class MapFileHandler<K, V> {
      */
     public abstract void writeToFile(Map<K, V> map) throws IOException;
 
+    /**
+     * Persists only the entries that changed since the file was last read or written.
+     * <p>
+     * Implementations that can append or patch records should write just the entries for
+     * {@code changedKeys} and drop the ones for {@code removedKeys}. The default implementation
+     * rewrites the whole file with {@link #writeToFile(Map)}.
+     * </p>
+     *
+     * @param map the complete, current map
+     * @param changedKeys the keys added or updated since the last read or write
+     * @param removedKeys the keys removed since the last read or write
+     * @throws IOException if an I/O error occurs while writing to the file
+     */
+    public void writeChanges(Map<K, V> map, Set<K> changedKeys, Set<K> removedKeys) throws IOException {
+        writeToFile(map);
+    }
+
     /**
      * Retrieves the file name associated with this MapFileHandler.
      *
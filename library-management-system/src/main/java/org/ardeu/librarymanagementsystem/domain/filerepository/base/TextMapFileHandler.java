@@ -0,0 +1,433 @@
+package org.ardeu.librarymanagementsystem.domain.filerepository.base;
+
+import org.ardeu.librarymanagementsystem.domain.entities.base.BaseEntity;
+import org.ardeu.librarymanagementsystem.domain.entities.base.mappers.CSVFields;
+import org.ardeu.librarymanagementsystem.domain.exceptions.file.DataFormatException;
+import org.ardeu.librarymanagementsystem.domain.filerepository.io.AtomicFileWriter;
+import org.ardeu.librarymanagementsystem.domain.filerepository.io.ChecksummedChannelWriter;
+import org.ardeu.librarymanagementsystem.domain.filerepository.io.MappedTextFile;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.zip.CRC32C;
+
+/**
+ * Base class for file handlers that store one entity per line of a text file.
+ * <p>
+ * The file is made of segments. Each segment starts with a header line
+ * ({@value #SEGMENT_HEADER_PREFIX} followed by the line count and the CRC32C of those lines)
+ * and is followed by exactly that many entity or tombstone lines. A full write produces a single
+ * segment and atomically replaces the file; an incremental save appends a new segment holding the
+ * changed entities and tombstones ({@value #TOMBSTONE_PREFIX} followed by the ID) for removed ones.
+ * When reading, later lines override earlier ones. Once the file holds more than twice as many
+ * lines as live entities, the next incremental save rewrites it in full instead.
+ * </p>
+ * <p>
+ * A segment whose checksum does not match is the tail of an append interrupted by a crash; it is
+ * ignored and the next save rewrites the file. Appends therefore go straight to the end of the file
+ * rather than through {@link AtomicFileWriter}: they never touch the segments already written, so a
+ * crash can only damage the new segment, which then fails validation. Files written before segments were introduced have
+ * no header and are read line by line without validation.
+ * </p>
+ *
+ * @param <V> the type of entity stored in the file
+ */
+public abstract class TextMapFileHandler<V extends BaseEntity> extends MapFileHandler<UUID, V> {
+
+    /**
+     * The prefix of a line marking the entity with the following ID as removed.
+     */
+    public static final String TOMBSTONE_PREFIX = "-";
+
+    /**
+     * The prefix of the header line starting every segment.
+     */
+    public static final String SEGMENT_HEADER_PREFIX = "#records ";
+
+    /**
+     * The format of a segment header; fixed width so it can be patched in place once the segment is written.
+     */
+    private static final String SEGMENT_HEADER_FORMAT = SEGMENT_HEADER_PREFIX + "%010d %08x\n";
+
+    /**
+     * The segment header prefix as it appears in the file.
+     */
+    private static final byte[] SEGMENT_HEADER_BYTES = SEGMENT_HEADER_PREFIX.getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * The line count written into a header before its segment is complete; no real segment has a negative count.
+     */
+    private static final int PENDING_COUNT = -1;
+
+    /**
+     * The number of lines below which incremental saves never trigger a full rewrite.
+     */
+    private static final int MIN_COMPACTION_RECORDS = 1024;
+
+    /**
+     * The initial length of the buffer used when writing a segment.
+     */
+    private static final int WRITE_BUFFER_LENGTH = 64 * 1024;
+
+    /**
+     * The smallest chunk handed to a single parsing task when reading.
+     */
+    private static final long MIN_CHUNK_LENGTH = 1L << 20;
+
+    private final Function<String, V> lineToEntityMapper;
+    private final Function<V, String> entityToLineMapper;
+
+    /**
+     * The number of entity and tombstone lines currently in the file.
+     */
+    private int recordsInFile;
+
+    /**
+     * Whether the last read found a damaged segment, in which case the file must not be appended to.
+     */
+    private boolean damaged;
+
+    /**
+     * Constructs a new {@link TextMapFileHandler} with the specified file name and line mappers.
+     *
+     * @param fileName the name of the file where data will be read from or written to
+     * @param lineToEntityMapper the mapper converting a line to an entity
+     * @param entityToLineMapper the mapper converting an entity to a line
+     */
+    protected TextMapFileHandler(String fileName,
+                                 Function<String, V> lineToEntityMapper,
+                                 Function<V, String> entityToLineMapper) {
+        super(fileName);
+        this.lineToEntityMapper = lineToEntityMapper;
+        this.entityToLineMapper = entityToLineMapper;
+    }
+
+    /**
+     * Reads a map of entity IDs to entities from the text file specified by {@code fileName}.
+     * <p>
+     * The file is memory-mapped and every segment is checked against the count and checksum in its
+     * header. The validated lines are then cut into newline-aligned chunks that are parsed in parallel
+     * on the common fork-join pool, and the chunk results are applied to the map in file order.
+     * </p>
+     *
+     * @return a map of entity IDs to entities read from the file
+     * @throws IOException if an I/O error occurs while reading the file
+     * @throws DataFormatException if the first segment of the file is damaged
+     */
+    @Override
+    public Map<UUID, V> readFromFile() throws IOException {
+        List<ParsedChunk<V>> parsed;
+        boolean segmented = false;
+        boolean intact = true;
+        try (MappedTextFile file = new MappedTextFile(Paths.get(this.getFileName()))) {
+            long size = file.size();
+            List<ByteBuffer> chunks = new ArrayList<>();
+            long chunkLength = Math.max(MIN_CHUNK_LENGTH, size / (4L * ForkJoinPool.getCommonPoolParallelism()));
+
+            long position = 0;
+            while (position < size && !file.startsWith(position, SEGMENT_HEADER_BYTES)) {
+                long next = file.nextLine(position);
+                position = next < 0 ? size : next;
+            }
+            chunks.addAll(file.split(0, position, chunkLength));
+
+            while (position < size) {
+                long end = file.startsWith(position, SEGMENT_HEADER_BYTES) ? validateSegment(file, position) : -1;
+                if (end < 0) {
+                    intact = false;
+                    break;
+                }
+                chunks.addAll(file.split(file.nextLine(position), end, chunkLength));
+                segmented = true;
+                position = end;
+            }
+
+            parsed = chunks.parallelStream()
+                    .map(this::parseChunk)
+                    .toList();
+        }
+
+        int records = parsed.stream().mapToInt(ParsedChunk::size).sum();
+        if (!intact && !segmented && records == 0) {
+            throw new DataFormatException("Data file " + this.getFileName() + " is corrupted.");
+        }
+
+        Map<UUID, V> map = HashMap.newHashMap(records);
+        parsed.forEach(chunk -> chunk.applyTo(map));
+        this.damaged = !intact;
+        this.recordsInFile = records;
+        return map;
+    }
+
+    /**
+     * Writes a map of entity IDs to entities to the text file specified by {@code fileName},
+     * atomically replacing its previous content with a single segment.
+     *
+     * @param map the map of entity IDs to entities to write to the file
+     * @throws IOException if an I/O error occurs while writing the file
+     */
+    @Override
+    public void writeToFile(Map<UUID, V> map) throws IOException {
+        AtomicFileWriter.write(Paths.get(this.getFileName()),
+                channel -> writeSegment(channel, Collections.emptySet(), map.values()));
+        this.recordsInFile = map.size();
+        this.damaged = false;
+    }
+
+    /**
+     * Appends a segment with a line for every changed entity and a tombstone for every removed one,
+     * and forces it to disk. Falls back to {@link #writeToFile(Map)} when the file is missing or damaged,
+     * or would otherwise hold more than twice as many lines as there are live entities.
+     *
+     * @param map the complete, current map
+     * @param changedKeys the keys added or updated since the last read or write
+     * @param removedKeys the keys removed since the last read or write
+     * @throws IOException if an I/O error occurs while writing the file
+     */
+    @Override
+    public void writeChanges(Map<UUID, V> map, Set<UUID> changedKeys, Set<UUID> removedKeys) throws IOException {
+        Path path = Paths.get(this.getFileName());
+        int recordsAfterAppend = this.recordsInFile + changedKeys.size() + removedKeys.size();
+        if (this.damaged || !Files.exists(path)
+                || recordsAfterAppend > Math.max(MIN_COMPACTION_RECORDS, 2 * map.size())) {
+            writeToFile(map);
+            return;
+        }
+
+        List<V> changed = changedKeys.stream()
+                .map(map::get)
+                .filter(Objects::nonNull)
+                .toList();
+        int appended;
+        // a failed append leaves an incomplete segment that would hide any segment appended after it
+        this.damaged = true;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.position(channel.size());
+            appended = writeSegment(channel, removedKeys, changed);
+            channel.force(true);
+        }
+        this.damaged = false;
+        this.recordsInFile += appended;
+    }
+
+    /**
+     * Checks the segment starting at the given position against the count and checksum in its header.
+     *
+     * @param file the mapped file
+     * @param position the position of the segment header
+     * @return the position just past the segment, or -1 if the header is malformed, the segment is
+     *         cut short or its checksum does not match
+     */
+    private static long validateSegment(MappedTextFile file, long position) {
+        long start = file.nextLine(position);
+        if (start < 0) {
+            return -1;
+        }
+        String[] fields = file.text(position + SEGMENT_HEADER_BYTES.length, start - 1).split(" ");
+        int count;
+        long checksum;
+        try {
+            count = Integer.parseInt(fields[0]);
+            checksum = Long.parseLong(fields[1], 16);
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            return -1;
+        }
+        if (count < 0) {
+            return -1;
+        }
+
+        long end = start;
+        for (int i = 0; i < count; i++) {
+            end = file.nextLine(end);
+            if (end < 0) {
+                return -1;
+            }
+        }
+        return file.checksum(start, end) == checksum ? end : -1;
+    }
+
+    /**
+     * Writes a segment at the channel's current position, tombstones first. A placeholder header with
+     * a negative count is written first and replaced with the real count and checksum once all lines
+     * are on the channel, so a segment cut short by a crash never validates.
+     *
+     * @param channel the channel to write to
+     * @param tombstones the IDs of the removed entities
+     * @param entities the entities to write
+     * @return the number of lines written
+     * @throws IOException if an I/O error occurs while writing
+     */
+    private int writeSegment(FileChannel channel, Collection<UUID> tombstones, Collection<V> entities) throws IOException {
+        long headerPosition = channel.position();
+        channel.write(segmentHeader(PENDING_COUNT, 0));
+
+        ChecksummedChannelWriter out = new ChecksummedChannelWriter(channel, WRITE_BUFFER_LENGTH);
+        for (UUID id : tombstones) {
+            ByteBuffer buffer = out.reserve(TOMBSTONE_PREFIX.length() + CSVFields.UUID_LENGTH + 1);
+            CSVFields.putAscii(buffer, TOMBSTONE_PREFIX);
+            CSVFields.putUuid(buffer, id);
+            buffer.put((byte) '\n');
+        }
+        for (V entity : entities) {
+            encodeLine(entity, out);
+            out.reserve(1).put((byte) '\n');
+        }
+        out.flush();
+
+        int count = tombstones.size() + entities.size();
+        ByteBuffer header = segmentHeader(count, out.checksum());
+        while (header.hasRemaining()) {
+            channel.write(header, headerPosition + header.position());
+        }
+        return count;
+    }
+
+    /**
+     * Encodes a segment header.
+     *
+     * @param count the number of lines in the segment
+     * @param checksum the CRC32C of the lines
+     * @return the encoded header
+     */
+    private static ByteBuffer segmentHeader(int count, long checksum) {
+        return ByteBuffer.wrap(String.format(SEGMENT_HEADER_FORMAT, count, checksum).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Parses the entity and tombstone lines of a chunk. Empty lines are skipped and a trailing
+     * carriage return is ignored.
+     *
+     * @param chunk the chunk to parse
+     * @return the parsed lines, in chunk order
+     */
+    private ParsedChunk<V> parseChunk(ByteBuffer chunk) {
+        ParsedChunk<V> parsed = new ParsedChunk<>();
+        int limit = chunk.limit();
+        int position = 0;
+        while (position < limit) {
+            int end = position;
+            while (end < limit && chunk.get(end) != '\n') {
+                end++;
+            }
+            int lineEnd = end > position && chunk.get(end - 1) == '\r' ? end - 1 : end;
+            if (lineEnd > position) {
+                if (chunk.get(position) == TOMBSTONE_PREFIX.charAt(0)) {
+                    parsed.add(parseId(chunk, position + TOMBSTONE_PREFIX.length(), lineEnd), null);
+                } else {
+                    V entity = parseLine(chunk, position, lineEnd);
+                    parsed.add(entity.getId(), entity);
+                }
+            }
+            position = end + 1;
+        }
+        return parsed;
+    }
+
+    /**
+     * Parses a single entity line. The default implementation decodes the line and hands it to the
+     * line mapper; subclasses may parse the bytes directly instead.
+     *
+     * @param buffer the buffer holding the line
+     * @param start the start of the line, inclusive
+     * @param end the end of the line, exclusive, without line terminator
+     * @return the parsed entity
+     */
+    protected V parseLine(ByteBuffer buffer, int start, int end) {
+        return this.lineToEntityMapper.apply(decode(buffer, start, end));
+    }
+
+    /**
+     * Encodes a single entity line, without line terminator. The default implementation encodes the
+     * line produced by the line mapper as UTF-8; subclasses may encode the entity directly instead.
+     *
+     * @param entity the entity to encode
+     * @param out the writer to encode into; reserve room with {@link ChecksummedChannelWriter#reserve(int)}
+     * @throws IOException if an I/O error occurs while making room in the writer
+     */
+    protected void encodeLine(V entity, ChecksummedChannelWriter out) throws IOException {
+        byte[] bytes = this.entityToLineMapper.apply(entity).getBytes(StandardCharsets.UTF_8);
+        out.reserve(bytes.length).put(bytes);
+    }
+
+    /**
+     * Parses the ID carried by a tombstone line.
+     *
+     * @param buffer the buffer holding the line
+     * @param start the start of the ID, inclusive
+     * @param end the end of the ID, exclusive
+     * @return the parsed ID
+     */
+    private static UUID parseId(ByteBuffer buffer, int start, int end) {
+        return CSVFields.parseUuid(buffer, start, end);
+    }
+
+    /**
+     * Decodes a range of a buffer as UTF-8 text.
+     *
+     * @param buffer the buffer holding the text
+     * @param start the start of the range, inclusive
+     * @param end the end of the range, exclusive
+     * @return the decoded text
+     */
+    private static String decode(ByteBuffer buffer, int start, int end) {
+        byte[] bytes = new byte[end - start];
+        buffer.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The lines of one chunk, parsed independently of the others and applied to the map in file order.
+     *
+     * @param <V> the type of entity stored in the file
+     */
+    private static final class ParsedChunk<V> {
+
+        private final List<UUID> ids = new ArrayList<>();
+        private final List<V> entities = new ArrayList<>();
+
+        /**
+         * Records a parsed line.
+         *
+         * @param id the ID of the entity
+         * @param entity the entity, or null for a tombstone
+         */
+        void add(UUID id, V entity) {
+            this.ids.add(id);
+            this.entities.add(entity);
+        }
+
+        /**
+         * Returns the number of parsed lines.
+         *
+         * @return the number of entity and tombstone lines in the chunk
+         */
+        int size() {
+            return this.ids.size();
+        }
+
+        /**
+         * Applies the parsed lines to the map, putting entities and removing tombstoned IDs.
+         *
+         * @param map the map being read
+         */
+        void applyTo(Map<UUID, V> map) {
+            for (int i = 0; i < this.ids.size(); i++) {
+                V entity = this.entities.get(i);
+                if (Objects.isNull(entity)) {
+                    map.remove(this.ids.get(i));
+                } else {
+                    map.put(this.ids.get(i), entity);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package org.ardeu.librarymanagementsystem.domain.filerepository.codecs;
+
+import org.ardeu.librarymanagementsystem.domain.entities.author.Author;
+import org.ardeu.librarymanagementsystem.domain.filerepository.base.BinaryCodec;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * A {@link BinaryCodec} for {@link Author} entities. The layout is:
+ * <pre>
+ * id (UUID) | name (string) | books (UUID set)
+ * </pre>
+ * with the field encodings of {@link BinaryFields}.
+ */
+public class AuthorBinaryCodec implements BinaryCodec<Author> {
+
+    /**
+     * Writes the author's fields.
+     *
+     * @param out the output to write to
+     * @param author the author to write
+     * @throws IOException if an I/O error occurs while writing
+     */
+    @Override
+    public void write(DataOutput out, Author author) throws IOException {
+        BinaryFields.writeUuid(out, author.getId());
+        BinaryFields.writeString(out, author.getName());
+        BinaryFields.writeUuidSet(out, author.getBooks());
+    }
+
+    /**
+     * Reads a author's fields.
+     *
+     * @param in the input to read from
+     * @return the author read
+     * @throws IOException if an I/O error occurs or the data is malformed
+     */
+    @Override
+    public Author read(DataInput in) throws IOException {
+        return new Author(
+                BinaryFields.readUuid(in),
+                BinaryFields.readString(in),
+                BinaryFields.readUuidSet(in)
+        );
+    }
+}
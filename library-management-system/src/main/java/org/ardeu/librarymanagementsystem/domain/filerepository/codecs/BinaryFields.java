@@ -0,0 +1,177 @@
+package org.ardeu.librarymanagementsystem.domain.filerepository.codecs;
+
+import org.ardeu.librarymanagementsystem.domain.exceptions.file.DataFormatException;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Encoding of the field types shared by the entity codecs.
+ * <ul>
+ *     <li>a {@link UUID} is written as its two longs, most significant first;</li>
+ *     <li>a string is written as an int byte length followed by its UTF-8 bytes, or -1 for null;</li>
+ *     <li>a set of {@link UUID}s is written as an int count followed by that many UUIDs, or -1 for null;</li>
+ *     <li>a {@link LocalDate} is written as its long epoch day, or {@link Long#MIN_VALUE} for null.</li>
+ * </ul>
+ */
+public final class BinaryFields {
+
+    /**
+     * The largest string or set accepted when reading; anything bigger is treated as corruption.
+     */
+    private static final int MAX_LENGTH = 16 * 1024 * 1024;
+
+    /**
+     * Private constructor to prevent instantiation of the utility class.
+     */
+    private BinaryFields() {}
+
+    /**
+     * Writes a UUID.
+     *
+     * @param out the output to write to
+     * @param id the UUID to write
+     * @throws IOException if an I/O error occurs while writing
+     */
+    public static void writeUuid(DataOutput out, UUID id) throws IOException {
+        out.writeLong(id.getMostSignificantBits());
+        out.writeLong(id.getLeastSignificantBits());
+    }
+
+    /**
+     * Reads a UUID.
+     *
+     * @param in the input to read from
+     * @return the UUID read
+     * @throws IOException if an I/O error occurs while reading
+     */
+    public static UUID readUuid(DataInput in) throws IOException {
+        return new UUID(in.readLong(), in.readLong());
+    }
+
+    /**
+     * Writes a length-prefixed UTF-8 string.
+     *
+     * @param out the output to write to
+     * @param s the string to write, may be null
+     * @throws IOException if an I/O error occurs while writing
+     */
+    public static void writeString(DataOutput out, String s) throws IOException {
+        if (Objects.isNull(s)) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Reads a length-prefixed UTF-8 string.
+     *
+     * @param in the input to read from
+     * @return the string read, or null
+     * @throws IOException if an I/O error occurs while reading
+     * @throws DataFormatException if the length is invalid
+     */
+    public static String readString(DataInput in) throws IOException {
+        int length = readLength(in);
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes a counted set of UUIDs.
+     *
+     * @param out the output to write to
+     * @param ids the UUIDs to write, may be null
+     * @throws IOException if an I/O error occurs while writing
+     */
+    public static void writeUuidSet(DataOutput out, Set<UUID> ids) throws IOException {
+        if (Objects.isNull(ids)) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(ids.size());
+        for (UUID id : ids) {
+            writeUuid(out, id);
+        }
+    }
+
+    /**
+     * Reads a counted set of UUIDs.
+     *
+     * @param in the input to read from
+     * @return the set read, or null
+     * @throws IOException if an I/O error occurs while reading
+     * @throws DataFormatException if the count is invalid
+     */
+    public static HashSet<UUID> readUuidSet(DataInput in) throws IOException {
+        int count = readLength(in);
+        if (count < 0) {
+            return null;
+        }
+        HashSet<UUID> ids = HashSet.newHashSet(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(readUuid(in));
+        }
+        return ids;
+    }
+
+    /**
+     * Writes a date.
+     *
+     * @param out the output to write to
+     * @param date the date to write, may be null
+     * @throws IOException if an I/O error occurs while writing
+     */
+    public static void writeDate(DataOutput out, LocalDate date) throws IOException {
+        out.writeLong(Objects.isNull(date) ? Long.MIN_VALUE : date.toEpochDay());
+    }
+
+    /**
+     * Reads a date.
+     *
+     * @param in the input to read from
+     * @return the date read, or null
+     * @throws IOException if an I/O error occurs while reading
+     * @throws DataFormatException if the epoch day is out of range
+     */
+    public static LocalDate readDate(DataInput in) throws IOException {
+        long epochDay = in.readLong();
+        if (epochDay == Long.MIN_VALUE) {
+            return null;
+        }
+        if (epochDay < LocalDate.MIN.toEpochDay() || epochDay > LocalDate.MAX.toEpochDay()) {
+            throw new DataFormatException("Invalid epoch day " + epochDay + " in binary data.");
+        }
+        return LocalDate.ofEpochDay(epochDay);
+    }
+
+    /**
+     * Reads a length or count, which is either -1 for null or between 0 and {@link #MAX_LENGTH}.
+     *
+     * @param in the input to read from
+     * @return the length read
+     * @throws IOException if an I/O error occurs while reading
+     * @throws DataFormatException if the length is out of range
+     */
+    private static int readLength(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < -1 || length > MAX_LENGTH) {
+            throw new DataFormatException("Invalid length " + length + " in binary data.");
+        }
+        return length;
+    }
+}
@@ -0,0 +1,54 @@
+package org.ardeu.librarymanagementsystem.domain.filerepository.codecs;
+
+import org.ardeu.librarymanagementsystem.domain.entities.book.Book;
+import org.ardeu.librarymanagementsystem.domain.filerepository.base.BinaryCodec;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * A {@link BinaryCodec} for {@link Book} entities. The layout is:
+ * <pre>
+ * id (UUID) | title (string) | description (string) | publish date (date) | author id (UUID) | genre id (UUID)
+ * </pre>
+ * with the field encodings of {@link BinaryFields}.
+ */
+public class BookBinaryCodec implements BinaryCodec<Book> {
+
+    /**
+     * Writes the book's fields.
+     *
+     * @param out the output to write to
+     * @param book the book to write
+     * @throws IOException if an I/O error occurs while writing
+     */
+    @Override
+    public void write(DataOutput out, Book book) throws IOException {
+        BinaryFields.writeUuid(out, book.getId());
+        BinaryFields.writeString(out, book.getTitle());
+        BinaryFields.writeString(out, book.getDescription());
+        BinaryFields.writeDate(out, book.getPublishDate());
+        BinaryFields.writeUuid(out, book.getAuthorId());
+        BinaryFields.writeUuid(out, book.getGenreId());
+    }
+
+    /**
+     * Reads a book's fields.
+     *
+     * @param in the input to read from
+     * @return the book read
+     * @throws IOException if an I/O error occurs or the data is malformed
+     */
+    @Override
+    public Book read(DataInput in) throws IOException {
+        return Book.builder()
+                .setId(BinaryFields.readUuid(in))
+                .setTitle(BinaryFields.readString(in))
+                .setDescription(BinaryFields.readString(in))
+                .setPublishDate(BinaryFields.readDate(in))
+                .setAuthorId(BinaryFields.readUuid(in))
+                .setGenreId(BinaryFields.readUuid(in))
+                .build();
+    }
+}
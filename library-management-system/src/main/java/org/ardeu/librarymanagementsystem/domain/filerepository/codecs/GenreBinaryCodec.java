@@ -0,0 +1,48 @@
+package org.ardeu.librarymanagementsystem.domain.filerepository.codecs;
+
+import org.ardeu.librarymanagementsystem.domain.entities.genre.Genre;
+import org.ardeu.librarymanagementsystem.domain.filerepository.base.BinaryCodec;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * A {@link BinaryCodec} for {@link Genre} entities. The layout is:
+ * <pre>
+ * id (UUID) | name (string) | books (UUID set)
+ * </pre>
+ * with the field encodings of {@link BinaryFields}.
+ */
+public class GenreBinaryCodec implements BinaryCodec<Genre> {
+
+    /**
+     * Writes the genre's fields.
+     *
+     * @param out the output to write to
+     * @param genre the genre to write
+     * @throws IOException if an I/O error occurs while writing
+     */
+    @Override
+    public void write(DataOutput out, Genre genre) throws IOException {
+        BinaryFields.writeUuid(out, genre.getId());
+        BinaryFields.writeString(out, genre.getName());
+        BinaryFields.writeUuidSet(out, genre.getBooks());
+    }
+
+    /**
+     * Reads a genre's fields.
+     *
+     * @param in the input to read from
+     * @return the genre read
+     * @throws IOException if an I/O error occurs or the data is malformed
+     */
+    @Override
+    public Genre read(DataInput in) throws IOException {
+        return new Genre(
+                BinaryFields.readUuid(in),
+                BinaryFields.readString(in),
+                BinaryFields.readUuidSet(in)
+        );
+    }
+}
@@ -0,0 +1,52 @@
+package org.ardeu.librarymanagementsystem.domain.filerepository.codecs;
+
+import org.ardeu.librarymanagementsystem.domain.entities.inventory.Inventory;
+import org.ardeu.librarymanagementsystem.domain.filerepository.base.BinaryCodec;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * A {@link BinaryCodec} for {@link Inventory} entities. The layout is:
+ * <pre>
+ * id (UUID) | book id (UUID) | available copies (int) | total copies (int) | price (double)
+ * </pre>
+ * with the field encodings of {@link BinaryFields}.
+ */
+public class InventoryBinaryCodec implements BinaryCodec<Inventory> {
+
+    /**
+     * Writes the inventory's fields.
+     *
+     * @param out the output to write to
+     * @param inventory the inventory to write
+     * @throws IOException if an I/O error occurs while writing
+     */
+    @Override
+    public void write(DataOutput out, Inventory inventory) throws IOException {
+        BinaryFields.writeUuid(out, inventory.getId());
+        BinaryFields.writeUuid(out, inventory.getBookId());
+        out.writeInt(inventory.getAvailableCopies());
+        out.writeInt(inventory.getTotalCopies());
+        out.writeDouble(inventory.getPrice());
+    }
+
+    /**
+     * Reads an inventory's fields.
+     *
+     * @param in the input to read from
+     * @return the inventory read
+     * @throws IOException if an I/O error occurs or the data is malformed
+     */
+    @Override
+    public Inventory read(DataInput in) throws IOException {
+        return new Inventory(
+                BinaryFields.readUuid(in),
+                BinaryFields.readUuid(in),
+                in.readInt(),
+                in.readInt(),
+                in.readDouble()
+        );
+    }
+}
@@ -0,0 +1,80 @@
+package org.ardeu.librarymanagementsystem.domain.filerepository.codecs;
+
+import org.ardeu.librarymanagementsystem.domain.entities.loan.Loan;
+import org.ardeu.librarymanagementsystem.domain.entities.loan.LoanStatus;
+import org.ardeu.librarymanagementsystem.domain.exceptions.file.DataFormatException;
+import org.ardeu.librarymanagementsystem.domain.filerepository.base.BinaryCodec;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * A {@link BinaryCodec} for single {@link Loan} entities, such as journal records; whole loan files are
+ * encoded in blocks by {@link LoanBlockCodec}. The layout is:
+ * <pre>
+ * id (UUID) | member id (UUID) | book id (UUID) | price (double) | loan date (date) | due date (date)
+ *     | return date (date) | status (string)
+ * </pre>
+ * with the field encodings of {@link BinaryFields}. The status is written by name.
+ */
+public class LoanBinaryCodec implements BinaryCodec<Loan> {
+
+    /**
+     * Writes the loan's fields.
+     *
+     * @param out the output to write to
+     * @param loan the loan to write
+     * @throws IOException if an I/O error occurs while writing
+     */
+    @Override
+    public void write(DataOutput out, Loan loan) throws IOException {
+        BinaryFields.writeUuid(out, loan.getId());
+        BinaryFields.writeUuid(out, loan.getMemberId());
+        BinaryFields.writeUuid(out, loan.getBookId());
+        out.writeDouble(loan.getPrice());
+        BinaryFields.writeDate(out, loan.getLoanDate());
+        BinaryFields.writeDate(out, loan.getDueDate());
+        BinaryFields.writeDate(out, loan.getReturnDate());
+        BinaryFields.writeString(out, loan.getStatus().name());
+    }
+
+    /**
+     * Reads a loan's fields.
+     *
+     * @param in the input to read from
+     * @return the loan read
+     * @throws IOException if an I/O error occurs or the data is malformed
+     * @throws DataFormatException if the status is unknown
+     */
+    @Override
+    public Loan read(DataInput in) throws IOException {
+        return new Loan(
+                BinaryFields.readUuid(in),
+                BinaryFields.readUuid(in),
+                BinaryFields.readUuid(in),
+                in.readDouble(),
+                BinaryFields.readDate(in),
+                BinaryFields.readDate(in),
+                BinaryFields.readDate(in),
+                readStatus(in)
+        );
+    }
+
+    /**
+     * Reads a loan status written by name.
+     *
+     * @param in the input to read from
+     * @return the status read
+     * @throws IOException if an I/O error occurs while reading
+     * @throws DataFormatException if the status is unknown
+     */
+    private static LoanStatus readStatus(DataInput in) throws IOException {
+        String name = BinaryFields.readString(in);
+        try {
+            return LoanStatus.valueOf(name);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new DataFormatException("Unknown loan status " + name + " in binary data.");
+        }
+    }
+}
@@ -0,0 +1,530 @@
+package org.ardeu.librarymanagementsystem.domain.filerepository.codecs;
+
+import org.ardeu.librarymanagementsystem.domain.entities.loan.Loan;
+import org.ardeu.librarymanagementsystem.domain.entities.loan.LoanStatus;
+import org.ardeu.librarymanagementsystem.domain.exceptions.file.DataFormatException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.zip.CRC32C;
+
+/**
+ * Columnar encoding of a block of loans.
+ * <p>
+ * A block is a fixed-size header followed by a body holding one column per loan field:
+ * <ul>
+ *     <li>the distinct member and book IDs of the block, each written once as a dictionary;</li>
+ *     <li>the loan IDs, as two longs each;</li>
+ *     <li>the member and book columns, as dictionary indexes bit-packed to the smallest width that fits;</li>
+ *     <li>the loan dates, as a base epoch day followed by the zigzag varint delta from the previous row;</li>
+ *     <li>the due and return dates, as zigzag varint deltas from the loan date (a return date of 0 means none);</li>
+ *     <li>the prices, as varint fixed-point values at the smallest decimal scale that represents every price
+ *     of the block exactly, or as raw doubles if there is none;</li>
+ *     <li>the statuses, as bit-packed values.</li>
+ * </ul>
+ * The header holds the row count, the first and last loan date of the block, the body length and a
+ * CRC32C of the header fields and body, so a block can be validated and decoded on its own, or skipped
+ * by date without reading its body. Rows sorted by loan date give the smallest blocks.
+ * </p>
+ * Blocks written before the overdue status was stored use a narrower status column holding only active
+ * and returned loans; {@link #firstVersion()} returns a codec decoding them.
+ * The codec is stateless and may be shared between threads.
+ */
+public class LoanBlockCodec {
+
+    /**
+     * The size of a block header: row count, first and last loan day, body length and checksum.
+     */
+    public static final int HEADER_LENGTH = Integer.BYTES + Long.BYTES + Long.BYTES + Integer.BYTES + Integer.BYTES;
+
+    /**
+     * The largest decimal scale tried for fixed-point prices.
+     */
+    private static final int MAX_PRICE_SCALE = 4;
+
+    /**
+     * The price scale marking a column of raw doubles.
+     */
+    private static final byte RAW_PRICES = -1;
+
+    /**
+     * The largest magnitude a fixed-point price may have while staying exact as a double.
+     */
+    private static final double MAX_EXACT_UNITS = 0x1p53;
+
+    private static final long[] POWERS_OF_TEN = {1, 10, 100, 1_000, 10_000};
+
+    /**
+     * The statuses stored in the status column, by stored value.
+     */
+    private static final LoanStatus[] STATUSES = {LoanStatus.ACTIVE, LoanStatus.RETURNED, LoanStatus.OVERDUE};
+
+    /**
+     * The statuses stored in the status column of the first format, which wrote overdue loans as active.
+     */
+    private static final LoanStatus[] FIRST_VERSION_STATUSES = {LoanStatus.ACTIVE, LoanStatus.RETURNED};
+
+    /**
+     * The statuses of the status column this codec reads and writes, by stored value.
+     */
+    private final LoanStatus[] statuses;
+
+    /**
+     * The header of an encoded block.
+     *
+     * @param rowCount the number of loans in the block
+     * @param minLoanDay the epoch day of the earliest loan date in the block
+     * @param maxLoanDay the epoch day of the latest loan date in the block
+     * @param bodyLength the length of the body following the header
+     * @param checksum the CRC32C of the other header fields and the body
+     */
+    public record Header(int rowCount, long minLoanDay, long maxLoanDay, int bodyLength, int checksum) {
+
+        /**
+         * Checks whether any loan of the block may have been made between the given dates.
+         *
+         * @param from the first date, inclusive
+         * @param to the last date, inclusive
+         * @return true if the block's loan dates overlap the range
+         */
+        public boolean overlaps(LocalDate from, LocalDate to) {
+            return this.minLoanDay <= to.toEpochDay() && this.maxLoanDay >= from.toEpochDay();
+        }
+    }
+
+    /**
+     * Constructs a new {@link LoanBlockCodec} for the current block format.
+     */
+    public LoanBlockCodec() {
+        this(STATUSES);
+    }
+
+    /**
+     * Constructs a new {@link LoanBlockCodec} with the given status column.
+     *
+     * @param statuses the statuses of the status column, by stored value
+     */
+    private LoanBlockCodec(LoanStatus[] statuses) {
+        this.statuses = statuses;
+    }
+
+    /**
+     * Returns a codec for the blocks of the first format, whose status column only holds active and
+     * returned loans. It is meant for decoding; blocks are always written in the current format.
+     *
+     * @return a codec for first-format blocks
+     */
+    public static LoanBlockCodec firstVersion() {
+        return new LoanBlockCodec(FIRST_VERSION_STATUSES);
+    }
+
+    /**
+     * Encodes a block of loans, header included.
+     *
+     * @param loans the loans to encode; must not be empty
+     * @return the encoded block
+     */
+    public byte[] encode(List<Loan> loans) {
+        int rows = loans.size();
+        Map<UUID, Integer> members = new LinkedHashMap<>();
+        Map<UUID, Integer> books = new LinkedHashMap<>();
+        int[] memberIndexes = new int[rows];
+        int[] bookIndexes = new int[rows];
+        int[] statusValues = new int[rows];
+        long minDay = Long.MAX_VALUE;
+        long maxDay = Long.MIN_VALUE;
+        for (int i = 0; i < rows; i++) {
+            Loan loan = loans.get(i);
+            memberIndexes[i] = members.computeIfAbsent(loan.getMemberId(), _ -> members.size());
+            bookIndexes[i] = books.computeIfAbsent(loan.getBookId(), _ -> books.size());
+            statusValues[i] = statusValue(loan.getStatus());
+            long day = loan.getLoanDate().toEpochDay();
+            minDay = Math.min(minDay, day);
+            maxDay = Math.max(maxDay, day);
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(HEADER_LENGTH + rows * 24);
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.write(new byte[HEADER_LENGTH]);
+            writeDictionary(out, members.keySet());
+            writeDictionary(out, books.keySet());
+            for (Loan loan : loans) {
+                BinaryFields.writeUuid(out, loan.getId());
+            }
+            writeBits(out, memberIndexes, bitsFor(members.size()));
+            writeBits(out, bookIndexes, bitsFor(books.size()));
+
+            long previousDay = loans.getFirst().getLoanDate().toEpochDay();
+            writeVarLong(out, zigzag(previousDay));
+            for (Loan loan : loans) {
+                long day = loan.getLoanDate().toEpochDay();
+                writeVarLong(out, zigzag(day - previousDay));
+                previousDay = day;
+            }
+            for (Loan loan : loans) {
+                writeVarLong(out, zigzag(loan.getDueDate().toEpochDay() - loan.getLoanDate().toEpochDay()));
+            }
+            for (Loan loan : loans) {
+                LocalDate returnDate = loan.getReturnDate();
+                writeVarLong(out, Objects.isNull(returnDate)
+                        ? 0
+                        : zigzag(returnDate.toEpochDay() - loan.getLoanDate().toEpochDay()) + 1);
+            }
+            writePrices(out, loans);
+            writeBits(out, statusValues, bitsFor(this.statuses.length));
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        byte[] block = bytes.toByteArray();
+        ByteBuffer header = ByteBuffer.wrap(block)
+                .putInt(rows)
+                .putLong(minDay)
+                .putLong(maxDay)
+                .putInt(block.length - HEADER_LENGTH)
+                .flip();
+        int checksum = checksum(header, ByteBuffer.wrap(block, HEADER_LENGTH, block.length - HEADER_LENGTH));
+        ByteBuffer.wrap(block).putInt(HEADER_LENGTH - Integer.BYTES, checksum);
+        return block;
+    }
+
+    /**
+     * Reads a block header.
+     *
+     * @param buffer the buffer holding the header at its position, which is advanced past it
+     * @return the header read
+     * @throws DataFormatException if the header is inconsistent
+     */
+    public Header readHeader(ByteBuffer buffer) throws DataFormatException {
+        Header header = new Header(buffer.getInt(), buffer.getLong(), buffer.getLong(), buffer.getInt(), buffer.getInt());
+        if (header.rowCount() <= 0 || header.bodyLength() < 0 || header.minLoanDay() > header.maxLoanDay()) {
+            throw new DataFormatException("Invalid loan block header " + header + ".");
+        }
+        return header;
+    }
+
+    /**
+     * Validates and decodes the body of a block.
+     *
+     * @param header the header of the block
+     * @param body the body of the block, from its position to its limit
+     * @return the loans of the block, in the order they were encoded
+     * @throws DataFormatException if the checksum does not match or the body is malformed
+     */
+    public List<Loan> decode(Header header, ByteBuffer body) throws DataFormatException {
+        ByteBuffer fields = ByteBuffer.allocate(HEADER_LENGTH - Integer.BYTES)
+                .putInt(header.rowCount())
+                .putLong(header.minLoanDay())
+                .putLong(header.maxLoanDay())
+                .putInt(header.bodyLength())
+                .flip();
+        if (body.remaining() != header.bodyLength() || checksum(fields, body.duplicate()) != header.checksum()) {
+            throw new DataFormatException("Loan block is corrupted: checksum mismatch.");
+        }
+
+        try {
+            int rows = header.rowCount();
+            UUID[] members = readDictionary(body, rows);
+            UUID[] books = readDictionary(body, rows);
+            UUID[] ids = new UUID[rows];
+            for (int i = 0; i < rows; i++) {
+                ids[i] = new UUID(body.getLong(), body.getLong());
+            }
+            int[] memberIndexes = readBits(body, rows, bitsFor(members.length), members.length);
+            int[] bookIndexes = readBits(body, rows, bitsFor(books.length), books.length);
+
+            long[] loanDays = new long[rows];
+            long day = unzigzag(readVarLong(body));
+            for (int i = 0; i < rows; i++) {
+                day += unzigzag(readVarLong(body));
+                loanDays[i] = day;
+            }
+            LocalDate[] dueDates = new LocalDate[rows];
+            for (int i = 0; i < rows; i++) {
+                dueDates[i] = LocalDate.ofEpochDay(loanDays[i] + unzigzag(readVarLong(body)));
+            }
+            LocalDate[] returnDates = new LocalDate[rows];
+            for (int i = 0; i < rows; i++) {
+                long value = readVarLong(body);
+                returnDates[i] = value == 0 ? null : LocalDate.ofEpochDay(loanDays[i] + unzigzag(value - 1));
+            }
+            double[] prices = readPrices(body, rows);
+            int[] statusValues = readBits(body, rows, bitsFor(this.statuses.length), this.statuses.length);
+            if (body.hasRemaining()) {
+                throw new DataFormatException("Loan block is corrupted: trailing data.");
+            }
+
+            List<Loan> loans = new ArrayList<>(rows);
+            for (int i = 0; i < rows; i++) {
+                loans.add(new Loan(ids[i], members[memberIndexes[i]], books[bookIndexes[i]], prices[i],
+                        LocalDate.ofEpochDay(loanDays[i]), dueDates[i], returnDates[i], this.statuses[statusValues[i]]));
+            }
+            return loans;
+        } catch (BufferUnderflowException e) {
+            throw new DataFormatException("Loan block is corrupted: unexpected end of data.", e);
+        } catch (DateTimeException e) {
+            throw new DataFormatException("Loan block is corrupted: invalid date.", e);
+        }
+    }
+
+    /**
+     * Writes the price column at the smallest exact scale, or as raw doubles.
+     *
+     * @param out the output to write to
+     * @param loans the loans of the block
+     * @throws IOException if an I/O error occurs while writing
+     */
+    private static void writePrices(DataOutputStream out, List<Loan> loans) throws IOException {
+        for (int scale = 0; scale <= MAX_PRICE_SCALE; scale++) {
+            if (isExactAtScale(loans, scale)) {
+                out.writeByte(scale);
+                for (Loan loan : loans) {
+                    writeVarLong(out, zigzag(Math.round(loan.getPrice() * POWERS_OF_TEN[scale])));
+                }
+                return;
+            }
+        }
+        out.writeByte(RAW_PRICES);
+        for (Loan loan : loans) {
+            out.writeDouble(loan.getPrice());
+        }
+    }
+
+    /**
+     * Checks whether every price of the block survives a round trip through fixed point at the given scale.
+     *
+     * @param loans the loans of the block
+     * @param scale the number of decimals
+     * @return true if every price is exact at that scale
+     */
+    private static boolean isExactAtScale(List<Loan> loans, int scale) {
+        double factor = POWERS_OF_TEN[scale];
+        for (Loan loan : loans) {
+            double units = loan.getPrice() * factor;
+            if (!(Math.abs(units) < MAX_EXACT_UNITS)
+                    || Double.compare(Math.round(units) / factor, loan.getPrice()) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads the price column.
+     *
+     * @param in the buffer to read from
+     * @param rows the number of rows in the block
+     * @return the prices
+     * @throws DataFormatException if the scale is invalid
+     */
+    private static double[] readPrices(ByteBuffer in, int rows) throws DataFormatException {
+        byte scale = in.get();
+        double[] prices = new double[rows];
+        if (scale == RAW_PRICES) {
+            for (int i = 0; i < rows; i++) {
+                prices[i] = in.getDouble();
+            }
+            return prices;
+        }
+        if (scale < 0 || scale > MAX_PRICE_SCALE) {
+            throw new DataFormatException("Loan block is corrupted: invalid price scale " + scale + ".");
+        }
+        double factor = POWERS_OF_TEN[scale];
+        for (int i = 0; i < rows; i++) {
+            prices[i] = unzigzag(readVarLong(in)) / factor;
+        }
+        return prices;
+    }
+
+    /**
+     * Writes a dictionary as a varint count followed by the IDs in index order.
+     *
+     * @param out the output to write to
+     * @param ids the IDs of the dictionary
+     * @throws IOException if an I/O error occurs while writing
+     */
+    private static void writeDictionary(DataOutputStream out, Collection<UUID> ids) throws IOException {
+        writeVarLong(out, ids.size());
+        for (UUID id : ids) {
+            BinaryFields.writeUuid(out, id);
+        }
+    }
+
+    /**
+     * Reads a dictionary.
+     *
+     * @param in the buffer to read from
+     * @param rows the number of rows in the block, which bounds the dictionary size
+     * @return the IDs of the dictionary, in index order
+     * @throws DataFormatException if the size is invalid
+     */
+    private static UUID[] readDictionary(ByteBuffer in, int rows) throws DataFormatException {
+        long size = readVarLong(in);
+        if (size < 1 || size > rows) {
+            throw new DataFormatException("Loan block is corrupted: invalid dictionary size " + size + ".");
+        }
+        UUID[] ids = new UUID[(int) size];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = new UUID(in.getLong(), in.getLong());
+        }
+        return ids;
+    }
+
+    /**
+     * Writes values packed into {@code width} bits each, least significant bits first.
+     *
+     * @param out the output to write to
+     * @param values the values to write
+     * @param width the number of bits per value
+     * @throws IOException if an I/O error occurs while writing
+     */
+    private static void writeBits(DataOutputStream out, int[] values, int width) throws IOException {
+        long pending = 0;
+        int pendingBits = 0;
+        for (int value : values) {
+            pending |= (long) value << pendingBits;
+            pendingBits += width;
+            while (pendingBits >= Byte.SIZE) {
+                out.writeByte((int) pending);
+                pending >>>= Byte.SIZE;
+                pendingBits -= Byte.SIZE;
+            }
+        }
+        if (pendingBits > 0) {
+            out.writeByte((int) pending);
+        }
+    }
+
+    /**
+     * Reads values packed by {@link #writeBits(DataOutputStream, int[], int)}.
+     *
+     * @param in the buffer to read from
+     * @param count the number of values
+     * @param width the number of bits per value
+     * @param bound the exclusive upper bound of a valid value
+     * @return the values read
+     * @throws DataFormatException if a value is out of bounds
+     */
+    private static int[] readBits(ByteBuffer in, int count, int width, int bound) throws DataFormatException {
+        int[] values = new int[count];
+        long mask = (1L << width) - 1;
+        long pending = 0;
+        int pendingBits = 0;
+        for (int i = 0; i < count; i++) {
+            while (pendingBits < width) {
+                pending |= (in.get() & 0xFFL) << pendingBits;
+                pendingBits += Byte.SIZE;
+            }
+            values[i] = (int) (pending & mask);
+            pending >>>= width;
+            pendingBits -= width;
+            if (values[i] >= bound) {
+                throw new DataFormatException("Loan block is corrupted: value " + values[i] + " out of range.");
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Returns the value storing a status in the status column.
+     *
+     * @param status the status of a loan
+     * @return the stored value of the status
+     * @throws IllegalArgumentException if the status cannot be stored by this codec
+     */
+    private int statusValue(LoanStatus status) {
+        for (int value = 0; value < this.statuses.length; value++) {
+            if (this.statuses[value] == status) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Loan status " + status + " cannot be stored in this block format.");
+    }
+
+    /**
+     * Returns the number of bits needed to store values from 0 to {@code size - 1}.
+     *
+     * @param size the number of distinct values
+     * @return the bit width
+     */
+    private static int bitsFor(int size) {
+        return size <= 1 ? 0 : Integer.SIZE - Integer.numberOfLeadingZeros(size - 1);
+    }
+
+    /**
+     * Writes an unsigned varint, seven bits per byte with the high bit marking a continuation.
+     *
+     * @param out the output to write to
+     * @param value the value to write
+     * @throws IOException if an I/O error occurs while writing
+     */
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    /**
+     * Reads an unsigned varint.
+     *
+     * @param in the buffer to read from
+     * @return the value read
+     * @throws DataFormatException if the varint is longer than ten bytes
+     */
+    private static long readVarLong(ByteBuffer in) throws DataFormatException {
+        long value = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7FL) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new DataFormatException("Loan block is corrupted: malformed varint.");
+    }
+
+    /**
+     * Maps a signed value to an unsigned one so that small magnitudes stay small.
+     *
+     * @param value the signed value
+     * @return the zigzag-encoded value
+     */
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    /**
+     * Reverses {@link #zigzag(long)}.
+     *
+     * @param value the zigzag-encoded value
+     * @return the signed value
+     */
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Computes the CRC32C of a block.
+     *
+     * @param fields the header fields preceding the checksum
+     * @param body the body of the block
+     * @return the checksum
+     */
+    private static int checksum(ByteBuffer fields, ByteBuffer body) {
+        CRC32C crc = new CRC32C();
+        crc.update(fields);
+        crc.update(body);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,50 @@
+package org.ardeu.librarymanagementsystem.domain.filerepository.codecs;
+
+import org.ardeu.librarymanagementsystem.domain.entities.member.Member;
+import org.ardeu.librarymanagementsystem.domain.filerepository.base.BinaryCodec;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * A {@link BinaryCodec} for {@link Member} entities. The layout is:
+ * <pre>
+ * id (UUID) | name (string) | email (string) | loans (UUID set)
+ * </pre>
+ * with the field encodings of {@link BinaryFields}.
+ */
+public class MemberBinaryCodec implements BinaryCodec<Member> {
+
+    /**
+     * Writes the member's fields.
+     *
+     * @param out the output to write to
+     * @param member the member to write
+     * @throws IOException if an I/O error occurs while writing
+     */
+    @Override
+    public void write(DataOutput out, Member member) throws IOException {
+        BinaryFields.writeUuid(out, member.getId());
+        BinaryFields.writeString(out, member.getName());
+        BinaryFields.writeString(out, member.getEmail());
+        BinaryFields.writeUuidSet(out, member.getLoans());
+    }
+
+    /**
+     * Reads a member's fields.
+     *
+     * @param in the input to read from
+     * @return the member read
+     * @throws IOException if an I/O error occurs or the data is malformed
+     */
+    @Override
+    public Member read(DataInput in) throws IOException {
+        return new Member(
+                BinaryFields.readUuid(in),
+                BinaryFields.readString(in),
+                BinaryFields.readString(in),
+                BinaryFields.readUuidSet(in)
+        );
+    }
+}
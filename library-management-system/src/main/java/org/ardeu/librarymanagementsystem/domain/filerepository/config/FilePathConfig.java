@@ -8,6 +8,16 @@ public class FilePathConfig {
     public static final String BOOKS_PATH = "./data/books.txt";
     public static final String GENRES_PATH = "./data/genres.bin";
     public static final String INVENTORIES_PATH = "./data/inventories.txt";
-    public static final String LOANS_PATH = "./data/loans.txt";
+    public static final String LOANS_PATH = "./data/loans";
     public static final String MEMBERS_PATH = "./data/members.bin";
+    public static final String MEMBERS_STORE_PATH = "./data/members";
+
+    public static final String AUTHORS_JOURNAL_PATH = "./data/authors.journal";
+    public static final String BOOKS_JOURNAL_PATH = "./data/books.journal";
+    public static final String GENRES_JOURNAL_PATH = "./data/genres.journal";
+    public static final String INVENTORIES_JOURNAL_PATH = "./data/inventories.journal";
+    public static final String LOANS_JOURNAL_PATH = "./data/loans.journal";
+    public static final String MEMBERS_JOURNAL_PATH = "./data/members.journal";
+
+    public static final String LEGACY_LOANS_PATH = "./data/loans.txt";
 }
@@ -1,64 +1,192 @@
 package org.ardeu.librarymanagementsystem.domain.filerepository.handlers;
 
+import org.ardeu.librarymanagementsystem.domain.entities.base.BaseEntity;
 import org.ardeu.librarymanagementsystem.domain.exceptions.file.DataFormatException;
+import org.ardeu.librarymanagementsystem.domain.filerepository.base.BinaryCodec;
 import org.ardeu.librarymanagementsystem.domain.filerepository.base.MapFileHandler;
+import org.ardeu.librarymanagementsystem.domain.filerepository.io.AtomicFileWriter;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
+import java.util.zip.CRC32C;
 
 /**
  * A concrete implementation of {@link MapFileHandler} for handling binary file operations.
- * This class provides functionality to read and write a map of key-value pairs to and from a binary file.
- * Both the keys and values must be {@link Serializable}.
+ * This class provides functionality to read and write a map of entity IDs to entities to and from a binary file,
+ * encoding each entity with a {@link BinaryCodec}.
+ * <p>
+ * The file starts with a header holding a magic number, a format version, the number of entities
+ * and the CRC32C of the rest of the file, which is checked before anything is decoded. The entities
+ * follow one after the other. The file is replaced atomically on every write.
+ * </p>
+ * <p>
+ * Files written by earlier versions, which stored the whole map with Java serialization (with or
+ * without the header), are still read; they are converted to the current format on the next write.
+ * </p>
  *
- * @param <K> the type of keys maintained by the map (must be {@link Serializable})
- * @param <V> the type of values maintained by the map (must be {@link Serializable})
+ * @param <V> the type of entity stored in the file
  */
-public class BinaryMapFileHandler<K extends Serializable, V extends Serializable> extends MapFileHandler<K, V> {
+public class BinaryMapFileHandler<V extends BaseEntity> extends MapFileHandler<UUID, V> {
 
     /**
-     * Constructs a new {@link BinaryMapFileHandler} with the specified file name.
+     * The magic number at the start of every file with a header ("LMSB").
+     */
+    private static final int MAGIC = 0x4C4D5342;
+
+    /**
+     * The format version of files holding a Java-serialized map.
+     */
+    private static final byte SERIALIZED_VERSION = 1;
+
+    /**
+     * The format version of files holding codec-encoded entities.
+     */
+    private static final byte CODEC_VERSION = 2;
+
+    /**
+     * The size of the header: magic, version, entry count and checksum.
+     */
+    private static final int HEADER_LENGTH = Integer.BYTES + Byte.BYTES + Integer.BYTES + Integer.BYTES;
+
+    private final BinaryCodec<V> codec;
+
+    /**
+     * Constructs a new {@link BinaryMapFileHandler} with the specified file name and entity codec.
      *
      * @param fileName the name of the file where data will be read from or written to
+     * @param codec the codec used to encode and decode the entities
      */
-    public BinaryMapFileHandler(String fileName) {
+    public BinaryMapFileHandler(String fileName, BinaryCodec<V> codec) {
         super(fileName);
+        this.codec = codec;
     }
 
     /**
-     * Reads a map of key-value pairs from the binary file specified by {@code fileName}.
+     * Reads a map of entity IDs to entities from the binary file specified by {@code fileName}.
      *
-     * @return a map of key-value pairs read from the file
+     * @return a map of entity IDs to entities read from the file
      * @throws IOException if an I/O error occurs while reading the file
-     * @throws DataFormatException if the data format is incorrect or a class is not found
+     * @throws DataFormatException if the data format is incorrect, the checksum does not match or a class is not found
      */
-    @SuppressWarnings("unchecked")
     @Override
-    public Map<K, V> readFromFile() throws IOException {
-        try (ObjectInputStream in = new ObjectInputStream(
-                new BufferedInputStream(new FileInputStream(this.getFileName())))) {
-            return (Map<K, V>) in.readObject();
-        } catch (EOFException e) {
+    public Map<UUID, V> readFromFile() throws IOException {
+        byte[] bytes = Files.readAllBytes(Paths.get(this.getFileName()));
+        if (bytes.length == 0) {
             return Collections.emptyMap();
-        } catch (ClassNotFoundException e) {
-            throw new DataFormatException("Data format issue: class not found.", e);
         }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        if (bytes.length < HEADER_LENGTH || buffer.getInt() != MAGIC) {
+            return deserialize(bytes, 0, bytes.length);
+        }
+
+        byte version = buffer.get();
+        int count = buffer.getInt();
+        int checksum = buffer.getInt();
+        if (version != SERIALIZED_VERSION && version != CODEC_VERSION) {
+            throw new DataFormatException("Unsupported format version " + version + " in " + this.getFileName());
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(bytes, HEADER_LENGTH, bytes.length - HEADER_LENGTH);
+        if ((int) crc.getValue() != checksum) {
+            throw new DataFormatException("Data file " + this.getFileName() + " is corrupted: checksum mismatch.");
+        }
+
+        Map<UUID, V> map = version == CODEC_VERSION
+                ? decode(bytes, count)
+                : deserialize(bytes, HEADER_LENGTH, bytes.length - HEADER_LENGTH);
+        if (map.size() != count) {
+            throw new DataFormatException("Data file " + this.getFileName() + " is corrupted: expected "
+                    + count + " entries, found " + map.size() + ".");
+        }
+        return map;
     }
 
     /**
-     * Writes the specified map of key-value pairs to the binary file specified by {@code fileName}.
+     * Writes the specified map of entity IDs to entities to the binary file specified by {@code fileName},
+     * atomically replacing its previous content.
      *
-     * @param map the map of key-value pairs to write to the file
+     * @param map the map of entity IDs to entities to write to the file
      * @throws IOException if an I/O error occurs while writing the file
      */
     @Override
-    public void writeToFile(Map<K, V> map) throws IOException {
-        Map<K, V> mapCopy = new HashMap<>(map);
-        try (ObjectOutputStream out = new ObjectOutputStream(
-                new BufferedOutputStream(new FileOutputStream(this.getFileName())))) {
-            out.writeObject(mapCopy);
+    public void writeToFile(Map<UUID, V> map) throws IOException {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(payload);
+        int count = 0;
+        for (V entity : map.values()) {
+            this.codec.write(out, entity);
+            count++;
+        }
+        out.flush();
+        byte[] bytes = payload.toByteArray();
+        CRC32C crc = new CRC32C();
+        crc.update(bytes);
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH)
+                .putInt(MAGIC)
+                .put(CODEC_VERSION)
+                .putInt(count)
+                .putInt((int) crc.getValue())
+                .flip();
+        ByteBuffer[] content = {header, ByteBuffer.wrap(bytes)};
+        AtomicFileWriter.write(Paths.get(this.getFileName()), channel -> {
+            while (content[1].hasRemaining()) {
+                channel.write(content);
+            }
+        });
+    }
+
+    /**
+     * Decodes the entities following the header.
+     *
+     * @param bytes the content of the file
+     * @param count the number of entities announced by the header
+     * @return the decoded entities, keyed by ID
+     * @throws IOException if the entities cannot be decoded
+     * @throws DataFormatException if the data ends early or has trailing bytes
+     */
+    private Map<UUID, V> decode(byte[] bytes, int count) throws IOException {
+        ByteArrayInputStream payload = new ByteArrayInputStream(bytes, HEADER_LENGTH, bytes.length - HEADER_LENGTH);
+        DataInputStream in = new DataInputStream(payload);
+        Map<UUID, V> map = HashMap.newHashMap(count);
+        try {
+            for (int i = 0; i < count; i++) {
+                V entity = this.codec.read(in);
+                map.put(entity.getId(), entity);
+            }
+        } catch (EOFException e) {
+            throw new DataFormatException("Data file " + this.getFileName() + " is corrupted: unexpected end of data.", e);
+        }
+        if (payload.available() > 0) {
+            throw new DataFormatException("Data file " + this.getFileName() + " is corrupted: trailing data.");
+        }
+        return map;
+    }
+
+    /**
+     * Deserializes a map written with Java serialization by earlier versions of this handler.
+     *
+     * @param bytes the bytes holding the serialized map
+     * @param offset the start of the serialized map
+     * @param length the length of the serialized map
+     * @return the deserialized map
+     * @throws IOException if an I/O error occurs while deserializing
+     * @throws DataFormatException if a class is not found
+     */
+    @SuppressWarnings("unchecked")
+    private Map<UUID, V> deserialize(byte[] bytes, int offset, int length) throws IOException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes, offset, length))) {
+            return (Map<UUID, V>) in.readObject();
+        } catch (EOFException e) {
+            return Collections.emptyMap();
+        } catch (ClassNotFoundException e) {
+            throw new DataFormatException("Data format issue: class not found.", e);
         }
     }
 }
@@ -0,0 +1,313 @@
+package org.ardeu.librarymanagementsystem.domain.filerepository.handlers;
+
+import org.ardeu.librarymanagementsystem.domain.entities.loan.Loan;
+import org.ardeu.librarymanagementsystem.domain.exceptions.file.DataFormatException;
+import org.ardeu.librarymanagementsystem.domain.filerepository.base.MapFileHandler;
+import org.ardeu.librarymanagementsystem.domain.filerepository.codecs.LoanBlockCodec;
+import org.ardeu.librarymanagementsystem.domain.filerepository.io.AtomicFileWriter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * A concrete implementation of {@link MapFileHandler} storing loans in a columnar, block-based binary file.
+ * <p>
+ * The file starts with a header holding a magic number, a format version, the number of blocks and
+ * the number of loans. The loans follow sorted by loan date, in blocks of up to {@value #BLOCK_ROWS}
+ * loans encoded by {@link LoanBlockCodec}: member and book IDs are dictionary-encoded, dates are stored
+ * as epoch-day deltas, prices as fixed point and statuses as bit-packed values. Every block carries
+ * its own checksum and loan date range, so blocks are decoded in parallel when loading and blocks outside
+ * the requested dates are skipped by {@link #readLoans(LocalDate, LocalDate)}. {@link #forEachLoan(Consumer)}
+ * decodes one block at a time for scans that should not hold the whole file in memory. The file is
+ * replaced atomically on every write.
+ * </p>
+ * <p>
+ * Files of the first format version, which stored overdue loans as active, are still read; they are
+ * written in the current version on the next save.
+ * </p>
+ */
+public class ColumnarLoanFileHandler extends MapFileHandler<UUID, Loan> {
+
+    /**
+     * The magic number at the start of the file ("LMSL").
+     */
+    private static final int MAGIC = 0x4C4D534C;
+
+    /**
+     * The current format version.
+     */
+    private static final byte VERSION = 2;
+
+    /**
+     * The first format version, whose status column only holds active and returned loans.
+     */
+    private static final byte FIRST_VERSION = 1;
+
+    /**
+     * The size of the file header: magic, version, block count and loan count.
+     */
+    private static final int HEADER_LENGTH = Integer.BYTES + Byte.BYTES + Integer.BYTES + Integer.BYTES;
+
+    /**
+     * The maximum number of loans in a block.
+     */
+    private static final int BLOCK_ROWS = 4096;
+
+    private static final Comparator<Loan> BY_LOAN_DATE = Comparator
+            .comparingLong((Loan loan) -> loan.getLoanDate().toEpochDay())
+            .thenComparing(Loan::getId);
+
+    private final LoanBlockCodec codec = new LoanBlockCodec();
+    private final LoanBlockCodec firstVersionCodec = LoanBlockCodec.firstVersion();
+
+    /**
+     * Constructs a new {@link ColumnarLoanFileHandler} with the specified file name.
+     *
+     * @param fileName the name of the file where data will be read from or written to
+     */
+    public ColumnarLoanFileHandler(String fileName) {
+        super(fileName);
+    }
+
+    /**
+     * Reads a map of loan IDs to loans from the file specified by {@code fileName}.
+     *
+     * @return a map of loan IDs to loans read from the file, or an empty map if it does not exist
+     * @throws IOException if an I/O error occurs while reading the file
+     * @throws DataFormatException if the file is corrupted
+     */
+    @Override
+    public Map<UUID, Loan> readFromFile() throws IOException {
+        if (!Files.exists(Paths.get(this.getFileName()))) {
+            return new HashMap<>();
+        }
+        List<Loan> loans = readBlocks(null, null);
+        Map<UUID, Loan> map = HashMap.newHashMap(loans.size());
+        for (Loan loan : loans) {
+            map.put(loan.getId(), loan);
+        }
+        return map;
+    }
+
+    /**
+     * Reads the loans made between two dates, decoding only the blocks whose date range overlaps them.
+     *
+     * @param from the first loan date, inclusive
+     * @param to the last loan date, inclusive
+     * @return the loans made between the two dates, sorted by loan date
+     * @throws IOException if an I/O error occurs while reading the file
+     * @throws DataFormatException if a block read is corrupted
+     */
+    public List<Loan> readLoans(LocalDate from, LocalDate to) throws IOException {
+        if (!Files.exists(Paths.get(this.getFileName()))) {
+            return Collections.emptyList();
+        }
+        return readBlocks(from, to).stream()
+                .filter(loan -> !loan.getLoanDate().isBefore(from) && !loan.getLoanDate().isAfter(to))
+                .toList();
+    }
+
+    /**
+     * Decodes the loans of the file one block at a time and hands them to the action, so that only
+     * a single block is held in memory at once.
+     *
+     * @param action the action to perform on every loan, in file order
+     * @throws IOException if an I/O error occurs while reading the file
+     * @throws DataFormatException if the file is corrupted
+     */
+    public void forEachLoan(Consumer<? super Loan> action) throws IOException {
+        if (!Files.exists(Paths.get(this.getFileName()))) {
+            return;
+        }
+        scanBlocks(_ -> true, (codec, header, body) -> codec.decode(header, body).forEach(action));
+    }
+
+    /**
+     * Writes the specified map of loan IDs to loans to the file specified by {@code fileName},
+     * atomically replacing its previous content. Blocks are encoded in parallel.
+     *
+     * @param map the map of loan IDs to loans to write to the file
+     * @throws IOException if an I/O error occurs while writing the file
+     */
+    @Override
+    public void writeToFile(Map<UUID, Loan> map) throws IOException {
+        List<Loan> loans = new ArrayList<>(map.values());
+        loans.sort(BY_LOAN_DATE);
+        List<List<Loan>> blocks = new ArrayList<>();
+        for (int start = 0; start < loans.size(); start += BLOCK_ROWS) {
+            blocks.add(loans.subList(start, Math.min(loans.size(), start + BLOCK_ROWS)));
+        }
+        List<byte[]> encoded = blocks.parallelStream()
+                .map(this.codec::encode)
+                .toList();
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH)
+                .putInt(MAGIC)
+                .put(VERSION)
+                .putInt(encoded.size())
+                .putInt(loans.size())
+                .flip();
+        AtomicFileWriter.write(Paths.get(this.getFileName()), channel -> {
+            writeFully(channel, header);
+            for (byte[] block : encoded) {
+                writeFully(channel, ByteBuffer.wrap(block));
+            }
+        });
+    }
+
+    /**
+     * Reads and decodes the blocks of the file, skipping those outside the given dates if any.
+     *
+     * @param from the first loan date, inclusive, or null to read every block
+     * @param to the last loan date, inclusive, or null to read every block
+     * @return the loans of the blocks read, in file order
+     * @throws IOException if an I/O error occurs while reading the file
+     * @throws DataFormatException if the file is corrupted
+     */
+    private List<Loan> readBlocks(LocalDate from, LocalDate to) throws IOException {
+        List<StoredBlock> blocks = new ArrayList<>();
+        scanBlocks(header -> Objects.isNull(from) || header.overlaps(from, to),
+                (codec, header, body) -> blocks.add(new StoredBlock(codec, header, body)));
+
+        try {
+            return blocks.parallelStream()
+                    .map(this::decode)
+                    .flatMap(List::stream)
+                    .toList();
+        } catch (UncheckedIOException e) {
+            throw new DataFormatException("Data file " + this.getFileName() + " is corrupted.", e.getCause());
+        }
+    }
+
+    /**
+     * Walks the blocks of the file in order, reading the body of every block the filter accepts
+     * and handing it to the consumer with the codec of the file's format version. The file header and
+     * the block layout are validated along the way.
+     *
+     * @param filter decides from its header whether a block is needed
+     * @param consumer receives the header and body of every accepted block
+     * @throws IOException if an I/O error occurs while reading the file
+     * @throws DataFormatException if the file is corrupted
+     */
+    private void scanBlocks(Predicate<LoanBlockCodec.Header> filter, BlockConsumer consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(this.getFileName()), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size == 0) {
+                return;
+            }
+            ByteBuffer header = readFully(channel, 0, HEADER_LENGTH);
+            if (header.getInt() != MAGIC) {
+                throw new DataFormatException("Data file " + this.getFileName() + " is not a loan block file.");
+            }
+            byte version = header.get();
+            if (version != VERSION && version != FIRST_VERSION) {
+                throw new DataFormatException("Unsupported format version " + version + " in " + this.getFileName());
+            }
+            LoanBlockCodec codec = version == VERSION ? this.codec : this.firstVersionCodec;
+            int blockCount = header.getInt();
+            int loanCount = header.getInt();
+
+            long position = HEADER_LENGTH;
+            long rows = 0;
+            for (int i = 0; i < blockCount; i++) {
+                LoanBlockCodec.Header blockHeader = this.codec.readHeader(readFully(channel, position, LoanBlockCodec.HEADER_LENGTH));
+                position += LoanBlockCodec.HEADER_LENGTH;
+                if (blockHeader.bodyLength() > size - position) {
+                    throw new DataFormatException("Data file " + this.getFileName() + " is corrupted: truncated block.");
+                }
+                if (filter.test(blockHeader)) {
+                    consumer.accept(codec, blockHeader, readFully(channel, position, blockHeader.bodyLength()));
+                }
+                position += blockHeader.bodyLength();
+                rows += blockHeader.rowCount();
+            }
+            if (position != size || rows != loanCount) {
+                throw new DataFormatException("Data file " + this.getFileName() + " is corrupted: expected "
+                        + loanCount + " loans in " + blockCount + " blocks.");
+            }
+        }
+    }
+
+    /**
+     * Decodes a block, rethrowing format errors unchecked so it can be used in a stream.
+     *
+     * @param block the block to decode
+     * @return the loans of the block
+     */
+    private List<Loan> decode(StoredBlock block) {
+        try {
+            return block.codec().decode(block.header(), block.body());
+        } catch (DataFormatException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads exactly {@code length} bytes at the given position of the channel.
+     *
+     * @param channel the channel to read from
+     * @param position the position to read at
+     * @param length the number of bytes to read
+     * @return the bytes read, flipped for reading
+     * @throws IOException if an I/O error occurs while reading
+     * @throws DataFormatException if the channel ends early
+     */
+    private ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new DataFormatException("Data file " + this.getFileName() + " is corrupted: unexpected end of data.");
+            }
+        }
+        return buffer.flip();
+    }
+
+    /**
+     * Writes the remaining bytes of the buffer to the channel.
+     *
+     * @param channel the channel to write to
+     * @param buffer the bytes to write
+     * @throws IOException if an I/O error occurs while writing
+     */
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * A block header together with the body read for it and the codec decoding it.
+     *
+     * @param codec the codec of the file's format version
+     * @param header the header of the block
+     * @param body the body of the block
+     */
+    private record StoredBlock(LoanBlockCodec codec, LoanBlockCodec.Header header, ByteBuffer body) {}
+
+    /**
+     * Receives the blocks accepted while scanning the file.
+     */
+    @FunctionalInterface
+    private interface BlockConsumer {
+
+        /**
+         * Handles a block.
+         *
+         * @param codec the codec of the file's format version
+         * @param header the header of the block
+         * @param body the body of the block
+         * @throws IOException if the block cannot be handled
+         */
+        void accept(LoanBlockCodec codec, LoanBlockCodec.Header header, ByteBuffer body) throws IOException;
+    }
+}
@@ -2,26 +2,25 @@ package org.ardeu.librarymanagementsystem.domain.filerepository.handlers;
 
 import org.ardeu.librarymanagementsystem.domain.entities.inventory.Inventory;
 import org.ardeu.librarymanagementsystem.domain.entities.inventory.mappers.CSVToInventoryMapper;
+import org.ardeu.librarymanagementsystem.domain.entities.inventory.mappers.InventoryCSVCodec;
 import org.ardeu.librarymanagementsystem.domain.entities.inventory.mappers.InventoryToCSVMapper;
 import org.ardeu.librarymanagementsystem.domain.filerepository.base.MapFileHandler;
+import org.ardeu.librarymanagementsystem.domain.filerepository.base.TextMapFileHandler;
+import org.ardeu.librarymanagementsystem.domain.filerepository.io.ChecksummedChannelWriter;
 
-import java.io.*;
-import java.util.Collections;
-import java.util.Map;
-import java.util.UUID;
-import java.util.function.Function;
-import java.util.stream.Collectors;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 
 /**
  * A concrete implementation of {@link MapFileHandler} for handling inventory-related file operations.
  * This class provides functionality to read and write a map of inventory IDs to {@link Inventory} objects
  * from and to a CSV file. It uses mappers for converting between {@link Inventory} objects and their
- * CSV representations.
+ * CSV representations. Lines are parsed from and encoded to the file's bytes directly with
+ * {@link InventoryCSVCodec}.
  */
-public class InventoryMapFileHandler extends MapFileHandler<UUID, Inventory> {
+public class InventoryMapFileHandler extends TextMapFileHandler<Inventory> {
 
-    private final InventoryToCSVMapper inventoryToCSVMapper;
-    private final CSVToInventoryMapper csvToInventoryMapper;
+    private final InventoryCSVCodec codec;
 
     /**
      * Constructs a new {@link InventoryMapFileHandler} with the specified file name.
@@ -29,45 +28,32 @@ public class InventoryMapFileHandler extends MapFileHandler<UUID, Inventory> {
      * @param fileName the name of the file where inventory data will be read from or written to
      */
     public InventoryMapFileHandler(String fileName) {
-        super(fileName);
-        this.inventoryToCSVMapper = new InventoryToCSVMapper();
-        this.csvToInventoryMapper = new CSVToInventoryMapper();
+        super(fileName, new CSVToInventoryMapper(), new InventoryToCSVMapper());
+        this.codec = new InventoryCSVCodec();
     }
 
     /**
-     * Reads a map of inventory IDs to {@link Inventory} objects from the CSV file specified by {@code fileName}.
-     * Each line of the file is mapped to an {@link Inventory} object.
+     * Parses a {@link Inventory} straight from the mapped file.
      *
-     * @return a map of inventory IDs to {@link Inventory} objects read from the file
-     * @throws IOException if an I/O error occurs while reading the file
+     * @param buffer the buffer holding the line
+     * @param start the start of the line, inclusive
+     * @param end the end of the line, exclusive
+     * @return the parsed inventory
      */
     @Override
-    public Map<UUID, Inventory> readFromFile() throws IOException {
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(this.getFileName())))) {
-            return reader
-                    .lines()
-                    .map(this.csvToInventoryMapper)
-                    .collect(Collectors.toMap(Inventory::getId, Function.identity()));
-        }
-        catch (EOFException e) {
-            return Collections.emptyMap();
-        }
+    protected Inventory parseLine(ByteBuffer buffer, int start, int end) {
+        return this.codec.decode(buffer, start, end);
     }
 
     /**
-     * Writes a map of inventory IDs to {@link Inventory} objects to the CSV file specified by {@code fileName}.
-     * Each inventory object in the map is converted to its string representation using the {@link InventoryToCSVMapper}.
+     * Encodes a {@link Inventory} straight into the write buffer.
      *
-     * @param map the map of inventory IDs to {@link Inventory} objects to write to the file
-     * @throws IOException if an I/O error occurs while writing the file
+     * @param inventory the inventory to encode
+     * @param out the writer to encode into
+     * @throws IOException if an I/O error occurs while making room in the writer
      */
     @Override
-    public void writeToFile(Map<UUID, Inventory> map) throws IOException {
-        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(this.getFileName())))) {
-            for (String line : map.values().stream().map(this.inventoryToCSVMapper).toList()) {
-                writer.write(line);
-                writer.newLine();
-            }
-        }
+    protected void encodeLine(Inventory inventory, ChecksummedChannelWriter out) throws IOException {
+        this.codec.encode(inventory, out.reserve(InventoryCSVCodec.MAX_LINE_LENGTH));
     }
 }
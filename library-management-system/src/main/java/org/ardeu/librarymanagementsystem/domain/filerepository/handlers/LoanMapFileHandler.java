@@ -2,26 +2,25 @@ package org.ardeu.librarymanagementsystem.domain.filerepository.handlers;
 
 import org.ardeu.librarymanagementsystem.domain.entities.loan.Loan;
 import org.ardeu.librarymanagementsystem.domain.entities.loan.mappers.CSVToLoanMapper;
+import org.ardeu.librarymanagementsystem.domain.entities.loan.mappers.LoanCSVCodec;
 import org.ardeu.librarymanagementsystem.domain.entities.loan.mappers.LoanToCSVMapper;
 import org.ardeu.librarymanagementsystem.domain.filerepository.base.MapFileHandler;
+import org.ardeu.librarymanagementsystem.domain.filerepository.base.TextMapFileHandler;
+import org.ardeu.librarymanagementsystem.domain.filerepository.io.ChecksummedChannelWriter;
 
-import java.io.*;
-import java.util.Collections;
-import java.util.Map;
-import java.util.UUID;
-import java.util.function.Function;
-import java.util.stream.Collectors;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 
 /**
  * A concrete implementation of {@link MapFileHandler} for handling loan-related file operations.
  * This class provides functionality to read and write a map of loan IDs to {@link Loan} objects
  * from and to a CSV file. It uses mappers for converting between {@link Loan} objects and their
- * CSV representations.
+ * CSV representations. Lines are parsed from and encoded to the file's bytes directly with
+ * {@link LoanCSVCodec}.
  */
-public class LoanMapFileHandler extends MapFileHandler<UUID, Loan> {
+public class LoanMapFileHandler extends TextMapFileHandler<Loan> {
 
-    private final LoanToCSVMapper loanToCSVMapper;
-    private final CSVToLoanMapper csvToLoanMapper;
+    private final LoanCSVCodec codec;
 
     /**
      * Constructs a new {@link LoanMapFileHandler} with the specified file name.
@@ -29,45 +28,32 @@ public class LoanMapFileHandler extends MapFileHandler<UUID, Loan> {
      * @param fileName the name of the file where loan data will be read from or written to
      */
     public LoanMapFileHandler(String fileName) {
-        super(fileName);
-        this.loanToCSVMapper = new LoanToCSVMapper();
-        this.csvToLoanMapper = new CSVToLoanMapper();
+        super(fileName, new CSVToLoanMapper(), new LoanToCSVMapper());
+        this.codec = new LoanCSVCodec();
     }
 
     /**
-     * Reads a map of loan IDs to {@link Loan} objects from the CSV file specified by {@code fileName}.
-     * Each line of the file is mapped to a {@link Loan} object.
+     * Parses a {@link Loan} straight from the mapped file.
      *
-     * @return a map of loan IDs to {@link Loan} objects read from the file
-     * @throws IOException if an I/O error occurs while reading the file
+     * @param buffer the buffer holding the line
+     * @param start the start of the line, inclusive
+     * @param end the end of the line, exclusive
+     * @return the parsed loan
      */
     @Override
-    public Map<UUID, Loan> readFromFile() throws IOException {
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(this.getFileName())))) {
-            return reader
-                    .lines()
-                    .map(this.csvToLoanMapper)
-                    .collect(Collectors.toMap(Loan::getId, Function.identity()));
-        }
-        catch (EOFException e) {
-            return Collections.emptyMap();
-        }
+    protected Loan parseLine(ByteBuffer buffer, int start, int end) {
+        return this.codec.decode(buffer, start, end);
     }
 
     /**
-     * Writes a map of loan IDs to {@link Loan} objects to the CSV file specified by {@code fileName}.
-     * Each loan object in the map is converted to its string representation using the {@link LoanToCSVMapper}.
+     * Encodes a {@link Loan} straight into the write buffer.
      *
-     * @param map the map of loan IDs to {@link Loan} objects to write to the file
-     * @throws IOException if an I/O error occurs while writing the file
+     * @param loan the loan to encode
+     * @param out the writer to encode into
+     * @throws IOException if an I/O error occurs while making room in the writer
      */
     @Override
-    public void writeToFile(Map<UUID, Loan> map) throws IOException {
-        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(this.getFileName())))) {
-            for (String line : map.values().stream().map(this.loanToCSVMapper).toList()) {
-                writer.write(line);
-                writer.newLine();
-            }
-        }
+    protected void encodeLine(Loan loan, ChecksummedChannelWriter out) throws IOException {
+        this.codec.encode(loan, out.reserve(LoanCSVCodec.MAX_LINE_LENGTH));
     }
 }
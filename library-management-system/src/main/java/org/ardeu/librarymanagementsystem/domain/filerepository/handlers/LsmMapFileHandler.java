@@ -0,0 +1,208 @@
+package org.ardeu.librarymanagementsystem.domain.filerepository.handlers;
+
+import org.ardeu.librarymanagementsystem.domain.entities.base.BaseEntity;
+import org.ardeu.librarymanagementsystem.domain.exceptions.file.DataFormatException;
+import org.ardeu.librarymanagementsystem.domain.filerepository.base.BinaryCodec;
+import org.ardeu.librarymanagementsystem.domain.filerepository.base.MapFileHandler;
+import org.ardeu.librarymanagementsystem.domain.filerepository.io.AtomicDirectoryWriter;
+import org.ardeu.librarymanagementsystem.domain.filerepository.lsm.LsmStore;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * A concrete implementation of {@link MapFileHandler} backed by an {@link LsmStore} in the directory
+ * named by {@code fileName}.
+ * <p>
+ * Unlike the other handlers, changes are persisted as individual puts and deletes rather than by
+ * rewriting a file, and single entities can be read, written or deleted with {@link #get(UUID)},
+ * {@link #put(BaseEntity)} and {@link #delete(UUID)} without loading the whole map. The store is
+ * opened on first use.
+ * </p>
+ * <p>
+ * When the store directory does not exist yet, the entities are read once through the legacy handler,
+ * if any, and written to a store in a temporary directory that is renamed into place once they are all
+ * durable, so that a crash during the migration leaves no partial store behind.
+ * </p>
+ *
+ * @param <V> the type of entity stored
+ */
+public class LsmMapFileHandler<V extends BaseEntity> extends MapFileHandler<UUID, V> implements Closeable {
+
+    private final BinaryCodec<V> codec;
+    private final MapFileHandler<UUID, V> legacyHandler;
+    private LsmStore<V> store;
+
+    /**
+     * Constructs a new {@link LsmMapFileHandler} with the specified directory name and entity codec.
+     *
+     * @param directoryName the name of the directory holding the store
+     * @param codec the codec used to encode and decode the entities
+     */
+    public LsmMapFileHandler(String directoryName, BinaryCodec<V> codec) {
+        this(directoryName, codec, null);
+    }
+
+    /**
+     * Constructs a new {@link LsmMapFileHandler} with the specified directory name, entity codec and legacy handler.
+     *
+     * @param directoryName the name of the directory holding the store
+     * @param codec the codec used to encode and decode the entities
+     * @param legacyHandler the handler of the previous file to migrate from, or null
+     */
+    public LsmMapFileHandler(String directoryName, BinaryCodec<V> codec, MapFileHandler<UUID, V> legacyHandler) {
+        super(directoryName);
+        this.codec = codec;
+        this.legacyHandler = legacyHandler;
+    }
+
+    /**
+     * Reads every entity of the store, migrating the legacy file first if the store does not exist yet.
+     *
+     * @return a map of entity IDs to entities
+     * @throws IOException if an I/O error occurs while reading the store
+     * @throws DataFormatException if the store is corrupted
+     */
+    @Override
+    public Map<UUID, V> readFromFile() throws IOException {
+        if (!Files.exists(Paths.get(this.getFileName()))) {
+            return migrate();
+        }
+        return store().readAll();
+    }
+
+    /**
+     * Replaces the content of the store with the specified map, deleting the entities missing from it.
+     *
+     * @param map the map of entity IDs to entities to store
+     * @throws IOException if an I/O error occurs while writing to the store
+     */
+    @Override
+    public void writeToFile(Map<UUID, V> map) throws IOException {
+        LsmStore<V> store = store();
+        for (UUID id : store.readAll().keySet()) {
+            if (!map.containsKey(id)) {
+                store.delete(id);
+            }
+        }
+        for (V entity : map.values()) {
+            store.put(entity.getId(), entity);
+        }
+        store.sync();
+    }
+
+    /**
+     * Writes the changed entities and deletes the removed ones, then waits until they are durable.
+     *
+     * @param map the complete, current map
+     * @param changedKeys the keys added or updated since the last read or write
+     * @param removedKeys the keys removed since the last read or write
+     * @throws IOException if an I/O error occurs while writing to the store
+     */
+    @Override
+    public void writeChanges(Map<UUID, V> map, Set<UUID> changedKeys, Set<UUID> removedKeys) throws IOException {
+        LsmStore<V> store = store();
+        for (UUID id : removedKeys) {
+            store.delete(id);
+        }
+        for (UUID id : changedKeys) {
+            V entity = map.get(id);
+            if (Objects.nonNull(entity)) {
+                store.put(id, entity);
+            }
+        }
+        store.sync();
+    }
+
+    /**
+     * Reads a single entity.
+     *
+     * @param id the ID of the entity
+     * @return the entity, or null if it is not stored
+     * @throws IOException if an I/O error occurs while reading the store
+     * @throws DataFormatException if the store is corrupted
+     */
+    public V get(UUID id) throws IOException {
+        return store().get(id);
+    }
+
+    /**
+     * Stores a single entity, replacing any previous version.
+     *
+     * @param entity the entity to store
+     * @throws IOException if an I/O error occurs while writing to the store
+     */
+    public void put(V entity) throws IOException {
+        store().put(entity.getId(), entity);
+    }
+
+    /**
+     * Deletes a single entity.
+     *
+     * @param id the ID of the entity
+     * @throws IOException if an I/O error occurs while writing to the store
+     */
+    public void delete(UUID id) throws IOException {
+        store().delete(id);
+    }
+
+    /**
+     * Closes the store if it was opened.
+     *
+     * @throws IOException if an I/O error occurs while closing
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (Objects.nonNull(this.store)) {
+            this.store.close();
+            this.store = null;
+        }
+    }
+
+    /**
+     * Reads the entities from the legacy file, if there is one, and writes them to a new store through
+     * {@link AtomicDirectoryWriter}. The store is created even if there is nothing to migrate, so that
+     * migration runs only once.
+     *
+     * @return the migrated entities
+     * @throws IOException if an I/O error occurs while reading the legacy file or writing the store
+     */
+    private Map<UUID, V> migrate() throws IOException {
+        Map<UUID, V> map = Objects.isNull(this.legacyHandler) || !Files.exists(Paths.get(this.legacyHandler.getFileName()))
+                ? new HashMap<>()
+                : this.legacyHandler.readFromFile();
+        AtomicDirectoryWriter.write(Paths.get(this.getFileName()), directory -> {
+            try (LsmStore<V> staged = new LsmStore<>(directory.toString(), this.codec)) {
+                staged.open();
+                for (V entity : map.values()) {
+                    staged.put(entity.getId(), entity);
+                }
+                staged.sync();
+            }
+        });
+        store();
+        return map;
+    }
+
+    /**
+     * Returns the store, opening it on first use.
+     *
+     * @return the open store
+     * @throws IOException if the store cannot be opened
+     */
+    private synchronized LsmStore<V> store() throws IOException {
+        if (Objects.isNull(this.store)) {
+            LsmStore<V> opened = new LsmStore<>(this.getFileName(), this.codec);
+            opened.open();
+            this.store = opened;
+        }
+        return this.store;
+    }
+}
@@ -0,0 +1,359 @@
+package org.ardeu.librarymanagementsystem.domain.filerepository.handlers;
+
+import org.ardeu.librarymanagementsystem.domain.entities.loan.Loan;
+import org.ardeu.librarymanagementsystem.domain.entities.loan.LoanStatus;
+import org.ardeu.librarymanagementsystem.domain.exceptions.file.DataFormatException;
+import org.ardeu.librarymanagementsystem.domain.filerepository.base.MapFileHandler;
+import org.ardeu.librarymanagementsystem.domain.filerepository.io.AtomicDirectoryWriter;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * A concrete implementation of {@link MapFileHandler} storing loans in a directory of partitions,
+ * each one a {@link ColumnarLoanFileHandler} file.
+ * <p>
+ * Loans that have not been returned yet live in the {@value #OPEN_PARTITION} partition; returned loans
+ * live in the partition of the year they were made in, such as {@code 2024.bin}. Reading the map only
+ * loads the open loans and the loans of the current and previous year; older years stay on disk and are
+ * only scanned with {@link #forEachArchivedLoan(int, Consumer)}.
+ * </p>
+ * <p>
+ * Writing rewrites only the partitions touched by the changes. A loaded partition is rewritten from the
+ * map, which holds all of its loans; a partition that was not loaded is read back and has the changes
+ * merged into it. Partitions are replaced one at a time, so a crash in between may leave a loan in both
+ * its old and new partition until the journal is replayed and the next save rewrites them.
+ * </p>
+ * <p>
+ * When the directory does not exist yet, the loans are read once through the legacy handler, if any,
+ * and split into partitions in a temporary directory that is renamed into place once they are all written,
+ * so that a crash during the migration leaves no partial directory behind.
+ * </p>
+ */
+public class PartitionedLoanFileHandler extends MapFileHandler<UUID, Loan> {
+
+    /**
+     * The name of the partition holding the loans that have not been returned.
+     */
+    public static final String OPEN_PARTITION = "open";
+
+    /**
+     * The extension of every partition file.
+     */
+    private static final String PARTITION_SUFFIX = ".bin";
+
+    /**
+     * The number of most recent years loaded with the map, the current one included.
+     */
+    private static final int RECENT_YEARS = 2;
+
+    private final MapFileHandler<UUID, Loan> legacyHandler;
+
+    /**
+     * The partitions whose loans are all in the map.
+     */
+    private final Set<String> loadedPartitions;
+
+    /**
+     * The partition each loan in the map is stored in on disk.
+     */
+    private final Map<UUID, String> storedPartitions;
+
+    /**
+     * Constructs a new {@link PartitionedLoanFileHandler} with the specified directory and legacy handler.
+     *
+     * @param directoryName the name of the directory holding the partition files
+     * @param legacyHandler the handler of the previous, unpartitioned text loans file to migrate from, or null
+     */
+    public PartitionedLoanFileHandler(String directoryName, MapFileHandler<UUID, Loan> legacyHandler) {
+        super(directoryName);
+        this.legacyHandler = legacyHandler;
+        this.loadedPartitions = new HashSet<>();
+        this.storedPartitions = new HashMap<>();
+    }
+
+    /**
+     * Reads the open loans and the loans of the current and previous year, migrating the legacy
+     * file first if the partition directory does not exist yet.
+     *
+     * @return a map of loan IDs to the recent and open loans
+     * @throws IOException if an I/O error occurs while reading the partitions
+     * @throws DataFormatException if a partition is corrupted
+     */
+    @Override
+    public Map<UUID, Loan> readFromFile() throws IOException {
+        if (!Files.isDirectory(Paths.get(this.getFileName()))) {
+            migrate();
+        }
+        this.loadedPartitions.clear();
+        this.storedPartitions.clear();
+        Map<UUID, Loan> map = new HashMap<>();
+        int currentYear = LocalDate.now().getYear();
+        for (int year = currentYear - RECENT_YEARS + 1; year <= currentYear; year++) {
+            readPartition(String.valueOf(year)).forEach(loan -> map.put(loan.getId(), loan));
+        }
+        readPartition(OPEN_PARTITION).forEach(loan -> map.put(loan.getId(), loan));
+        return map;
+    }
+
+    /**
+     * Writes every loaded partition and every partition holding a loan of the map.
+     * Partitions that were not loaded keep the loans they already hold.
+     *
+     * @param map the map of loan IDs to loans to write
+     * @throws IOException if an I/O error occurs while writing the partitions
+     */
+    @Override
+    public void writeToFile(Map<UUID, Loan> map) throws IOException {
+        writeChanges(map, map.keySet(), Collections.emptySet());
+    }
+
+    /**
+     * Rewrites the partitions holding a changed or removed loan, before or after the change.
+     * <p>
+     * Removed loans whose partition is unknown, because they were never read from disk by this
+     * handler, are looked up in every partition that is not loaded.
+     * </p>
+     *
+     * @param map the complete, current map
+     * @param changedKeys the keys added or updated since the last read or write
+     * @param removedKeys the keys removed since the last read or write
+     * @throws IOException if an I/O error occurs while writing the partitions
+     */
+    @Override
+    public void writeChanges(Map<UUID, Loan> map, Set<UUID> changedKeys, Set<UUID> removedKeys) throws IOException {
+        Set<String> affected = new HashSet<>(this.loadedPartitions.size());
+        for (UUID id : changedKeys) {
+            Loan loan = map.get(id);
+            affected.add(partitionOf(loan));
+            String stored = this.storedPartitions.get(id);
+            String year = String.valueOf(loan.getLoanDate().getYear());
+            if (Objects.nonNull(stored)) {
+                affected.add(stored);
+            } else if (!this.loadedPartitions.contains(year)) {
+                affected.add(year);
+            }
+        }
+        Set<UUID> unresolved = new HashSet<>();
+        for (UUID id : removedKeys) {
+            String stored = this.storedPartitions.get(id);
+            if (Objects.nonNull(stored)) {
+                affected.add(stored);
+            } else {
+                unresolved.add(id);
+            }
+        }
+        if (!unresolved.isEmpty()) {
+            for (String partition : listPartitions()) {
+                if (!this.loadedPartitions.contains(partition) && !affected.contains(partition)
+                        && containsAny(partition, unresolved)) {
+                    affected.add(partition);
+                }
+            }
+        }
+
+        Map<String, List<Loan>> written = new HashMap<>();
+        for (Loan loan : map.values()) {
+            String partition = partitionOf(loan);
+            if (affected.contains(partition)
+                    && (this.loadedPartitions.contains(partition) || changedKeys.contains(loan.getId()))) {
+                written.computeIfAbsent(partition, _ -> new ArrayList<>()).add(loan);
+            }
+        }
+
+        for (String partition : affected) {
+            Map<UUID, Loan> content = new HashMap<>();
+            if (!this.loadedPartitions.contains(partition)) {
+                for (Loan loan : readPartition(partition, false)) {
+                    if (!changedKeys.contains(loan.getId()) && !removedKeys.contains(loan.getId())) {
+                        content.put(loan.getId(), loan);
+                    }
+                }
+            }
+            for (Loan loan : written.getOrDefault(partition, Collections.emptyList())) {
+                content.put(loan.getId(), loan);
+                this.storedPartitions.put(loan.getId(), partition);
+            }
+            writePartition(partition, content);
+        }
+        removedKeys.forEach(this.storedPartitions::remove);
+    }
+
+    /**
+     * Returns the years with a partition on disk that has not been loaded.
+     *
+     * @return the archived years, in ascending order
+     * @throws IOException if an I/O error occurs while listing the partitions
+     */
+    public SortedSet<Integer> getArchivedYears() throws IOException {
+        SortedSet<Integer> years = new TreeSet<>();
+        for (String partition : listPartitions()) {
+            if (!partition.equals(OPEN_PARTITION) && !this.loadedPartitions.contains(partition)) {
+                years.add(Integer.parseInt(partition));
+            }
+        }
+        return years;
+    }
+
+    /**
+     * Decodes the loans stored in the partition of an archived year one block at a time, without
+     * loading the partition.
+     *
+     * @param year the year to scan
+     * @param action the action to perform on every stored loan of the year
+     * @throws IOException if an I/O error occurs while reading the partition
+     * @throws DataFormatException if the partition is corrupted
+     */
+    public void forEachArchivedLoan(int year, Consumer<? super Loan> action) throws IOException {
+        partitionHandler(String.valueOf(year)).forEachLoan(action);
+    }
+
+    /**
+     * Reads the loans from the legacy file, if there is one, and writes them to their partitions through
+     * {@link AtomicDirectoryWriter}. The directory is created even if there is nothing to migrate, so that
+     * migration runs only once.
+     *
+     * @throws IOException if an I/O error occurs while reading the legacy file or writing the partitions
+     */
+    private void migrate() throws IOException {
+        Map<UUID, Loan> loans = Objects.isNull(this.legacyHandler) || !Files.exists(Paths.get(this.legacyHandler.getFileName()))
+                ? Collections.emptyMap()
+                : this.legacyHandler.readFromFile();
+        Map<String, Map<UUID, Loan>> partitions = new HashMap<>();
+        for (Loan loan : loans.values()) {
+            partitions.computeIfAbsent(partitionOf(loan), _ -> new HashMap<>()).put(loan.getId(), loan);
+        }
+        AtomicDirectoryWriter.write(Paths.get(this.getFileName()), directory -> {
+            for (Map.Entry<String, Map<UUID, Loan>> partition : partitions.entrySet()) {
+                partitionHandler(directory, partition.getKey()).writeToFile(partition.getValue());
+            }
+        });
+    }
+
+    /**
+     * Reads a partition and marks it as loaded.
+     *
+     * @param partition the partition name
+     * @return the loans of the partition
+     * @throws IOException if an I/O error occurs while reading the partition
+     */
+    private Collection<Loan> readPartition(String partition) throws IOException {
+        Collection<Loan> loans = readPartition(partition, true);
+        this.loadedPartitions.add(partition);
+        return loans;
+    }
+
+    /**
+     * Reads a partition, optionally remembering where its loans are stored.
+     *
+     * @param partition the partition name
+     * @param track whether to remember the partition of every loan read
+     * @return the loans of the partition, or an empty collection if it does not exist
+     * @throws IOException if an I/O error occurs while reading the partition
+     */
+    private Collection<Loan> readPartition(String partition, boolean track) throws IOException {
+        ColumnarLoanFileHandler handler = partitionHandler(partition);
+        if (!Files.exists(Paths.get(handler.getFileName()))) {
+            return Collections.emptyList();
+        }
+        Collection<Loan> loans = handler.readFromFile().values();
+        if (track) {
+            loans.forEach(loan -> this.storedPartitions.put(loan.getId(), partition));
+        }
+        return loans;
+    }
+
+    /**
+     * Replaces a partition with the given loans, deleting its file if there are none.
+     *
+     * @param partition the partition name
+     * @param loans the loans of the partition
+     * @throws IOException if an I/O error occurs while writing the partition
+     */
+    private void writePartition(String partition, Map<UUID, Loan> loans) throws IOException {
+        ColumnarLoanFileHandler handler = partitionHandler(partition);
+        if (loans.isEmpty()) {
+            Files.deleteIfExists(Paths.get(handler.getFileName()));
+        } else {
+            handler.writeToFile(loans);
+        }
+    }
+
+    /**
+     * Checks whether a partition that is not loaded holds any of the given loans.
+     *
+     * @param partition the partition name
+     * @param ids the loan IDs to look for
+     * @return true if at least one of the loans is stored in the partition
+     * @throws IOException if an I/O error occurs while reading the partition
+     */
+    private boolean containsAny(String partition, Set<UUID> ids) throws IOException {
+        boolean[] found = {false};
+        partitionHandler(partition).forEachLoan(loan -> found[0] |= ids.contains(loan.getId()));
+        return found[0];
+    }
+
+    /**
+     * Lists the partitions present on disk.
+     *
+     * @return the partition names
+     * @throws IOException if an I/O error occurs while listing the directory
+     */
+    private List<String> listPartitions() throws IOException {
+        List<String> partitions = new ArrayList<>();
+        Path directory = Paths.get(this.getFileName());
+        if (!Files.isDirectory(directory)) {
+            return partitions;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + PARTITION_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                String partition = name.substring(0, name.length() - PARTITION_SUFFIX.length());
+                if (partition.equals(OPEN_PARTITION) || partition.matches("\\d+")) {
+                    partitions.add(partition);
+                }
+            }
+        }
+        return partitions;
+    }
+
+    /**
+     * Creates the handler of a partition file.
+     *
+     * @param partition the partition name
+     * @return the handler reading and writing the partition
+     */
+    private ColumnarLoanFileHandler partitionHandler(String partition) {
+        return partitionHandler(Paths.get(this.getFileName()), partition);
+    }
+
+    /**
+     * Creates the handler of a partition file in the given directory.
+     *
+     * @param directory the directory holding the partition files
+     * @param partition the partition name
+     * @return the handler reading and writing the partition
+     */
+    private static ColumnarLoanFileHandler partitionHandler(Path directory, String partition) {
+        return new ColumnarLoanFileHandler(directory.resolve(partition + PARTITION_SUFFIX).toString());
+    }
+
+    /**
+     * Returns the partition a loan belongs in: the open partition until it is returned,
+     * then the partition of the year it was made in.
+     *
+     * @param loan the loan
+     * @return the partition name
+     */
+    private static String partitionOf(Loan loan) {
+        return loan.getStatus() == LoanStatus.RETURNED
+                ? String.valueOf(loan.getLoanDate().getYear())
+                : OPEN_PARTITION;
+    }
+}
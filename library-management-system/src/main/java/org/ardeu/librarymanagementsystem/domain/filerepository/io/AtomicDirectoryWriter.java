@@ -0,0 +1,105 @@
+package org.ardeu.librarymanagementsystem.domain.filerepository.io;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Utility for creating a directory so that readers only ever see it either missing or complete.
+ * <p>
+ * The content is written to a temporary directory next to the target, which is then atomically
+ * renamed to the target. A crash at any point leaves the target missing, and the leftover temporary
+ * directory is discarded by the next attempt.
+ * </p>
+ */
+public final class AtomicDirectoryWriter {
+
+    /**
+     * Private constructor to prevent instantiation of the utility class.
+     */
+    private AtomicDirectoryWriter() {}
+
+    /**
+     * Creates the target directory with whatever the writer produces.
+     *
+     * @param target the directory to create, which must not exist yet
+     * @param writer the callback writing the content of the temporary directory; every file it writes
+     *               must be durable on disk when it returns
+     * @throws IOException if an I/O error occurs; the target directory is not created in that case
+     */
+    public static void write(Path target, DirectoryWriter writer) throws IOException {
+        Path parent = target.toAbsolutePath().getParent();
+        if (Objects.nonNull(parent)) {
+            Files.createDirectories(parent);
+        }
+        Path temp = target.resolveSibling(target.getFileName() + AtomicFileWriter.TEMP_SUFFIX);
+        deleteRecursively(temp);
+        Files.createDirectories(temp);
+        try {
+            writer.write(temp);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            deleteRecursively(temp);
+            throw e;
+        }
+        syncDirectory(parent);
+    }
+
+    /**
+     * Deletes a directory and everything in it, if it exists.
+     *
+     * @param directory the directory to delete
+     * @throws IOException if an I/O error occurs while deleting
+     */
+    private static void deleteRecursively(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        List<Path> paths;
+        try (Stream<Path> walk = Files.walk(directory)) {
+            paths = walk.sorted(Comparator.reverseOrder()).toList();
+        }
+        for (Path path : paths) {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    /**
+     * Forces the directory entry of the renamed directory to disk. Not every platform allows opening
+     * a directory as a channel, so failures are ignored; the rename itself is still atomic.
+     *
+     * @param directory the directory containing the renamed directory
+     */
+    private static void syncDirectory(Path directory) {
+        if (Objects.isNull(directory)) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // best effort only
+        }
+    }
+
+    /**
+     * Callback writing the content of a directory.
+     */
+    @FunctionalInterface
+    public interface DirectoryWriter {
+
+        /**
+         * Writes the content to the directory.
+         *
+         * @param directory the temporary directory, empty when the callback starts
+         * @throws IOException if an I/O error occurs while writing
+         */
+        void write(Path directory) throws IOException;
+    }
+}
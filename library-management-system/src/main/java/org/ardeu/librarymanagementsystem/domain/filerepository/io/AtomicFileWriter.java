@@ -0,0 +1,88 @@
+package org.ardeu.librarymanagementsystem.domain.filerepository.io;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+/**
+ * Utility for replacing a file so that readers only ever see either its old or its new content.
+ * <p>
+ * The new content is written to a temporary file next to the target, forced to disk, and then
+ * atomically renamed over the target. A crash at any point leaves the previous file intact.
+ * </p>
+ */
+public final class AtomicFileWriter {
+
+    /**
+     * The suffix of the temporary file written before the rename.
+     */
+    public static final String TEMP_SUFFIX = ".tmp";
+
+    /**
+     * Private constructor to prevent instantiation of the utility class.
+     */
+    private AtomicFileWriter() {}
+
+    /**
+     * Replaces the content of the target file with whatever the writer produces.
+     *
+     * @param target the file to replace
+     * @param writer the callback writing the new content to the temporary file's channel
+     * @throws IOException if an I/O error occurs; the target file is left untouched in that case
+     */
+    public static void write(Path target, ChannelWriter writer) throws IOException {
+        Path directory = target.toAbsolutePath().getParent();
+        if (Objects.nonNull(directory)) {
+            Files.createDirectories(directory);
+        }
+        Path temp = target.resolveSibling(target.getFileName() + TEMP_SUFFIX);
+        try {
+            try (FileChannel channel = FileChannel.open(temp,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                writer.write(channel);
+                channel.force(true);
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        syncDirectory(directory);
+    }
+
+    /**
+     * Forces the directory entry of a renamed file to disk. Not every platform allows opening a
+     * directory as a channel, so failures are ignored; the rename itself is still atomic.
+     *
+     * @param directory the directory containing the renamed file
+     */
+    private static void syncDirectory(Path directory) {
+        if (Objects.isNull(directory)) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // best effort only
+        }
+    }
+
+    /**
+     * Callback writing the content of a file to its channel.
+     */
+    @FunctionalInterface
+    public interface ChannelWriter {
+
+        /**
+         * Writes the content to the channel.
+         *
+         * @param channel the channel of the temporary file, positioned at its start
+         * @throws IOException if an I/O error occurs while writing
+         */
+        void write(FileChannel channel) throws IOException;
+    }
+}
@@ -0,0 +1,74 @@
+package org.ardeu.librarymanagementsystem.domain.filerepository.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32C;
+
+/**
+ * Buffered writer appending to a file channel while keeping a CRC32C of everything written.
+ * <p>
+ * Callers encode straight into the writer's reusable buffer: {@link #reserve(int)} makes room
+ * for a record, flushing the buffer to the channel first if needed, and returns the buffer to
+ * encode into.
+ * </p>
+ */
+public class ChecksummedChannelWriter {
+
+    private final FileChannel channel;
+    private final CRC32C crc;
+    private ByteBuffer buffer;
+
+    /**
+     * Constructs a new {@link ChecksummedChannelWriter} writing at the channel's current position.
+     *
+     * @param channel the channel to write to
+     * @param bufferLength the initial length of the buffer
+     */
+    public ChecksummedChannelWriter(FileChannel channel, int bufferLength) {
+        this.channel = channel;
+        this.crc = new CRC32C();
+        this.buffer = ByteBuffer.allocate(bufferLength);
+    }
+
+    /**
+     * Makes sure the buffer has at least {@code length} bytes remaining and returns it.
+     * The buffer is flushed, or grown if it is too small altogether.
+     *
+     * @param length the number of bytes about to be written
+     * @return the buffer to write the next record to
+     * @throws IOException if an I/O error occurs while flushing
+     */
+    public ByteBuffer reserve(int length) throws IOException {
+        if (this.buffer.remaining() < length) {
+            flush();
+            if (this.buffer.capacity() < length) {
+                this.buffer = ByteBuffer.allocate(Math.max(length, 2 * this.buffer.capacity()));
+            }
+        }
+        return this.buffer;
+    }
+
+    /**
+     * Writes the buffered bytes to the channel and adds them to the checksum.
+     *
+     * @throws IOException if an I/O error occurs while writing
+     */
+    public void flush() throws IOException {
+        this.buffer.flip();
+        this.crc.update(this.buffer.array(), 0, this.buffer.limit());
+        while (this.buffer.hasRemaining()) {
+            this.channel.write(this.buffer);
+        }
+        this.buffer.clear();
+    }
+
+    /**
+     * Returns the CRC32C of the bytes flushed so far.
+     *
+     * @return the checksum of the written bytes
+     */
+    public long checksum() {
+        return this.crc.getValue();
+    }
+}
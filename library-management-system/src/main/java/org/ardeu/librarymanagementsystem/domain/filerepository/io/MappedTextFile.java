@@ -0,0 +1,157 @@
+package org.ardeu.librarymanagementsystem.domain.filerepository.io;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * A read-only, memory-mapped view of a line-oriented text file.
+ * <p>
+ * The mapping belongs to a shared arena and is released as soon as the file is closed, rather than
+ * whenever the garbage collector gets to it, so the file can be replaced right after it was read.
+ * Besides scanning for line boundaries, the file can be cut into newline-aligned chunks that are
+ * safe to parse concurrently.
+ * </p>
+ */
+public class MappedTextFile implements AutoCloseable {
+
+    /**
+     * The size of the block copied out of the mapping at a time while checksumming. {@link CRC32C}
+     * cannot read buffers backed by a shared arena directly.
+     */
+    private static final int CHECKSUM_BLOCK_LENGTH = 64 * 1024;
+
+    private final Arena arena;
+    private final MemorySegment segment;
+
+    /**
+     * Maps the whole file into memory.
+     *
+     * @param path the file to map
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    public MappedTextFile(Path path) throws IOException {
+        this.arena = Arena.ofShared();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            this.segment = channel.size() == 0
+                    ? MemorySegment.NULL
+                    : channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), this.arena);
+        } catch (IOException | RuntimeException e) {
+            this.arena.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the size of the file.
+     *
+     * @return the size of the file in bytes
+     */
+    public long size() {
+        return this.segment.byteSize();
+    }
+
+    /**
+     * Checks whether the bytes at the given position start with the given prefix.
+     *
+     * @param position the position to check
+     * @param prefix the expected bytes
+     * @return true if the file holds the prefix at that position, false otherwise
+     */
+    public boolean startsWith(long position, byte[] prefix) {
+        if (position + prefix.length > size()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (this.segment.get(ValueLayout.JAVA_BYTE, position + i) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds the start of the line following the one at the given position.
+     *
+     * @param position a position within a line
+     * @return the position just past the next line feed, or -1 if the line is not terminated
+     */
+    public long nextLine(long position) {
+        long size = size();
+        for (long i = position; i < size; i++) {
+            if (this.segment.get(ValueLayout.JAVA_BYTE, i) == '\n') {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Decodes a range of the file as UTF-8 text.
+     *
+     * @param from the start of the range, inclusive
+     * @param to the end of the range, exclusive
+     * @return the decoded text
+     */
+    public String text(long from, long to) {
+        return new String(this.segment.asSlice(from, to - from).toArray(ValueLayout.JAVA_BYTE), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Computes the CRC32C of a range of the file.
+     *
+     * @param from the start of the range, inclusive
+     * @param to the end of the range, exclusive
+     * @return the checksum of the range
+     */
+    public long checksum(long from, long to) {
+        CRC32C crc = new CRC32C();
+        byte[] block = new byte[CHECKSUM_BLOCK_LENGTH];
+        for (long position = from; position < to; position += CHECKSUM_BLOCK_LENGTH) {
+            int length = (int) Math.min(CHECKSUM_BLOCK_LENGTH, to - position);
+            MemorySegment.copy(this.segment, ValueLayout.JAVA_BYTE, position, block, 0, length);
+            crc.update(block, 0, length);
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Cuts a range of the file into chunks of roughly the target length. Every chunk but the last
+     * ends right after a line feed, so no line spans two chunks.
+     *
+     * @param from the start of the range, inclusive; must be the start of a line
+     * @param to the end of the range, exclusive
+     * @param targetLength the preferred length of a chunk
+     * @return read-only buffers over the chunks, in file order
+     */
+    public List<ByteBuffer> split(long from, long to, long targetLength) {
+        List<ByteBuffer> chunks = new ArrayList<>();
+        long start = from;
+        while (start < to) {
+            long end = start + targetLength >= to ? to : nextLine(start + targetLength);
+            if (end < 0 || end > to) {
+                end = to;
+            }
+            chunks.add(this.segment.asSlice(start, end - start).asByteBuffer().asReadOnlyBuffer());
+            start = end;
+        }
+        return chunks;
+    }
+
+    /**
+     * Releases the mapping. Buffers obtained from this file must not be used afterwards.
+     */
+    @Override
+    public void close() {
+        this.arena.close();
+    }
+}
@@ -0,0 +1,52 @@
+package org.ardeu.librarymanagementsystem.domain.filerepository.journal;
+
+/**
+ * Enum representing the kinds of mutation recorded in a {@link WriteAheadJournal}.
+ */
+public enum JournalOperation {
+
+    /**
+     * An entity was added or updated; the record carries its full state.
+     */
+    PUT((byte) 1),
+
+    /**
+     * An entity was removed; the record carries only its ID.
+     */
+    REMOVE((byte) 2);
+
+    private final byte code;
+
+    /**
+     * Constructs a JournalOperation with the specified on-disk code.
+     *
+     * @param code the byte written to the journal for this operation
+     */
+    JournalOperation(byte code) {
+        this.code = code;
+    }
+
+    /**
+     * Returns the byte written to the journal for this operation.
+     *
+     * @return the on-disk code of the operation
+     */
+    public byte getCode() {
+        return code;
+    }
+
+    /**
+     * Returns the operation matching the given on-disk code.
+     *
+     * @param code the on-disk code
+     * @return the matching operation, or null if the code is unknown
+     */
+    public static JournalOperation fromCode(byte code) {
+        for (JournalOperation operation : values()) {
+            if (operation.code == code) {
+                return operation;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,14 @@
+package org.ardeu.librarymanagementsystem.domain.filerepository.journal;
+
+import java.util.UUID;
+
+/**
+ * A single mutation read back from a {@link WriteAheadJournal}.
+ *
+ * @param operation the kind of mutation
+ * @param id the ID of the affected entity
+ * @param value the new state of the entity for {@link JournalOperation#PUT}, or null for {@link JournalOperation#REMOVE}
+ * @param <T> the type of the journaled entity
+ */
+public record JournalRecord<T>(JournalOperation operation, UUID id, T value) {
+}
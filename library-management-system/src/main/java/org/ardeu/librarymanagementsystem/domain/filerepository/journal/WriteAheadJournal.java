@@ -0,0 +1,473 @@
+package org.ardeu.librarymanagementsystem.domain.filerepository.journal;
+
+import org.ardeu.librarymanagementsystem.domain.exceptions.file.DataFormatException;
+import org.ardeu.librarymanagementsystem.domain.filerepository.base.BinaryCodec;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * An append-only journal of the mutations applied to a service's items since its last snapshot.
+ * <p>
+ * The file starts with a header made of a magic number and a format version. Every put or remove is encoded on the caller's thread into a small binary record:
+ * <pre>
+ * length (int) | operation (byte) | id (two longs) | value (codec, PUT only) | CRC32C (int)
+ * </pre>
+ * Records are handed to a single background writer which appends everything that is queued,
+ * fsyncs once and then acknowledges the whole batch (group commit). On startup the journal is
+ * replayed on top of the snapshot; a torn record at the tail, left by a crash mid-append, is
+ * discarded together with everything after it.
+ * </p>
+ *
+ * @param <T> the type of the journaled entities
+ */
+public class WriteAheadJournal<T> {
+
+    /**
+     * The maximum number of records written by a single group commit.
+     */
+    private static final int MAX_BATCH_SIZE = 512;
+
+    /**
+     * The largest record length accepted during replay; anything bigger is treated as corruption.
+     */
+    private static final int MAX_RECORD_LENGTH = 16 * 1024 * 1024;
+
+    /**
+     * The size of the operation code and the entity ID at the start of every record body.
+     */
+    private static final int RECORD_HEADER_LENGTH = Byte.BYTES + 2 * Long.BYTES;
+
+    /**
+     * The magic number at the start of every journal file ("JRNL").
+     */
+    private static final int MAGIC = 0x4A524E4C;
+
+    /**
+     * The current journal format version.
+     */
+    private static final byte VERSION = 1;
+
+    /**
+     * The size of the file header: the magic number followed by the format version.
+     */
+    private static final int HEADER_LENGTH = Integer.BYTES + Byte.BYTES;
+
+    private final String fileName;
+    private final BinaryCodec<T> codec;
+    private final BlockingQueue<PendingWrite> queue;
+
+    private FileChannel channel;
+    private Thread writer;
+    private volatile long size;
+
+    /**
+     * The first failure of the background writer since the last {@link #flush()}, or null if there was none.
+     */
+    private final AtomicReference<IOException> failure = new AtomicReference<>();
+
+    /**
+     * Whether a failed batch may have left part of its records past {@link #size}; they are cut off
+     * before the next batch is written, so that replay does not stop at them.
+     */
+    private boolean torn;
+
+    /**
+     * Constructs a new {@link WriteAheadJournal} backed by the given file.
+     *
+     * @param fileName the name of the journal file
+     * @param codec the codec used to encode the entity carried by {@link JournalOperation#PUT} records
+     */
+    public WriteAheadJournal(String fileName, BinaryCodec<T> codec) {
+        this.fileName = fileName;
+        this.codec = codec;
+        this.queue = new LinkedBlockingQueue<>();
+    }
+
+    /**
+     * Opens the journal file, creating it if needed, and starts the background writer.
+     * Calling this method on an already open journal has no effect.
+     *
+     * @throws IOException if the file cannot be opened
+     * @throws DataFormatException if the file is not a journal or has an unsupported version
+     */
+    public synchronized void open() throws IOException {
+        if (Objects.nonNull(this.channel)) {
+            return;
+        }
+        Path path = Paths.get(this.fileName);
+        if (Objects.nonNull(path.getParent())) {
+            Files.createDirectories(path.getParent());
+        }
+        this.channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.size = this.channel.size();
+        try {
+            readHeader();
+        } catch (IOException e) {
+            this.channel.close();
+            this.channel = null;
+            throw e;
+        }
+        this.channel.position(this.size);
+
+        this.writer = new Thread(this::writeLoop, "journal-writer-" + path.getFileName());
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Reads every intact record from the journal and passes it to the consumer, in append order.
+     * If the journal ends with a torn or corrupted record, the file is truncated to the last intact one.
+     *
+     * @param consumer the consumer applying each record
+     * @return the number of records replayed
+     * @throws IOException if an I/O error occurs while reading the journal
+     * @throws DataFormatException if an intact record cannot be decoded
+     */
+    public synchronized int replay(Consumer<JournalRecord<T>> consumer) throws IOException {
+        open();
+        long validLength = HEADER_LENGTH;
+        int count = 0;
+        this.channel.position(validLength);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(this.channel)));
+        while (validLength < this.size) {
+            byte[] body = readRecordBody(in);
+            if (Objects.isNull(body)) {
+                break;
+            }
+            consumer.accept(decode(body));
+            validLength += Integer.BYTES + body.length + Integer.BYTES;
+            count++;
+        }
+
+        if (validLength < this.size) {
+            this.channel.truncate(validLength);
+            this.channel.force(true);
+            this.size = validLength;
+        }
+        this.channel.position(validLength);
+        return count;
+    }
+
+    /**
+     * Appends a record stating that the given entity was added or updated.
+     *
+     * @param id the ID of the entity
+     * @param value the current state of the entity
+     * @return a future completed once the record is durable on disk
+     * @throws IOException if the journal is not open or the entity cannot be encoded
+     */
+    public CompletableFuture<Void> appendPut(UUID id, T value) throws IOException {
+        return append(JournalOperation.PUT, id, value);
+    }
+
+    /**
+     * Appends a record stating that the entity with the given ID was removed.
+     *
+     * @param id the ID of the removed entity
+     * @return a future completed once the record is durable on disk
+     * @throws IOException if the journal is not open
+     */
+    public CompletableFuture<Void> appendRemove(UUID id) throws IOException {
+        return append(JournalOperation.REMOVE, id, null);
+    }
+
+    /**
+     * Blocks until every record appended so far is durable on disk.
+     * A failure of the background writer is reported by the next flush only, since the writer
+     * carries on with later records from the last durable one.
+     *
+     * @throws IOException if the background writer failed to persist a record since the last flush
+     */
+    public void flush() throws IOException {
+        if (Objects.isNull(this.writer)) {
+            return;
+        }
+        CompletableFuture<Void> barrier = new CompletableFuture<>();
+        this.queue.add(new PendingWrite(null, barrier));
+        try {
+            barrier.join();
+        } catch (CompletionException e) {
+            throw asIOException(e.getCause());
+        }
+        IOException failure = this.failure.getAndSet(null);
+        if (Objects.nonNull(failure)) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Discards every record in the journal, leaving only the header of the current format.
+     * This must only be called once the state covered by those records has been durably
+     * written to a snapshot.
+     *
+     * @throws IOException if an I/O error occurs while truncating the journal
+     */
+    public void truncate() throws IOException {
+        flush();
+        synchronized (this) {
+            if (Objects.isNull(this.channel)) {
+                return;
+            }
+            writeHeader();
+        }
+    }
+
+    /**
+     * Returns the number of bytes currently durable in the journal.
+     *
+     * @return the size of the journal in bytes
+     */
+    public long size() {
+        return this.size;
+    }
+
+    /**
+     * Flushes outstanding records, stops the background writer and closes the journal file.
+     *
+     * @throws IOException if an I/O error occurs while flushing or closing
+     */
+    public void close() throws IOException {
+        flush();
+        synchronized (this) {
+            if (Objects.nonNull(this.writer)) {
+                this.writer.interrupt();
+                this.writer = null;
+            }
+            if (Objects.nonNull(this.channel)) {
+                this.channel.close();
+                this.channel = null;
+            }
+        }
+    }
+
+    /**
+     * Retrieves the file name associated with this journal.
+     *
+     * @return the name of the journal file
+     */
+    public String getFileName() {
+        return fileName;
+    }
+
+    /**
+     * Encodes a record and queues it for the background writer.
+     *
+     * @param operation the kind of mutation
+     * @param id the ID of the affected entity
+     * @param value the entity state, or null for removals
+     * @return a future completed once the record is durable on disk
+     * @throws IOException if the journal is not open or the entity cannot be encoded
+     */
+    private CompletableFuture<Void> append(JournalOperation operation, UUID id, T value) throws IOException {
+        if (Objects.isNull(this.writer)) {
+            throw new IOException("Journal " + this.fileName + " is not open");
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0);
+        out.writeByte(operation.getCode());
+        out.writeLong(id.getMostSignificantBits());
+        out.writeLong(id.getLeastSignificantBits());
+        if (operation == JournalOperation.PUT) {
+            this.codec.write(out, value);
+        }
+        out.writeInt(0);
+
+        ByteBuffer record = ByteBuffer.wrap(bytes.toByteArray());
+        int bodyLength = record.capacity() - 2 * Integer.BYTES;
+        CRC32C crc = new CRC32C();
+        crc.update(record.array(), Integer.BYTES, bodyLength);
+        record.putInt(0, bodyLength);
+        record.putInt(Integer.BYTES + bodyLength, (int) crc.getValue());
+
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        this.queue.add(new PendingWrite(record, done));
+        return done;
+    }
+
+    /**
+     * Checks the header of the freshly opened file. An empty file, or one too short to hold a header,
+     * which a crash while creating it may leave behind, gets the header of the current format.
+     *
+     * @throws IOException if an I/O error occurs while reading or writing the header
+     * @throws DataFormatException if the file is not a journal or has an unsupported version
+     */
+    private void readHeader() throws IOException {
+        if (this.size < HEADER_LENGTH) {
+            writeHeader();
+            return;
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+        while (header.hasRemaining()) {
+            if (this.channel.read(header, header.position()) < 0) {
+                throw new EOFException("Journal " + this.fileName + " ended inside its header");
+            }
+        }
+        if (header.getInt(0) != MAGIC) {
+            throw new DataFormatException("Journal " + this.fileName + " has no header.");
+        }
+        byte version = header.get(Integer.BYTES);
+        if (version != VERSION) {
+            throw new DataFormatException("Unsupported version " + version + " of journal " + this.fileName);
+        }
+    }
+
+    /**
+     * Replaces the content of the file with the header of the current format.
+     *
+     * @throws IOException if an I/O error occurs while writing
+     */
+    private void writeHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH).putInt(MAGIC).put(VERSION).flip();
+        this.channel.truncate(0);
+        while (header.hasRemaining()) {
+            this.channel.write(header, header.position());
+        }
+        this.channel.force(true);
+        this.channel.position(HEADER_LENGTH);
+        this.size = HEADER_LENGTH;
+        this.torn = false;
+    }
+
+    /**
+     * Reads the next record body and checks its length and checksum.
+     *
+     * @param in the journal input positioned at the start of a record
+     * @return the record body, or null if the end of the journal or a damaged record was reached
+     * @throws IOException if an I/O error occurs while reading
+     */
+    private byte[] readRecordBody(DataInputStream in) throws IOException {
+        try {
+            int length = in.readInt();
+            if (length < RECORD_HEADER_LENGTH || length > MAX_RECORD_LENGTH) {
+                return null;
+            }
+            byte[] body = new byte[length];
+            in.readFully(body);
+            int checksum = in.readInt();
+
+            CRC32C crc = new CRC32C();
+            crc.update(body);
+            return (int) crc.getValue() == checksum ? body : null;
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Decodes a record body that passed its checksum.
+     *
+     * @param body the record body
+     * @return the decoded record
+     * @throws IOException if the body is not a valid record
+     */
+    private JournalRecord<T> decode(byte[] body) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+        JournalOperation operation = JournalOperation.fromCode(in.readByte());
+        UUID id = new UUID(in.readLong(), in.readLong());
+        if (Objects.isNull(operation)) {
+            throw new DataFormatException("Unknown journal operation for entity " + id + " in " + this.fileName);
+        }
+        T value = operation == JournalOperation.PUT ? this.codec.read(in) : null;
+        return new JournalRecord<>(operation, id, value);
+    }
+
+    /**
+     * The body of the background writer: takes whatever records are queued, writes them with
+     * a single fsync and acknowledges them together.
+     */
+    private void writeLoop() {
+        List<PendingWrite> batch = new ArrayList<>();
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                batch.add(this.queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            this.queue.drainTo(batch, MAX_BATCH_SIZE - 1);
+            try {
+                writeBatch(batch);
+                batch.forEach(write -> write.done().complete(null));
+            } catch (IOException | RuntimeException e) {
+                // the writer keeps running, so that a single failed batch does not leave later flushes waiting
+                IOException failure = asIOException(e);
+                this.failure.compareAndSet(null, failure);
+                batch.forEach(write -> write.done().completeExceptionally(failure));
+            }
+            batch.clear();
+        }
+    }
+
+    /**
+     * Appends a batch of records to the journal file and forces them to disk, first cutting off
+     * whatever a previous failed batch left behind.
+     *
+     * @param batch the records to write; barriers carry no data and are skipped
+     * @throws IOException if an I/O error occurs while writing
+     */
+    private synchronized void writeBatch(List<PendingWrite> batch) throws IOException {
+        ByteBuffer[] records = batch.stream()
+                .map(PendingWrite::record)
+                .filter(Objects::nonNull)
+                .toArray(ByteBuffer[]::new);
+        if (records.length == 0) {
+            return;
+        }
+        if (Objects.isNull(this.channel)) {
+            throw new IOException("Journal " + this.fileName + " is closed");
+        }
+        try {
+            if (this.torn) {
+                this.channel.truncate(this.size);
+                this.channel.position(this.size);
+                this.torn = false;
+            }
+            while (records[records.length - 1].hasRemaining()) {
+                this.channel.write(records);
+            }
+            this.channel.force(false);
+        } catch (IOException e) {
+            this.torn = true;
+            throw e;
+        }
+        this.size = this.channel.position();
+    }
+
+    /**
+     * Converts a failure reported by the background writer to an {@link IOException}.
+     *
+     * @param cause the failure
+     * @return the failure as an {@link IOException}
+     */
+    private static IOException asIOException(Throwable cause) {
+        return cause instanceof IOException e ? e : new IOException(cause);
+    }
+
+    /**
+     * A record waiting for the background writer, or a flush barrier when {@code record} is null.
+     *
+     * @param record the encoded record, or null for a barrier
+     * @param done the future completed once the record is durable
+     */
+    private record PendingWrite(ByteBuffer record, CompletableFuture<Void> done) {
+    }
+}
@@ -0,0 +1,136 @@
+package org.ardeu.librarymanagementsystem.domain.filerepository.lsm;
+
+import org.ardeu.librarymanagementsystem.domain.exceptions.file.DataFormatException;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.UUID;
+
+/**
+ * A Bloom filter over {@link UUID} keys, used to skip segments that cannot hold a key.
+ * <p>
+ * The filter uses {@value #BITS_PER_KEY} bits per expected key and {@value #HASH_COUNT} probes derived
+ * from two 64-bit hashes of the key (double hashing), for a false positive rate of about 1%.
+ * </p>
+ */
+public class BloomFilter {
+
+    /**
+     * The number of bits reserved per expected key.
+     */
+    private static final int BITS_PER_KEY = 10;
+
+    /**
+     * The number of bits set and probed per key.
+     */
+    private static final int HASH_COUNT = 7;
+
+    /**
+     * The largest filter accepted when reading, in longs; anything bigger is treated as corruption.
+     */
+    private static final int MAX_WORDS = 1 << 24;
+
+    private final long[] bits;
+
+    /**
+     * Constructs an empty {@link BloomFilter} sized for the given number of keys.
+     *
+     * @param expectedKeys the number of keys that will be added
+     */
+    public BloomFilter(long expectedKeys) {
+        long bitCount = Math.max(Long.SIZE, expectedKeys * BITS_PER_KEY);
+        this.bits = new long[(int) Math.min(MAX_WORDS, (bitCount + Long.SIZE - 1) / Long.SIZE)];
+    }
+
+    /**
+     * Constructs a {@link BloomFilter} over existing bits.
+     *
+     * @param bits the bits of the filter
+     */
+    private BloomFilter(long[] bits) {
+        this.bits = bits;
+    }
+
+    /**
+     * Adds a key to the filter.
+     *
+     * @param key the key to add
+     */
+    public void add(UUID key) {
+        long h1 = mix(key.getMostSignificantBits() ^ Long.rotateLeft(key.getLeastSignificantBits(), 32));
+        long h2 = mix(key.getLeastSignificantBits()) | 1;
+        long bitCount = (long) this.bits.length * Long.SIZE;
+        for (int i = 0; i < HASH_COUNT; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+            this.bits[(int) (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    /**
+     * Checks whether a key may have been added to the filter.
+     *
+     * @param key the key to check
+     * @return false if the key was certainly not added, true if it may have been
+     */
+    public boolean mightContain(UUID key) {
+        long h1 = mix(key.getMostSignificantBits() ^ Long.rotateLeft(key.getLeastSignificantBits(), 32));
+        long h2 = mix(key.getLeastSignificantBits()) | 1;
+        long bitCount = (long) this.bits.length * Long.SIZE;
+        for (int i = 0; i < HASH_COUNT; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+            if ((this.bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes the filter as an int word count followed by the words.
+     *
+     * @param out the output to write to
+     * @throws IOException if an I/O error occurs while writing
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(this.bits.length);
+        for (long word : this.bits) {
+            out.writeLong(word);
+        }
+    }
+
+    /**
+     * Reads a filter written by {@link #writeTo(DataOutput)}.
+     *
+     * @param in the input to read from
+     * @return the filter read
+     * @throws IOException if an I/O error occurs while reading
+     * @throws DataFormatException if the word count is invalid
+     */
+    public static BloomFilter readFrom(DataInput in) throws IOException {
+        int words = in.readInt();
+        if (words <= 0 || words > MAX_WORDS) {
+            throw new DataFormatException("Invalid Bloom filter length " + words + ".");
+        }
+        long[] bits = new long[words];
+        for (int i = 0; i < words; i++) {
+            bits[i] = in.readLong();
+        }
+        return new BloomFilter(bits);
+    }
+
+    /**
+     * Scrambles the bits of a value (the MurmurHash3 finalizer).
+     *
+     * @param value the value to scramble
+     * @return the scrambled value
+     */
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
@@ -0,0 +1,34 @@
+package org.ardeu.librarymanagementsystem.domain.filerepository.lsm;
+
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * A key and its latest value in an {@link LsmStore}, or a tombstone recording that the key was deleted.
+ *
+ * @param key the key
+ * @param value the value, or null for a tombstone
+ * @param <V> the type of the values
+ */
+public record LsmEntry<V>(UUID key, V value) {
+
+    /**
+     * Creates a tombstone for the given key.
+     *
+     * @param key the deleted key
+     * @param <V> the type of the values
+     * @return the tombstone
+     */
+    public static <V> LsmEntry<V> tombstone(UUID key) {
+        return new LsmEntry<>(key, null);
+    }
+
+    /**
+     * Checks whether this entry records a deletion.
+     *
+     * @return true if this entry is a tombstone
+     */
+    public boolean isTombstone() {
+        return Objects.isNull(value);
+    }
+}
@@ -0,0 +1,530 @@
+package org.ardeu.librarymanagementsystem.domain.filerepository.lsm;
+
+import org.ardeu.librarymanagementsystem.domain.exceptions.file.DataFormatException;
+import org.ardeu.librarymanagementsystem.domain.filerepository.base.BinaryCodec;
+import org.ardeu.librarymanagementsystem.domain.filerepository.io.AtomicFileWriter;
+import org.ardeu.librarymanagementsystem.domain.filerepository.journal.JournalOperation;
+import org.ardeu.librarymanagementsystem.domain.filerepository.journal.WriteAheadJournal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An embedded key-value store keyed by {@link UUID}, organized as a log-structured merge tree.
+ * <p>
+ * Writes go to a {@link WriteAheadJournal} and to an in-memory sorted memtable. Once the memtable
+ * holds {@value #MEMTABLE_LIMIT} entries it is flushed to a new immutable {@link SegmentFile}, the
+ * {@value #MANIFEST_FILE} listing the live segments (newest first) is replaced atomically and the journal
+ * is truncated. A lookup checks the memtable and then the segments from newest to oldest, stopping at
+ * the first entry found; deletions are recorded as tombstones that shadow older values.
+ * </p>
+ * <p>
+ * When {@value #COMPACTION_THRESHOLD} or more segments exist, a background thread merges them into a
+ * single segment, keeping the newest entry per key and dropping tombstones, and swaps it in for the
+ * merged segments. Segments not listed in the manifest, left behind by a crash, are deleted on open.
+ * </p>
+ *
+ * @param <V> the type of the values
+ */
+public class LsmStore<V> implements Closeable {
+
+    /**
+     * The number of memtable entries that triggers a flush.
+     */
+    private static final int MEMTABLE_LIMIT = 16384;
+
+    /**
+     * The number of segments that triggers a compaction.
+     */
+    private static final int COMPACTION_THRESHOLD = 4;
+
+    /**
+     * The name of the file listing the live segments.
+     */
+    private static final String MANIFEST_FILE = "MANIFEST";
+
+    /**
+     * The name of the journal file.
+     */
+    private static final String JOURNAL_FILE = "journal.log";
+
+    /**
+     * The prefix and suffix of segment file names.
+     */
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private final Path directory;
+    private final BinaryCodec<V> codec;
+    private final WriteAheadJournal<V> journal;
+    private final ExecutorService compactor;
+
+    private volatile NavigableMap<UUID, LsmEntry<V>> memtable = new ConcurrentSkipListMap<>();
+    private volatile List<SegmentFile<V>> segments = List.of();
+    private long nextSegment;
+    private boolean compacting;
+    private boolean closed;
+
+    /**
+     * Constructs a new {@link LsmStore} in the given directory. The store must be {@link #open() opened}
+     * before use.
+     *
+     * @param directory the directory holding the segments, the manifest and the journal
+     * @param codec the codec used to encode and decode the values
+     */
+    public LsmStore(String directory, BinaryCodec<V> codec) {
+        this.directory = Paths.get(directory);
+        this.codec = codec;
+        this.journal = new WriteAheadJournal<>(this.directory.resolve(JOURNAL_FILE).toString(), codec);
+        this.compactor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "lsm-compaction-" + this.directory.getFileName());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Opens the segments listed in the manifest, deletes unlisted ones and replays the journal
+     * into the memtable.
+     *
+     * @throws IOException if an I/O error occurs while opening the store
+     * @throws DataFormatException if the manifest, a segment or the journal is corrupted
+     */
+    public synchronized void open() throws IOException {
+        Files.createDirectories(this.directory);
+        List<String> names = readManifest();
+        List<SegmentFile<V>> opened = new ArrayList<>(names.size());
+        try {
+            for (String name : names) {
+                opened.add(SegmentFile.open(this.directory.resolve(name), this.codec));
+            }
+        } catch (IOException e) {
+            closeAll(opened);
+            throw e;
+        }
+        this.segments = List.copyOf(opened);
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(this.directory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.startsWith(SEGMENT_PREFIX)) {
+                    this.nextSegment = Math.max(this.nextSegment, segmentNumber(name) + 1);
+                    if (!names.contains(name)) {
+                        Files.delete(file);
+                    }
+                }
+            }
+        }
+
+        this.journal.replay(record -> this.memtable.put(record.id(), record.operation() == JournalOperation.PUT
+                ? new LsmEntry<>(record.id(), record.value())
+                : LsmEntry.tombstone(record.id())));
+        scheduleCompaction();
+    }
+
+    /**
+     * Looks up the value of a key.
+     *
+     * @param key the key to look up
+     * @return the value of the key, or null if it is absent or was deleted
+     * @throws IOException if an I/O error occurs while reading a segment
+     * @throws DataFormatException if a segment is corrupted
+     */
+    public V get(UUID key) throws IOException {
+        while (true) {
+            LsmEntry<V> entry = this.memtable.get(key);
+            if (Objects.nonNull(entry)) {
+                return entry.value();
+            }
+            List<SegmentFile<V>> current = this.segments;
+            try {
+                for (SegmentFile<V> segment : current) {
+                    entry = segment.get(key);
+                    if (Objects.nonNull(entry)) {
+                        return entry.value();
+                    }
+                }
+                return null;
+            } catch (ClosedChannelException e) {
+                // a compaction replaced the segments while reading; retry with the new ones
+                if (current == this.segments) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Stores the value of a key, replacing any previous value.
+     *
+     * @param key the key
+     * @param value the value, not null
+     * @throws IOException if the write cannot be journaled or the memtable cannot be flushed
+     */
+    public synchronized void put(UUID key, V value) throws IOException {
+        ensureOpen();
+        this.journal.appendPut(key, Objects.requireNonNull(value));
+        this.memtable.put(key, new LsmEntry<>(key, value));
+        flushIfFull();
+    }
+
+    /**
+     * Deletes a key by recording a tombstone for it.
+     *
+     * @param key the key to delete
+     * @throws IOException if the deletion cannot be journaled or the memtable cannot be flushed
+     */
+    public synchronized void delete(UUID key) throws IOException {
+        ensureOpen();
+        this.journal.appendRemove(key);
+        this.memtable.put(key, LsmEntry.tombstone(key));
+        flushIfFull();
+    }
+
+    /**
+     * Reads every live key and value of the store.
+     *
+     * @return a map of every key to its value
+     * @throws IOException if an I/O error occurs while reading a segment
+     * @throws DataFormatException if a segment is corrupted
+     */
+    public synchronized Map<UUID, V> readAll() throws IOException {
+        Map<UUID, V> map = new HashMap<>();
+        for (SegmentFile<V> segment : this.segments.reversed()) {
+            SegmentFile.EntrySource<V> entries = segment.entries();
+            for (LsmEntry<V> entry = entries.next(); Objects.nonNull(entry); entry = entries.next()) {
+                apply(map, entry);
+            }
+        }
+        for (LsmEntry<V> entry : this.memtable.values()) {
+            apply(map, entry);
+        }
+        return map;
+    }
+
+    /**
+     * Blocks until every write made so far is durable on disk.
+     *
+     * @throws IOException if the journal cannot be flushed
+     */
+    public void sync() throws IOException {
+        this.journal.flush();
+    }
+
+    /**
+     * Returns the number of live segments.
+     *
+     * @return the segment count
+     */
+    public int getSegmentCount() {
+        return this.segments.size();
+    }
+
+    /**
+     * Waits for a running compaction, then closes the journal and the segments.
+     *
+     * @throws IOException if an I/O error occurs while closing
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (this.closed) {
+                return;
+            }
+            this.closed = true;
+        }
+        this.compactor.shutdown();
+        try {
+            this.compactor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            this.journal.close();
+            closeAll(this.segments);
+        }
+    }
+
+    /**
+     * Flushes the memtable to a new segment once it reaches {@link #MEMTABLE_LIMIT} entries.
+     *
+     * @throws IOException if the segment or the manifest cannot be written
+     */
+    private void flushIfFull() throws IOException {
+        if (this.memtable.size() < MEMTABLE_LIMIT) {
+            return;
+        }
+        NavigableMap<UUID, LsmEntry<V>> flushed = this.memtable;
+        Iterator<LsmEntry<V>> entries = flushed.values().iterator();
+        SegmentFile<V> segment = SegmentFile.write(newSegmentPath(),
+                () -> entries.hasNext() ? entries.next() : null, flushed.size(), this.codec);
+
+        List<SegmentFile<V>> updated = new ArrayList<>(this.segments.size() + 1);
+        updated.add(segment);
+        updated.addAll(this.segments);
+        installSegments(updated);
+        this.memtable = new ConcurrentSkipListMap<>();
+        this.journal.truncate();
+        scheduleCompaction();
+    }
+
+    /**
+     * Starts a background compaction if enough segments exist and none is running.
+     */
+    private void scheduleCompaction() {
+        if (this.compacting || this.closed || this.segments.size() < COMPACTION_THRESHOLD) {
+            return;
+        }
+        this.compacting = true;
+        this.compactor.execute(this::compact);
+    }
+
+    /**
+     * Merges the current segments into one and swaps it in. Segments flushed while merging are kept
+     * in front of the merged one. Failures are reported and leave the segments untouched.
+     */
+    private void compact() {
+        List<SegmentFile<V>> merged;
+        Path path;
+        synchronized (this) {
+            merged = this.segments;
+            path = newSegmentPath();
+        }
+        try {
+            long expected = merged.stream().mapToLong(SegmentFile::getEntryCount).sum();
+            SegmentFile<V> segment = SegmentFile.write(path, merge(merged), expected, this.codec);
+            synchronized (this) {
+                List<SegmentFile<V>> updated = new ArrayList<>(this.segments.subList(0, this.segments.size() - merged.size()));
+                updated.add(segment);
+                installSegments(updated);
+            }
+            closeAll(merged);
+            for (SegmentFile<V> old : merged) {
+                Files.deleteIfExists(old.getPath());
+            }
+        } catch (IOException e) {
+            System.err.printf("Compaction of %s failed: %s%n", this.directory, e.getMessage());
+        } finally {
+            synchronized (this) {
+                this.compacting = false;
+                scheduleCompaction();
+            }
+        }
+    }
+
+    /**
+     * Returns a source merging the entries of the given segments in key order. For keys present in
+     * several segments only the entry of the newest segment is kept; tombstones are dropped since
+     * no older segment remains for them to shadow.
+     *
+     * @param segments the segments to merge, newest first
+     * @return the merged entries
+     * @throws IOException if an I/O error occurs while reading the segments
+     */
+    private SegmentFile.EntrySource<V> merge(List<SegmentFile<V>> segments) throws IOException {
+        PriorityQueue<MergeCursor<V>> queue = new PriorityQueue<>(Comparator
+                .comparing((MergeCursor<V> cursor) -> cursor.head().key())
+                .thenComparingInt(MergeCursor::age));
+        for (int i = 0; i < segments.size(); i++) {
+            MergeCursor<V> cursor = new MergeCursor<>(segments.get(i).entries(), i);
+            if (cursor.advance()) {
+                queue.add(cursor);
+            }
+        }
+        return () -> {
+            while (!queue.isEmpty()) {
+                MergeCursor<V> newest = queue.poll();
+                LsmEntry<V> entry = newest.head();
+                if (newest.advance()) {
+                    queue.add(newest);
+                }
+                while (!queue.isEmpty() && queue.peek().head().key().equals(entry.key())) {
+                    MergeCursor<V> shadowed = queue.poll();
+                    if (shadowed.advance()) {
+                        queue.add(shadowed);
+                    }
+                }
+                if (!entry.isTombstone()) {
+                    return entry;
+                }
+            }
+            return null;
+        };
+    }
+
+    /**
+     * Replaces the manifest and then the live segment list.
+     *
+     * @param updated the new live segments, newest first
+     * @throws IOException if the manifest cannot be written
+     */
+    private void installSegments(List<SegmentFile<V>> updated) throws IOException {
+        StringBuilder manifest = new StringBuilder();
+        for (SegmentFile<V> segment : updated) {
+            manifest.append(segment.getPath().getFileName()).append('\n');
+        }
+        ByteBuffer content = ByteBuffer.wrap(manifest.toString().getBytes(StandardCharsets.UTF_8));
+        AtomicFileWriter.write(this.directory.resolve(MANIFEST_FILE), channel -> {
+            while (content.hasRemaining()) {
+                channel.write(content);
+            }
+        });
+        this.segments = List.copyOf(updated);
+    }
+
+    /**
+     * Reads the segment names listed in the manifest.
+     *
+     * @return the segment names, newest first, or an empty list if there is no manifest
+     * @throws IOException if an I/O error occurs while reading the manifest
+     * @throws DataFormatException if the manifest lists an invalid name
+     */
+    private List<String> readManifest() throws IOException {
+        Path manifest = this.directory.resolve(MANIFEST_FILE);
+        if (!Files.exists(manifest)) {
+            return List.of();
+        }
+        List<String> names = new ArrayList<>();
+        for (String line : Files.readAllLines(manifest, StandardCharsets.UTF_8)) {
+            if (line.isBlank()) {
+                continue;
+            }
+            if (segmentNumber(line) < 0) {
+                throw new DataFormatException("Manifest " + manifest + " lists an invalid segment: " + line);
+            }
+            names.add(line);
+        }
+        return names;
+    }
+
+    /**
+     * Returns the path of the next segment file.
+     *
+     * @return the path of a segment file that does not exist yet
+     */
+    private Path newSegmentPath() {
+        return this.directory.resolve(String.format("%s%08d%s", SEGMENT_PREFIX, this.nextSegment++, SEGMENT_SUFFIX));
+    }
+
+    /**
+     * Parses the sequence number of a segment file name.
+     *
+     * @param name the file name
+     * @return the sequence number, or -1 if the name is not a segment name
+     */
+    private static long segmentNumber(String name) {
+        if (!name.startsWith(SEGMENT_PREFIX) || !name.endsWith(SEGMENT_SUFFIX)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Applies an entry to a map, removing the key for a tombstone.
+     *
+     * @param map the map to update
+     * @param entry the entry to apply
+     * @param <V> the type of the values
+     */
+    private static <V> void apply(Map<UUID, V> map, LsmEntry<V> entry) {
+        if (entry.isTombstone()) {
+            map.remove(entry.key());
+        } else {
+            map.put(entry.key(), entry.value());
+        }
+    }
+
+    /**
+     * Closes the given segments, reporting rather than throwing failures.
+     *
+     * @param segments the segments to close
+     */
+    private static void closeAll(List<? extends SegmentFile<?>> segments) {
+        for (SegmentFile<?> segment : segments) {
+            try {
+                segment.close();
+            } catch (IOException e) {
+                System.err.printf("Failed to close segment %s: %s%n", segment.getPath(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Fails if the store has been closed.
+     *
+     * @throws IOException if the store is closed
+     */
+    private void ensureOpen() throws IOException {
+        if (this.closed) {
+            throw new IOException("LSM store " + this.directory + " is closed.");
+        }
+    }
+
+    /**
+     * The position of a merge in one segment.
+     *
+     * @param <V> the type of the values
+     */
+    private static final class MergeCursor<V> {
+
+        private final SegmentFile.EntrySource<V> source;
+        private final int age;
+        private LsmEntry<V> head;
+
+        /**
+         * Constructs a {@link MergeCursor} over a segment.
+         *
+         * @param source the entries of the segment
+         * @param age the position of the segment in the live list; lower is newer
+         */
+        private MergeCursor(SegmentFile.EntrySource<V> source, int age) {
+            this.source = source;
+            this.age = age;
+        }
+
+        /**
+         * Moves to the next entry.
+         *
+         * @return true if there is one, false if the segment is exhausted
+         * @throws IOException if an I/O error occurs while reading the segment
+         */
+        private boolean advance() throws IOException {
+            this.head = this.source.next();
+            return Objects.nonNull(this.head);
+        }
+
+        /**
+         * Returns the current entry.
+         *
+         * @return the current entry
+         */
+        private LsmEntry<V> head() {
+            return head;
+        }
+
+        /**
+         * Returns the age of the segment.
+         *
+         * @return the position of the segment in the live list
+         */
+        private int age() {
+            return age;
+        }
+    }
+}
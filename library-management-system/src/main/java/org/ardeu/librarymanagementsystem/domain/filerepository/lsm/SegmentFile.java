@@ -0,0 +1,420 @@
+package org.ardeu.librarymanagementsystem.domain.filerepository.lsm;
+
+import org.ardeu.librarymanagementsystem.domain.exceptions.file.DataFormatException;
+import org.ardeu.librarymanagementsystem.domain.filerepository.base.BinaryCodec;
+import org.ardeu.librarymanagementsystem.domain.filerepository.codecs.BinaryFields;
+import org.ardeu.librarymanagementsystem.domain.filerepository.io.AtomicFileWriter;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.zip.CRC32C;
+
+/**
+ * An immutable file of {@link LsmEntry entries} sorted by key, as written by an {@link LsmStore}
+ * when its memtable is flushed or its segments are compacted.
+ * <p>
+ * The file is laid out as:
+ * <pre>
+ * magic (int) | version (byte)
+ * blocks:  length (int) | CRC32C (int) | entries, each key (two longs) | value length (int, -1 for a tombstone) | value
+ * index:   block count (int) | per block: first key (two longs) | offset (long)
+ * filter:  {@link BloomFilter}
+ * trailer: index offset (long) | entry count (long) | CRC32C of index and filter (int) | magic (int)
+ * </pre>
+ * Blocks hold about {@value #BLOCK_LENGTH} bytes of entries. The sparse index and the Bloom filter are
+ * loaded when the segment is opened; a point lookup then probes the filter, binary searches the index
+ * and reads a single block. Every block is checked against its checksum when read.
+ * </p>
+ *
+ * @param <V> the type of the values
+ */
+public class SegmentFile<V> implements Closeable {
+
+    /**
+     * The magic number at the start and end of every segment ("LMSG").
+     */
+    private static final int MAGIC = 0x4C4D5347;
+
+    /**
+     * The current format version.
+     */
+    private static final byte VERSION = 1;
+
+    /**
+     * The size of the header: magic and version.
+     */
+    private static final int HEADER_LENGTH = Integer.BYTES + Byte.BYTES;
+
+    /**
+     * The size of the trailer: index offset, entry count, checksum and magic.
+     */
+    private static final int TRAILER_LENGTH = Long.BYTES + Long.BYTES + Integer.BYTES + Integer.BYTES;
+
+    /**
+     * The size of a block header: length and checksum.
+     */
+    private static final int BLOCK_HEADER_LENGTH = Integer.BYTES + Integer.BYTES;
+
+    /**
+     * The number of entry bytes after which a block is closed.
+     */
+    private static final int BLOCK_LENGTH = 4096;
+
+    /**
+     * The largest block or metadata section accepted when reading; anything bigger is treated as corruption.
+     */
+    private static final int MAX_SECTION_LENGTH = 256 * 1024 * 1024;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final BinaryCodec<V> codec;
+    private final UUID[] firstKeys;
+    private final long[] blockOffsets;
+    private final BloomFilter filter;
+    private final long entryCount;
+
+    /**
+     * Constructs a {@link SegmentFile} over an open channel and its loaded metadata.
+     */
+    private SegmentFile(Path path, FileChannel channel, BinaryCodec<V> codec,
+                        UUID[] firstKeys, long[] blockOffsets, BloomFilter filter, long entryCount) {
+        this.path = path;
+        this.channel = channel;
+        this.codec = codec;
+        this.firstKeys = firstKeys;
+        this.blockOffsets = blockOffsets;
+        this.filter = filter;
+        this.entryCount = entryCount;
+    }
+
+    /**
+     * Writes a new segment file atomically and opens it.
+     *
+     * @param path the path of the segment file
+     * @param entries the entries to write, in ascending key order without duplicates
+     * @param expectedEntries an upper bound of the number of entries, used to size the Bloom filter
+     * @param codec the codec used to encode the values
+     * @param <V> the type of the values
+     * @return the opened segment
+     * @throws IOException if an I/O error occurs while writing or opening the segment
+     */
+    public static <V> SegmentFile<V> write(Path path, EntrySource<V> entries, long expectedEntries,
+                                           BinaryCodec<V> codec) throws IOException {
+        AtomicFileWriter.write(path, channel -> {
+            BloomFilter filter = new BloomFilter(expectedEntries);
+            ByteArrayOutputStream index = new ByteArrayOutputStream();
+            DataOutputStream indexOut = new DataOutputStream(index);
+            ByteArrayOutputStream block = new ByteArrayOutputStream(2 * BLOCK_LENGTH);
+            DataOutputStream blockOut = new DataOutputStream(block);
+            ByteArrayOutputStream value = new ByteArrayOutputStream();
+            DataOutputStream valueOut = new DataOutputStream(value);
+
+            writeFully(channel, ByteBuffer.allocate(HEADER_LENGTH).putInt(MAGIC).put(VERSION).flip());
+            long position = HEADER_LENGTH;
+            int blocks = 0;
+            long count = 0;
+            UUID previous = null;
+            for (LsmEntry<V> entry = entries.next(); Objects.nonNull(entry); entry = entries.next()) {
+                if (Objects.nonNull(previous) && previous.compareTo(entry.key()) >= 0) {
+                    throw new IllegalArgumentException("Segment entries must be sorted and unique: " + entry.key());
+                }
+                previous = entry.key();
+                if (block.size() == 0) {
+                    BinaryFields.writeUuid(indexOut, entry.key());
+                    indexOut.writeLong(position);
+                    blocks++;
+                }
+                BinaryFields.writeUuid(blockOut, entry.key());
+                if (entry.isTombstone()) {
+                    blockOut.writeInt(-1);
+                } else {
+                    value.reset();
+                    codec.write(valueOut, entry.value());
+                    valueOut.flush();
+                    blockOut.writeInt(value.size());
+                    value.writeTo(blockOut);
+                }
+                filter.add(entry.key());
+                count++;
+                if (block.size() >= BLOCK_LENGTH) {
+                    position += writeBlock(channel, block);
+                }
+            }
+            if (block.size() > 0) {
+                position += writeBlock(channel, block);
+            }
+
+            ByteArrayOutputStream metadata = new ByteArrayOutputStream(Integer.BYTES + index.size());
+            DataOutputStream metadataOut = new DataOutputStream(metadata);
+            metadataOut.writeInt(blocks);
+            index.writeTo(metadataOut);
+            filter.writeTo(metadataOut);
+            metadataOut.flush();
+            CRC32C crc = new CRC32C();
+            crc.update(metadata.toByteArray());
+            writeFully(channel, ByteBuffer.wrap(metadata.toByteArray()));
+            writeFully(channel, ByteBuffer.allocate(TRAILER_LENGTH)
+                    .putLong(position)
+                    .putLong(count)
+                    .putInt((int) crc.getValue())
+                    .putInt(MAGIC)
+                    .flip());
+        });
+        return open(path, codec);
+    }
+
+    /**
+     * Opens an existing segment file, loading and validating its index and Bloom filter.
+     *
+     * @param path the path of the segment file
+     * @param codec the codec used to decode the values
+     * @param <V> the type of the values
+     * @return the opened segment
+     * @throws IOException if an I/O error occurs while reading the segment
+     * @throws DataFormatException if the segment is corrupted
+     */
+    public static <V> SegmentFile<V> open(Path path, BinaryCodec<V> codec) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size < HEADER_LENGTH + TRAILER_LENGTH) {
+                throw new DataFormatException("Segment " + path + " is truncated.");
+            }
+            ByteBuffer header = readFully(channel, 0, HEADER_LENGTH, path);
+            ByteBuffer trailer = readFully(channel, size - TRAILER_LENGTH, TRAILER_LENGTH, path);
+            long indexOffset = trailer.getLong();
+            long entryCount = trailer.getLong();
+            int checksum = trailer.getInt();
+            if (header.getInt() != MAGIC || header.get() != VERSION || trailer.getInt() != MAGIC
+                    || indexOffset < HEADER_LENGTH || size - TRAILER_LENGTH - indexOffset > MAX_SECTION_LENGTH) {
+                throw new DataFormatException("Segment " + path + " has an invalid header or trailer.");
+            }
+
+            ByteBuffer metadata = readFully(channel, indexOffset, (int) (size - TRAILER_LENGTH - indexOffset), path);
+            CRC32C crc = new CRC32C();
+            crc.update(metadata.duplicate());
+            if ((int) crc.getValue() != checksum) {
+                throw new DataFormatException("Segment " + path + " is corrupted: checksum mismatch.");
+            }
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(metadata.array()));
+            int blocks = in.readInt();
+            if (blocks < 0 || (long) blocks * 3 * Long.BYTES > metadata.capacity()) {
+                throw new DataFormatException("Segment " + path + " is corrupted: invalid block count.");
+            }
+            UUID[] firstKeys = new UUID[blocks];
+            long[] blockOffsets = new long[blocks];
+            for (int i = 0; i < blocks; i++) {
+                firstKeys[i] = BinaryFields.readUuid(in);
+                blockOffsets[i] = in.readLong();
+            }
+            BloomFilter filter = BloomFilter.readFrom(in);
+            return new SegmentFile<>(path, channel, codec, firstKeys, blockOffsets, filter, entryCount);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Looks up the entry for a key.
+     *
+     * @param key the key to look up
+     * @return the entry for the key, which may be a tombstone, or null if the segment has none
+     * @throws IOException if an I/O error occurs while reading the segment
+     * @throws DataFormatException if the block holding the key is corrupted
+     */
+    public LsmEntry<V> get(UUID key) throws IOException {
+        if (!this.filter.mightContain(key)) {
+            return null;
+        }
+        int block = Arrays.binarySearch(this.firstKeys, key);
+        if (block < 0) {
+            block = -block - 2;
+            if (block < 0) {
+                return null;
+            }
+        }
+        for (LsmEntry<V> entry : readBlock(block)) {
+            int comparison = entry.key().compareTo(key);
+            if (comparison == 0) {
+                return entry;
+            }
+            if (comparison > 0) {
+                break;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns a source reading every entry of the segment in key order, one block at a time.
+     *
+     * @return the entries of the segment
+     */
+    public EntrySource<V> entries() {
+        return new EntrySource<>() {
+            private int block;
+            private List<LsmEntry<V>> entries = List.of();
+            private int next;
+
+            @Override
+            public LsmEntry<V> next() throws IOException {
+                while (this.next == this.entries.size()) {
+                    if (this.block == firstKeys.length) {
+                        return null;
+                    }
+                    this.entries = readBlock(this.block++);
+                    this.next = 0;
+                }
+                return this.entries.get(this.next++);
+            }
+        };
+    }
+
+    /**
+     * Returns the number of entries in the segment, tombstones included.
+     *
+     * @return the entry count
+     */
+    public long getEntryCount() {
+        return entryCount;
+    }
+
+    /**
+     * Returns the path of the segment file.
+     *
+     * @return the path
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Closes the segment file.
+     *
+     * @throws IOException if an I/O error occurs while closing
+     */
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    /**
+     * Reads, validates and decodes a block.
+     *
+     * @param block the index of the block
+     * @return the entries of the block, in key order
+     * @throws IOException if an I/O error occurs while reading
+     * @throws DataFormatException if the block is corrupted
+     */
+    private List<LsmEntry<V>> readBlock(int block) throws IOException {
+        ByteBuffer header = readFully(this.channel, this.blockOffsets[block], BLOCK_HEADER_LENGTH, this.path);
+        int length = header.getInt();
+        int checksum = header.getInt();
+        if (length <= 0 || length > MAX_SECTION_LENGTH) {
+            throw new DataFormatException("Segment " + this.path + " is corrupted: invalid block length.");
+        }
+        ByteBuffer bytes = readFully(this.channel, this.blockOffsets[block] + BLOCK_HEADER_LENGTH, length, this.path);
+        CRC32C crc = new CRC32C();
+        crc.update(bytes.duplicate());
+        if ((int) crc.getValue() != checksum) {
+            throw new DataFormatException("Segment " + this.path + " is corrupted: block checksum mismatch.");
+        }
+
+        List<LsmEntry<V>> entries = new ArrayList<>();
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.array()));
+        try {
+            while (in.available() > 0) {
+                UUID key = BinaryFields.readUuid(in);
+                int valueLength = in.readInt();
+                if (valueLength < 0) {
+                    entries.add(LsmEntry.tombstone(key));
+                    continue;
+                }
+                byte[] value = new byte[valueLength];
+                in.readFully(value);
+                entries.add(new LsmEntry<>(key, this.codec.read(new DataInputStream(new ByteArrayInputStream(value)))));
+            }
+        } catch (EOFException e) {
+            throw new DataFormatException("Segment " + this.path + " is corrupted: truncated entry.", e);
+        }
+        return entries;
+    }
+
+    /**
+     * Writes a block with its header and empties the block buffer.
+     *
+     * @param channel the channel to write to
+     * @param block the entries of the block
+     * @return the number of bytes written
+     * @throws IOException if an I/O error occurs while writing
+     */
+    private static int writeBlock(FileChannel channel, ByteArrayOutputStream block) throws IOException {
+        byte[] bytes = block.toByteArray();
+        CRC32C crc = new CRC32C();
+        crc.update(bytes);
+        writeFully(channel, ByteBuffer.allocate(BLOCK_HEADER_LENGTH).putInt(bytes.length).putInt((int) crc.getValue()).flip());
+        writeFully(channel, ByteBuffer.wrap(bytes));
+        block.reset();
+        return BLOCK_HEADER_LENGTH + bytes.length;
+    }
+
+    /**
+     * Reads exactly {@code length} bytes at the given position of the channel.
+     *
+     * @param channel the channel to read from
+     * @param position the position to read at
+     * @param length the number of bytes to read
+     * @param path the path of the file, for error messages
+     * @return the bytes read, flipped for reading
+     * @throws IOException if an I/O error occurs while reading
+     * @throws DataFormatException if the channel ends early
+     */
+    private static ByteBuffer readFully(FileChannel channel, long position, int length, Path path) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new DataFormatException("Segment " + path + " is truncated.");
+            }
+        }
+        return buffer.flip();
+    }
+
+    /**
+     * Writes the remaining bytes of the buffer to the channel.
+     *
+     * @param channel the channel to write to
+     * @param buffer the bytes to write
+     * @throws IOException if an I/O error occurs while writing
+     */
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * A source of entries in ascending key order.
+     *
+     * @param <V> the type of the values
+     */
+    @FunctionalInterface
+    public interface EntrySource<V> {
+
+        /**
+         * Returns the next entry.
+         *
+         * @return the next entry, or null once the source is exhausted
+         * @throws IOException if an I/O error occurs while reading the entries
+         */
+        LsmEntry<V> next() throws IOException;
+    }
+}
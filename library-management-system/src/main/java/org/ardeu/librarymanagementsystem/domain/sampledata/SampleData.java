@@ -10,6 +10,7 @@ import org.ardeu.librarymanagementsystem.domain.entities.member.Member;
 import org.ardeu.librarymanagementsystem.domain.exceptions.entity.DuplicateItemException;
 import org.ardeu.librarymanagementsystem.domain.filerepository.config.FilePathConfig;
 import org.ardeu.librarymanagementsystem.domain.services.*;
+import org.ardeu.librarymanagementsystem.domain.services.base.Service;
 import org.ardeu.librarymanagementsystem.domain.services.registry.ServiceRegistry;
 
 import java.io.File;
@@ -18,6 +19,8 @@ import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.time.LocalDate;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
 import java.util.UUID;
 
 public class SampleData {
@@ -327,8 +330,15 @@ public class SampleData {
                 }
             }
 
+            // the links above mutate entities after they were journaled, so persist full snapshots
+            for (Service<?> service : List.of(authorService, bookService, genreService, inventoryService, memberService, loanService)) {
+                service.writeSnapshot();
+            }
+
         } catch (DuplicateItemException e) {
             System.err.println("Error adding sample data: " + e.getMessage());
+        } catch (IOException e) {
+            System.err.println("Error saving sample data: " + e.getMessage());
         }
         System.out.println("Sample data generated successfully!");
     }
@@ -339,8 +349,14 @@ public class SampleData {
                 FilePathConfig.BOOKS_PATH,
                 FilePathConfig.GENRES_PATH,
                 FilePathConfig.INVENTORIES_PATH,
-                FilePathConfig.LOANS_PATH,
-                FilePathConfig.MEMBERS_PATH
+                FilePathConfig.MEMBERS_PATH,
+                FilePathConfig.AUTHORS_JOURNAL_PATH,
+                FilePathConfig.BOOKS_JOURNAL_PATH,
+                FilePathConfig.GENRES_JOURNAL_PATH,
+                FilePathConfig.INVENTORIES_JOURNAL_PATH,
+                FilePathConfig.LOANS_JOURNAL_PATH,
+                FilePathConfig.MEMBERS_JOURNAL_PATH,
+                FilePathConfig.LEGACY_LOANS_PATH
         };
 
         for (String path : filePaths) {
@@ -358,5 +374,22 @@ public class SampleData {
                 e.printStackTrace();
             }
         }
+
+        // loan partitions and the member store are emptied but their directories are kept, so the old files are not migrated again
+        for (String directory : new String[]{FilePathConfig.LOANS_PATH, FilePathConfig.MEMBERS_STORE_PATH}) {
+            File[] files = new File(directory).listFiles();
+            if (Objects.isNull(files)) {
+                continue;
+            }
+            for (File file : files) {
+                try {
+                    Files.delete(file.toPath());
+                    System.out.println("Deleted file: " + file.getPath());
+                } catch (IOException e) {
+                    System.err.println("Error handling file: " + file.getPath());
+                    e.printStackTrace();
+                }
+            }
+        }
     }
 }
\ No newline at end of file
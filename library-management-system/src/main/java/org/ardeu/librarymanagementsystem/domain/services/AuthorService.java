@@ -6,9 +6,16 @@ import org.ardeu.librarymanagementsystem.domain.entities.book.Book;
 import org.ardeu.librarymanagementsystem.domain.exceptions.author.AuthorAlreadyExistsException;
 import org.ardeu.librarymanagementsystem.domain.exceptions.author.AuthorNotFoundException;
 import org.ardeu.librarymanagementsystem.domain.filerepository.base.MapFileHandler;
+import org.ardeu.librarymanagementsystem.domain.filerepository.journal.WriteAheadJournal;
+import org.ardeu.librarymanagementsystem.domain.services.base.IndexKeys;
+import org.ardeu.librarymanagementsystem.domain.services.base.SecondaryIndex;
 import org.ardeu.librarymanagementsystem.domain.services.base.Service;
+import org.ardeu.librarymanagementsystem.domain.services.search.FuzzyIndex;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
@@ -16,16 +23,78 @@ import java.util.UUID;
 /**
  * A service class responsible for managing {@link Author} entities.
  * Provides methods for adding, removing, and retrieving authors and their associated books.
+ * Names are indexed in a {@link FuzzyIndex}, so authors can be found despite a typo.
  */
 public class AuthorService extends Service<Author> {
 
     /**
-     * Constructs an {@link AuthorService} with the specified file handler.
+     * The largest edit distance at which a name matches in {@link #findClosestByName(String, int)}.
+     */
+    public static final int MAX_NAME_DISTANCE = 2;
+
+    /**
+     * The authors indexed by normalized name, ignoring casing and whitespace.
+     */
+    private final SecondaryIndex<String, Author> byName;
+
+    /**
+     * The authors indexed by name for fuzzy search, or null until the first fuzzy search after a load.
+     */
+    private FuzzyIndex fuzzyNameIndex;
+
+    /**
+     * Constructs an {@link AuthorService} with the specified file handler and journal.
      *
      * @param fileHandler the file handler used for reading and writing author data
+     * @param journal the journal recording changes to the author data between snapshots
+     */
+    public AuthorService(MapFileHandler<UUID, Author> fileHandler, WriteAheadJournal<Author> journal) {
+        super(fileHandler, journal);
+        this.byName = addUniqueIndex("name", author -> IndexKeys.normalize(author.getName()));
+
+        addItemChangeListener((id, _, author) -> {
+            if (Objects.isNull(this.fuzzyNameIndex)) {
+                return;
+            }
+            if (Objects.nonNull(author)) {
+                this.fuzzyNameIndex.put(id, author.getName());
+            } else {
+                this.fuzzyNameIndex.remove(id);
+            }
+        });
+    }
+
+    /**
+     * Loads the authors and drops the fuzzy name index, which is rebuilt on the next fuzzy search.
+     *
+     * @throws IOException if an I/O error occurs while loading data
      */
-    public AuthorService(MapFileHandler<UUID, Author> fileHandler) {
-        super(fileHandler);
+    @Override
+    public void load() throws IOException {
+        this.fuzzyNameIndex = null;
+        super.load();
+    }
+
+    /**
+     * Finds the authors having, for every word of the given name, a word of their name within
+     * an edit distance of {@value #MAX_NAME_DISTANCE}.
+     *
+     * @param name the name, possibly misspelled
+     * @param limit the maximum number of authors returned
+     * @return the closest authors, closest first
+     */
+    public List<Author> findClosestByName(String name, int limit) {
+        if (Objects.isNull(this.fuzzyNameIndex)) {
+            this.fuzzyNameIndex = new FuzzyIndex(MAX_NAME_DISTANCE);
+            for (Author author : super.items.values()) {
+                this.fuzzyNameIndex.put(author.getId(), author.getName());
+            }
+        }
+        List<Author> authors = new ArrayList<>();
+        for (UUID id : this.fuzzyNameIndex.findClosest(name, limit)) {
+            authors.add(super.items.get(id));
+        }
+        return authors;
     }
 
     /**
@@ -42,7 +111,7 @@ public class AuthorService extends Service<Author> {
             throw new AuthorNotFoundException("Author with id: " + authorId + " not found");
         }
         author.addBook(book);
-        super.items.put(authorId, author);
+        super.putItem(author);
     }
 
     /**
@@ -72,17 +141,15 @@ public class AuthorService extends Service<Author> {
     }
 
     /**
-     * Checks if an author with the given name already exists.
+     * Checks if an author with the given name already exists, ignoring casing and whitespace differences.
      * Throws an {@link AuthorAlreadyExistsException} if an author with the same name is found.
      *
      * @param name the name of the author to check for existence
      * @throws AuthorAlreadyExistsException if an author with the given name already exists
      */
     public void authorExistsByName(String name) throws AuthorAlreadyExistsException {
-        for (Author author : super.items.values()) {
-            if (author.getName().equals(name)) {
-                throw new AuthorAlreadyExistsException("Author with name: " + name + " already exists");
-            }
+        if (this.byName.contains(IndexKeys.normalize(name))) {
+            throw new AuthorAlreadyExistsException("Author with name: " + name + " already exists");
         }
     }
 
@@ -95,8 +162,8 @@ public class AuthorService extends Service<Author> {
      */
     public void removeBook(UUID authorId, Book book) {
         Author author = super.items.get(authorId);
-        if (Objects.nonNull(book)) {
-            super.items.put(authorId, author);
+        if (Objects.nonNull(author) && Objects.nonNull(book)) {
+            super.putItem(author);
         }
     }
 
@@ -1,28 +1,131 @@
 package org.ardeu.librarymanagementsystem.domain.services;
 
+import org.ardeu.librarymanagementsystem.domain.entities.author.Author;
 import org.ardeu.librarymanagementsystem.domain.entities.book.Book;
 import org.ardeu.librarymanagementsystem.domain.entities.book.BookCreationDTO;
+import org.ardeu.librarymanagementsystem.domain.entities.genre.Genre;
 import org.ardeu.librarymanagementsystem.domain.exceptions.book.BookAlreadyExistsException;
 import org.ardeu.librarymanagementsystem.domain.exceptions.book.BookNotFoundException;
 import org.ardeu.librarymanagementsystem.domain.filerepository.base.MapFileHandler;
+import org.ardeu.librarymanagementsystem.domain.filerepository.journal.WriteAheadJournal;
+import org.ardeu.librarymanagementsystem.domain.services.base.IndexKeys;
+import org.ardeu.librarymanagementsystem.domain.services.base.SecondaryIndex;
 import org.ardeu.librarymanagementsystem.domain.services.base.Service;
+import org.ardeu.librarymanagementsystem.domain.services.search.BookSearchField;
+import org.ardeu.librarymanagementsystem.domain.services.search.PrefixIndex;
+import org.ardeu.librarymanagementsystem.domain.services.search.TrigramIndex;
 
-import java.util.Objects;
-import java.util.UUID;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Predicate;
 
 /**
  * Service class for managing {@link Book} entities, including creating, checking existence,
  * removing, and retrieving books.
+ * Books are indexed by their natural key, so duplicate detection is a single hash lookup.
+ * Their text is indexed in a {@link TrigramIndex} for full-text search and their titles in a
+ * {@link PrefixIndex} for autocompletion.
  */
 public class BookService extends Service<Book> {
 
     /**
-     * Constructs a new {@link BookService} with the specified file handler.
+     * The books indexed by normalized title, publish date and author.
+     */
+    private final SecondaryIndex<NaturalKey, Book> byNaturalKey;
+
+    private final AuthorService authorService;
+    private final GenreService genreService;
+
+    /**
+     * The full-text index of the books, or null until the first search after a load.
+     */
+    private TrigramIndex searchIndex;
+
+    /**
+     * The books indexed by title prefixes, or null until the first completion after a load.
+     */
+    private PrefixIndex titleIndex;
+
+    /**
+     * Whether the full-text index follows the changes of the authors and genres, which starts once
+     * the services are prepared.
+     */
+    private boolean followingAuthorsAndGenres;
+
+    /**
+     * Constructs a new {@link BookService} with the specified file handler and journal.
+     *
+     * @param fileHandler the file handler to be used for saving and loading {@link Book} data
+     * @param journal the journal recording changes to the book data between snapshots
+     */
+    public BookService(MapFileHandler<UUID, Book> fileHandler, WriteAheadJournal<Book> journal) {
+        this(fileHandler, journal, null, null);
+    }
+
+    /**
+     * Constructs a new {@link BookService} with the specified file handler, journal, and the services
+     * whose author and genre names are folded into the full-text index.
      *
      * @param fileHandler the file handler to be used for saving and loading {@link Book} data
+     * @param journal the journal recording changes to the book data between snapshots
+     * @param authorService the service holding the authors of the books, or null
+     * @param genreService the service holding the genres of the books, or null
+     */
+    public BookService(MapFileHandler<UUID, Book> fileHandler, WriteAheadJournal<Book> journal,
+                       AuthorService authorService, GenreService genreService) {
+        super(fileHandler, journal);
+        this.authorService = authorService;
+        this.genreService = genreService;
+        this.byNaturalKey = addUniqueIndex("naturalKey", NaturalKey::of);
+
+        addItemChangeListener((id, _, book) -> {
+            if (Objects.nonNull(this.titleIndex)) {
+                if (Objects.nonNull(book)) {
+                    this.titleIndex.put(id, book.getTitle());
+                } else {
+                    this.titleIndex.remove(id);
+                }
+            }
+            if (Objects.nonNull(this.searchIndex)) {
+                if (Objects.nonNull(book)) {
+                    indexForSearch(book);
+                } else {
+                    this.searchIndex.remove(id);
+                }
+            }
+        });
+    }
+
+    /**
+     * Starts reindexing the books of the authors and genres that change, now that they are loaded.
+     */
+    @Override
+    public void prepare() {
+        if (this.followingAuthorsAndGenres) {
+            return;
+        }
+        this.followingAuthorsAndGenres = true;
+        if (Objects.nonNull(this.authorService)) {
+            this.authorService.addItemChangeListener((_, previous, author) ->
+                    reindexForSearch((Objects.nonNull(author) ? author : previous).getBooks()));
+        }
+        if (Objects.nonNull(this.genreService)) {
+            this.genreService.addItemChangeListener((_, previous, genre) ->
+                    reindexForSearch((Objects.nonNull(genre) ? genre : previous).getBooks()));
+        }
+    }
+
+    /**
+     * Loads the books and drops the full-text and completion indexes, which are rebuilt when next used.
+     *
+     * @throws IOException if an I/O error occurs while loading data
      */
-    public BookService(MapFileHandler<UUID, Book> fileHandler) {
-        super(fileHandler);
+    @Override
+    public void load() throws IOException {
+        this.searchIndex = null;
+        this.titleIndex = null;
+        super.load();
     }
 
     /**
@@ -43,17 +146,67 @@ public class BookService extends Service<Book> {
     }
 
     /**
-     * Checks if the specified {@link Book} already exists in the system.
+     * Checks if the specified {@link Book} already exists in the system, that is if a book by the same
+     * author was published on the same date under the same title, ignoring casing and whitespace differences.
      *
      * @param book the book to check
      * @throws BookAlreadyExistsException if a book with the same details already exists
      */
     public void checkBookExists(Book book) throws BookAlreadyExistsException {
-        for(Book b : super.items.values()){
-            if(b.equals(book)){
-                throw new BookAlreadyExistsException("Book already exists");
+        if (this.byNaturalKey.contains(NaturalKey.of(book))) {
+            throw new BookAlreadyExistsException("Book already exists");
+        }
+    }
+
+    /**
+     * Searches the books for every whitespace-separated term of a query, in their title, description,
+     * author name or genre name, ranking matches in the title first.
+     *
+     * @param query the query
+     * @param limit the maximum number of books returned
+     * @return the best matching books, best first
+     */
+    public List<Book> search(String query, int limit) {
+        List<Book> books = new ArrayList<>();
+        for (UUID id : searchIndex().search(query, limit)) {
+            books.add(super.items.get(id));
+        }
+        return books;
+    }
+
+    /**
+     * Finds the books in which one of the given fields contains a text, ignoring casing and whitespace differences.
+     *
+     * @param text the text to look for
+     * @param fields the fields to look in, or none to look in every field
+     * @return the IDs of the matching books
+     */
+    public Set<UUID> findIdsContaining(String text, BookSearchField... fields) {
+        int[] positions = Arrays.stream(fields).mapToInt(BookSearchField::ordinal).toArray();
+        return new HashSet<>(searchIndex().findContaining(text, positions));
+    }
+
+    /**
+     * Finds the first books accepted by a filter whose title, or a word of their title, starts with
+     * a prefix, ignoring casing and whitespace differences.
+     *
+     * @param prefix the prefix typed so far; a blank prefix matches every book
+     * @param limit the maximum number of books returned
+     * @param filter the filter the returned books must pass
+     * @return the matching books, alphabetically by the part of the title they matched on
+     */
+    public List<Book> completeTitle(String prefix, int limit, Predicate<Book> filter) {
+        if (Objects.isNull(this.titleIndex)) {
+            this.titleIndex = new PrefixIndex();
+            for (Book book : super.items.values()) {
+                this.titleIndex.put(book.getId(), book.getTitle());
             }
         }
+        List<Book> books = new ArrayList<>();
+        for (UUID id : this.titleIndex.complete(prefix, limit, id -> filter.test(super.items.get(id)))) {
+            books.add(super.items.get(id));
+        }
+        return books;
     }
 
     /**
@@ -63,7 +216,7 @@ public class BookService extends Service<Book> {
      */
     public void remove(Book book) {
         if(Objects.nonNull(book)) {
-            super.items.remove(book.getId());
+            super.removeItem(book.getId());
         }
     }
 
@@ -81,4 +234,73 @@ public class BookService extends Service<Book> {
         }
         return book;
     }
+
+    /**
+     * Returns the full-text index, building it from the current books if needed.
+     *
+     * @return the full-text index
+     */
+    private TrigramIndex searchIndex() {
+        if (Objects.isNull(this.searchIndex)) {
+            double[] weights = Arrays.stream(BookSearchField.values()).mapToDouble(BookSearchField::getWeight).toArray();
+            this.searchIndex = new TrigramIndex(weights);
+            for (Book book : super.items.values()) {
+                indexForSearch(book);
+            }
+        }
+        return this.searchIndex;
+    }
+
+    /**
+     * Indexes a book for full-text search, together with the names of its author and genre.
+     *
+     * @param book the book to index
+     */
+    private void indexForSearch(Book book) {
+        Author author = Objects.isNull(this.authorService) ? null : this.authorService.getItems().get(book.getAuthorId());
+        Genre genre = Objects.isNull(this.genreService) ? null : this.genreService.getItems().get(book.getGenreId());
+        String[] fields = new String[BookSearchField.values().length];
+        fields[BookSearchField.TITLE.ordinal()] = book.getTitle();
+        fields[BookSearchField.AUTHOR.ordinal()] = Objects.isNull(author) ? null : author.getName();
+        fields[BookSearchField.GENRE.ordinal()] = Objects.isNull(genre) ? null : genre.getName();
+        fields[BookSearchField.DESCRIPTION.ordinal()] = book.getDescription();
+        this.searchIndex.put(book.getId(), fields);
+    }
+
+    /**
+     * Indexes some books again after the author or genre they refer to changed.
+     *
+     * @param bookIds the IDs of the books to index again
+     */
+    private void reindexForSearch(Set<UUID> bookIds) {
+        if (Objects.isNull(this.searchIndex) || Objects.isNull(bookIds)) {
+            return;
+        }
+        for (UUID bookId : bookIds) {
+            Book book = super.items.get(bookId);
+            if (Objects.nonNull(book)) {
+                indexForSearch(book);
+            }
+        }
+    }
+
+    /**
+     * The natural key of a book.
+     *
+     * @param title the normalized title
+     * @param publishDate the publish date
+     * @param authorId the ID of the author
+     */
+    private record NaturalKey(String title, LocalDate publishDate, UUID authorId) {
+
+        /**
+         * Extracts the natural key of a book.
+         *
+         * @param book the book
+         * @return the natural key of the book
+         */
+        private static NaturalKey of(Book book) {
+            return new NaturalKey(IndexKeys.normalize(book.getTitle()), book.getPublishDate(), book.getAuthorId());
+        }
+    }
 }
@@ -6,6 +6,9 @@ import org.ardeu.librarymanagementsystem.domain.entities.genre.GenreCreationDTO;
 import org.ardeu.librarymanagementsystem.domain.exceptions.genre.GenreAlreadyExistsException;
 import org.ardeu.librarymanagementsystem.domain.exceptions.genre.GenreNotFoundException;
 import org.ardeu.librarymanagementsystem.domain.filerepository.base.MapFileHandler;
+import org.ardeu.librarymanagementsystem.domain.filerepository.journal.WriteAheadJournal;
+import org.ardeu.librarymanagementsystem.domain.services.base.IndexKeys;
+import org.ardeu.librarymanagementsystem.domain.services.base.SecondaryIndex;
 import org.ardeu.librarymanagementsystem.domain.services.base.Service;
 
 import java.util.HashSet;
@@ -20,12 +23,19 @@ import java.util.UUID;
 public class GenreService extends Service<Genre> {
 
     /**
-     * Constructs a new {@link GenreService} with the specified file handler.
+     * The genres indexed by normalized name, ignoring casing and whitespace.
+     */
+    private final SecondaryIndex<String, Genre> byName;
+
+    /**
+     * Constructs a new {@link GenreService} with the specified file handler and journal.
      *
      * @param fileHandler the file handler to be used for saving and loading {@link Genre} data
+     * @param journal the journal recording changes to the genre data between snapshots
      */
-    public GenreService(MapFileHandler<UUID, Genre> fileHandler) {
-        super(fileHandler);
+    public GenreService(MapFileHandler<UUID, Genre> fileHandler, WriteAheadJournal<Genre> journal) {
+        super(fileHandler, journal);
+        this.byName = addUniqueIndex("name", genre -> IndexKeys.normalize(genre.getName()));
     }
 
     /**
@@ -41,7 +51,7 @@ public class GenreService extends Service<Genre> {
             throw new GenreNotFoundException("Genre with id " + genreId + " not found");
         }
         genre.addBook(book);
-        super.items.put(genreId, genre);
+        super.putItem(genre);
     }
 
     /**
@@ -60,16 +70,15 @@ public class GenreService extends Service<Genre> {
     }
 
     /**
-     * Checks if a genre with the specified name already exists in the system.
+     * Checks if a genre with the specified name already exists in the system, ignoring casing and
+     * whitespace differences.
      *
      * @param name the name of the genre to check
      * @throws GenreAlreadyExistsException if a genre with the specified name already exists
      */
     public void checkGenreExistsByName(String name) throws GenreAlreadyExistsException {
-        for (Genre genre : super.items.values()) {
-            if (genre.getName().equals(name)) {
-                throw new GenreAlreadyExistsException("Genre with name " + name + " already exists");
-            }
+        if (this.byName.contains(IndexKeys.normalize(name))) {
+            throw new GenreAlreadyExistsException("Genre with name " + name + " already exists");
         }
     }
 
@@ -93,7 +102,7 @@ public class GenreService extends Service<Genre> {
         Genre genre = super.items.get(genreId);
         if(Objects.nonNull(book)) {
             genre.removeBook(book);
-            super.items.put(genreId, genre);
+            super.putItem(genre);
         }
     }
 
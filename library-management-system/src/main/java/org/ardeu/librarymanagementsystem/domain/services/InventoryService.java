@@ -6,6 +6,8 @@ import org.ardeu.librarymanagementsystem.domain.entities.inventory.InventoryCrea
 import org.ardeu.librarymanagementsystem.domain.exceptions.inventory.InventoryNotFoundException;
 import org.ardeu.librarymanagementsystem.domain.exceptions.inventory.NoAvailableCopiesException;
 import org.ardeu.librarymanagementsystem.domain.filerepository.base.MapFileHandler;
+import org.ardeu.librarymanagementsystem.domain.filerepository.journal.WriteAheadJournal;
+import org.ardeu.librarymanagementsystem.domain.services.base.SecondaryIndex;
 import org.ardeu.librarymanagementsystem.domain.services.base.Service;
 
 import java.util.List;
@@ -15,16 +17,24 @@ import java.util.UUID;
 /**
  * Service class for managing {@link Inventory} entities, including borrowing and returning books,
  * creating inventories, and retrieving inventory details for books.
+ * Inventories are indexed by book ID, so every per-book lookup is a single hash lookup.
  */
 public class InventoryService extends Service<Inventory> {
 
     /**
-     * Constructs a new {@link InventoryService} with the specified file handler.
+     * The inventories indexed by the ID of their book.
+     */
+    private final SecondaryIndex<UUID, Inventory> byBookId;
+
+    /**
+     * Constructs a new {@link InventoryService} with the specified file handler and journal.
      *
      * @param fileHandler the file handler to be used for saving and loading {@link Inventory} data
+     * @param journal the journal recording changes to the inventory data between snapshots
      */
-    public InventoryService(MapFileHandler<UUID, Inventory> fileHandler) {
-        super(fileHandler);
+    public InventoryService(MapFileHandler<UUID, Inventory> fileHandler, WriteAheadJournal<Inventory> journal) {
+        super(fileHandler, journal);
+        this.byBookId = addUniqueIndex("bookId", Inventory::getBookId);
     }
 
     /**
@@ -35,12 +45,11 @@ public class InventoryService extends Service<Inventory> {
      * @throws InventoryNotFoundException if no inventory exists for the book
      */
     public Inventory getByBookId(UUID bookId) throws InventoryNotFoundException {
-        for (Inventory inventory : items.values()) {
-            if (inventory.getBookId().equals(bookId)) {
-                return inventory;
-            }
+        Inventory inventory = this.byBookId.find(bookId);
+        if (Objects.isNull(inventory)) {
+            throw new InventoryNotFoundException("Inventory for book with ID " + bookId + " not found");
         }
-        throw new InventoryNotFoundException("Inventory for book with ID " + bookId + " not found");
+        return inventory;
     }
 
     /**
@@ -65,7 +74,7 @@ public class InventoryService extends Service<Inventory> {
      * @param inventory the {@link Inventory} object to remove
      */
     public void remove(Inventory inventory) {
-        super.items.remove(inventory.getId());
+        super.removeItem(inventory.getId());
     }
 
     /**
@@ -77,12 +86,8 @@ public class InventoryService extends Service<Inventory> {
     public List<Book> getAvailableBooks(List<Book> books) {
         return books.stream()
                 .filter(book -> {
-                    try {
-                        Inventory inventory = getByBookId(book.getId());
-                        return inventory.getAvailableCopies() > 0;
-                    } catch (InventoryNotFoundException e) {
-                        return false;
-                    }
+                    Inventory inventory = this.byBookId.find(book.getId());
+                    return Objects.nonNull(inventory) && inventory.getAvailableCopies() > 0;
                 })
                 .toList();
     }
@@ -95,17 +100,14 @@ public class InventoryService extends Service<Inventory> {
      * @throws NoAvailableCopiesException if there are no available copies of the book
      */
     public void borrowBook(UUID bookId) throws InventoryNotFoundException, NoAvailableCopiesException {
-        Inventory inventory = items.values().stream()
-                .filter(i -> i.getBookId().equals(bookId))
-                .findFirst()
-                .orElseThrow(() -> new InventoryNotFoundException("Inventory for book with ID " + bookId + " not found"));
+        Inventory inventory = getByBookId(bookId);
 
         if (inventory.getAvailableCopies() == 0) {
             throw new NoAvailableCopiesException("No available copies for book with ID " + bookId);
         }
 
         inventory.setAvailableCopies(inventory.getAvailableCopies() - 1);
-        items.put(inventory.getId(), inventory);
+        super.putItem(inventory);
     }
 
     /**
@@ -117,12 +119,10 @@ public class InventoryService extends Service<Inventory> {
         if (Objects.isNull(bookId)) {
             return;
         }
-        for (Inventory inventory : items.values()) {
-            if (inventory.getBookId().equals(bookId)) {
-                inventory.setAvailableCopies(inventory.getAvailableCopies() + 1);
-                items.put(inventory.getId(), inventory);
-                break;
-            }
+        Inventory inventory = this.byBookId.find(bookId);
+        if (Objects.nonNull(inventory)) {
+            inventory.setAvailableCopies(inventory.getAvailableCopies() + 1);
+            super.putItem(inventory);
         }
     }
 
@@ -133,12 +133,9 @@ public class InventoryService extends Service<Inventory> {
      * @throws InventoryNotFoundException if no inventory exists for the book
      */
     public void returnBook(UUID bookId) throws InventoryNotFoundException {
-        Inventory inventory = items.values().stream()
-                .filter(i -> i.getBookId().equals(bookId))
-                .findFirst()
-                .orElseThrow(() -> new InventoryNotFoundException("Inventory for book with ID " + bookId + " not found"));
+        Inventory inventory = getByBookId(bookId);
         inventory.setAvailableCopies(inventory.getAvailableCopies() + 1);
-        items.put(inventory.getId(), inventory);
+        super.putItem(inventory);
     }
 }
 
@@ -1,30 +1,242 @@
 package org.ardeu.librarymanagementsystem.domain.services;
 
+import org.ardeu.librarymanagementsystem.domain.entities.book.Book;
 import org.ardeu.librarymanagementsystem.domain.entities.loan.Loan;
 import org.ardeu.librarymanagementsystem.domain.entities.loan.LoanCreationDTO;
 import org.ardeu.librarymanagementsystem.domain.entities.loan.LoanStatus;
 import org.ardeu.librarymanagementsystem.domain.exceptions.loan.InvalidReturnDateException;
 import org.ardeu.librarymanagementsystem.domain.exceptions.loan.LoanNotFoundException;
-import org.ardeu.librarymanagementsystem.domain.filerepository.base.MapFileHandler;
+import org.ardeu.librarymanagementsystem.domain.filerepository.handlers.PartitionedLoanFileHandler;
+import org.ardeu.librarymanagementsystem.domain.filerepository.journal.WriteAheadJournal;
+import org.ardeu.librarymanagementsystem.domain.services.aggregates.DailyRevenue;
+import org.ardeu.librarymanagementsystem.domain.services.aggregates.LoanCounters;
+import org.ardeu.librarymanagementsystem.domain.services.aggregates.LoanCube;
+import org.ardeu.librarymanagementsystem.domain.services.aggregates.PopularityDimension;
+import org.ardeu.librarymanagementsystem.domain.services.aggregates.RankedCount;
+import org.ardeu.librarymanagementsystem.domain.services.aggregates.TrendingLoans;
+import org.ardeu.librarymanagementsystem.domain.services.base.SecondaryIndex;
 import org.ardeu.librarymanagementsystem.domain.services.base.Service;
+import org.ardeu.librarymanagementsystem.domain.services.base.SortedSecondaryIndex;
+import org.ardeu.librarymanagementsystem.domain.services.reporting.RevenueQuery;
+import org.ardeu.librarymanagementsystem.domain.services.reporting.RevenueQueryEngine;
+import org.ardeu.librarymanagementsystem.domain.services.reporting.RevenueRow;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 /**
  * Service class for managing {@link Loan} entities, including creating, removing, updating,
  * and retrieving loan information, as well as calculating revenue from loans.
+ * <p>
+ * Only the open loans and the loans of the current and previous year are loaded at startup. Older years
+ * stay on disk: {@link #getLoansFrom(int)} reads them from their partitions, and queries over the whole
+ * history, such as {@link #getRevenuePerYear()}, scan them in parallel into per-year summaries.
+ * </p>
+ * <p>
+ * The loaded loans are indexed by book, member, loan date and due date, and the active ones are kept in a
+ * due-date heap for {@link #markOverdueLoans(LocalDate)}. Revenue over days is summed from a
+ * {@link DailyRevenue}, yearly, monthly and grouped figures roll up a {@link LoanCube}, and the most
+ * borrowed books, authors and genres come from {@link LoanCounters} and {@link TrendingLoans}.
+ * </p>
  */
 public class LoanService extends Service<Loan> {
 
     /**
-     * Constructs a new {@link LoanService} with the specified file handler.
+     * The number of counters of each daily sketch of the trending loans.
+     */
+    private static final int TRENDING_CAPACITY = 64;
+
+    private final PartitionedLoanFileHandler partitions;
+    private final BookService bookService;
+    private final RevenueQueryEngine revenueQueryEngine;
+
+    /**
+     * The summaries of the archived years that are not loaded, computed on first use.
+     */
+    private Map<Integer, ArchivedYear> archive;
+
+    /**
+     * The IDs of the loaded loans indexed by book ID.
+     */
+    private final SecondaryIndex<UUID, Loan> byBookId;
+
+    /**
+     * The IDs of the loaded loans indexed by member ID.
+     */
+    private final SecondaryIndex<UUID, Loan> byMemberId;
+
+    /**
+     * The loaded loans ordered by loan date.
+     */
+    private final SortedSecondaryIndex<LocalDate, Loan> byLoanDate;
+
+    /**
+     * The loans not yet returned ordered by due date.
+     */
+    private final SortedSecondaryIndex<LocalDate, Loan> byActiveDueDate;
+
+    /**
+     * The overdue loans ordered by due date.
+     */
+    private final SortedSecondaryIndex<LocalDate, Loan> byOverdueDueDate;
+
+    /**
+     * The active loans by due date, or null until the first sweep after a load.
+     */
+    private PriorityQueue<DueLoan> dueLoans;
+
+    /**
+     * The entries of {@link #dueLoans}, so that a loan is not queued twice with the same due date.
+     */
+    private Set<DueLoan> queuedDueLoans;
+
+    /**
+     * The revenue of the loaded loans per day, or null until the first revenue query after a load.
+     */
+    private DailyRevenue dailyRevenue;
+
+    /**
+     * The loan counts per book, author and genre, or null until the first count after a load.
+     */
+    private LoanCounters loanCounters;
+
+    /**
+     * The loan statistics of the loaded loans, or null until they are prepared or first rolled up after a load.
+     */
+    private LoanCube loanCube;
+
+    /**
+     * The most borrowed books, authors and genres of the last days, or null until first ranked after a load.
+     */
+    private TrendingLoans trendingLoans;
+
+    /**
+     * Whether the loan counts follow the changes of the books, which starts once the services are prepared.
+     */
+    private boolean followingBooks;
+
+    /**
+     * Constructs a new {@link LoanService} with the specified file handler and journal.
      *
      * @param fileHandler the file handler to be used for saving and loading {@link Loan} data
+     * @param journal the journal recording changes to the loan data between snapshots
      */
-    public LoanService(MapFileHandler<UUID, Loan> fileHandler) {
-        super(fileHandler);
+    public LoanService(PartitionedLoanFileHandler fileHandler, WriteAheadJournal<Loan> journal) {
+        this(fileHandler, journal, null);
+    }
+
+    /**
+     * Constructs a new {@link LoanService} with the specified file handler, journal, and the service
+     * whose books the loan counts are rolled up through.
+     *
+     * @param fileHandler the file handler to be used for saving and loading {@link Loan} data
+     * @param journal the journal recording changes to the loan data between snapshots
+     * @param bookService the service holding the books of the loans, or null to only count loans per book
+     */
+    public LoanService(PartitionedLoanFileHandler fileHandler, WriteAheadJournal<Loan> journal, BookService bookService) {
+        super(fileHandler, journal);
+        this.partitions = fileHandler;
+        this.bookService = bookService;
+        this.revenueQueryEngine = new RevenueQueryEngine(
+                Objects.isNull(bookService) ? Collections.emptyMap() : bookService.getItems());
+        this.byBookId = addIndex("bookId", Loan::getBookId);
+        this.byMemberId = addIndex("memberId", Loan::getMemberId);
+        this.byLoanDate = addSortedIndex("loanDate", Loan::getLoanDate);
+        this.byActiveDueDate = addSortedIndex("activeDueDate",
+                loan -> loan.getStatus() == LoanStatus.RETURNED ? null : loan.getDueDate());
+        this.byOverdueDueDate = addSortedIndex("overdueDueDate",
+                loan -> loan.getStatus() == LoanStatus.OVERDUE ? loan.getDueDate() : null);
+
+        addItemChangeListener((_, previous, loan) -> {
+            if (Objects.nonNull(this.dailyRevenue)) {
+                if (Objects.nonNull(previous)) {
+                    this.dailyRevenue.remove(previous.getLoanDate(), previous.getPrice());
+                }
+                if (Objects.nonNull(loan)) {
+                    this.dailyRevenue.add(loan.getLoanDate(), loan.getPrice());
+                }
+            }
+            if (Objects.nonNull(this.loanCounters)) {
+                if (Objects.nonNull(previous)) {
+                    this.loanCounters.addLoans(previous.getBookId(), -1);
+                }
+                if (Objects.nonNull(loan)) {
+                    this.loanCounters.addLoans(loan.getBookId(), 1);
+                }
+            }
+            if (Objects.nonNull(this.loanCube)) {
+                // a loan updated in place was already taken out of its old cell by updateLoan
+                if (Objects.nonNull(previous) && previous != loan) {
+                    this.loanCube.remove(previous, bookOf(previous));
+                }
+                if (Objects.nonNull(loan)) {
+                    this.loanCube.add(loan, bookOf(loan));
+                }
+            }
+            // the sketches are approximate, so a loan updated in place is not taken out and counted again
+            if (Objects.nonNull(this.trendingLoans) && previous != loan) {
+                if (Objects.nonNull(previous)) {
+                    this.trendingLoans.remove(previous, bookOf(previous));
+                }
+                if (Objects.nonNull(loan)) {
+                    this.trendingLoans.add(loan, bookOf(loan), LocalDate.now());
+                }
+            }
+            if (Objects.nonNull(this.dueLoans) && Objects.nonNull(loan) && loan.getStatus() == LoanStatus.ACTIVE) {
+                queueDueLoan(loan);
+            }
+        });
+    }
+
+    /**
+     * Loads the open and recent loans and forgets the summaries of the archived years, the due-date heap,
+     * the daily revenue, the loan counts, the loan statistics and the trending loans.
+     *
+     * @throws IOException if an I/O error occurs while loading data
+     */
+    @Override
+    public void load() throws IOException {
+        this.dueLoans = null;
+        this.queuedDueLoans = null;
+        this.dailyRevenue = null;
+        this.loanCounters = null;
+        this.loanCube = null;
+        this.trendingLoans = null;
+        super.load();
+        this.archive = null;
+    }
+
+    /**
+     * Builds the loan statistics of the loaded loans and of the archived years, now that the books
+     * they are attributed to are loaded, and starts following the changes of the books.
+     */
+    @Override
+    public void prepare() {
+        if (!this.followingBooks && Objects.nonNull(this.bookService)) {
+            this.followingBooks = true;
+            this.bookService.addItemChangeListener((bookId, previous, book) -> {
+                if (Objects.nonNull(this.loanCounters)) {
+                    if (Objects.isNull(book)) {
+                        this.loanCounters.removeBook(bookId);
+                    } else {
+                        this.loanCounters.addBook(book);
+                    }
+                }
+                if (Objects.nonNull(this.loanCube)) {
+                    for (Loan loan : this.byBookId.findAll(bookId)) {
+                        this.loanCube.remove(loan, previous);
+                        this.loanCube.add(loan, book);
+                    }
+                }
+            });
+        }
+        loanCube();
+        archive();
     }
 
     /**
@@ -53,7 +265,7 @@ public class LoanService extends Service<Loan> {
      */
     public void remove(UUID id) {
         if (Objects.nonNull(id)) {
-            super.items.remove(id);
+            super.removeItem(id);
         }
     }
 
@@ -84,22 +296,57 @@ public class LoanService extends Service<Loan> {
             throw new InvalidReturnDateException("Return date for loan with id: " +
                     loan.getId() + " cannot be before loan date");
         }
-        loan.setReturnDate(value);
-        loan.setStatus(LoanStatus.RETURNED);
-        super.getItems().remove(loan.getId());
-        super.getItems().put(loan.getId(), loan);
+        updateLoan(loan, LoanStatus.RETURNED, value);
+    }
+
+    /**
+     * Reverts a loan marked as returned by resetting the return date and restoring the status it had before.
+     *
+     * @param loan the {@link Loan} to revert
+     * @param status the status of the loan before it was marked as returned
+     */
+    public void revertLoanReturn(Loan loan, LoanStatus status) {
+        updateLoan(loan, status, null);
+    }
+
+    /**
+     * Marks the active loans whose due date is before the given date as overdue. The loans are updated
+     * in place, and the change is journaled since the overdue status is stored with the loan.
+     *
+     * @param today the current date
+     * @return the loans that became overdue, ordered by due date
+     */
+    public List<Loan> markOverdueLoans(LocalDate today) {
+        if (Objects.isNull(this.dueLoans)) {
+            Set<DueLoan> active = new HashSet<>();
+            for (Loan loan : super.getItems().values()) {
+                if (loan.getStatus() == LoanStatus.ACTIVE) {
+                    active.add(new DueLoan(loan));
+                }
+            }
+            this.dueLoans = new PriorityQueue<>(active);
+            this.queuedDueLoans = active;
+        }
+        List<Loan> overdue = new ArrayList<>();
+        while (!this.dueLoans.isEmpty() && this.dueLoans.peek().dueDate().isBefore(today)) {
+            DueLoan due = this.dueLoans.poll();
+            this.queuedDueLoans.remove(due);
+            Loan loan = super.getItems().get(due.loanId());
+            if (Objects.nonNull(loan) && loan.getStatus() == LoanStatus.ACTIVE && loan.getDueDate().equals(due.dueDate())) {
+                updateLoan(loan, LoanStatus.OVERDUE, loan.getReturnDate());
+                overdue.add(loan);
+            }
+        }
+        return overdue;
     }
 
     /**
-     * Marks a loan as borrowed by resetting the return date and changing the loan status.
+     * Retrieves the overdue loans, as of the last {@link #markOverdueLoans(LocalDate)}.
      *
-     * @param loan the {@link Loan} to mark as borrowed
+     * @return the overdue loans, ordered by due date
      */
-    public void markLoanAsBorrowed(Loan loan) {
-        loan.setReturnDate(null);
-        loan.setStatus(LoanStatus.ACTIVE);
-        super.getItems().remove(loan.getId());
-        super.getItems().put(loan.getId(), loan);
+    public List<Loan> getOverdueLoans() {
+        return this.byOverdueDueDate.findRange(null, false, null, false);
     }
 
     /**
@@ -108,21 +355,18 @@ public class LoanService extends Service<Loan> {
      * @return the total revenue from loans in the last 30 days
      */
     public Double getRevenueForLast30Days() {
-        return super.getItems().values().stream()
-                .filter(loan -> loan.getLoanDate().isAfter(LocalDate.now().minusDays(30)))
-                .mapToDouble(Loan::getPrice)
-                .sum();
+        return dailyRevenue().revenueBetween(LocalDate.now().minusDays(29), null);
     }
 
     /**
-     * Calculates the total revenue from all loans.
+     * Calculates the total revenue from all loans, including the archived years.
      *
      * @return the total revenue from all loans
      */
     public Double getAllTimeRevenue() {
-        return super.getItems().values().stream()
-                .mapToDouble(Loan::getPrice)
-                .sum();
+        return getLoanStatistics(_ -> true, LoanCube.Cell::year).values().stream()
+                .mapToLong(LoanCube.Measures::cents)
+                .sum() / 100.0;
     }
 
     /**
@@ -131,52 +375,123 @@ public class LoanService extends Service<Loan> {
      * @return the total revenue from loans in the last year
      */
     public Double getRevenueForPastYear() {
-        return super.getItems().values().stream()
-                .filter(loan -> loan.getLoanDate().isAfter(LocalDate.now().minusYears(1)))
-                .mapToDouble(Loan::getPrice)
-                .sum();
+        return dailyRevenue().revenueBetween(LocalDate.now().minusYears(1).plusDays(1), null);
     }
 
     /**
-     * Retrieves a list of loans made in a specific year.
+     * Calculates the revenue of each month of a year, whether the year is loaded or archived.
+     *
+     * @param year the year
+     * @return the revenue of each month, January first
+     */
+    public double[] getRevenuePerMonth(int year) {
+        double[] months = new double[12];
+        getLoanStatistics(cell -> cell.year() == year, LoanCube.Cell::month)
+                .forEach((month, measures) -> months[month - 1] = measures.revenue());
+        return months;
+    }
+
+    /**
+     * Retrieves a list of loans made in a specific year, reading the year from disk if it is archived.
      *
      * @param year the year to filter loans by
      * @return a list of loans made in the specified year
      */
     public List<Loan> getLoansFrom(int year) {
-        return super.getItems().values().stream()
-                .filter(loan -> loan.getLoanDate().getYear() == year)
-                .toList();
+        return getLoansBetween(LocalDate.of(year, 1, 1), LocalDate.of(year, 12, 31));
+    }
+
+    /**
+     * Retrieves the loans made between two dates. The loans of the archived years they span are read
+     * from disk and returned without being added to the items.
+     *
+     * @param from the first loan date, inclusive
+     * @param to the last loan date, inclusive
+     * @return the loans made between the two dates, ordered by loan date
+     */
+    public List<Loan> getLoansBetween(LocalDate from, LocalDate to) {
+        List<Loan> loans = new ArrayList<>(this.byLoanDate.findBetween(from, to));
+        if (from.isAfter(to)) {
+            return loans;
+        }
+        int loaded = loans.size();
+        try {
+            for (int year : this.partitions.getArchivedYears().subSet(from.getYear(), to.getYear() + 1)) {
+                this.partitions.forEachArchivedLoan(year, loan -> {
+                    if (!loan.getLoanDate().isBefore(from) && !loan.getLoanDate().isAfter(to) && isOnlyStored(loan)) {
+                        loans.add(loan);
+                    }
+                });
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (loans.size() > loaded) {
+            loans.sort(Comparator.comparing(Loan::getLoanDate));
+        }
+        return loans;
+    }
+
+    /**
+     * Runs a revenue report over the loans made in its date range, including the archived years it spans.
+     *
+     * @param query the report
+     * @return the groups of the report, highest revenue first
+     */
+    public List<RevenueRow> queryRevenue(RevenueQuery query) {
+        return this.revenueQueryEngine.run(query, getLoansBetween(query.from(), query.to()));
+    }
+
+    /**
+     * Retrieves the loans not yet returned whose due date is before the given date.
+     *
+     * @param date the date, exclusive
+     * @return the loans due before the date and not returned, ordered by due date
+     */
+    public List<Loan> getActiveLoansDueBefore(LocalDate date) {
+        return this.byActiveDueDate.findRange(null, false, date, false);
     }
 
     /**
-     * Calculates the total revenue per year.
+     * Calculates the total revenue per year, including the archived years.
      *
      * @return a map where the key is the year and the value is the total revenue for that year
      */
     public Map<Integer, Double> getRevenuePerYear() {
-        return super.getItems()
-                .values()
-                .stream()
-                .collect(Collectors.toMap(
-                        loan -> loan.getLoanDate().getYear(),
-                        Loan::getPrice,
-                        Double::sum
-                ));
+        Map<Integer, Double> revenue = new HashMap<>();
+        getLoanStatistics(_ -> true, LoanCube.Cell::year)
+                .forEach((year, measures) -> revenue.put(year, measures.revenue()));
+        return revenue;
     }
 
     /**
-     * Retrieves the total number of loans made for a specific book.
+     * Rolls the loan statistics of the whole history up into groups, by month, genre, author and status
+     * at the finest. The genre and author of a loan are those its book had when the loan was counted,
+     * and are null if the book was unknown.
+     *
+     * @param filter the filter the cells must pass
+     * @param groupBy the function giving the group of a cell
+     * @param <K> the type of the groups
+     * @return the loan count and revenue of each group
+     */
+    public <K> Map<K, LoanCube.Measures> getLoanStatistics(Predicate<? super LoanCube.Cell> filter,
+                                                          Function<? super LoanCube.Cell, ? extends K> groupBy) {
+        Map<K, LoanCube.Measures> totals = new HashMap<>();
+        loanCube().rollUp(filter, groupBy, totals);
+        for (ArchivedYear summary : archive().values()) {
+            summary.cube().rollUp(filter, groupBy, totals);
+        }
+        return totals;
+    }
+
+    /**
+     * Retrieves the total number of loans made for a specific book, including the archived years.
      *
      * @param id the ID of the book
      * @return the total number of loans for the specified book
      */
     public long getTotalLoansByBookId(UUID id) {
-        return super.getItems()
-                .values()
-                .stream()
-                .filter(loan -> loan.getBookId().equals(id))
-                .count();
+        return loanCounters().getLoansByBook(id);
     }
 
     /**
@@ -186,10 +501,298 @@ public class LoanService extends Service<Loan> {
      * @return the total number of loans for the specified books
      */
     public long getTotalLoansByBookId(Set<UUID> bookIds) {
-        return bookIds.stream()
-                .map(this::getTotalLoansByBookId)
-                .mapToLong(Long::longValue)
-                .sum();
+        long total = 0;
+        for (UUID bookId : bookIds) {
+            total += getTotalLoansByBookId(bookId);
+        }
+        return total;
+    }
+
+    /**
+     * Retrieves the total number of loans made for the books of an author, including the archived years.
+     *
+     * @param authorId the ID of the author
+     * @return the total number of loans for the author's books
+     */
+    public long getTotalLoansByAuthorId(UUID authorId) {
+        return loanCounters().getLoansByAuthor(authorId);
+    }
+
+    /**
+     * Retrieves the total number of loans made for the books of a genre, including the archived years.
+     *
+     * @param genreId the ID of the genre
+     * @return the total number of loans for the genre's books
+     */
+    public long getTotalLoansByGenreId(UUID genreId) {
+        return loanCounters().getLoansByGenre(genreId);
     }
-}
 
+    /**
+     * Ranks the most borrowed books, authors or genres of all time, including the archived years.
+     *
+     * @param dimension what the loans are counted against
+     * @param limit the maximum number of entries returned
+     * @return the most borrowed entries with their exact loan counts, most borrowed first
+     */
+    public List<RankedCount> getMostBorrowed(PopularityDimension dimension, int limit) {
+        return loanCounters().getTop(dimension, limit);
+    }
+
+    /**
+     * Estimates the most borrowed books, authors or genres of the last days.
+     *
+     * @param dimension what the loans are counted against
+     * @param days the number of days ranked, today included, at most {@link TrendingLoans#MAX_DAYS}
+     * @param limit the maximum number of entries returned
+     * @return the most borrowed entries with their estimated loan counts, most borrowed first
+     * @throws IllegalArgumentException if the number of days is not between 1 and {@link TrendingLoans#MAX_DAYS}
+     */
+    public List<RankedCount> getTrending(PopularityDimension dimension, int days, int limit) {
+        return trendingLoans().top(dimension, LocalDate.now(), days, limit);
+    }
+
+    /**
+     * Retrieves the loaded loans of a book, that is its open loans and those of the recent or loaded years.
+     *
+     * @param bookId the ID of the book
+     * @return the loaded loans of the book
+     */
+    public List<Loan> getLoansByBookId(UUID bookId) {
+        return this.byBookId.findAll(bookId);
+    }
+
+    /**
+     * Retrieves the loaded loans of a member, that is their open loans and those of the recent or loaded years.
+     *
+     * @param memberId the ID of the member
+     * @return the loaded loans of the member
+     */
+    public List<Loan> getLoansByMemberId(UUID memberId) {
+        return this.byMemberId.findAll(memberId);
+    }
+
+    /**
+     * Returns the revenue of the loaded loans per day, building it from the items the first time.
+     *
+     * @return the daily revenue
+     */
+    private DailyRevenue dailyRevenue() {
+        if (Objects.isNull(this.dailyRevenue)) {
+            DailyRevenue revenue = new DailyRevenue();
+            for (Loan loan : super.getItems().values()) {
+                revenue.add(loan.getLoanDate(), loan.getPrice());
+            }
+            this.dailyRevenue = revenue;
+        }
+        return this.dailyRevenue;
+    }
+
+    /**
+     * Returns the loan statistics of the loaded loans, building them in parallel from the items the first time.
+     *
+     * @return the loan statistics
+     */
+    private LoanCube loanCube() {
+        if (Objects.isNull(this.loanCube)) {
+            this.loanCube = new ArrayList<>(super.getItems().values()).parallelStream()
+                    .collect(LoanCube::new, (cube, loan) -> cube.add(loan, bookOf(loan)), LoanCube::merge);
+        }
+        return this.loanCube;
+    }
+
+    /**
+     * Returns the trending loans, feeding them the loans of the window the first time.
+     * Those are always loaded, since the current and previous year are.
+     *
+     * @return the trending loans
+     */
+    private TrendingLoans trendingLoans() {
+        if (Objects.isNull(this.trendingLoans)) {
+            LocalDate today = LocalDate.now();
+            TrendingLoans trending = new TrendingLoans(TRENDING_CAPACITY);
+            for (Loan loan : this.byLoanDate.findBetween(today.minusDays(TrendingLoans.MAX_DAYS - 1), today)) {
+                trending.add(loan, bookOf(loan), today);
+            }
+            this.trendingLoans = trending;
+        }
+        return this.trendingLoans;
+    }
+
+    /**
+     * Returns the loan counts per book, author and genre, counting the loaded loans and the archived
+     * years the first time.
+     *
+     * @return the loan counts
+     */
+    private LoanCounters loanCounters() {
+        if (Objects.isNull(this.loanCounters)) {
+            LoanCounters counters = new LoanCounters(
+                    Objects.isNull(this.bookService) ? Collections.emptyList() : this.bookService.getItems().values());
+            for (Loan loan : super.getItems().values()) {
+                counters.addLoans(loan.getBookId(), 1);
+            }
+            for (ArchivedYear summary : archive().values()) {
+                summary.loansPerBook().forEach(counters::addLoans);
+            }
+            this.loanCounters = counters;
+        }
+        return this.loanCounters;
+    }
+
+    /**
+     * Returns the summaries of the archived years, scanning the archived partitions in parallel the first time.
+     * Stored loans that are also in the items, or were removed since the last save, are not counted.
+     *
+     * @return the summaries keyed by year
+     */
+    private Map<Integer, ArchivedYear> archive() {
+        if (Objects.isNull(this.archive)) {
+            try {
+                this.archive = new ArrayList<>(this.partitions.getArchivedYears()).parallelStream()
+                        .collect(Collectors.toMap(year -> year, this::scanArchivedYear, (a, _) -> a, TreeMap::new));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return this.archive;
+    }
+
+    /**
+     * Scans the stored loans of an archived year into a summary, skipping those that are also in the items
+     * or were removed since the last save. Only reads the items, so years can be scanned concurrently.
+     *
+     * @param year the archived year
+     * @return the summary of the year
+     * @throws UncheckedIOException if an I/O error occurs while reading the partition
+     */
+    private ArchivedYear scanArchivedYear(int year) {
+        ArchivedYear summary = new ArchivedYear();
+        try {
+            this.partitions.forEachArchivedLoan(year, loan -> {
+                if (isOnlyStored(loan)) {
+                    summary.add(loan, bookOf(loan));
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return summary;
+    }
+
+    /**
+     * Checks whether a loan read from an archived partition is current, that is neither in the items,
+     * which hold a newer copy, nor removed since the last save. Only reads the items.
+     *
+     * @param loan the stored loan
+     * @return true if the stored loan is the current one
+     */
+    private boolean isOnlyStored(Loan loan) {
+        return !super.getItems().containsKey(loan.getId()) && !super.isRemovedSinceSnapshot(loan.getId());
+    }
+
+    /**
+     * Looks up the book of a loan in the book service.
+     *
+     * @param loan the loan
+     * @return the book of the loan, or null if it is unknown or there is no book service
+     */
+    private Book bookOf(Loan loan) {
+        return Objects.isNull(this.bookService) ? null : this.bookService.getItems().get(loan.getBookId());
+    }
+
+    /**
+     * Changes the status and return date of a stored loan in place, taking it out of its loan statistics
+     * cell first, since the cell depends on the status and the change listeners only see the updated loan.
+     *
+     * @param loan the loan to update
+     * @param status the new status
+     * @param returnDate the new return date, or null if the loan is not returned
+     */
+    private void updateLoan(Loan loan, LoanStatus status, LocalDate returnDate) {
+        if (Objects.nonNull(this.loanCube)) {
+            this.loanCube.remove(loan, bookOf(loan));
+        }
+        loan.setReturnDate(returnDate);
+        loan.setStatus(status);
+        super.updateItem(loan);
+    }
+
+    /**
+     * Pushes an active loan on the due-date heap, unless it is already queued with its current due date.
+     *
+     * @param loan the active loan
+     */
+    private void queueDueLoan(Loan loan) {
+        DueLoan due = new DueLoan(loan);
+        if (this.queuedDueLoans.add(due)) {
+            this.dueLoans.add(due);
+        }
+    }
+
+    /**
+     * An active loan in the due-date heap, with the due date it had when it was pushed.
+     *
+     * @param dueDate the due date of the loan
+     * @param loanId the ID of the loan
+     */
+    private record DueLoan(LocalDate dueDate, UUID loanId) implements Comparable<DueLoan> {
+
+        /**
+         * Constructs a heap entry for a loan.
+         *
+         * @param loan the active loan
+         */
+        private DueLoan(Loan loan) {
+            this(loan.getDueDate(), loan.getId());
+        }
+
+        /**
+         * Orders heap entries by due date.
+         *
+         * @param other the entry to compare with
+         * @return a negative number, zero or a positive number if this entry is due before, on or after the other
+         */
+        @Override
+        public int compareTo(DueLoan other) {
+            return this.dueDate.compareTo(other.dueDate);
+        }
+    }
+
+    /**
+     * The loan statistics and per-book loan counts of an archived year that is not loaded.
+     */
+    private static final class ArchivedYear {
+        private final LoanCube cube = new LoanCube();
+        private final Map<UUID, Long> loansPerBook = new HashMap<>();
+
+        /**
+         * Adds a stored loan to the summary.
+         *
+         * @param loan the loan to add
+         * @param book the book of the loan, or null if it is unknown
+         */
+        private void add(Loan loan, Book book) {
+            this.cube.add(loan, book);
+            this.loansPerBook.merge(loan.getBookId(), 1L, Long::sum);
+        }
+
+        /**
+         * Returns the loan statistics of the year.
+         *
+         * @return the statistics
+         */
+        private LoanCube cube() {
+            return this.cube;
+        }
+
+        /**
+         * Returns the number of loans of the year per book ID.
+         *
+         * @return the loan counts
+         */
+        private Map<UUID, Long> loansPerBook() {
+            return this.loansPerBook;
+        }
+    }
+}
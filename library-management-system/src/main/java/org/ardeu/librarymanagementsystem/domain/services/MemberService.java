@@ -5,38 +5,154 @@ import org.ardeu.librarymanagementsystem.domain.entities.member.MemberCreationDT
 import org.ardeu.librarymanagementsystem.domain.exceptions.member.MemberAlreadyExistsException;
 import org.ardeu.librarymanagementsystem.domain.exceptions.member.MemberNotFoundException;
 import org.ardeu.librarymanagementsystem.domain.filerepository.base.MapFileHandler;
+import org.ardeu.librarymanagementsystem.domain.filerepository.journal.WriteAheadJournal;
+import org.ardeu.librarymanagementsystem.domain.services.base.IndexKeys;
+import org.ardeu.librarymanagementsystem.domain.services.base.SecondaryIndex;
 import org.ardeu.librarymanagementsystem.domain.services.base.Service;
+import org.ardeu.librarymanagementsystem.domain.services.search.FuzzyIndex;
+import org.ardeu.librarymanagementsystem.domain.services.search.PrefixIndex;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Objects;
 import java.util.UUID;
 
 /**
  * Service class for managing {@link Member} entities, including creation, retrieval,
  * and adding/removing loans for a member.
+ * Emails and names are indexed in a {@link PrefixIndex} for autocompletion and in
+ * {@link FuzzyIndex fuzzy indexes}, so members can be found despite a typo.
  */
 public class MemberService extends Service<Member> {
 
     /**
-     * Constructs a new {@link MemberService} with the specified file handler.
+     * The largest edit distance at which a name or email matches in a fuzzy search.
+     */
+    public static final int MAX_FUZZY_DISTANCE = 2;
+
+    /**
+     * The members indexed by normalized email, ignoring casing and whitespace.
+     */
+    private final SecondaryIndex<String, Member> byEmail;
+
+    /**
+     * The members indexed by email and name prefixes, or null until the first completion after a load.
+     */
+    private PrefixIndex completionIndex;
+
+    /**
+     * The members indexed by name for fuzzy search, or null until the first fuzzy search after a load.
+     */
+    private FuzzyIndex fuzzyNameIndex;
+
+    /**
+     * The members indexed by email for fuzzy search, or null until the first fuzzy search after a load.
+     */
+    private FuzzyIndex fuzzyEmailIndex;
+
+    /**
+     * Constructs a new {@link MemberService} with the specified file handler and journal.
      *
      * @param fileHandler the file handler to be used for saving and loading {@link Member} data
+     * @param journal the journal recording changes to the member data between snapshots
+     */
+    public MemberService(MapFileHandler<UUID, Member> fileHandler, WriteAheadJournal<Member> journal) {
+        super(fileHandler, journal);
+        this.byEmail = addUniqueIndex("email", member -> IndexKeys.normalize(member.getEmail()));
+
+        addItemChangeListener((id, _, member) -> {
+            if (Objects.nonNull(member)) {
+                if (Objects.nonNull(this.completionIndex)) {
+                    this.completionIndex.put(id, member.getEmail(), member.getName());
+                }
+                if (Objects.nonNull(this.fuzzyNameIndex)) {
+                    this.fuzzyNameIndex.put(id, member.getName());
+                    this.fuzzyEmailIndex.put(id, member.getEmail());
+                }
+            } else {
+                if (Objects.nonNull(this.completionIndex)) {
+                    this.completionIndex.remove(id);
+                }
+                if (Objects.nonNull(this.fuzzyNameIndex)) {
+                    this.fuzzyNameIndex.remove(id);
+                    this.fuzzyEmailIndex.remove(id);
+                }
+            }
+        });
+    }
+
+    /**
+     * Loads the members and drops the completion and fuzzy indexes, which are rebuilt when next used.
+     *
+     * @throws IOException if an I/O error occurs while loading data
+     */
+    @Override
+    public void load() throws IOException {
+        this.completionIndex = null;
+        this.fuzzyNameIndex = null;
+        this.fuzzyEmailIndex = null;
+        super.load();
+    }
+
+    /**
+     * Finds the first members whose email, name, or a word of their name starts with a prefix,
+     * ignoring casing and whitespace differences.
+     *
+     * @param prefix the prefix typed so far; a blank prefix matches every member
+     * @param limit the maximum number of members returned
+     * @return the matching members, alphabetically by the email or name they matched on
+     */
+    public List<Member> complete(String prefix, int limit) {
+        if (Objects.isNull(this.completionIndex)) {
+            this.completionIndex = new PrefixIndex();
+            for (Member member : super.getItems().values()) {
+                this.completionIndex.put(member.getId(), member.getEmail(), member.getName());
+            }
+        }
+        return resolve(this.completionIndex.complete(prefix, limit));
+    }
+
+    /**
+     * Builds the fuzzy name and email indexes from the current members, unless they are already built.
+     */
+    private void buildFuzzyIndexes() {
+        if (Objects.isNull(this.fuzzyNameIndex)) {
+            FuzzyIndex names = new FuzzyIndex(MAX_FUZZY_DISTANCE);
+            FuzzyIndex emails = new FuzzyIndex(MAX_FUZZY_DISTANCE);
+            for (Member member : super.getItems().values()) {
+                names.put(member.getId(), member.getName());
+                emails.put(member.getId(), member.getEmail());
+            }
+            this.fuzzyEmailIndex = emails;
+            this.fuzzyNameIndex = names;
+        }
+    }
+
+    /**
+     * Looks up the members with the given IDs.
+     *
+     * @param ids the IDs of the members
+     * @return the members, in the order of their IDs
      */
-    public MemberService(MapFileHandler<UUID, Member> fileHandler) {
-        super(fileHandler);
+    private List<Member> resolve(List<UUID> ids) {
+        List<Member> members = new ArrayList<>(ids.size());
+        for (UUID id : ids) {
+            members.add(super.getItems().get(id));
+        }
+        return members;
     }
 
     /**
-     * Checks if a member with the given email already exists.
+     * Checks if a member with the given email already exists, ignoring casing and whitespace differences.
      *
      * @param email the email address to check for existence
      * @throws MemberAlreadyExistsException if a member with the provided email already exists
      */
     public void checkMemberExistsByEmail(String email) throws MemberAlreadyExistsException {
-        for (Member member : this.getItems().values()) {
-            if (member.getEmail().equals(email)) {
-                throw new MemberAlreadyExistsException("Member with email " + email + " already exists");
-            }
+        if (this.byEmail.contains(IndexKeys.normalize(email))) {
+            throw new MemberAlreadyExistsException("Member with email " + email + " already exists");
         }
     }
 
@@ -53,6 +169,32 @@ public class MemberService extends Service<Member> {
                 new HashSet<>());
     }
 
+    /**
+     * Finds the members having, for every word of the given name, a word of their name within
+     * an edit distance of {@value #MAX_FUZZY_DISTANCE}.
+     *
+     * @param name the name, possibly misspelled
+     * @param limit the maximum number of members returned
+     * @return the closest members, closest first
+     */
+    public List<Member> findClosestByName(String name, int limit) {
+        buildFuzzyIndexes();
+        return resolve(this.fuzzyNameIndex.findClosest(name, limit));
+    }
+
+    /**
+     * Finds the members having, for every part of the given email between dots, dashes, underscores
+     * and the @, such a part of their email within an edit distance of {@value #MAX_FUZZY_DISTANCE}.
+     *
+     * @param email the email, possibly misspelled
+     * @param limit the maximum number of members returned
+     * @return the closest members, closest first
+     */
+    public List<Member> findClosestByEmail(String email, int limit) {
+        buildFuzzyIndexes();
+        return resolve(this.fuzzyEmailIndex.findClosest(email, limit));
+    }
+
     /**
      * Retrieves a {@link Member} by its ID.
      *
@@ -81,7 +223,7 @@ public class MemberService extends Service<Member> {
             throw new MemberNotFoundException("Member with id " + memberId + " not found");
         }
         member.addLoan(id);
-        super.items.put(member.getId(), member);
+        super.putItem(member);
     }
 
     /**
@@ -94,7 +236,7 @@ public class MemberService extends Service<Member> {
         Member member = super.getItems().get(memberId);
         if (Objects.nonNull(member)) {
             member.removeLoan(id);
-            super.items.put(member.getId(), member);
+            super.putItem(member);
         }
     }
 }
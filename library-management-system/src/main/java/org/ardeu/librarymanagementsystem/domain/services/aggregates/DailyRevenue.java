@@ -0,0 +1,168 @@
+package org.ardeu.librarymanagementsystem.domain.services.aggregates;
+
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * The revenue per day, kept in a Fenwick tree over epoch days so that both an update and the sum over
+ * any range of days take O(log n), n being the number of days covered.
+ * <p>
+ * Amounts are summed in whole cents, so removing a loan takes back exactly what adding it added.
+ * The covered days start around the first day added and double whenever a day falls outside them.
+ * </p>
+ */
+public class DailyRevenue {
+
+    /**
+     * The number of days covered when the first day is added.
+     */
+    private static final int INITIAL_DAYS = 1024;
+
+    /**
+     * The epoch day of the first covered day.
+     */
+    private long origin;
+    private long[] dailyCents = new long[0];
+    private long[] centsTree = new long[1];
+
+    /**
+     * Adds a loan to the day it was made on.
+     *
+     * @param day the loan date
+     * @param amount the price of the loan
+     */
+    public void add(LocalDate day, double amount) {
+        update(day, toCents(amount));
+    }
+
+    /**
+     * Removes a loan from the day it was made on.
+     *
+     * @param day the loan date
+     * @param amount the price of the loan
+     */
+    public void remove(LocalDate day, double amount) {
+        update(day, -toCents(amount));
+    }
+
+    /**
+     * Returns the revenue of the days between two dates.
+     *
+     * @param from the first day, inclusive, or null for no lower bound
+     * @param to the last day, inclusive, or null for no upper bound
+     * @return the revenue of the days in the range
+     */
+    public double revenueBetween(LocalDate from, LocalDate to) {
+        return sumBetween(from, to) / 100.0;
+    }
+
+    /**
+     * Adds an amount to a day, growing the covered days first if needed.
+     *
+     * @param day the day
+     * @param cents the revenue added, in cents
+     */
+    private void update(LocalDate day, long cents) {
+        long epochDay = day.toEpochDay();
+        if (epochDay < this.origin || epochDay >= this.origin + this.dailyCents.length) {
+            grow(epochDay);
+        }
+        int index = (int) (epochDay - this.origin);
+        this.dailyCents[index] += cents;
+        for (int i = index + 1; i < this.centsTree.length; i += i & -i) {
+            this.centsTree[i] += cents;
+        }
+    }
+
+    /**
+     * Sums the revenue tree over the days between two dates, clamped to the covered days.
+     *
+     * @param from the first day, inclusive, or null for no lower bound
+     * @param to the last day, inclusive, or null for no upper bound
+     * @return the revenue in the range, in cents
+     */
+    private long sumBetween(LocalDate from, LocalDate to) {
+        long days = this.dailyCents.length;
+        long start = Objects.isNull(from) ? 0 : Math.clamp(from.toEpochDay() - this.origin, 0, days);
+        long end = Objects.isNull(to) ? days : Math.clamp(to.toEpochDay() - this.origin + 1, 0, days);
+        return start >= end ? 0 : prefix((int) end) - prefix((int) start);
+    }
+
+    /**
+     * Sums the revenue tree over the first covered days.
+     *
+     * @param days the number of days summed
+     * @return the revenue over the days, in cents
+     */
+    private long prefix(int days) {
+        long sum = 0;
+        for (int i = days; i > 0; i -= i & -i) {
+            sum += this.centsTree[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Doubles the covered days until they include a day, then rebuilds the tree in O(n).
+     *
+     * @param epochDay the epoch day to cover
+     */
+    private void grow(long epochDay) {
+        int days = this.dailyCents.length;
+        if (days == 0) {
+            this.origin = epochDay - INITIAL_DAYS / 2;
+            resize(this.origin, INITIAL_DAYS);
+            return;
+        }
+        long low = Math.min(this.origin, epochDay);
+        long high = Math.max(this.origin + days, epochDay + 1);
+        int newDays = days;
+        while (newDays < high - low) {
+            newDays *= 2;
+        }
+        resize(epochDay < this.origin ? high - newDays : low, newDays);
+    }
+
+    /**
+     * Moves the daily amounts to a new range of covered days and rebuilds the tree from them.
+     *
+     * @param newOrigin the epoch day of the first covered day
+     * @param newDays the number of covered days
+     */
+    private void resize(long newOrigin, int newDays) {
+        long[] cents = new long[newDays];
+        int shift = (int) (this.origin - newOrigin);
+        System.arraycopy(this.dailyCents, 0, cents, shift, this.dailyCents.length);
+        this.origin = newOrigin;
+        this.dailyCents = cents;
+        this.centsTree = build(cents);
+    }
+
+    /**
+     * Builds a Fenwick tree from daily amounts in O(n).
+     *
+     * @param daily the daily amounts
+     * @return the tree, indexed from 1
+     */
+    private static long[] build(long[] daily) {
+        long[] tree = new long[daily.length + 1];
+        System.arraycopy(daily, 0, tree, 1, daily.length);
+        for (int i = 1; i < tree.length; i++) {
+            int parent = i + (i & -i);
+            if (parent < tree.length) {
+                tree[parent] += tree[i];
+            }
+        }
+        return tree;
+    }
+
+    /**
+     * Converts an amount to whole cents.
+     *
+     * @param amount the amount
+     * @return the amount in cents, rounded
+     */
+    private static long toCents(double amount) {
+        return Math.round(amount * 100);
+    }
+}
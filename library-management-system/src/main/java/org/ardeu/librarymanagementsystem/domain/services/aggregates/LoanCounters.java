@@ -0,0 +1,208 @@
+package org.ardeu.librarymanagementsystem.domain.services.aggregates;
+
+import org.ardeu.librarymanagementsystem.domain.entities.book.Book;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * The number of loans per book, rolled up to the author and the genre of each book, so that the counts
+ * are read in O(1) rather than by summing the loans of every book.
+ * <p>
+ * Loans are counted against their book ID whether or not the book is known; the count of a book moves
+ * to its author and genre when the book is added, and back out when it is removed. The author and genre
+ * a book was rolled up to are remembered, so that its count is always taken back from the same ones.
+ * </p>
+ * <p>
+ * Every count is also kept in a set ordered by count, updated in O(log m) for m counted keys whenever
+ * the count changes, so the n most borrowed books, authors or genres are read in O(n).
+ * </p>
+ */
+public class LoanCounters {
+
+    private final Map<UUID, RolledUpBook> rolledUpBooks = new HashMap<>();
+    private final Counts loansPerBook = new Counts();
+    private final Counts loansPerAuthor = new Counts();
+    private final Counts loansPerGenre = new Counts();
+
+    /**
+     * Constructs empty {@link LoanCounters} and adds the given books.
+     *
+     * @param books the books whose loans are rolled up to their author and genre
+     */
+    public LoanCounters(Collection<Book> books) {
+        for (Book book : books) {
+            addBook(book);
+        }
+    }
+
+    /**
+     * Adds loans of a book, or removes them if the count is negative.
+     *
+     * @param bookId the ID of the book
+     * @param count the number of loans added
+     */
+    public void addLoans(UUID bookId, long count) {
+        this.loansPerBook.add(bookId, count);
+        RolledUpBook book = this.rolledUpBooks.get(bookId);
+        if (Objects.nonNull(book)) {
+            this.loansPerAuthor.add(book.authorId(), count);
+            this.loansPerGenre.add(book.genreId(), count);
+        }
+    }
+
+    /**
+     * Rolls the loans of a book up to its author and genre, taking them back first from those
+     * the book was rolled up to before, if any.
+     *
+     * @param book the added book
+     */
+    public void addBook(Book book) {
+        removeBook(book.getId());
+        RolledUpBook rolledUp = new RolledUpBook(book.getAuthorId(), book.getGenreId());
+        this.rolledUpBooks.put(book.getId(), rolledUp);
+        long count = getLoansByBook(book.getId());
+        this.loansPerAuthor.add(rolledUp.authorId(), count);
+        this.loansPerGenre.add(rolledUp.genreId(), count);
+    }
+
+    /**
+     * Takes the loans of a book back from the author and genre it was rolled up to.
+     *
+     * @param bookId the ID of the removed book
+     */
+    public void removeBook(UUID bookId) {
+        RolledUpBook rolledUp = this.rolledUpBooks.remove(bookId);
+        if (Objects.isNull(rolledUp)) {
+            return;
+        }
+        long count = getLoansByBook(bookId);
+        this.loansPerAuthor.add(rolledUp.authorId(), -count);
+        this.loansPerGenre.add(rolledUp.genreId(), -count);
+    }
+
+    /**
+     * Returns the number of loans of a book.
+     *
+     * @param bookId the ID of the book
+     * @return the loan count
+     */
+    public long getLoansByBook(UUID bookId) {
+        return this.loansPerBook.get(bookId);
+    }
+
+    /**
+     * Returns the number of loans of the books of an author.
+     *
+     * @param authorId the ID of the author
+     * @return the loan count
+     */
+    public long getLoansByAuthor(UUID authorId) {
+        return this.loansPerAuthor.get(authorId);
+    }
+
+    /**
+     * Returns the number of loans of the books of a genre.
+     *
+     * @param genreId the ID of the genre
+     * @return the loan count
+     */
+    public long getLoansByGenre(UUID genreId) {
+        return this.loansPerGenre.get(genreId);
+    }
+
+    /**
+     * Ranks the most borrowed books, authors or genres.
+     *
+     * @param dimension what the loans are counted against
+     * @param limit the maximum number of entries returned
+     * @return the most borrowed entries with their exact loan counts, most borrowed first
+     */
+    public List<RankedCount> getTop(PopularityDimension dimension, int limit) {
+        Counts counts = switch (dimension) {
+            case BOOK -> this.loansPerBook;
+            case AUTHOR -> this.loansPerAuthor;
+            case GENRE -> this.loansPerGenre;
+        };
+        return counts.getTop(limit);
+    }
+
+    /**
+     * Loan counts by key, together with the same counts ordered from the highest.
+     */
+    private static final class Counts {
+
+        /**
+         * Orders the counts from the highest, ties broken by key.
+         */
+        private static final Comparator<RankedCount> BY_LOANS_DESCENDING = Comparator
+                .comparingLong(RankedCount::loans).reversed()
+                .thenComparing(RankedCount::id);
+
+        private final Map<UUID, Long> counts = new HashMap<>();
+        private final NavigableSet<RankedCount> ranking = new TreeSet<>(BY_LOANS_DESCENDING);
+
+        /**
+         * Adds to a count, dropping it once it reaches zero, and moves it to its new rank.
+         *
+         * @param key the key of the count, ignored if null
+         * @param count the number added
+         */
+        private void add(UUID key, long count) {
+            if (Objects.isNull(key) || count == 0) {
+                return;
+            }
+            long previous = get(key);
+            long current = previous + count;
+            if (previous != 0) {
+                this.ranking.remove(new RankedCount(key, previous, 0));
+            }
+            if (current == 0) {
+                this.counts.remove(key);
+            } else {
+                this.counts.put(key, current);
+                this.ranking.add(new RankedCount(key, current, 0));
+            }
+        }
+
+        /**
+         * Returns a count.
+         *
+         * @param key the key of the count
+         * @return the count, 0 if there is none
+         */
+        private long get(UUID key) {
+            return this.counts.getOrDefault(key, 0L);
+        }
+
+        /**
+         * Returns the highest counts.
+         *
+         * @param limit the maximum number of counts returned
+         * @return the highest counts, highest first
+         */
+        private List<RankedCount> getTop(int limit) {
+            if (limit <= 0) {
+                return Collections.emptyList();
+            }
+            return this.ranking.stream().limit(limit).toList();
+        }
+    }
+
+    /**
+     * The author and genre the loans of a book are rolled up to.
+     *
+     * @param authorId the ID of the author
+     * @param genreId the ID of the genre
+     */
+    private record RolledUpBook(UUID authorId, UUID genreId) {
+    }
+}
@@ -0,0 +1,163 @@
+package org.ardeu.librarymanagementsystem.domain.services.aggregates;
+
+import org.ardeu.librarymanagementsystem.domain.entities.book.Book;
+import org.ardeu.librarymanagementsystem.domain.entities.loan.Loan;
+import org.ardeu.librarymanagementsystem.domain.entities.loan.LoanStatus;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Loan statistics pre-aggregated by year, month, genre, author and status, so that reports roll up
+ * a number of cells that does not depend on the number of loans.
+ * <p>
+ * Each cell holds the number of loans and their revenue, summed in whole cents. A loan is attributed
+ * to the genre and author of the book it is added with, and must be removed with the same book and
+ * status, so a loan whose status or book changes is removed before the change and added back after it.
+ * </p>
+ */
+public class LoanCube {
+
+    private final Map<Cell, long[]> cells = new HashMap<>();
+
+    /**
+     * Adds a loan to its cell.
+     *
+     * @param loan the loan
+     * @param book the book of the loan, or null if it is unknown
+     */
+    public void add(Loan loan, Book book) {
+        update(cellOf(loan, book), 1, toCents(loan.getPrice()));
+    }
+
+    /**
+     * Removes a loan from its cell.
+     *
+     * @param loan the loan, with the status it was added with
+     * @param book the book the loan was added with, or null if it was unknown
+     */
+    public void remove(Loan loan, Book book) {
+        update(cellOf(loan, book), -1, -toCents(loan.getPrice()));
+    }
+
+    /**
+     * Adds the cells of another cube to this one.
+     *
+     * @param other the other cube
+     */
+    public void merge(LoanCube other) {
+        other.cells.forEach((cell, measures) -> update(cell, measures[0], measures[1]));
+    }
+
+    /**
+     * Returns the number of non-empty cells.
+     *
+     * @return the cell count
+     */
+    public int size() {
+        return this.cells.size();
+    }
+
+    /**
+     * Sums the cells passing a filter into groups, adding to the measures already in the groups.
+     *
+     * @param filter the filter the cells must pass
+     * @param groupBy the function giving the group of a cell
+     * @param totals the measures per group, updated in place
+     * @param <K> the type of the groups
+     */
+    public <K> void rollUp(Predicate<? super Cell> filter, Function<? super Cell, ? extends K> groupBy,
+                           Map<K, Measures> totals) {
+        this.cells.forEach((cell, measures) -> {
+            if (filter.test(cell)) {
+                totals.merge(groupBy.apply(cell), new Measures(measures[0], measures[1]), Measures::plus);
+            }
+        });
+    }
+
+    /**
+     * Adds measures to a cell, dropping the cell once it is empty.
+     *
+     * @param cell the cell
+     * @param loans the number of loans added
+     * @param cents the revenue added, in cents
+     */
+    private void update(Cell cell, long loans, long cents) {
+        long[] measures = this.cells.computeIfAbsent(cell, _ -> new long[2]);
+        measures[0] += loans;
+        measures[1] += cents;
+        if (measures[0] == 0 && measures[1] == 0) {
+            this.cells.remove(cell);
+        }
+    }
+
+    /**
+     * Returns the cell of a loan.
+     *
+     * @param loan the loan
+     * @param book the book of the loan, or null if it is unknown
+     * @return the cell the loan belongs to
+     */
+    private static Cell cellOf(Loan loan, Book book) {
+        return new Cell(
+                loan.getLoanDate().getYear(),
+                loan.getLoanDate().getMonthValue(),
+                Objects.isNull(book) ? null : book.getGenreId(),
+                Objects.isNull(book) ? null : book.getAuthorId(),
+                loan.getStatus());
+    }
+
+    /**
+     * Converts an amount to whole cents.
+     *
+     * @param amount the amount
+     * @return the amount in cents, rounded
+     */
+    private static long toCents(double amount) {
+        return Math.round(amount * 100);
+    }
+
+    /**
+     * The coordinates of a cell of the cube.
+     *
+     * @param year the year of the loan date
+     * @param month the month of the loan date, from 1 to 12
+     * @param genreId the ID of the genre of the book, or null if the book is unknown
+     * @param authorId the ID of the author of the book, or null if the book is unknown
+     * @param status the status of the loans
+     */
+    public record Cell(int year, int month, UUID genreId, UUID authorId, LoanStatus status) {
+    }
+
+    /**
+     * The measures of a group of cells.
+     *
+     * @param loans the number of loans
+     * @param cents the revenue, in cents
+     */
+    public record Measures(long loans, long cents) {
+
+        /**
+         * Returns the revenue.
+         *
+         * @return the revenue
+         */
+        public double revenue() {
+            return this.cents / 100.0;
+        }
+
+        /**
+         * Adds two measures.
+         *
+         * @param other the measures to add
+         * @return the sum of the measures
+         */
+        public Measures plus(Measures other) {
+            return new Measures(this.loans + other.loans, this.cents + other.cents);
+        }
+    }
+}
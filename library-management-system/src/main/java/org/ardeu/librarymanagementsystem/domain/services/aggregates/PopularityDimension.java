@@ -0,0 +1,42 @@
+package org.ardeu.librarymanagementsystem.domain.services.aggregates;
+
+/**
+ * Enum representing what loans are counted against when ranking popularity.
+ */
+public enum PopularityDimension {
+
+    /**
+     * The book of the loan.
+     */
+    BOOK("Books"),
+
+    /**
+     * The author of the book of the loan.
+     */
+    AUTHOR("Authors"),
+
+    /**
+     * The genre of the book of the loan.
+     */
+    GENRE("Genres");
+
+    private final String displayName;
+
+    /**
+     * Constructs a PopularityDimension with the specified display name.
+     *
+     * @param value the display name of the dimension
+     */
+    PopularityDimension(String value) {
+        this.displayName = value;
+    }
+
+    /**
+     * Gets the display name of the dimension.
+     *
+     * @return the display name
+     */
+    public String getDisplayName() {
+        return displayName;
+    }
+}
@@ -0,0 +1,13 @@
+package org.ardeu.librarymanagementsystem.domain.services.aggregates;
+
+import java.util.UUID;
+
+/**
+ * A book, author or genre with its number of loans, as ranked by popularity.
+ *
+ * @param id the ID of the book, author or genre
+ * @param loans the number of loans, exact or estimated
+ * @param error the most the estimated number of loans may be off by, 0 if it is exact
+ */
+public record RankedCount(UUID id, long loans, long error) {
+}
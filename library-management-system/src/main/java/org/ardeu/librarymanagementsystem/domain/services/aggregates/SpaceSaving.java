@@ -0,0 +1,136 @@
+package org.ardeu.librarymanagementsystem.domain.services.aggregates;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * A Space-Saving sketch estimating the most frequent keys of a stream with a fixed number of counters.
+ * <p>
+ * A key that is not counted yet takes a free counter or, once they are all taken, the counter of the least
+ * frequent key. It starts from the largest count ever evicted, which bounds the frequency of every key that
+ * is not counted and becomes its error. The count of a key is thus never below its true frequency and at
+ * most its error above it. The capacity is meant to stay small, so the least frequent key is found by a
+ * linear scan.
+ * </p>
+ * <p>
+ * Keys may also be taken back, for loans that are removed. Taking back a key that is not counted does
+ * nothing, which keeps every count an upper bound.
+ * </p>
+ */
+public class SpaceSaving {
+
+    private final int capacity;
+    private final Map<UUID, long[]> counters;
+
+    /**
+     * The largest count evicted so far, which no key that is not counted can exceed.
+     */
+    private long uncountedBound;
+
+    /**
+     * Constructs an empty sketch.
+     *
+     * @param capacity the number of counters
+     * @throws IllegalArgumentException if the capacity is not positive
+     */
+    public SpaceSaving(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.counters = HashMap.newHashMap(capacity + 1);
+    }
+
+    /**
+     * Counts an occurrence of a key, evicting the least frequent key if the counters are all taken.
+     *
+     * @param key the key, ignored if null
+     */
+    public void add(UUID key) {
+        if (Objects.isNull(key)) {
+            return;
+        }
+        long[] counter = this.counters.get(key);
+        if (Objects.isNull(counter)) {
+            if (this.counters.size() == this.capacity) {
+                evictLeastFrequent();
+            }
+            counter = new long[] {this.uncountedBound, this.uncountedBound};
+            this.counters.put(key, counter);
+        }
+        counter[0]++;
+    }
+
+    /**
+     * Takes back an occurrence of a key, dropping its counter once it is empty. Does nothing if the key
+     * is not counted.
+     *
+     * @param key the key, ignored if null
+     */
+    public void remove(UUID key) {
+        if (Objects.isNull(key)) {
+            return;
+        }
+        long[] counter = this.counters.get(key);
+        if (Objects.nonNull(counter)) {
+            counter[0]--;
+            counter[1] = Math.min(counter[1], counter[0]);
+            if (counter[0] <= 0) {
+                this.counters.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Returns the count of a key.
+     *
+     * @param key the key
+     * @return the count, or 0 if the key is not counted
+     */
+    public long count(UUID key) {
+        long[] counter = this.counters.get(key);
+        return Objects.isNull(counter) ? 0 : counter[0];
+    }
+
+    /**
+     * Returns the most the frequency of a key that is not counted may be.
+     *
+     * @return the bound on the frequency of the keys that are not counted
+     */
+    public long uncountedBound() {
+        return this.uncountedBound;
+    }
+
+    /**
+     * Returns the counted keys, most frequent first.
+     *
+     * @return the counted keys with their counts and errors
+     */
+    public List<RankedCount> entries() {
+        List<RankedCount> entries = new ArrayList<>(this.counters.size());
+        this.counters.forEach((key, counter) -> entries.add(new RankedCount(key, counter[0], counter[1])));
+        entries.sort(Comparator.comparingLong(RankedCount::loans).reversed());
+        return entries;
+    }
+
+    /**
+     * Evicts the key with the smallest count and raises the bound of the keys that are not counted to it.
+     */
+    private void evictLeastFrequent() {
+        UUID evicted = null;
+        long minimum = Long.MAX_VALUE;
+        for (Map.Entry<UUID, long[]> entry : this.counters.entrySet()) {
+            if (entry.getValue()[0] < minimum) {
+                evicted = entry.getKey();
+                minimum = entry.getValue()[0];
+            }
+        }
+        this.counters.remove(evicted);
+        this.uncountedBound = Math.max(this.uncountedBound, minimum);
+    }
+}
@@ -0,0 +1,163 @@
+package org.ardeu.librarymanagementsystem.domain.services.aggregates;
+
+import org.ardeu.librarymanagementsystem.domain.entities.book.Book;
+import org.ardeu.librarymanagementsystem.domain.entities.loan.Loan;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * The most borrowed books, authors and genres of the last days, estimated in bounded memory.
+ * <p>
+ * The loans of each day of the window are counted in one {@link SpaceSaving} sketch per dimension, and the
+ * sketches of a period are merged when it is ranked. Days leave the window as the date moves on, so the
+ * memory used depends on the window and the capacity of the sketches, not on the number of loans. A key
+ * missing from the sketch of a day may have been borrowed up to the bound of that sketch, which is added to
+ * its error.
+ * </p>
+ */
+public class TrendingLoans {
+
+    /**
+     * The number of days of the window, the current day included.
+     */
+    public static final int MAX_DAYS = 30;
+
+    private final int capacity;
+    private final NavigableMap<LocalDate, SpaceSaving[]> days = new TreeMap<>();
+
+    /**
+     * Constructs an empty {@link TrendingLoans}.
+     *
+     * @param capacity the number of counters of each daily sketch
+     */
+    public TrendingLoans(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Counts a loan, if it was made within the window.
+     *
+     * @param loan the loan
+     * @param book the book of the loan, or null if it is unknown
+     * @param today the current date
+     */
+    public void add(Loan loan, Book book, LocalDate today) {
+        expire(today);
+        if (loan.getLoanDate().isBefore(windowStart(today, MAX_DAYS))) {
+            return;
+        }
+        SpaceSaving[] sketches = this.days.computeIfAbsent(loan.getLoanDate(), _ -> newSketches());
+        for (PopularityDimension dimension : PopularityDimension.values()) {
+            sketches[dimension.ordinal()].add(keyOf(dimension, loan, book));
+        }
+    }
+
+    /**
+     * Takes back a loan from the day it was made on, if that day is still in the window.
+     *
+     * @param loan the loan
+     * @param book the book of the loan, or null if it is unknown
+     */
+    public void remove(Loan loan, Book book) {
+        SpaceSaving[] sketches = this.days.get(loan.getLoanDate());
+        if (Objects.nonNull(sketches)) {
+            for (PopularityDimension dimension : PopularityDimension.values()) {
+                sketches[dimension.ordinal()].remove(keyOf(dimension, loan, book));
+            }
+        }
+    }
+
+    /**
+     * Ranks the most borrowed books, authors or genres of the last days.
+     *
+     * @param dimension what the loans are counted against
+     * @param today the current date
+     * @param period the number of days ranked, the current day included, at most {@link #MAX_DAYS}
+     * @param limit the maximum number of entries returned
+     * @return the estimated most borrowed entries, most borrowed first
+     * @throws IllegalArgumentException if the period is not between 1 and {@link #MAX_DAYS}
+     */
+    public List<RankedCount> top(PopularityDimension dimension, LocalDate today, int period, int limit) {
+        if (period < 1 || period > MAX_DAYS) {
+            throw new IllegalArgumentException("Period must be between 1 and " + MAX_DAYS + " days: " + period);
+        }
+        expire(today);
+        long bounds = 0;
+        Map<UUID, long[]> merged = new HashMap<>();
+        for (SpaceSaving[] sketches : this.days.subMap(windowStart(today, period), true, today, true).values()) {
+            SpaceSaving sketch = sketches[dimension.ordinal()];
+            bounds += sketch.uncountedBound();
+            for (RankedCount entry : sketch.entries()) {
+                long[] totals = merged.computeIfAbsent(entry.id(), _ -> new long[3]);
+                totals[0] += entry.loans();
+                totals[1] += entry.error();
+                totals[2] += sketch.uncountedBound();
+            }
+        }
+        List<RankedCount> ranked = new ArrayList<>(merged.size());
+        for (Map.Entry<UUID, long[]> entry : merged.entrySet()) {
+            long[] totals = entry.getValue();
+            ranked.add(new RankedCount(entry.getKey(), totals[0], totals[1] + bounds - totals[2]));
+        }
+        ranked.sort(Comparator.comparingLong(RankedCount::loans).reversed());
+        return ranked.subList(0, Math.min(Math.max(limit, 0), ranked.size()));
+    }
+
+    /**
+     * Drops the days that have left the window.
+     *
+     * @param today the current date
+     */
+    private void expire(LocalDate today) {
+        this.days.headMap(windowStart(today, MAX_DAYS), false).clear();
+    }
+
+    /**
+     * Creates the sketches of a day, one per dimension.
+     *
+     * @return the sketches, indexed by the ordinal of the dimension
+     */
+    private SpaceSaving[] newSketches() {
+        SpaceSaving[] sketches = new SpaceSaving[PopularityDimension.values().length];
+        for (int i = 0; i < sketches.length; i++) {
+            sketches[i] = new SpaceSaving(this.capacity);
+        }
+        return sketches;
+    }
+
+    /**
+     * Returns the first day of a period ending today.
+     *
+     * @param today the current date
+     * @param period the number of days of the period
+     * @return the first day of the period
+     */
+    private static LocalDate windowStart(LocalDate today, int period) {
+        return today.minusDays(period - 1);
+    }
+
+    /**
+     * Extracts the key a loan is counted against.
+     *
+     * @param dimension what the loan is counted against
+     * @param loan the loan
+     * @param book the book of the loan, or null if it is unknown
+     * @return the key, or null if the book is needed but unknown
+     */
+    private static UUID keyOf(PopularityDimension dimension, Loan loan, Book book) {
+        return switch (dimension) {
+            case BOOK -> loan.getBookId();
+            case AUTHOR -> Objects.isNull(book) ? null : book.getAuthorId();
+            case GENRE -> Objects.isNull(book) ? null : book.getGenreId();
+        };
+    }
+}
@@ -0,0 +1,35 @@
+package org.ardeu.librarymanagementsystem.domain.services.base;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+/**
+ * Normalization of the text keys used by {@link SecondaryIndex secondary indexes}, so that values differing
+ * only in casing, Unicode form or whitespace map to the same key.
+ */
+public final class IndexKeys {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    /**
+     * Private constructor to prevent instantiation of the utility class.
+     */
+    private IndexKeys() {}
+
+    /**
+     * Normalizes a text key: applies Unicode NFKC normalization, strips leading and trailing whitespace,
+     * collapses inner whitespace runs to a single space and lower-cases the result.
+     *
+     * @param text the text to normalize, may be null
+     * @return the normalized key, or null if the text is null or blank
+     */
+    public static String normalize(String text) {
+        if (Objects.isNull(text)) {
+            return null;
+        }
+        String normalized = WHITESPACE.matcher(Normalizer.normalize(text, Normalizer.Form.NFKC).strip()).replaceAll(" ");
+        return normalized.isEmpty() ? null : normalized.toLowerCase(Locale.ROOT);
+    }
+}
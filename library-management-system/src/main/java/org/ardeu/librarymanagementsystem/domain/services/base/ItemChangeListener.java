@@ -0,0 +1,27 @@
+package org.ardeu.librarymanagementsystem.domain.services.base;
+
+import java.util.UUID;
+
+/**
+ * Receives every change made to the items of a {@link Service}: additions, replacements, updates made in
+ * place, removals, loads and journal replays.
+ * <p>
+ * Unlike a listener on {@link Service#getItems()}, it is also called when an item is stored again after
+ * being modified in place, which the observable map does not report since the stored value is unchanged.
+ * In that case the previous and current items are the same instance, already holding the new state.
+ * </p>
+ *
+ * @param <T> the type of the items
+ */
+@FunctionalInterface
+public interface ItemChangeListener<T> {
+
+    /**
+     * Called after an item changed, once the secondary indexes of the service are up to date.
+     *
+     * @param id the ID of the changed item
+     * @param previous the item stored before the change, or null if the item was added
+     * @param current the item stored after the change, or null if the item was removed
+     */
+    void itemChanged(UUID id, T previous, T current);
+}
@@ -0,0 +1,218 @@
+package org.ardeu.librarymanagementsystem.domain.services.base;
+
+import org.ardeu.librarymanagementsystem.domain.entities.base.BaseEntity;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * A hash index over the items of a {@link Service}, mapping a key extracted from every item to the
+ * IDs of the items having it.
+ * <p>
+ * Indexes are registered by a service with {@link Service#addIndex(String, Function)},
+ * {@link Service#addUniqueIndex(String, Function)} or {@link Service#addSortedIndex(String, Function)}
+ * and kept up to date by the service on every add, update, removal and load. The key of every indexed
+ * item is remembered, so an item whose key changed in place is moved to its new key when it is put
+ * again. Items whose key is null are not indexed.
+ * </p>
+ * <p>
+ * A unique index makes {@link Service#add(BaseEntity)} reject an item whose key is already taken by
+ * another item. Items loaded from persistent storage are indexed even if they share a key.
+ * </p>
+ *
+ * @param <K> the type of the keys
+ * @param <T> the type of the indexed items
+ */
+public class SecondaryIndex<K, T extends BaseEntity> {
+
+    private final String name;
+    private final boolean unique;
+    private final Function<? super T, ? extends K> keyExtractor;
+    private final Map<UUID, T> items;
+    private final Map<K, Set<UUID>> idsByKey;
+    private final Map<UUID, K> keysById = new HashMap<>();
+
+    /**
+     * Constructs a new {@link SecondaryIndex}.
+     *
+     * @param name the name of the index
+     * @param unique whether a key may only be taken by one item
+     * @param keyExtractor the function extracting the key of an item
+     * @param items the items of the service, used to resolve the indexed IDs
+     */
+    SecondaryIndex(String name, boolean unique, Function<? super T, ? extends K> keyExtractor, Map<UUID, T> items) {
+        this(name, unique, keyExtractor, items, new HashMap<>());
+    }
+
+    /**
+     * Constructs a new {@link SecondaryIndex} storing its keys in the given map.
+     *
+     * @param name the name of the index
+     * @param unique whether a key may only be taken by one item
+     * @param keyExtractor the function extracting the key of an item
+     * @param items the items of the service, used to resolve the indexed IDs
+     * @param idsByKey the empty map the IDs will be indexed in, by key
+     */
+    SecondaryIndex(String name, boolean unique, Function<? super T, ? extends K> keyExtractor, Map<UUID, T> items,
+                   Map<K, Set<UUID>> idsByKey) {
+        this.name = name;
+        this.unique = unique;
+        this.keyExtractor = keyExtractor;
+        this.items = items;
+        this.idsByKey = idsByKey;
+    }
+
+    /**
+     * Returns the name of the index.
+     *
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Checks whether the index is unique.
+     *
+     * @return true if a key may only be taken by one item
+     */
+    public boolean isUnique() {
+        return unique;
+    }
+
+    /**
+     * Extracts the key of an item as this index sees it.
+     *
+     * @param item the item
+     * @return the key of the item, or null if it is not indexed
+     */
+    public K keyOf(T item) {
+        return this.keyExtractor.apply(item);
+    }
+
+    /**
+     * Checks whether any item has the given key.
+     *
+     * @param key the key to look up
+     * @return true if at least one item has the key
+     */
+    public boolean contains(K key) {
+        return this.idsByKey.containsKey(key);
+    }
+
+    /**
+     * Returns an item with the given key.
+     *
+     * @param key the key to look up
+     * @return an item with the key, or null if there is none
+     */
+    public T find(K key) {
+        Set<UUID> ids = this.idsByKey.get(key);
+        return Objects.isNull(ids) ? null : this.items.get(ids.iterator().next());
+    }
+
+    /**
+     * Returns every item with the given key.
+     *
+     * @param key the key to look up
+     * @return the items with the key, in no particular order
+     */
+    public List<T> findAll(K key) {
+        Set<UUID> ids = this.idsByKey.get(key);
+        return Objects.isNull(ids) ? Collections.emptyList() : resolve(List.of(ids));
+    }
+
+    /**
+     * Returns the number of items with the given key.
+     *
+     * @param key the key to look up
+     * @return the number of items with the key
+     */
+    public int count(K key) {
+        Set<UUID> ids = this.idsByKey.get(key);
+        return Objects.isNull(ids) ? 0 : ids.size();
+    }
+
+    /**
+     * Returns the distinct keys of the indexed items.
+     *
+     * @return an unmodifiable view of the keys
+     */
+    public Set<K> keys() {
+        return Collections.unmodifiableSet(this.idsByKey.keySet());
+    }
+
+    /**
+     * Returns the map of keys to the IDs of the items having them.
+     *
+     * @return the backing map of the index
+     */
+    Map<K, Set<UUID>> idsByKey() {
+        return idsByKey;
+    }
+
+    /**
+     * Looks up the items whose IDs are in the given sets, in iteration order.
+     *
+     * @param idSets the sets of item IDs
+     * @return the items
+     */
+    List<T> resolve(Collection<Set<UUID>> idSets) {
+        List<T> found = new ArrayList<>();
+        for (Set<UUID> ids : idSets) {
+            for (UUID id : ids) {
+                found.add(this.items.get(id));
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Checks whether the key of an item is already taken by a different item.
+     *
+     * @param item the item to check
+     * @return true if another item has the same key
+     */
+    boolean conflictsWith(T item) {
+        K key = keyOf(item);
+        if (Objects.isNull(key)) {
+            return false;
+        }
+        Set<UUID> ids = this.idsByKey.get(key);
+        return Objects.nonNull(ids) && (ids.size() > 1 || !ids.contains(item.getId()));
+    }
+
+    /**
+     * Indexes an item under its current key, moving it away from its previous key if it changed.
+     *
+     * @param item the added or updated item
+     */
+    void update(T item) {
+        UUID id = item.getId();
+        K key = keyOf(item);
+        if (Objects.equals(key, this.keysById.get(id))) {
+            return;
+        }
+        remove(id);
+        if (Objects.nonNull(key)) {
+            this.idsByKey.computeIfAbsent(key, _ -> new HashSet<>()).add(id);
+            this.keysById.put(id, key);
+        }
+    }
+
+    /**
+     * Removes an item from the index.
+     *
+     * @param id the ID of the removed item
+     */
+    void remove(UUID id) {
+        K key = this.keysById.remove(id);
+        if (Objects.isNull(key)) {
+            return;
+        }
+        Set<UUID> ids = this.idsByKey.get(key);
+        if (Objects.nonNull(ids) && ids.remove(id) && ids.isEmpty()) {
+            this.idsByKey.remove(key);
+        }
+    }
+}
@@ -5,21 +5,55 @@ import javafx.collections.ObservableMap;
 import org.ardeu.librarymanagementsystem.domain.entities.base.BaseEntity;
 import org.ardeu.librarymanagementsystem.domain.exceptions.entity.DuplicateItemException;
 import org.ardeu.librarymanagementsystem.domain.filerepository.base.MapFileHandler;
+import org.ardeu.librarymanagementsystem.domain.filerepository.journal.JournalOperation;
+import org.ardeu.librarymanagementsystem.domain.filerepository.journal.WriteAheadJournal;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
 
 /**
  * The {@code Service} class provides generic functionality for managing items
  * of type {@code T} (which extends {@code BaseEntity}). It includes methods for
  * saving and loading the items to/from persistent storage, as well as adding new items
  * and managing them in an observable map.
+ * <p>
+ * Every change made through {@link #putItem(BaseEntity)}, {@link #updateItem(BaseEntity)} and
+ * {@link #removeItem(UUID)} marks the affected key as dirty, so that saving only hands the changed entries
+ * to the file handler and a service without changes is not written at all. When a {@link WriteAheadJournal} is configured,
+ * each change is also appended to it as it happens, and the snapshot is only updated once the
+ * journal has grown past {@link #JOURNAL_COMPACTION_THRESHOLD} bytes.
+ * </p>
+ * <p>
+ * Subclasses declare {@link SecondaryIndex secondary indexes} over their items once, in their constructor,
+ * with {@link #addIndex(String, Function)}, {@link #addUniqueIndex(String, Function)} and
+ * {@link #addSortedIndex(String, Function)}, and use them for lookups by something other than the ID.
+ * The indexes follow every change made by the service, including loads and journal replays.
+ * </p>
+ * <p>
+ * Data derived from the items, in the service or in other services, is kept up to date through an
+ * {@link ItemChangeListener} registered with {@link #addItemChangeListener(ItemChangeListener)}. Every change
+ * made by the service reaches the indexes and then the listeners, including items stored again after
+ * being modified in place, which the observable map does not report.
+ * </p>
  *
  * @param <T> the type of the items, extending {@code BaseEntity}
  */
 public class Service<T extends BaseEntity> implements DataService {
 
+    /**
+     * The journal size, in bytes, above which {@link #save()} folds the journal into a new snapshot.
+     */
+    public static final long JOURNAL_COMPACTION_THRESHOLD = 8L * 1024 * 1024;
+
     /**
      * The observable map containing the items of type {@code T}, indexed by their {@code UUID}.
      */
@@ -30,6 +64,32 @@ public class Service<T extends BaseEntity> implements DataService {
      */
     private final MapFileHandler<UUID, T> fileHandler;
 
+    /**
+     * The journal recording changes made since the last snapshot, or null if changes are only
+     * persisted by {@link #save()}.
+     */
+    private final WriteAheadJournal<T> journal;
+
+    /**
+     * The keys added or updated since the items were last loaded or persisted.
+     */
+    private final Set<UUID> changedKeys;
+
+    /**
+     * The keys removed since the items were last loaded or persisted.
+     */
+    private final Set<UUID> removedKeys;
+
+    /**
+     * The secondary indexes over the items, by name.
+     */
+    private final Map<String, SecondaryIndex<?, T>> indexes;
+
+    /**
+     * The listeners notified of every change of the items.
+     */
+    private final List<ItemChangeListener<? super T>> itemChangeListeners;
+
     /**
      * Constructs a new {@code Service} with the given file handler.
      * The file handler is used to read from and write to persistent storage.
@@ -37,31 +97,207 @@ public class Service<T extends BaseEntity> implements DataService {
      * @param fileHandler the file handler used to manage the storage of the items
      */
     public Service(MapFileHandler<UUID, T> fileHandler) {
+        this(fileHandler, null);
+    }
+
+    /**
+     * Constructs a new {@code Service} with the given file handler and journal.
+     * The file handler holds the last snapshot of the items and the journal records every change made since.
+     *
+     * @param fileHandler the file handler used to manage the storage of the items
+     * @param journal the journal recording changes between snapshots, or null to disable journaling
+     */
+    public Service(MapFileHandler<UUID, T> fileHandler, WriteAheadJournal<T> journal) {
         this.fileHandler = fileHandler;
+        this.journal = journal;
         this.items = FXCollections.observableHashMap();
+        this.changedKeys = new HashSet<>();
+        this.removedKeys = new HashSet<>();
+        this.indexes = new LinkedHashMap<>();
+        this.itemChangeListeners = new CopyOnWriteArrayList<>();
+    }
+
+    /**
+     * Registers a listener notified of every change of the items from now on.
+     *
+     * @param listener the listener to register
+     */
+    public void addItemChangeListener(ItemChangeListener<? super T> listener) {
+        this.itemChangeListeners.add(listener);
     }
 
     /**
-     * Saves the current items to persistent storage using the {@code fileHandler}.
-     * The {@code items} map is serialized and written to the storage medium.
+     * Registers a non-unique secondary index over the items and builds it from the current items.
+     *
+     * @param name the name of the index, unique within the service
+     * @param keyExtractor the function extracting the key of an item; items with a null key are not indexed
+     * @param <K> the type of the keys
+     * @return the index, to be kept by the subclass for lookups
+     * @throws IllegalArgumentException if an index with the same name is already registered
+     */
+    protected <K> SecondaryIndex<K, T> addIndex(String name, Function<? super T, ? extends K> keyExtractor) {
+        return registerIndex(new SecondaryIndex<>(name, false, keyExtractor, this.items));
+    }
+
+    /**
+     * Registers a unique secondary index over the items and builds it from the current items.
+     * {@link #add(BaseEntity)} rejects items whose key is already taken.
+     *
+     * @param name the name of the index, unique within the service
+     * @param keyExtractor the function extracting the key of an item; items with a null key are not indexed
+     * @param <K> the type of the keys
+     * @return the index, to be kept by the subclass for lookups
+     * @throws IllegalArgumentException if an index with the same name is already registered
+     */
+    protected <K> SecondaryIndex<K, T> addUniqueIndex(String name, Function<? super T, ? extends K> keyExtractor) {
+        return registerIndex(new SecondaryIndex<>(name, true, keyExtractor, this.items));
+    }
+
+    /**
+     * Registers a non-unique secondary index whose keys are kept in order, supporting range queries,
+     * and builds it from the current items.
+     *
+     * @param name the name of the index, unique within the service
+     * @param keyExtractor the function extracting the key of an item; items with a null key are not indexed
+     * @param <K> the type of the keys
+     * @return the index, to be kept by the subclass for lookups
+     * @throws IllegalArgumentException if an index with the same name is already registered
+     */
+    protected <K extends Comparable<? super K>> SortedSecondaryIndex<K, T> addSortedIndex(
+            String name, Function<? super T, ? extends K> keyExtractor) {
+        return registerIndex(new SortedSecondaryIndex<>(name, keyExtractor, this.items));
+    }
+
+    /**
+     * Retrieves a secondary index by name.
+     *
+     * @param name the name of the index
+     * @return the index, or null if the service has no index with that name
+     */
+    public SecondaryIndex<?, T> getIndex(String name) {
+        return this.indexes.get(name);
+    }
+
+    /**
+     * Checkpoints the changed items to persistent storage. Does nothing if no item changed since
+     * the last load or persist.
+     * <p>
+     * Without a journal the changes are written to the snapshot right away. With a journal,
+     * outstanding records are flushed to disk, and the changes are folded into the snapshot (and the
+     * journal emptied) only when the journal has grown past {@link #JOURNAL_COMPACTION_THRESHOLD}.
+     * </p>
      *
      * @throws IOException if an I/O error occurs while saving data
      */
     @Override
     public void save() throws IOException {
-        this.fileHandler.writeToFile(this.items);
+        if (!isDirty()) {
+            return;
+        }
+        if (Objects.nonNull(this.journal)) {
+            this.journal.flush();
+            if (this.journal.size() < JOURNAL_COMPACTION_THRESHOLD) {
+                return;
+            }
+        }
+        writeSnapshot();
+    }
+
+    /**
+     * Writes the items changed since the last load or persist to the snapshot through
+     * {@link MapFileHandler#writeChanges(java.util.Map, Set, Set)}, then empties the journal,
+     * whose records are all covered by the updated snapshot.
+     *
+     * @throws IOException if an I/O error occurs while writing the snapshot or truncating the journal
+     */
+    public void writeSnapshot() throws IOException {
+        if (Objects.nonNull(this.journal)) {
+            this.journal.flush();
+        }
+        this.fileHandler.writeChanges(this.items, this.changedKeys, this.removedKeys);
+        this.changedKeys.clear();
+        this.removedKeys.clear();
+        if (Objects.nonNull(this.journal)) {
+            this.journal.truncate();
+        }
+    }
+
+    /**
+     * Checks whether any item was added, updated or removed since the items were last loaded or persisted.
+     *
+     * @return true if there are changes that are not yet in the snapshot, false otherwise
+     */
+    public boolean isDirty() {
+        return !this.changedKeys.isEmpty() || !this.removedKeys.isEmpty();
+    }
+
+    /**
+     * Replays the journal on top of the items loaded from the last snapshot.
+     * Records are applied to the {@code items} map and the listeners but are not journaled again,
+     * but their keys are marked dirty since the snapshot does not contain them yet.
+     *
+     * @return the number of replayed records
+     * @throws IOException if an I/O error occurs while reading the journal
+     */
+    public int replayJournal() throws IOException {
+        if (Objects.isNull(this.journal)) {
+            return 0;
+        }
+        return this.journal.replay(record -> {
+            if (record.operation() == JournalOperation.PUT) {
+                itemChanged(record.id(), this.items.put(record.id(), record.value()), record.value());
+                markChanged(record.id());
+            } else {
+                T removed = this.items.remove(record.id());
+                if (Objects.nonNull(removed)) {
+                    itemChanged(record.id(), removed, null);
+                }
+                markRemoved(record.id());
+            }
+        });
     }
 
     /**
      * Loads the items from persistent storage using the {@code fileHandler}.
-     * The current {@code items} map is cleared and populated with the loaded data.
+     * The current {@code items} map is cleared and populated with the loaded data,
+     * and no item is considered dirty afterwards.
      *
      * @throws IOException if an I/O error occurs while loading data
      */
     @Override
     public void load() throws IOException {
+        Map<UUID, T> loaded = this.fileHandler.readFromFile();
+        List<T> previous = List.copyOf(this.items.values());
         this.items.clear();
-        this.items.putAll(this.fileHandler.readFromFile());
+        for (T item : previous) {
+            itemChanged(item.getId(), item, null);
+        }
+        this.items.putAll(loaded);
+        for (T item : loaded.values()) {
+            itemChanged(item.getId(), null, item);
+        }
+        this.changedKeys.clear();
+        this.removedKeys.clear();
+    }
+
+    /**
+     * Builds the data of the service derived from other services, and starts listening to their changes,
+     * once every service of the registry is loaded. Listeners on other services are registered here rather
+     * than in the constructor, so that they do not run while those services are loaded concurrently.
+     * Does nothing by default.
+     */
+    public void prepare() {
+    }
+
+    /**
+     * Checks whether the item with the given ID was removed since the items were last loaded or persisted,
+     * meaning that a copy of it read from persistent storage is stale.
+     *
+     * @param id the ID to check
+     * @return true if the item was removed and the removal is not persisted yet
+     */
+    protected boolean isRemovedSinceSnapshot(UUID id) {
+        return this.removedKeys.contains(id);
     }
 
     /**
@@ -74,17 +310,144 @@ public class Service<T extends BaseEntity> implements DataService {
     }
 
     /**
-     * Adds a new item to the {@code items} map. If an item with the same ID already exists,
-     * a {@code DuplicateItemException} is thrown.
+     * Adds a new item to the {@code items} map. If an item with the same ID, or with the same key
+     * in a unique index, already exists, a {@code DuplicateItemException} is thrown.
      *
      * @param item the item to add
-     * @throws DuplicateItemException if an item with the same ID already exists in the map
+     * @throws DuplicateItemException if an item with the same ID or unique key already exists in the map
      */
     public void add(T item) throws DuplicateItemException {
         if (Objects.nonNull(this.items.get(item.getId()))) {
             throw new DuplicateItemException("Item with id " + item.getId() + " already exists");
-        } else {
-            this.items.put(item.getId(), item);
         }
+        for (SecondaryIndex<?, T> index : this.indexes.values()) {
+            if (index.isUnique() && index.conflictsWith(item)) {
+                throw new DuplicateItemException("Item with " + index.getName() + " " + index.keyOf(item) + " already exists");
+            }
+        }
+        putItem(item);
+    }
+
+    /**
+     * Stores the item in the {@code items} map, notifies the listeners and records the change in the journal.
+     * Subclasses use this method, rather than writing to the map directly, whenever an item is added or modified.
+     *
+     * @param item the item to store
+     */
+    protected void putItem(T item) {
+        itemChanged(item.getId(), this.items.put(item.getId(), item), item);
+        recordPut(item);
+    }
+
+    /**
+     * Records that an item of the {@code items} map was modified in place: notifies the listeners and
+     * records the change in the journal. The map is left as it is, so its own listeners are not notified.
+     *
+     * @param item the modified item, as stored in the map
+     * @throws IllegalArgumentException if the item is not the one stored under its ID
+     */
+    protected void updateItem(T item) {
+        if (this.items.get(item.getId()) != item) {
+            throw new IllegalArgumentException("Item with id " + item.getId() + " is not stored in this service");
+        }
+        itemChanged(item.getId(), item, item);
+        recordPut(item);
+    }
+
+    /**
+     * Removes the item with the given ID from the {@code items} map and records the removal in the journal.
+     *
+     * @param id the ID of the item to remove
+     * @return the removed item, or null if no item had the given ID
+     */
+    protected T removeItem(UUID id) {
+        T removed = this.items.remove(id);
+        if (Objects.isNull(removed)) {
+            return null;
+        }
+        itemChanged(id, removed, null);
+        markRemoved(id);
+        if (Objects.nonNull(this.journal)) {
+            try {
+                this.journal.appendRemove(id);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Adds an index to the registry and indexes the current items.
+     *
+     * @param index the index to register
+     * @param <I> the type of the index
+     * @return the registered index
+     * @throws IllegalArgumentException if an index with the same name is already registered
+     */
+    private <I extends SecondaryIndex<?, T>> I registerIndex(I index) {
+        if (Objects.nonNull(this.indexes.putIfAbsent(index.getName(), index))) {
+            throw new IllegalArgumentException("Index " + index.getName() + " is already registered");
+        }
+        for (T item : this.items.values()) {
+            index.update(item);
+        }
+        return index;
+    }
+
+    /**
+     * Brings the indexes up to date with a change of the items, then notifies the listeners.
+     *
+     * @param id the ID of the changed item
+     * @param previous the item stored before the change, or null if it was added
+     * @param current the item stored after the change, or null if it was removed
+     */
+    private void itemChanged(UUID id, T previous, T current) {
+        for (SecondaryIndex<?, T> index : this.indexes.values()) {
+            if (Objects.isNull(current)) {
+                index.remove(id);
+            } else {
+                index.update(current);
+            }
+        }
+        for (ItemChangeListener<? super T> listener : this.itemChangeListeners) {
+            listener.itemChanged(id, previous, current);
+        }
+    }
+
+    /**
+     * Marks an added or updated item dirty and records it in the journal.
+     *
+     * @param item the added or updated item
+     */
+    private void recordPut(T item) {
+        markChanged(item.getId());
+        if (Objects.nonNull(this.journal)) {
+            try {
+                this.journal.appendPut(item.getId(), item);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Marks the key as added or updated since the last persist.
+     *
+     * @param id the changed key
+     */
+    private void markChanged(UUID id) {
+        this.removedKeys.remove(id);
+        this.changedKeys.add(id);
+    }
+
+    /**
+     * Marks the key as removed since the last persist.
+     *
+     * @param id the removed key
+     */
+    private void markRemoved(UUID id) {
+        this.changedKeys.remove(id);
+        this.removedKeys.add(id);
     }
 }
@@ -0,0 +1,61 @@
+package org.ardeu.librarymanagementsystem.domain.services.base;
+
+import org.ardeu.librarymanagementsystem.domain.entities.base.BaseEntity;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * A {@link SecondaryIndex} keeping its keys in order, so that the items whose key falls in a range
+ * are found in O(log n + k) rather than by scanning every item.
+ *
+ * @param <K> the type of the keys
+ * @param <T> the type of the indexed items
+ */
+public class SortedSecondaryIndex<K extends Comparable<? super K>, T extends BaseEntity> extends SecondaryIndex<K, T> {
+
+    /**
+     * Constructs a new non-unique {@link SortedSecondaryIndex}.
+     *
+     * @param name the name of the index
+     * @param keyExtractor the function extracting the key of an item
+     * @param items the items of the service, used to resolve the indexed IDs
+     */
+    SortedSecondaryIndex(String name, Function<? super T, ? extends K> keyExtractor, Map<UUID, T> items) {
+        super(name, false, keyExtractor, items, new TreeMap<>());
+    }
+
+    /**
+     * Returns the items whose key is between two bounds, in key order.
+     *
+     * @param from the lower bound, or null for no lower bound
+     * @param fromInclusive whether items whose key equals the lower bound are included
+     * @param to the upper bound, or null for no upper bound
+     * @param toInclusive whether items whose key equals the upper bound are included
+     * @return the items in the range
+     */
+    public List<T> findRange(K from, boolean fromInclusive, K to, boolean toInclusive) {
+        if (Objects.nonNull(from) && Objects.nonNull(to) && from.compareTo(to) > 0) {
+            return Collections.emptyList();
+        }
+        NavigableMap<K, Set<UUID>> range = (NavigableMap<K, Set<UUID>>) idsByKey();
+        if (Objects.nonNull(from)) {
+            range = range.tailMap(from, fromInclusive);
+        }
+        if (Objects.nonNull(to)) {
+            range = range.headMap(to, toInclusive);
+        }
+        return resolve(range.values());
+    }
+
+    /**
+     * Returns the items whose key is between two bounds, both inclusive, in key order.
+     *
+     * @param from the lower bound, inclusive
+     * @param to the upper bound, inclusive
+     * @return the items in the range
+     */
+    public List<T> findBetween(K from, K to) {
+        return findRange(from, true, to, true);
+    }
+}
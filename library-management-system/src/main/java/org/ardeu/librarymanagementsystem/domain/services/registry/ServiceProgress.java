@@ -0,0 +1,20 @@
+package org.ardeu.librarymanagementsystem.domain.services.registry;
+
+/**
+ * Progress of loading or saving the registered services, reported every time a service is done.
+ *
+ * @param serviceName the name of the service that just finished
+ * @param completed the number of services finished so far, failed ones included
+ * @param total the number of services being loaded or saved
+ */
+public record ServiceProgress(String serviceName, int completed, int total) {
+
+    /**
+     * Returns the fraction of services finished so far.
+     *
+     * @return a value between 0 and 1
+     */
+    public double fraction() {
+        return total == 0 ? 1 : (double) completed / total;
+    }
+}
@@ -1,15 +1,18 @@
 package org.ardeu.librarymanagementsystem.domain.services.registry;
 
+import org.ardeu.librarymanagementsystem.domain.exceptions.service.ServiceDataException;
 import org.ardeu.librarymanagementsystem.domain.services.base.Service;
 
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Objects;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 /**
  * A singleton class responsible for managing and accessing services in the application.
  * It allows registering services, retrieving them by their class type, and loading or saving their data.
+ * The services' files are independent, so they are loaded and saved concurrently.
  */
 public class ServiceRegistry {
 
@@ -75,61 +78,146 @@ public class ServiceRegistry {
     }
 
     /**
-     * Loads data for all registered services by calling their respective {@link Service#load()} methods.
+     * Loads data for all registered services concurrently and waits for them to finish.
+     *
+     * @throws ServiceDataException if one or more services failed to load
+     * @see #loadDataAsync(Consumer)
      */
     public void loadData() {
-        this.services.forEach((_, service) -> {
-            loadServiceData(service);
-        });
+        await(loadDataAsync(_ -> {}));
     }
 
     /**
-     * Saves data for all registered services by calling their respective {@link Service#save()} methods.
+     * Checkpoints data for all registered services concurrently and waits for them to finish.
+     *
+     * @throws ServiceDataException if one or more services failed to save
+     * @see #saveDataAsync(Consumer)
      */
     public void saveData() {
-        this.services.forEach((_, service) -> {
-            saveServiceData(service);
-        });
+        await(saveDataAsync(_ -> {}));
     }
 
     /**
-     * Loads data for a specific service.
-     * Handles any {@link IOException} that occurs during loading by calling {@link #handleServiceError(Service, IOException, String)}.
+     * Loads data for all registered services, each on its own virtual thread, by calling their
+     * {@link Service#load()} methods and replaying their journals on top of the loaded snapshots.
+     * Once every service is loaded, their {@link Service#prepare()} methods build the data that depends
+     * on other services and start listening to them, again concurrently. No service reads or listens to
+     * another one while it is being loaded.
+     * <p>
+     * Every service is loaded even if another one fails. The returned future completes once all of
+     * them are done, exceptionally with a {@link ServiceDataException} holding every failure.
+     * </p>
      *
-     * @param service the service whose data needs to be loaded
+     * @param progress notified, on the loading thread, every time a service is done
+     * @return a future completing when all services are loaded
      */
-    private void loadServiceData(Service<?> service) {
-        try {
+    public CompletableFuture<Void> loadDataAsync(Consumer<ServiceProgress> progress) {
+        return runConcurrently("loading", this.services.values(), service -> {
             service.load();
-        } catch (IOException e) {
-            handleServiceError(service, e, "loading");
-        }
+            service.replayJournal();
+        }, progress).thenCompose(_ -> runConcurrently("preparing", this.services.values(), Service::prepare, _ -> {}));
+    }
+
+    /**
+     * Checkpoints data for all registered services, each on its own virtual thread, by calling their
+     * {@link Service#save()} methods. Services without changes since they were loaded or last saved are skipped.
+     * <p>
+     * Every service is saved even if another one fails. The returned future completes once all of
+     * them are done, exceptionally with a {@link ServiceDataException} holding every failure.
+     * </p>
+     *
+     * @param progress notified, on the saving thread, every time a service is done
+     * @return a future completing when all services are saved
+     */
+    public CompletableFuture<Void> saveDataAsync(Consumer<ServiceProgress> progress) {
+        List<Service<?>> dirty = this.services.values().stream()
+                .filter(Service::isDirty)
+                .toList();
+        return runConcurrently("saving", dirty, Service::save, progress);
+    }
+
+    /**
+     * Runs the action for every service on its own virtual thread, recording the error of every
+     * failed service instead of stopping at the first one.
+     *
+     * @param action the action being run ("loading", "preparing" or "saving")
+     * @param targets the services to run the action for
+     * @param task the action to run for a service
+     * @param progress notified every time a service is done
+     * @return a future completing when the action has run for every service
+     */
+    private CompletableFuture<Void> runConcurrently(String action,
+                                                   Collection<Service<?>> targets,
+                                                   ServiceTask task,
+                                                   Consumer<ServiceProgress> progress) {
+        int total = targets.size();
+        AtomicInteger completed = new AtomicInteger();
+        Map<String, Throwable> failures = new ConcurrentHashMap<>();
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+        CompletableFuture<?>[] tasks = targets.stream()
+                .map(service -> CompletableFuture.runAsync(() -> {
+                    String name = service.getClass().getSimpleName();
+                    try {
+                        task.run(service);
+                    } catch (IOException | RuntimeException e) {
+                        handleServiceError(service, e, action, failures);
+                    }
+                    progress.accept(new ServiceProgress(name, completed.incrementAndGet(), total));
+                }, executor))
+                .toArray(CompletableFuture[]::new);
+        executor.shutdown();
+
+        return CompletableFuture.allOf(tasks).thenRun(() -> {
+            if (!failures.isEmpty()) {
+                throw new ServiceDataException(action, failures);
+            }
+        });
     }
 
     /**
-     * Saves data for a specific service.
-     * Handles any {@link IOException} that occurs during saving by calling {@link #handleServiceError(Service, IOException, String)}.
+     * Waits for a load or save started by this registry, rethrowing its failure unwrapped.
      *
-     * @param service the service whose data needs to be saved
+     * @param future the future to wait for
+     * @throws ServiceDataException if one or more services failed
      */
-    private void saveServiceData(Service<?> service) {
+    private void await(CompletableFuture<Void> future) {
         try {
-            service.save();
-        } catch (IOException e) {
-            handleServiceError(service, e, "saving");
+            future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
         }
     }
 
     /**
      * Handles errors that occur during loading or saving data for a service.
-     * Throws a {@link RuntimeException}.
+     * The error is reported and recorded so that the other services can carry on.
      *
      * @param service the service that caused the error
-     * @param e the {@link IOException} that occurred
-     * @param action the action that failed ("loading" or "saving")
+     * @param e the exception that occurred
+     * @param action the action that failed ("loading", "preparing" or "saving")
+     * @param failures the errors recorded so far, keyed by service name
      */
-    private void handleServiceError(Service<?> service, IOException e, String action) {
+    private void handleServiceError(Service<?> service, Exception e, String action, Map<String, Throwable> failures) {
         System.err.printf("Error %s data for service %s: %s%n", action, service.getClass().getSimpleName(), e.getMessage());
-        throw new RuntimeException(e);
+        failures.put(service.getClass().getSimpleName(), e);
+    }
+
+    /**
+     * The action run for each service by {@link #runConcurrently(String, Collection, ServiceTask, Consumer)}.
+     */
+    @FunctionalInterface
+    private interface ServiceTask {
+
+        /**
+         * Runs the action for a service.
+         *
+         * @param service the service to run the action for
+         * @throws IOException if an I/O error occurs
+         */
+        void run(Service<?> service) throws IOException;
     }
 }
@@ -0,0 +1,97 @@
+package org.ardeu.librarymanagementsystem.domain.services.reporting;
+
+import org.ardeu.librarymanagementsystem.domain.entities.book.Book;
+import org.ardeu.librarymanagementsystem.domain.entities.loan.Loan;
+
+import java.time.YearMonth;
+import java.util.Objects;
+
+/**
+ * Enum representing the dimensions a revenue report can group loans by.
+ * Each dimension extracts a key from a loan and its book; the keys of a dimension sort in their natural order.
+ */
+public enum RevenueDimension {
+
+    /**
+     * The year of the loan date, as an {@link Integer}.
+     */
+    YEAR("Year"),
+
+    /**
+     * The quarter of the loan date, as a {@link String} such as {@code 2024-Q1}.
+     */
+    QUARTER("Quarter"),
+
+    /**
+     * The month of the loan date, as a {@link YearMonth}.
+     */
+    MONTH("Month"),
+
+    /**
+     * The ID of the genre of the book, or null if the book is unknown.
+     */
+    GENRE("Genre"),
+
+    /**
+     * The ID of the author of the book, or null if the book is unknown.
+     */
+    AUTHOR("Author"),
+
+    /**
+     * The ID of the book.
+     */
+    BOOK("Book"),
+
+    /**
+     * The status of the loan.
+     */
+    STATUS("Status");
+
+    private final String displayName;
+
+    /**
+     * Constructs a RevenueDimension with the specified display name.
+     *
+     * @param value the display name of the dimension
+     */
+    RevenueDimension(String value) {
+        this.displayName = value;
+    }
+
+    /**
+     * Returns the display name of the dimension.
+     *
+     * @return the display name of the dimension
+     */
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * Returns whether the key of a loan in this dimension only depends on its loan date.
+     *
+     * @return true for the year, quarter and month dimensions
+     */
+    public boolean isTemporal() {
+        return this == YEAR || this == QUARTER || this == MONTH;
+    }
+
+    /**
+     * Extracts the key of a loan in this dimension.
+     *
+     * @param loan the loan
+     * @param book the book of the loan, or null if it is unknown
+     * @return the key of the loan
+     */
+    public Object keyOf(Loan loan, Book book) {
+        return switch (this) {
+            case YEAR -> loan.getLoanDate().getYear();
+            case QUARTER -> loan.getLoanDate().getYear() + "-Q" + ((loan.getLoanDate().getMonthValue() + 2) / 3);
+            case MONTH -> YearMonth.from(loan.getLoanDate());
+            case GENRE -> Objects.isNull(book) ? null : book.getGenreId();
+            case AUTHOR -> Objects.isNull(book) ? null : book.getAuthorId();
+            case BOOK -> loan.getBookId();
+            case STATUS -> loan.getStatus();
+        };
+    }
+}
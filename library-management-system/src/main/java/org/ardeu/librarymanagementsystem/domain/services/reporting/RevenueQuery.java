@@ -0,0 +1,36 @@
+package org.ardeu.librarymanagementsystem.domain.services.reporting;
+
+import org.ardeu.librarymanagementsystem.domain.entities.book.Book;
+import org.ardeu.librarymanagementsystem.domain.entities.loan.Loan;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.BiPredicate;
+
+/**
+ * A revenue report: the loans made between two dates that pass a filter, grouped by some dimensions.
+ *
+ * @param from the first loan date, inclusive
+ * @param to the last loan date, inclusive
+ * @param filter the filter the loans and their books must pass, the book being null if it is unknown;
+ *               null to keep every loan
+ * @param groupBy the dimensions to group by, in order; empty for a single total
+ */
+public record RevenueQuery(LocalDate from, LocalDate to, BiPredicate<Loan, Book> filter, List<RevenueDimension> groupBy) {
+
+    /**
+     * Constructs a RevenueQuery, keeping every loan if no filter is given.
+     *
+     * @param from the first loan date, inclusive
+     * @param to the last loan date, inclusive
+     * @param filter the filter the loans and their books must pass, or null
+     * @param groupBy the dimensions to group by
+     */
+    public RevenueQuery {
+        Objects.requireNonNull(from, "from");
+        Objects.requireNonNull(to, "to");
+        filter = Objects.requireNonNullElse(filter, (_, _) -> true);
+        groupBy = List.copyOf(groupBy);
+    }
+}
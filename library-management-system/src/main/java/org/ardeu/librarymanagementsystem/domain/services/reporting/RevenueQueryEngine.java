@@ -0,0 +1,150 @@
+package org.ardeu.librarymanagementsystem.domain.services.reporting;
+
+import org.ardeu.librarymanagementsystem.domain.entities.book.Book;
+import org.ardeu.librarymanagementsystem.domain.entities.loan.Loan;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Runs {@link RevenueQuery revenue queries} over a list of loans joined with their books.
+ * <p>
+ * The loans are split into chunks aggregated in parallel on the common fork-join pool, each into its own
+ * map of groups, and the maps are merged pairwise as the tasks join, so no lock is taken. Revenue is summed
+ * in whole cents, so the result does not depend on how the loans were split. The chunks are sized so that
+ * each worker gets a few of them, which keeps the number of maps to merge low when there are many groups.
+ * </p>
+ */
+public class RevenueQueryEngine {
+
+    /**
+     * The smallest number of loans worth aggregating on another thread.
+     */
+    private static final int MIN_CHUNK_SIZE = 8192;
+
+    private final Map<UUID, Book> books;
+
+    /**
+     * Constructs a RevenueQueryEngine joining loans with the given books.
+     *
+     * @param books the books, by ID; only read while a query runs
+     */
+    public RevenueQueryEngine(Map<UUID, Book> books) {
+        this.books = books;
+    }
+
+    /**
+     * Runs a query over loans. The date range of the query is checked against every loan, so the loans
+     * may be a superset of those in the range.
+     *
+     * @param query the query
+     * @param loans the loans
+     * @return the groups of the report, highest revenue first
+     */
+    public List<RevenueRow> run(RevenueQuery query, List<Loan> loans) {
+        int chunkSize = Math.max(MIN_CHUNK_SIZE, loans.size() / (4 * ForkJoinPool.getCommonPoolParallelism()) + 1);
+        Map<List<Object>, long[]> groups = ForkJoinPool.commonPool().invoke(
+                new GroupTask(query, loans, chunkSize, 0, loans.size()));
+        List<RevenueRow> rows = new ArrayList<>(groups.size());
+        groups.forEach((key, totals) -> rows.add(new RevenueRow(key, totals[0], totals[1] / 100.0)));
+        rows.sort(Comparator.comparingDouble(RevenueRow::revenue).reversed());
+        return rows;
+    }
+
+    /**
+     * Aggregates a range of loans, splitting it in two while it is larger than the chunk size.
+     */
+    private final class GroupTask extends RecursiveTask<Map<List<Object>, long[]>> {
+        private final RevenueQuery query;
+        private final List<Loan> loans;
+        private final int chunkSize;
+        private final int start;
+        private final int end;
+
+        /**
+         * Constructs a task aggregating the loans between two indexes.
+         *
+         * @param query the query
+         * @param loans the loans
+         * @param chunkSize the number of loans up to which a range is aggregated on the current thread
+         * @param start the index of the first loan, inclusive
+         * @param end the index of the last loan, exclusive
+         */
+        private GroupTask(RevenueQuery query, List<Loan> loans, int chunkSize, int start, int end) {
+            this.query = query;
+            this.loans = loans;
+            this.chunkSize = chunkSize;
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * Aggregates the chunk, forking the first half and merging the smaller result into the larger.
+         *
+         * @return the loan count and revenue in cents of each group, by key
+         */
+        @Override
+        protected Map<List<Object>, long[]> compute() {
+            if (this.end - this.start <= this.chunkSize) {
+                return aggregate();
+            }
+            int middle = (this.start + this.end) >>> 1;
+            GroupTask left = new GroupTask(this.query, this.loans, this.chunkSize, this.start, middle);
+            left.fork();
+            Map<List<Object>, long[]> right = new GroupTask(this.query, this.loans, this.chunkSize, middle, this.end).compute();
+            Map<List<Object>, long[]> merged = left.join();
+            if (merged.size() < right.size()) {
+                Map<List<Object>, long[]> swap = merged;
+                merged = right;
+                right = swap;
+            }
+            for (Map.Entry<List<Object>, long[]> entry : right.entrySet()) {
+                long[] totals = merged.putIfAbsent(entry.getKey(), entry.getValue());
+                if (Objects.nonNull(totals)) {
+                    totals[0] += entry.getValue()[0];
+                    totals[1] += entry.getValue()[1];
+                }
+            }
+            return merged;
+        }
+
+        /**
+         * Aggregates the chunk on the current thread. The keys of the temporal dimensions are only
+         * extracted again when the loan date changes, which is rare since loans come ordered by date.
+         *
+         * @return the loan count and revenue in cents of each group, by key
+         */
+        private Map<List<Object>, long[]> aggregate() {
+            Map<List<Object>, long[]> groups = new HashMap<>();
+            List<RevenueDimension> dimensions = this.query.groupBy();
+            LocalDate keysDate = null;
+            Object[] dateKeys = new Object[dimensions.size()];
+            for (int i = this.start; i < this.end; i++) {
+                Loan loan = this.loans.get(i);
+                if (loan.getLoanDate().isBefore(this.query.from()) || loan.getLoanDate().isAfter(this.query.to())) {
+                    continue;
+                }
+                Book book = books.get(loan.getBookId());
+                if (!this.query.filter().test(loan, book)) {
+                    continue;
+                }
+                if (!loan.getLoanDate().equals(keysDate)) {
+                    keysDate = loan.getLoanDate();
+                    for (int d = 0; d < dateKeys.length; d++) {
+                        dateKeys[d] = dimensions.get(d).isTemporal() ? dimensions.get(d).keyOf(loan, book) : null;
+                    }
+                }
+                Object[] key = new Object[dimensions.size()];
+                for (int d = 0; d < key.length; d++) {
+                    key[d] = dimensions.get(d).isTemporal() ? dateKeys[d] : dimensions.get(d).keyOf(loan, book);
+                }
+                long[] totals = groups.computeIfAbsent(Arrays.asList(key), _ -> new long[2]);
+                totals[0]++;
+                totals[1] += Math.round(loan.getPrice() * 100);
+            }
+            return groups;
+        }
+    }
+}
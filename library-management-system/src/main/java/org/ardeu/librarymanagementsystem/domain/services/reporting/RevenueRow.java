@@ -0,0 +1,13 @@
+package org.ardeu.librarymanagementsystem.domain.services.reporting;
+
+import java.util.List;
+
+/**
+ * A group of a revenue report.
+ *
+ * @param key the keys of the group, one per dimension of the query, in the same order; keys may be null
+ * @param loans the number of loans in the group
+ * @param revenue the revenue of the loans in the group
+ */
+public record RevenueRow(List<Object> key, long loans, double revenue) {
+}
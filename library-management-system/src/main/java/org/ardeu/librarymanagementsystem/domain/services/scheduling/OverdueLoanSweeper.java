@@ -0,0 +1,86 @@
+package org.ardeu.librarymanagementsystem.domain.services.scheduling;
+
+import org.ardeu.librarymanagementsystem.domain.entities.loan.Loan;
+import org.ardeu.librarymanagementsystem.domain.entities.loan.LoanStatus;
+import org.ardeu.librarymanagementsystem.domain.services.LoanService;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Marks loans as {@link LoanStatus#OVERDUE} in the background, once when started and then every day
+ * at midnight, through {@link LoanService#markOverdueLoans(LocalDate)}.
+ * <p>
+ * The sweeps are timed on a daemon thread but run on the given executor, so that the items of the
+ * service are only changed on the thread observing them. The loans marked overdue by every sweep are
+ * then handed to the sweep listener on the same executor.
+ * </p>
+ */
+public class OverdueLoanSweeper implements AutoCloseable {
+
+    private final LoanService loanService;
+    private final Executor sweepExecutor;
+    private final Consumer<? super List<Loan>> sweepListener;
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Constructs a new {@link OverdueLoanSweeper}. The sweeper does nothing until started.
+     *
+     * @param loanService the service whose loans are swept
+     * @param sweepExecutor the executor the sweeps run on
+     * @param sweepListener receives the loans marked overdue by every sweep, ordered by due date
+     */
+    public OverdueLoanSweeper(LoanService loanService, Executor sweepExecutor, Consumer<? super List<Loan>> sweepListener) {
+        this.loanService = loanService;
+        this.sweepExecutor = sweepExecutor;
+        this.sweepListener = sweepListener;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "overdue-loan-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Sweeps the loans now and schedules the next sweep for midnight.
+     */
+    public void start() {
+        sweep();
+        scheduleNextSweep();
+    }
+
+    /**
+     * Stops the scheduled sweeps.
+     */
+    @Override
+    public void close() {
+        this.scheduler.shutdownNow();
+    }
+
+    /**
+     * Schedules a sweep for the next midnight, which schedules the one after it when it runs.
+     * The delay is computed every day, so clock changes are followed.
+     */
+    private void scheduleNextSweep() {
+        LocalDateTime now = LocalDateTime.now();
+        long delay = Duration.between(now, now.toLocalDate().plusDays(1).atStartOfDay()).toMillis();
+        this.scheduler.schedule(() -> {
+            sweep();
+            scheduleNextSweep();
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Hands a sweep as of the current date to the sweep executor, followed by the sweep listener.
+     */
+    private void sweep() {
+        this.sweepExecutor.execute(() -> this.sweepListener.accept(this.loanService.markOverdueLoans(LocalDate.now())));
+    }
+}
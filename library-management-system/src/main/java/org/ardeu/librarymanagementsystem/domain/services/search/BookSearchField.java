@@ -0,0 +1,48 @@
+package org.ardeu.librarymanagementsystem.domain.services.search;
+
+/**
+ * Enum representing the text fields of a book indexed for full-text search, with the weight of a match
+ * in each field when ranking results.
+ */
+public enum BookSearchField {
+
+    /**
+     * The title of the book.
+     */
+    TITLE(3),
+
+    /**
+     * The name of the author of the book.
+     */
+    AUTHOR(2),
+
+    /**
+     * The name of the genre of the book.
+     */
+    GENRE(1),
+
+    /**
+     * The description of the book.
+     */
+    DESCRIPTION(1);
+
+    private final double weight;
+
+    /**
+     * Constructs a BookSearchField with the specified ranking weight.
+     *
+     * @param weight the weight of a match in this field
+     */
+    BookSearchField(double weight) {
+        this.weight = weight;
+    }
+
+    /**
+     * Returns the weight of a match in this field.
+     *
+     * @return the ranking weight
+     */
+    public double getWeight() {
+        return weight;
+    }
+}
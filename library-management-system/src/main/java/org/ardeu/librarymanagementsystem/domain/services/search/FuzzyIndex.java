@@ -0,0 +1,428 @@
+package org.ardeu.librarymanagementsystem.domain.services.search;
+
+import org.ardeu.librarymanagementsystem.domain.services.base.IndexKeys;
+
+import java.util.*;
+
+/**
+ * An in-memory index of the words of documents, finding the words within a small Levenshtein distance
+ * of a query without comparing it to every word.
+ * <p>
+ * Values are normalized with {@link IndexKeys#normalize(String)} and split into words at every character
+ * that is neither a letter nor a digit. Following the symmetric delete approach, every distinct word is
+ * indexed under each string obtained by deleting up to {@code maxDistance} of its characters; two words
+ * within distance k always share such a string obtained with at most k deletions from each, so a query
+ * only looks up its own deletions and checks the few words found under them. The deletions are stored as
+ * 64-bit hashes in an open addressing table, collisions being weeded out by the distance check.
+ * </p>
+ * <p>
+ * A query matches the documents having, for every one of its words, a word within the tolerance, and
+ * ranks them by the sum of the distances. The tolerance shrinks for short words, which would otherwise
+ * match nearly every short word: words of up to two characters only match exactly, and words of up to
+ * five characters within distance 1. Words whose documents are all removed stay indexed until they
+ * outnumber the live words, when the index is rebuilt. All methods are synchronized.
+ * </p>
+ */
+public class FuzzyIndex {
+
+    /**
+     * The number of dead words tolerated before the index is rebuilt, on top of the live words.
+     */
+    private static final int REBUILD_SLACK = 1024;
+
+    private final int maxDistance;
+    private final Map<String, Integer> numbers = new HashMap<>();
+    private final List<String> words = new ArrayList<>();
+    private final List<Set<UUID>> idsByNumber = new ArrayList<>();
+    private final Map<UUID, int[]> numbersById = new HashMap<>();
+    private DeletionTable deletions = new DeletionTable();
+    private int deadWords;
+
+    private int[] previousRow = new int[16];
+    private int[] currentRow = new int[16];
+
+    /**
+     * Constructs an empty {@link FuzzyIndex}.
+     *
+     * @param maxDistance the largest edit distance at which a word matches a long enough query word
+     */
+    public FuzzyIndex(int maxDistance) {
+        this.maxDistance = maxDistance;
+    }
+
+    /**
+     * Indexes a document, replacing its previous values if it is already indexed.
+     *
+     * @param id the ID of the document
+     * @param values the values of the document; null and blank values are ignored
+     */
+    public synchronized void put(UUID id, String... values) {
+        remove(id);
+        Set<String> documentWords = new HashSet<>();
+        for (String value : values) {
+            documentWords.addAll(wordsOf(value));
+        }
+        int[] documentNumbers = new int[documentWords.size()];
+        int i = 0;
+        for (String word : documentWords) {
+            Integer number = this.numbers.get(word);
+            if (Objects.isNull(number)) {
+                number = addWord(word);
+            } else if (this.idsByNumber.get(number).isEmpty()) {
+                this.deadWords--;
+            }
+            this.idsByNumber.get(number).add(id);
+            documentNumbers[i++] = number;
+        }
+        this.numbersById.put(id, documentNumbers);
+    }
+
+    /**
+     * Removes a document from the index. Does nothing if it is not indexed.
+     *
+     * @param id the ID of the document
+     */
+    public synchronized void remove(UUID id) {
+        int[] documentNumbers = this.numbersById.remove(id);
+        if (Objects.isNull(documentNumbers)) {
+            return;
+        }
+        for (int number : documentNumbers) {
+            Set<UUID> ids = this.idsByNumber.get(number);
+            if (ids.remove(id) && ids.isEmpty()) {
+                this.deadWords++;
+            }
+        }
+        if (this.deadWords > this.words.size() - this.deadWords + REBUILD_SLACK) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Returns the number of indexed documents.
+     *
+     * @return the document count
+     */
+    public synchronized int size() {
+        return this.numbersById.size();
+    }
+
+    /**
+     * Finds the documents having, for every word of a query, a word within the tolerance of it.
+     *
+     * @param query the query
+     * @param limit the maximum number of documents returned
+     * @return the IDs of the matching documents, closest first
+     */
+    public synchronized List<UUID> findClosest(String query, int limit) {
+        Set<String> terms = wordsOf(query);
+        if (terms.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        Map<UUID, Integer> distances = null;
+        for (String term : terms) {
+            Map<UUID, Integer> termDistances = findClosestWords(term);
+            if (Objects.isNull(distances)) {
+                distances = termDistances;
+            } else {
+                distances.keySet().retainAll(termDistances.keySet());
+                distances.replaceAll((id, distance) -> distance + termDistances.get(id));
+            }
+            if (distances.isEmpty()) {
+                return Collections.emptyList();
+            }
+        }
+        return distances.entrySet().stream()
+                .sorted(Map.Entry.comparingByValue())
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    /**
+     * Finds the documents having a word within the tolerance of a query word.
+     *
+     * @param term the normalized query word
+     * @return the smallest distance of a word of each matching document to the query word, by document ID
+     */
+    private Map<UUID, Integer> findClosestWords(String term) {
+        int tolerance = Math.min(this.maxDistance, term.length() <= 2 ? 0 : term.length() <= 5 ? 1 : 2);
+        Map<UUID, Integer> distances = new HashMap<>();
+        Set<Integer> checked = new HashSet<>();
+        for (String deletion : deletionsOf(term, tolerance)) {
+            for (int posting = this.deletions.first(hash(deletion)); posting >= 0; posting = this.deletions.next(posting)) {
+                int number = this.deletions.number(posting);
+                if (!checked.add(number) || this.idsByNumber.get(number).isEmpty()) {
+                    continue;
+                }
+                int distance = distance(term, this.words.get(number), tolerance);
+                if (distance <= tolerance) {
+                    for (UUID id : this.idsByNumber.get(number)) {
+                        distances.merge(id, distance, Math::min);
+                    }
+                }
+            }
+        }
+        return distances;
+    }
+
+    /**
+     * Adds a new word, indexing it under its deletions.
+     *
+     * @param word the normalized word
+     * @return the number of the word
+     */
+    private int addWord(String word) {
+        int number = this.words.size();
+        this.words.add(word);
+        this.idsByNumber.add(new HashSet<>());
+        this.numbers.put(word, number);
+        for (String deletion : deletionsOf(word, this.maxDistance)) {
+            this.deletions.add(hash(deletion), number);
+        }
+        return number;
+    }
+
+    /**
+     * Drops the dead words and indexes the live ones again under new numbers.
+     */
+    private void rebuild() {
+        List<String> liveWords = new ArrayList<>();
+        List<Set<UUID>> liveIds = new ArrayList<>();
+        for (int number = 0; number < this.words.size(); number++) {
+            if (!this.idsByNumber.get(number).isEmpty()) {
+                liveWords.add(this.words.get(number));
+                liveIds.add(this.idsByNumber.get(number));
+            }
+        }
+        this.numbers.clear();
+        this.words.clear();
+        this.idsByNumber.clear();
+        this.deletions = new DeletionTable();
+        this.deadWords = 0;
+        for (int i = 0; i < liveWords.size(); i++) {
+            int number = addWord(liveWords.get(i));
+            this.idsByNumber.set(number, liveIds.get(i));
+        }
+        this.numbersById.clear();
+        Map<UUID, List<Integer>> numbersOfIds = new HashMap<>();
+        for (int number = 0; number < this.idsByNumber.size(); number++) {
+            for (UUID id : this.idsByNumber.get(number)) {
+                numbersOfIds.computeIfAbsent(id, _ -> new ArrayList<>()).add(number);
+            }
+        }
+        numbersOfIds.forEach((id, list) -> this.numbersById.put(id, list.stream().mapToInt(Integer::intValue).toArray()));
+    }
+
+    /**
+     * Splits a value into its normalized words.
+     *
+     * @param value the value
+     * @return the distinct words of the value, empty if the value is null or blank
+     */
+    private static Set<String> wordsOf(String value) {
+        String normalized = IndexKeys.normalize(value);
+        Set<String> found = new LinkedHashSet<>();
+        if (Objects.nonNull(normalized)) {
+            for (String word : normalized.split("[^\\p{L}\\p{N}]+")) {
+                if (!word.isEmpty()) {
+                    found.add(word);
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Returns the strings obtained by deleting up to a number of characters of a word, the word included.
+     *
+     * @param word the word
+     * @param count the maximum number of characters deleted
+     * @return the distinct deletions
+     */
+    private static Set<String> deletionsOf(String word, int count) {
+        Set<String> found = new HashSet<>();
+        found.add(word);
+        List<String> level = List.of(word);
+        for (int round = 0; round < count; round++) {
+            List<String> next = new ArrayList<>();
+            for (String text : level) {
+                for (int i = 0; i < text.length(); i++) {
+                    String deletion = text.substring(0, i) + text.substring(i + 1);
+                    if (found.add(deletion)) {
+                        next.add(deletion);
+                    }
+                }
+            }
+            level = next;
+        }
+        return found;
+    }
+
+    /**
+     * Hashes a string to 64 bits with FNV-1a.
+     *
+     * @param text the string
+     * @return the hash
+     */
+    private static long hash(String text) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < text.length(); i++) {
+            hash ^= text.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Computes the Levenshtein distance between two strings, giving up once it exceeds a bound.
+     *
+     * @param a the first string
+     * @param b the second string
+     * @param bound the largest distance of interest
+     * @return the distance, or {@code bound + 1} if it is greater than the bound
+     */
+    private int distance(String a, String b, int bound) {
+        if (Math.abs(a.length() - b.length()) > bound) {
+            return bound + 1;
+        }
+        if (b.length() >= this.previousRow.length) {
+            this.previousRow = new int[b.length() + 1];
+            this.currentRow = new int[b.length() + 1];
+        }
+        int[] previous = this.previousRow;
+        int[] current = this.currentRow;
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMinimum = i;
+            char c = a.charAt(i - 1);
+            for (int j = 1; j <= b.length(); j++) {
+                int substitution = previous[j - 1] + (c == b.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+                rowMinimum = Math.min(rowMinimum, current[j]);
+            }
+            if (rowMinimum > bound) {
+                return bound + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return Math.min(previous[b.length()], bound + 1);
+    }
+
+    /**
+     * An open addressing table from deletion hashes to the numbers of the words having the deletion,
+     * kept as linked lists of postings in parallel arrays.
+     */
+    private static final class DeletionTable {
+        private long[] hashes = new long[1024];
+        private int[] heads = new int[1024];
+        private int used;
+        private int[] postingNumbers = new int[1024];
+        private int[] postingNexts = new int[1024];
+        private int postings;
+
+        /**
+         * Adds a word under a deletion hash.
+         *
+         * @param hash the hash of the deletion
+         * @param number the number of the word
+         */
+        private void add(long hash, int number) {
+            if (2 * (this.used + 1) > this.hashes.length) {
+                grow();
+            }
+            if (this.postings == this.postingNumbers.length) {
+                this.postingNumbers = Arrays.copyOf(this.postingNumbers, this.postings * 2);
+                this.postingNexts = Arrays.copyOf(this.postingNexts, this.postings * 2);
+            }
+            int slot = slot(hash);
+            if (this.hashes[slot] == 0) {
+                this.hashes[slot] = nonZero(hash);
+                this.heads[slot] = -1;
+                this.used++;
+            }
+            this.postingNumbers[this.postings] = number;
+            this.postingNexts[this.postings] = this.heads[slot];
+            this.heads[slot] = this.postings++;
+        }
+
+        /**
+         * Returns the first posting of a deletion hash.
+         *
+         * @param hash the hash of the deletion
+         * @return the index of the posting, or -1 if no word has the deletion
+         */
+        private int first(long hash) {
+            int slot = slot(hash);
+            return this.hashes[slot] == 0 ? -1 : this.heads[slot];
+        }
+
+        /**
+         * Returns the posting following another.
+         *
+         * @param posting the index of the posting
+         * @return the index of the next posting, or -1 if it was the last
+         */
+        private int next(int posting) {
+            return this.postingNexts[posting];
+        }
+
+        /**
+         * Returns the word number of a posting.
+         *
+         * @param posting the index of the posting
+         * @return the number of the word
+         */
+        private int number(int posting) {
+            return this.postingNumbers[posting];
+        }
+
+        /**
+         * Finds the slot of a hash, or the empty slot where it would go, by linear probing.
+         *
+         * @param hash the hash
+         * @return the slot
+         */
+        private int slot(long hash) {
+            long key = nonZero(hash);
+            int mask = this.hashes.length - 1;
+            int slot = (int) (key ^ (key >>> 32)) & mask;
+            while (this.hashes[slot] != 0 && this.hashes[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        /**
+         * Doubles the number of slots and moves every hash to its new slot.
+         */
+        private void grow() {
+            long[] oldHashes = this.hashes;
+            int[] oldHeads = this.heads;
+            this.hashes = new long[oldHashes.length * 2];
+            this.heads = new int[oldHashes.length * 2];
+            for (int i = 0; i < oldHashes.length; i++) {
+                if (oldHashes[i] != 0) {
+                    int slot = slot(oldHashes[i]);
+                    this.hashes[slot] = oldHashes[i];
+                    this.heads[slot] = oldHeads[i];
+                }
+            }
+        }
+
+        /**
+         * Maps the hash 0, which marks an empty slot, to another value.
+         *
+         * @param hash the hash
+         * @return the hash, or 1 if it was 0
+         */
+        private static long nonZero(long hash) {
+            return hash == 0 ? 1 : hash;
+        }
+    }
+}
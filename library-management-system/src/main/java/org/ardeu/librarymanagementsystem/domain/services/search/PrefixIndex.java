@@ -0,0 +1,343 @@
+package org.ardeu.librarymanagementsystem.domain.services.search;
+
+import org.ardeu.librarymanagementsystem.domain.services.base.IndexKeys;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * An in-memory radix trie over the normalized text fields of documents, returning the first
+ * documents whose fields start with a prefix without looking at the others.
+ * <p>
+ * Field values are normalized with {@link IndexKeys#normalize(String)} and indexed both as a whole and
+ * from the start of every later word, so "doe" completes "Jane Doe". Edges hold whole substrings and
+ * nodes with a single child and no document are merged into it, so the trie has at most twice as many
+ * nodes as keys. Completions walk down to the prefix and then visit the subtree in key order, stopping
+ * as soon as enough documents were found. All methods are synchronized.
+ * </p>
+ */
+public class PrefixIndex {
+
+    private final Node root = new Node("");
+    private final Map<UUID, Set<String>> keysById = new HashMap<>();
+
+    /**
+     * Indexes a document, replacing its previous fields if it is already indexed.
+     *
+     * @param id the ID of the document
+     * @param fields the values of the fields; null and blank values are ignored
+     */
+    public synchronized void put(UUID id, String... fields) {
+        remove(id);
+        Set<String> keys = new HashSet<>();
+        for (String field : fields) {
+            String normalized = IndexKeys.normalize(field);
+            if (Objects.isNull(normalized)) {
+                continue;
+            }
+            keys.add(normalized);
+            for (int at = normalized.indexOf(' '); at >= 0; at = normalized.indexOf(' ', at + 1)) {
+                keys.add(normalized.substring(at + 1));
+            }
+        }
+        for (String key : keys) {
+            insert(key, id);
+        }
+        this.keysById.put(id, keys);
+    }
+
+    /**
+     * Removes a document from the index. Does nothing if it is not indexed.
+     *
+     * @param id the ID of the document
+     */
+    public synchronized void remove(UUID id) {
+        Set<String> keys = this.keysById.remove(id);
+        if (Objects.isNull(keys)) {
+            return;
+        }
+        for (String key : keys) {
+            delete(this.root, key, 0, id);
+        }
+    }
+
+    /**
+     * Removes every document from the index.
+     */
+    public synchronized void clear() {
+        this.keysById.clear();
+        this.root.children = Node.NO_CHILDREN;
+        this.root.ids = Node.NO_IDS;
+    }
+
+    /**
+     * Returns the number of indexed documents.
+     *
+     * @return the document count
+     */
+    public synchronized int size() {
+        return this.keysById.size();
+    }
+
+    /**
+     * Finds the first documents with a field, or a word of a field, starting with a prefix after normalization.
+     *
+     * @param prefix the prefix; a blank prefix matches every document
+     * @param limit the maximum number of documents returned
+     * @return the IDs of the matching documents, by their first matching key in alphabetical order
+     */
+    public List<UUID> complete(String prefix, int limit) {
+        return complete(prefix, limit, _ -> true);
+    }
+
+    /**
+     * Finds the first documents accepted by a filter with a field, or a word of a field, starting with
+     * a prefix after normalization.
+     *
+     * @param prefix the prefix; a blank prefix matches every document
+     * @param limit the maximum number of documents returned
+     * @param filter the filter the returned documents must pass
+     * @return the IDs of the matching documents, by their first matching key in alphabetical order
+     */
+    public synchronized List<UUID> complete(String prefix, int limit, Predicate<UUID> filter) {
+        if (limit <= 0) {
+            return Collections.emptyList();
+        }
+        String key = Objects.requireNonNullElse(IndexKeys.normalize(prefix), "");
+        Node node = this.root;
+        int depth = 0;
+        while (depth < key.length()) {
+            Node child = node.child(key.charAt(depth));
+            if (Objects.isNull(child)) {
+                return Collections.emptyList();
+            }
+            int common = commonPrefixLength(child.edge, key, depth);
+            if (depth + common == key.length()) {
+                node = child;
+                break;
+            }
+            if (common < child.edge.length()) {
+                return Collections.emptyList();
+            }
+            node = child;
+            depth += common;
+        }
+
+        Set<UUID> found = new LinkedHashSet<>();
+        Deque<Node> pending = new ArrayDeque<>();
+        pending.push(node);
+        while (!pending.isEmpty() && found.size() < limit) {
+            Node next = pending.pop();
+            for (UUID id : next.ids) {
+                if (found.size() < limit && filter.test(id)) {
+                    found.add(id);
+                }
+            }
+            for (int i = next.children.length - 1; i >= 0; i--) {
+                pending.push(next.children[i]);
+            }
+        }
+        return new ArrayList<>(found);
+    }
+
+    /**
+     * Adds a document under a key, splitting the edge where the key leaves the trie.
+     *
+     * @param key the normalized key
+     * @param id the ID of the document
+     */
+    private void insert(String key, UUID id) {
+        Node node = this.root;
+        int depth = 0;
+        while (depth < key.length()) {
+            Node child = node.child(key.charAt(depth));
+            if (Objects.isNull(child)) {
+                child = new Node(key.substring(depth));
+                node.addChild(child);
+                node = child;
+                break;
+            }
+            int common = commonPrefixLength(child.edge, key, depth);
+            if (common < child.edge.length()) {
+                Node split = new Node(child.edge.substring(0, common));
+                node.replaceChild(split);
+                child.edge = child.edge.substring(common);
+                split.addChild(child);
+                child = split;
+            }
+            node = child;
+            depth += common;
+        }
+        node.addId(id);
+    }
+
+    /**
+     * Removes a document from under a key, pruning and merging the nodes left without a purpose.
+     *
+     * @param node the node the key is looked up from
+     * @param key the normalized key
+     * @param depth the number of characters of the key already matched
+     * @param id the ID of the document
+     */
+    private static void delete(Node node, String key, int depth, UUID id) {
+        if (depth == key.length()) {
+            node.removeId(id);
+            return;
+        }
+        Node child = node.child(key.charAt(depth));
+        if (Objects.isNull(child) || !key.startsWith(child.edge, depth)) {
+            return;
+        }
+        delete(child, key, depth + child.edge.length(), id);
+        if (child.ids.length == 0 && child.children.length == 0) {
+            node.removeChild(child);
+        } else if (child.ids.length == 0 && child.children.length == 1) {
+            Node grandchild = child.children[0];
+            child.edge = child.edge + grandchild.edge;
+            child.ids = grandchild.ids;
+            child.children = grandchild.children;
+        }
+    }
+
+    /**
+     * Returns the length of the common prefix of an edge and a key from a given position.
+     *
+     * @param edge the edge
+     * @param key the key
+     * @param from the position in the key the edge is compared from
+     * @return the number of matching characters
+     */
+    private static int commonPrefixLength(String edge, String key, int from) {
+        int length = Math.min(edge.length(), key.length() - from);
+        int i = 0;
+        while (i < length && edge.charAt(i) == key.charAt(from + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * A node of the trie, reached through an edge labelled with one or more characters.
+     * Children are kept sorted by the first character of their edge.
+     */
+    private static final class Node {
+        private static final Node[] NO_CHILDREN = new Node[0];
+        private static final UUID[] NO_IDS = new UUID[0];
+
+        private String edge;
+        private Node[] children = NO_CHILDREN;
+        private UUID[] ids = NO_IDS;
+
+        /**
+         * Constructs a new node without children or documents.
+         *
+         * @param edge the label of the edge leading to the node
+         */
+        private Node(String edge) {
+            this.edge = edge;
+        }
+
+        /**
+         * Returns the child whose edge starts with a character.
+         *
+         * @param first the first character of the edge
+         * @return the child, or null if there is none
+         */
+        private Node child(char first) {
+            int at = find(first);
+            return at >= 0 ? this.children[at] : null;
+        }
+
+        /**
+         * Adds a child whose edge starts with a character no other child's edge starts with.
+         *
+         * @param child the child to add
+         */
+        private void addChild(Node child) {
+            int at = -find(child.edge.charAt(0)) - 1;
+            Node[] grown = new Node[this.children.length + 1];
+            System.arraycopy(this.children, 0, grown, 0, at);
+            grown[at] = child;
+            System.arraycopy(this.children, at, grown, at + 1, this.children.length - at);
+            this.children = grown;
+        }
+
+        /**
+         * Replaces the child whose edge starts with the same character as the edge of another node.
+         *
+         * @param child the replacing node
+         */
+        private void replaceChild(Node child) {
+            this.children[find(child.edge.charAt(0))] = child;
+        }
+
+        /**
+         * Removes a child.
+         *
+         * @param child the child to remove
+         */
+        private void removeChild(Node child) {
+            int at = find(child.edge.charAt(0));
+            Node[] shrunk = new Node[this.children.length - 1];
+            System.arraycopy(this.children, 0, shrunk, 0, at);
+            System.arraycopy(this.children, at + 1, shrunk, at, shrunk.length - at);
+            this.children = shrunk;
+        }
+
+        /**
+         * Binary searches the children by the first character of their edge.
+         *
+         * @param first the first character of the edge
+         * @return the position of the child, or (-(insertion point) - 1) if there is none
+         */
+        private int find(char first) {
+            int low = 0;
+            int high = this.children.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                char c = this.children[mid].edge.charAt(0);
+                if (c < first) {
+                    low = mid + 1;
+                } else if (c > first) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -low - 1;
+        }
+
+        /**
+         * Adds a document to the node.
+         *
+         * @param id the ID of the document
+         */
+        private void addId(UUID id) {
+            for (UUID existing : this.ids) {
+                if (existing.equals(id)) {
+                    return;
+                }
+            }
+            UUID[] grown = Arrays.copyOf(this.ids, this.ids.length + 1);
+            grown[this.ids.length] = id;
+            this.ids = grown;
+        }
+
+        /**
+         * Removes a document from the node.
+         *
+         * @param id the ID of the document
+         */
+        private void removeId(UUID id) {
+            for (int i = 0; i < this.ids.length; i++) {
+                if (this.ids[i].equals(id)) {
+                    UUID[] shrunk = new UUID[this.ids.length - 1];
+                    System.arraycopy(this.ids, 0, shrunk, 0, i);
+                    System.arraycopy(this.ids, i + 1, shrunk, i, shrunk.length - i);
+                    this.ids = shrunk;
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,389 @@
+package org.ardeu.librarymanagementsystem.domain.services.search;
+
+import org.ardeu.librarymanagementsystem.domain.services.base.IndexKeys;
+
+import java.util.*;
+
+/**
+ * An in-memory inverted index of the character trigrams of a fixed number of text fields per document,
+ * answering substring and ranked multi-term queries without scanning every document.
+ * <p>
+ * Field values are normalized with {@link IndexKeys#normalize(String)}. Every document gets an internal
+ * number, increasing with each put, and each trigram maps to the sorted array of the numbers of the
+ * documents containing it. A query term is looked up by intersecting the postings of its trigrams,
+ * smallest first, and the few remaining candidates are checked against the stored field values, so
+ * results are exact. Terms shorter than a trigram match by scanning the stored values.
+ * </p>
+ * <p>
+ * Updating a document gives it a new number, leaving a gap behind; the numbers are compacted once
+ * gaps outnumber the live documents. All methods are synchronized.
+ * </p>
+ */
+public class TrigramIndex {
+
+    /**
+     * The length of the indexed character sequences.
+     */
+    private static final int GRAM_LENGTH = 3;
+
+    /**
+     * The number of gaps tolerated before the document numbers are compacted, on top of the live documents.
+     */
+    private static final int COMPACTION_SLACK = 1024;
+
+    private final double[] fieldWeights;
+    private final Map<UUID, Integer> numbers = new HashMap<>();
+    private final List<Document> documents = new ArrayList<>();
+    private final Map<Long, Postings> postings = new HashMap<>();
+
+    /**
+     * Constructs an empty {@link TrigramIndex} over documents with as many fields as there are weights.
+     *
+     * @param fieldWeights the weight of a match in each field when ranking, by field position
+     */
+    public TrigramIndex(double... fieldWeights) {
+        this.fieldWeights = fieldWeights.clone();
+    }
+
+    /**
+     * Indexes a document, replacing its previous fields if it is already indexed.
+     *
+     * @param id the ID of the document
+     * @param fields the values of the fields, by position; null values are indexed as empty
+     * @throws IllegalArgumentException if the number of fields does not match the number of weights
+     */
+    public synchronized void put(UUID id, String... fields) {
+        if (fields.length != this.fieldWeights.length) {
+            throw new IllegalArgumentException("Expected " + this.fieldWeights.length + " fields, got " + fields.length);
+        }
+        remove(id);
+        String[] normalized = new String[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            normalized[i] = Objects.requireNonNullElse(IndexKeys.normalize(fields[i]), "");
+        }
+        int number = this.documents.size();
+        this.documents.add(new Document(id, normalized));
+        this.numbers.put(id, number);
+        for (long gram : grams(normalized)) {
+            this.postings.computeIfAbsent(gram, _ -> new Postings()).append(number);
+        }
+    }
+
+    /**
+     * Removes a document from the index. Does nothing if it is not indexed.
+     *
+     * @param id the ID of the document
+     */
+    public synchronized void remove(UUID id) {
+        Integer number = this.numbers.remove(id);
+        if (Objects.isNull(number)) {
+            return;
+        }
+        for (long gram : grams(this.documents.get(number).fields())) {
+            Postings list = this.postings.get(gram);
+            if (Objects.nonNull(list) && list.remove(number) && list.isEmpty()) {
+                this.postings.remove(gram);
+            }
+        }
+        this.documents.set(number, null);
+        if (this.documents.size() - this.numbers.size() > this.numbers.size() + COMPACTION_SLACK) {
+            compact();
+        }
+    }
+
+    /**
+     * Removes every document from the index.
+     */
+    public synchronized void clear() {
+        this.numbers.clear();
+        this.documents.clear();
+        this.postings.clear();
+    }
+
+    /**
+     * Returns the number of indexed documents.
+     *
+     * @return the document count
+     */
+    public synchronized int size() {
+        return this.numbers.size();
+    }
+
+    /**
+     * Finds the documents in which one of the given fields contains a text, after normalization.
+     *
+     * @param text the text to look for
+     * @param fields the positions of the fields to look in, or none to look in every field
+     * @return the IDs of the matching documents, oldest put first
+     */
+    public synchronized List<UUID> findContaining(String text, int... fields) {
+        String term = IndexKeys.normalize(text);
+        List<UUID> found = new ArrayList<>();
+        if (Objects.isNull(term)) {
+            this.documents.stream().filter(Objects::nonNull).forEach(document -> found.add(document.id()));
+            return found;
+        }
+        int[] searched = fields.length == 0 ? allFields() : fields;
+        for (int number : candidates(term)) {
+            Document document = this.documents.get(number);
+            for (int field : searched) {
+                if (document.fields()[field].contains(term)) {
+                    found.add(document.id());
+                    break;
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Finds the documents containing every whitespace-separated term of a query in some field, ranked
+     * by the weight of the fields the terms are found in. A term found at the start of a field, or at
+     * the start of a word, ranks higher than one found inside a word.
+     *
+     * @param query the query
+     * @param limit the maximum number of results
+     * @return the IDs of the best matching documents, best first
+     */
+    public synchronized List<UUID> search(String query, int limit) {
+        String normalized = IndexKeys.normalize(query);
+        if (Objects.isNull(normalized) || limit <= 0) {
+            return Collections.emptyList();
+        }
+        String[] terms = Arrays.stream(normalized.split(" ")).distinct().toArray(String[]::new);
+        Arrays.sort(terms, Comparator.comparingInt(String::length).reversed());
+
+        int[] matches = candidates(terms[0]);
+        for (int i = 1; i < terms.length && matches.length > 0 && terms[i].length() >= GRAM_LENGTH; i++) {
+            int[] next = candidates(terms[i]);
+            matches = matches.length <= next.length
+                    ? intersect(matches, next, next.length)
+                    : intersect(next, matches, matches.length);
+        }
+
+        PriorityQueue<Scored> best = new PriorityQueue<>(Comparator.comparingDouble(Scored::score)
+                .thenComparing(Comparator.comparingInt(Scored::number).reversed()));
+        for (int number : matches) {
+            double score = score(this.documents.get(number), terms);
+            if (score > 0) {
+                best.add(new Scored(number, score));
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+        }
+        List<UUID> ranked = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            ranked.add(this.documents.get(best.poll().number()).id());
+        }
+        Collections.reverse(ranked);
+        return ranked;
+    }
+
+    /**
+     * Scores a document against query terms.
+     *
+     * @param document the document
+     * @param terms the normalized terms
+     * @return the score, or 0 if a term is missing from every field
+     */
+    private double score(Document document, String[] terms) {
+        double total = 0;
+        for (String term : terms) {
+            double best = 0;
+            for (int field = 0; field < document.fields().length; field++) {
+                String value = document.fields()[field];
+                int at = value.indexOf(term);
+                if (at < 0) {
+                    continue;
+                }
+                double boost = at == 0 ? 2 : 1;
+                while (boost == 1 && at >= 0) {
+                    if (value.charAt(at - 1) == ' ') {
+                        boost = 1.5;
+                    }
+                    at = value.indexOf(term, at + 1);
+                }
+                best = Math.max(best, this.fieldWeights[field] * boost);
+            }
+            if (best == 0) {
+                return 0;
+            }
+            total += best;
+        }
+        return total;
+    }
+
+    /**
+     * Returns the sorted numbers of the documents that may contain a normalized term: the intersection
+     * of the postings of its trigrams, or every live document for a term shorter than a trigram.
+     *
+     * @param term the normalized term
+     * @return the candidate document numbers, ascending
+     */
+    private int[] candidates(String term) {
+        if (term.length() < GRAM_LENGTH) {
+            int[] all = new int[this.numbers.size()];
+            int count = 0;
+            for (int number = 0; number < this.documents.size(); number++) {
+                if (Objects.nonNull(this.documents.get(number))) {
+                    all[count++] = number;
+                }
+            }
+            return all;
+        }
+        List<Postings> lists = new ArrayList<>();
+        for (long gram : grams(term)) {
+            Postings list = this.postings.get(gram);
+            if (Objects.isNull(list)) {
+                return new int[0];
+            }
+            lists.add(list);
+        }
+        lists.sort(Comparator.comparingInt(Postings::size));
+        int[] result = Arrays.copyOf(lists.getFirst().numbers, lists.getFirst().size);
+        for (int i = 1; i < lists.size() && result.length > 0; i++) {
+            result = intersect(result, lists.get(i).numbers, lists.get(i).size);
+        }
+        return result;
+    }
+
+    /**
+     * Intersects two ascending arrays of document numbers, binary searching the larger one.
+     *
+     * @param small the smaller array
+     * @param large the larger array
+     * @param largeSize the number of used elements of the larger array
+     * @return the numbers in both arrays, ascending
+     */
+    private static int[] intersect(int[] small, int[] large, int largeSize) {
+        int[] result = new int[small.length];
+        int count = 0;
+        int from = 0;
+        for (int number : small) {
+            int at = Arrays.binarySearch(large, from, largeSize, number);
+            if (at >= 0) {
+                result[count++] = number;
+                from = at + 1;
+            } else {
+                from = -at - 1;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Returns the distinct trigrams of some normalized texts, each packed into a long.
+     *
+     * @param texts the normalized texts
+     * @return the trigrams
+     */
+    private static Set<Long> grams(String... texts) {
+        Set<Long> grams = new HashSet<>();
+        for (String text : texts) {
+            for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+                grams.add(((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2));
+            }
+        }
+        return grams;
+    }
+
+    /**
+     * Renumbers the live documents consecutively and rebuilds the postings.
+     */
+    private void compact() {
+        List<Document> live = this.documents.stream().filter(Objects::nonNull).toList();
+        clear();
+        for (Document document : live) {
+            int number = this.documents.size();
+            this.documents.add(document);
+            this.numbers.put(document.id(), number);
+            for (long gram : grams(document.fields())) {
+                this.postings.computeIfAbsent(gram, _ -> new Postings()).append(number);
+            }
+        }
+    }
+
+    /**
+     * Returns the positions of every field.
+     *
+     * @return the field positions
+     */
+    private int[] allFields() {
+        int[] fields = new int[this.fieldWeights.length];
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = i;
+        }
+        return fields;
+    }
+
+    /**
+     * An indexed document with its normalized field values.
+     *
+     * @param id the ID of the document
+     * @param fields the normalized field values
+     */
+    private record Document(UUID id, String[] fields) {}
+
+    /**
+     * A document number with its score for a query.
+     *
+     * @param number the document number
+     * @param score the score
+     */
+    private record Scored(int number, double score) {}
+
+    /**
+     * An ascending, growable array of document numbers.
+     */
+    private static final class Postings {
+        private int[] numbers = new int[4];
+        private int size;
+
+        /**
+         * Appends a number greater than every number in the list.
+         *
+         * @param number the number to append
+         */
+        private void append(int number) {
+            if (this.size == this.numbers.length) {
+                this.numbers = Arrays.copyOf(this.numbers, this.size * 2);
+            }
+            this.numbers[this.size++] = number;
+        }
+
+        /**
+         * Removes a number from the list.
+         *
+         * @param number the number to remove
+         * @return true if the number was in the list
+         */
+        private boolean remove(int number) {
+            int at = Arrays.binarySearch(this.numbers, 0, this.size, number);
+            if (at < 0) {
+                return false;
+            }
+            System.arraycopy(this.numbers, at + 1, this.numbers, at, this.size - at - 1);
+            this.size--;
+            return true;
+        }
+
+        /**
+         * Checks whether the list is empty.
+         *
+         * @return true if the list holds no number
+         */
+        private boolean isEmpty() {
+            return this.size == 0;
+        }
+
+        /**
+         * Returns the number of numbers in the list.
+         *
+         * @return the size
+         */
+        private int size() {
+            return this.size;
+        }
+    }
+}
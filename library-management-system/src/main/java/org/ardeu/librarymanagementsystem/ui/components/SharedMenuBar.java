@@ -61,7 +61,8 @@ public class SharedMenuBar extends MenuBar {
         // analytics menu
         Menu analyticsMenu = new Menu("Analytics");
         MenuItem revenueMenuItem = new MenuItem("Revenue");
-        analyticsMenu.getItems().addAll(revenueMenuItem);
+        MenuItem leaderboardMenuItem = new MenuItem("Most borrowed");
+        analyticsMenu.getItems().addAll(revenueMenuItem, leaderboardMenuItem);
 
         // menu item actions
         allBooksItem.setOnAction(_ -> screenViewController.activate(ScreenName.BOOKS));
@@ -79,6 +80,7 @@ public class SharedMenuBar extends MenuBar {
             screenViewController.activate(ScreenName.ADD_LOAN);
         });
         revenueMenuItem.setOnAction(_ -> screenViewController.activate(ScreenName.REVENUE));
+        leaderboardMenuItem.setOnAction(_ -> screenViewController.activate(ScreenName.LEADERBOARD));
 
         // add menus to the menu bar
         this.getMenus().addAll(booksMenu, genresMenu, authorsMenu, membersMenu, loansMenu, analyticsMenu);
@@ -23,14 +23,15 @@ import org.ardeu.librarymanagementsystem.domain.controllers.result.Result;
 import org.ardeu.librarymanagementsystem.domain.entities.author.Author;
 import org.ardeu.librarymanagementsystem.domain.entities.author.AuthorExportField;
 import org.ardeu.librarymanagementsystem.domain.entities.book.Book;
-import org.ardeu.librarymanagementsystem.domain.entities.loan.Loan;
 import org.ardeu.librarymanagementsystem.ui.components.ErrorAlert;
 import org.ardeu.librarymanagementsystem.ui.components.SuccessAlert;
 import org.ardeu.librarymanagementsystem.ui.viewcontrollers.base.ScreenViewController;
 import org.controlsfx.control.CheckComboBox;
 
 import java.io.File;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 /**
@@ -38,6 +39,12 @@ import java.util.UUID;
  */
 public class AuthorsViewController {
 
+
+    /**
+     * The maximum number of authors matched despite a typo in the name filter.
+     */
+    private static final int FUZZY_MATCH_LIMIT = 20;
+
     private ScreenViewController screenViewController;
     private final AuthorController authorController;
     private final BookController bookController;
@@ -45,7 +52,6 @@ public class AuthorsViewController {
     private final ObservableList<Author> authorsList;
     private final FilteredList<Author> filteredAuthorsList;
     private final SortedList<Author> sortedAuthorsList;
-    private final ObservableMap<UUID, Loan> loans;
     private final LoanController loanController;
     private final ObservableMap<UUID, Book> books;
 
@@ -121,13 +127,17 @@ public class AuthorsViewController {
     }
 
     /**
-     * Filters the authors based on the input field.
+     * Filters the authors based on the input field, keeping the names containing it and the closest names despite a typo.
      */
     private void filterAuthors() {
-        filteredAuthorsList.setPredicate(author -> {
-            String authorName = authorInput.getText().toLowerCase();
-            return author.getName().toLowerCase().contains(authorName);
-        });
+        String authorName = authorInput.getText().toLowerCase();
+        Set<UUID> closestAuthors = new HashSet<>();
+        if (!authorName.isBlank()) {
+            authorController.findClosestAuthors(authorName, FUZZY_MATCH_LIMIT).getData()
+                    .forEach(author -> closestAuthors.add(author.getId()));
+        }
+        filteredAuthorsList.setPredicate(author ->
+                author.getName().toLowerCase().contains(authorName) || closestAuthors.contains(author.getId()));
     }
 
     /**
@@ -192,8 +202,7 @@ public class AuthorsViewController {
             }
             authorsTable.refresh();
         });
-        loans = loanController.getAllLoans().getData();
-        loans.addListener((MapChangeListener<UUID, Loan>) _ -> {
+        loanController.addLoanChangeListener((_, _, _) -> {
             authorsTable.refresh();
         });
 
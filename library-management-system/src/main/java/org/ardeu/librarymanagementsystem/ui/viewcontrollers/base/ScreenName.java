@@ -15,6 +15,7 @@ public enum ScreenName {
     EDIT_BOOK_INFORMATION,
     GENRES,
     HOME,
+    LEADERBOARD,
     LOANS,
     MEMBERS,
     REVENUE
@@ -18,6 +18,7 @@ import org.ardeu.librarymanagementsystem.domain.entities.author.Author;
 import org.ardeu.librarymanagementsystem.domain.entities.book.Book;
 import org.ardeu.librarymanagementsystem.domain.entities.book.mappers.BookExportField;
 import org.ardeu.librarymanagementsystem.domain.entities.genre.Genre;
+import org.ardeu.librarymanagementsystem.domain.services.search.BookSearchField;
 import org.ardeu.librarymanagementsystem.ui.components.ErrorAlert;
 import org.ardeu.librarymanagementsystem.ui.components.SuccessAlert;
 import org.ardeu.librarymanagementsystem.ui.viewcontrollers.base.ScreenName;
@@ -229,29 +230,32 @@ public class BooksViewController {
      * Filters the books based on the input fields.
      */
     private void filterBooks(){
-        filteredBookList.setPredicate(book -> {
-            String title = titleInput.getText().toLowerCase(Locale.ROOT);
-            String author = authorInput.getText().toLowerCase(Locale.ROOT);
-            String genre = genreInput.getText().toLowerCase(Locale.ROOT);
-
-            // author name
-            Result<Author> authorResult = authorController.getAuthorById(book.getAuthorId());
-            String authorName = "not found";
-            if (authorResult.isSuccess()) {
-                authorName = authorResult.getData().getName().toLowerCase(Locale.ROOT);
-            }
+        Set<UUID> matches = narrow(null, titleInput.getText(), BookSearchField.TITLE, BookSearchField.DESCRIPTION);
+        matches = narrow(matches, authorInput.getText(), BookSearchField.AUTHOR);
+        matches = narrow(matches, genreInput.getText(), BookSearchField.GENRE);
 
-            // genre name
-            Result<Genre> genreResult = genreController.getGenreById(book.getGenreId());
-            String genreName = "not found";
-            if (genreResult.isSuccess()) {
-                genreName = genreResult.getData().getName().toLowerCase(Locale.ROOT);
-            }
+        Set<UUID> filter = matches;
+        filteredBookList.setPredicate(book -> Objects.isNull(filter) || filter.contains(book.getId()));
+    }
 
-            return book.getTitle().toLowerCase(Locale.ROOT).contains(title) &&
-                    authorName.contains(author) &&
-                    genreName.contains(genre);
-        });
+    /**
+     * Narrows the books matching the filters so far to those with the given text in one of the given fields.
+     *
+     * @param matches the IDs of the books matching the filters so far, or null if no filter applies yet
+     * @param text the text of the filter, ignored if blank
+     * @param fields the fields the text is looked for in
+     * @return the IDs of the books matching every filter, or null if no filter applies
+     */
+    private Set<UUID> narrow(Set<UUID> matches, String text, BookSearchField... fields) {
+        if (text.isBlank()) {
+            return matches;
+        }
+        Set<UUID> found = bookController.findBookIdsContaining(text, fields).getData();
+        if (Objects.isNull(matches)) {
+            return found;
+        }
+        matches.retainAll(found);
+        return matches;
     }
 
     /**
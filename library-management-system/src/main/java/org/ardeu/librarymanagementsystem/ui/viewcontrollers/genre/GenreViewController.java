@@ -23,7 +23,6 @@ import org.ardeu.librarymanagementsystem.domain.controllers.result.Result;
 import org.ardeu.librarymanagementsystem.domain.entities.book.Book;
 import org.ardeu.librarymanagementsystem.domain.entities.genre.Genre;
 import org.ardeu.librarymanagementsystem.domain.entities.genre.GenreExportField;
-import org.ardeu.librarymanagementsystem.domain.entities.loan.Loan;
 import org.ardeu.librarymanagementsystem.ui.components.ErrorAlert;
 import org.ardeu.librarymanagementsystem.ui.components.SuccessAlert;
 import org.ardeu.librarymanagementsystem.ui.viewcontrollers.base.ScreenViewController;
@@ -45,7 +44,6 @@ public class GenreViewController {
     private final ObservableList<Genre> genresList;
     private final FilteredList<Genre> filteredGenresList;
     private final SortedList<Genre> sortedGenresList;
-    private final ObservableMap<UUID, Loan> loans;
     private final ObservableMap<UUID, Book> books;
 
 
@@ -81,8 +79,7 @@ public class GenreViewController {
             genresTable.refresh();
         });
         loanController = new LoanController();
-        loans = loanController.getAllLoans().getData();
-        loans.addListener((MapChangeListener<UUID, Loan>) _ -> {
+        loanController.addLoanChangeListener((_, _, _) -> {
             genresTable.refresh();
         });
         bookController = new BookController();
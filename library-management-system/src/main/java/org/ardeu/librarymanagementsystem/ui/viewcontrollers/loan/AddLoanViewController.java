@@ -27,15 +27,23 @@ import org.controlsfx.control.SearchableComboBox;
 import org.controlsfx.glyphfont.FontAwesome;
 
 import java.time.LocalDate;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
 
 /**
  * AddLoanViewController is responsible for managing the UI and logic for adding a new loan.
  */
 public class AddLoanViewController {
+
+    /**
+     * The maximum number of members or books suggested for what was typed in a search box.
+     */
+    private static final int SUGGESTION_LIMIT = 50;
+
     private ScreenViewController screenViewController;
     private final MemberController memberController;
     private final BookController bookController;
@@ -47,6 +55,7 @@ public class AddLoanViewController {
     private final ObservableList<Member> membersList;
     private final ObservableMap<UUID, Book> books;
     private final ObservableList<Book> booksList;
+    private final Set<UUID> availableBookIds;
     private final ObservableList<Book> selectedBooks;
     private final FilteredList<Book> filteredBooks;
     private final ObservableMap<UUID, Inventory> inventories;
@@ -57,6 +66,9 @@ public class AddLoanViewController {
     @FXML
     public Button cancelBtn;
 
+    @FXML
+    public TextField memberInputFilter;
+
     @FXML
     public SearchableComboBox<Member> memberComboBoxInput;
 
@@ -81,12 +93,10 @@ public class AddLoanViewController {
     public AddLoanViewController() {
         this.memberController = new MemberController();
         this.members = this.memberController.getAllMembers().getData();
-        this.membersList = FXCollections.observableArrayList(this.members.values());
+        this.membersList = FXCollections.observableArrayList();
         this.members.addListener((MapChangeListener<UUID, Member>) change -> {
-            if (change.wasAdded()) {
-                this.membersList.add(change.getValueAdded());
-            } else if (change.wasRemoved()) {
-                this.membersList.remove(change.getValueRemoved());
+            if (Objects.nonNull(this.memberInputFilter)) {
+                updateMemberSuggestions(this.memberInputFilter.getText());
             }
         });
 
@@ -96,6 +106,8 @@ public class AddLoanViewController {
         this.books = this.bookController.getAllBooks().getData();
         List<Book> availableBooks = this.inventoryController.getAvailableBooks().getData();
         this.booksList = FXCollections.observableArrayList(availableBooks);
+        this.availableBookIds = new HashSet<>();
+        availableBooks.forEach(book -> this.availableBookIds.add(book.getId()));
         this.books.addListener((MapChangeListener<UUID, Book>) change -> {
             if(change.wasAdded() || change.wasRemoved()){
                 updateBooksList();
@@ -124,6 +136,8 @@ public class AddLoanViewController {
         List<Book> availableBooks = this.inventoryController.getAvailableBooks().getData();
         this.booksList.clear();
         this.booksList.addAll(availableBooks);
+        this.availableBookIds.clear();
+        availableBooks.forEach(book -> this.availableBookIds.add(book.getId()));
         this.sourceLv.getItems().addAll(this.filteredBooks);
     }
 
@@ -143,14 +157,19 @@ public class AddLoanViewController {
     }
 
     /**
-     * Initializes the source input filter.
+     * Initializes the source input filter, suggesting the available books whose title, or a word of
+     * their title, starts with the typed text.
      */
     private void initializeSourceInputFilter() {
         this.sourceInputFilter.textProperty().addListener((observable, oldValue, newValue) -> {
             this.sourceLv.getItems().clear();
+            if (newValue.isBlank()) {
+                this.sourceLv.getItems().addAll(this.filteredBooks);
+                return;
+            }
             this.sourceLv.getItems()
-                    .addAll(this.filteredBooks.filtered(book ->
-                            book.getTitle().toLowerCase(Locale.ROOT).contains(newValue.toLowerCase(Locale.ROOT))));
+                    .addAll(this.bookController.completeBookTitles(newValue, SUGGESTION_LIMIT,
+                            book -> this.availableBookIds.contains(book.getId())).getData());
         });
     }
 
@@ -295,6 +314,7 @@ public class AddLoanViewController {
      * Clears the input fields.
      */
     private void clearFields() {
+        memberInputFilter.clear();
         memberComboBoxInput.setValue(null);
         dueDatePicker.setValue(null);
         selectedBooks.clear();
@@ -311,7 +331,8 @@ public class AddLoanViewController {
     }
 
     /**
-     * Initializes the member combo box.
+     * Initializes the member combo box, which only holds the members suggested for the text typed
+     * in the member input filter rather than every member.
      */
     private void initializeMemberComboBox() {
         StringConverter<Member> memberStringConverter =
@@ -319,6 +340,29 @@ public class AddLoanViewController {
                         member.getEmail() + " - " + member.getName());
         memberComboBoxInput.setConverter(memberStringConverter);
         memberComboBoxInput.setItems(this.membersList);
+        updateMemberSuggestions("");
+
+        memberInputFilter.textProperty().addListener((observable, oldValue, newValue) -> {
+            updateMemberSuggestions(newValue);
+            if (memberInputFilter.isFocused() && !membersList.isEmpty()) {
+                memberComboBoxInput.show();
+            }
+        });
+    }
+
+    /**
+     * Replaces the members in the member combo box with those whose email, name, or a word of their
+     * name starts with the given text, keeping the selected member if it still matches.
+     *
+     * @param text the text typed in the member input filter
+     */
+    private void updateMemberSuggestions(String text) {
+        List<Member> suggestions = this.memberController.completeMembers(text, SUGGESTION_LIMIT).getData();
+        Member selected = memberComboBoxInput.getValue();
+        this.membersList.setAll(suggestions);
+        if (Objects.nonNull(selected) && !suggestions.contains(selected)) {
+            memberComboBoxInput.setValue(null);
+        }
     }
 
     /**
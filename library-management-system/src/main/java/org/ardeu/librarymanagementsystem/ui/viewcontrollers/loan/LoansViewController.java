@@ -3,7 +3,6 @@ package org.ardeu.librarymanagementsystem.ui.viewcontrollers.loan;
 import io.github.palexdev.materialfx.controls.MFXTextField;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
-import javafx.collections.MapChangeListener;
 import javafx.collections.ObservableList;
 import javafx.collections.ObservableMap;
 import javafx.collections.transformation.FilteredList;
@@ -74,6 +73,9 @@ public class LoansViewController {
     @FXML
     public MFXTextField statusInput;
 
+    @FXML
+    public Label overdueLabel;
+
     /**
      * Constructs a LoansViewController and initializes the necessary data structures.
      */
@@ -86,17 +88,27 @@ public class LoansViewController {
         
         this.loansList = FXCollections.observableArrayList(this.loans.values().stream().toList());
 
-        this.loans.addListener((MapChangeListener<UUID, Loan>) loan -> {
-            if (loan.wasAdded()) {
-                loansList.add(loan.getValueAdded());
-            } else if (loan.wasRemoved()) {
-                loansList.remove(loan.getValueRemoved());
-            }
-        });
-
         this.filteredLoansList = new FilteredList<>(loansList, _ -> true);
         this.sortedLoansList = new SortedList<>(filteredLoansList);
         this.loansTable = new TableView<>();
+
+        // listen through the loan service rather than the map, which does not report status changes made in place
+        this.loanController.addLoanChangeListener((_, previous, current) -> {
+            if (Objects.isNull(previous)) {
+                loansList.add(current);
+            } else if (Objects.isNull(current)) {
+                loansList.remove(previous);
+                if (previous.getStatus() == LoanStatus.OVERDUE && Objects.nonNull(overdueLabel)) {
+                    updateOverdueLabel();
+                }
+            } else {
+                int index = loansList.indexOf(previous);
+                if (index >= 0 && previous != current) {
+                    loansList.set(index, current);
+                }
+                loansTable.refresh();
+            }
+        });
     }
 
     /**
@@ -113,6 +125,28 @@ public class LoansViewController {
         statusInput.textProperty().addListener((_, _, _) -> filterLoans());
         setUpLoansFieldsTv();
         exportBtn.setOnAction(_ -> exportLoans());
+        updateOverdueLabel();
+    }
+
+    /**
+     * Shows the loans just marked overdue by a sweep: their rows are redrawn and the number of
+     * overdue loans is updated.
+     *
+     * @param overdueLoans the loans marked overdue by the sweep
+     */
+    public void showOverdueLoans(List<Loan> overdueLoans) {
+        if (!overdueLoans.isEmpty()) {
+            loansTable.refresh();
+            updateOverdueLabel();
+        }
+    }
+
+    /**
+     * Updates the number of overdue loans shown above the table.
+     */
+    private void updateOverdueLabel() {
+        int overdue = this.loanController.getOverdueLoans().getData().size();
+        overdueLabel.setText("Overdue loans: " + overdue);
     }
 
     /**
@@ -323,6 +357,7 @@ public class LoansViewController {
             } else {
                 showErrorMessage("Error", result.getErrorMessage());
             }
+            updateOverdueLabel();
             loanStatusPopOver.hide();
         });
 
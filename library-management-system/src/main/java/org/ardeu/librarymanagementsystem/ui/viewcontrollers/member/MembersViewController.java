@@ -25,8 +25,10 @@ import org.ardeu.librarymanagementsystem.ui.viewcontrollers.base.ScreenViewContr
 import org.controlsfx.control.CheckComboBox;
 
 import java.io.File;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Set;
 import java.util.UUID;
 
 /**
@@ -34,6 +36,12 @@ import java.util.UUID;
  */
 public class MembersViewController {
 
+
+    /**
+     * The maximum number of members matched despite a typo in each filter.
+     */
+    private static final int FUZZY_MATCH_LIMIT = 20;
+
     private final MemberController memberController;
     private ScreenViewController screenViewController;
     private final ObservableMap<UUID, Member> members;
@@ -120,15 +128,24 @@ public class MembersViewController {
     }
 
     /**
-     * Filters the members based on the input fields.
+     * Filters the members based on the input fields, keeping the values containing them and the closest values despite a typo.
      */
     private void filterMembers() {
-        filteredMembersList.setPredicate(member -> {
-            String name = nameInput.getText().toLowerCase(Locale.ROOT);
-            String email = emailInput.getText().toLowerCase(Locale.ROOT);
-            return member.getName().toLowerCase(Locale.ROOT).contains(name) &&
-                    member.getEmail().toLowerCase(Locale.ROOT).contains(email);
-        });
+        String name = nameInput.getText().toLowerCase(Locale.ROOT);
+        String email = emailInput.getText().toLowerCase(Locale.ROOT);
+        Set<UUID> closestByName = new HashSet<>();
+        if (!name.isBlank()) {
+            memberController.findClosestMembersByName(name, FUZZY_MATCH_LIMIT).getData()
+                    .forEach(member -> closestByName.add(member.getId()));
+        }
+        Set<UUID> closestByEmail = new HashSet<>();
+        if (!email.isBlank()) {
+            memberController.findClosestMembersByEmail(email, FUZZY_MATCH_LIMIT).getData()
+                    .forEach(member -> closestByEmail.add(member.getId()));
+        }
+        filteredMembersList.setPredicate(member ->
+                (member.getName().toLowerCase(Locale.ROOT).contains(name) || closestByName.contains(member.getId())) &&
+                (member.getEmail().toLowerCase(Locale.ROOT).contains(email) || closestByEmail.contains(member.getId())));
     }
 
     /**
@@ -0,0 +1,149 @@
+package org.ardeu.librarymanagementsystem.ui.viewcontrollers.revenue;
+
+import io.github.palexdev.materialfx.utils.others.FunctionalStringConverter;
+import javafx.application.Platform;
+import javafx.beans.property.SimpleIntegerProperty;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.collections.FXCollections;
+import javafx.fxml.FXML;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import org.ardeu.librarymanagementsystem.domain.controllers.LoanController;
+import org.ardeu.librarymanagementsystem.domain.services.aggregates.PopularityDimension;
+import org.ardeu.librarymanagementsystem.domain.services.aggregates.RankedCount;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * LeaderboardViewController displays the most borrowed books, authors or genres of all time, of the last
+ * 30 days and of the last 7 days. The rankings are read from counts kept up to date by the loan service,
+ * so they are refreshed on every loan change without scanning the loans.
+ */
+public class LeaderboardViewController {
+
+    /**
+     * The number of entries of each ranking.
+     */
+    private static final int LIMIT = 10;
+
+    private final LoanController loanController;
+
+    /**
+     * Whether a refresh is already queued on the FX thread, so that a burst of loan changes,
+     * such as an overdue sweep, refreshes the rankings once.
+     */
+    private boolean refreshPending;
+
+    @FXML
+    public ComboBox<PopularityDimension> dimensionInput;
+
+    @FXML
+    public TableView<LeaderboardRow> allTimeTable;
+
+    @FXML
+    public TableView<LeaderboardRow> last30DaysTable;
+
+    @FXML
+    public TableView<LeaderboardRow> last7DaysTable;
+
+    /**
+     * Constructs a LeaderboardViewController.
+     */
+    public LeaderboardViewController() {
+        this.loanController = new LoanController();
+    }
+
+    /**
+     * Initializes the controller, showing the most borrowed books first.
+     */
+    @FXML
+    public void initialize() {
+        dimensionInput.setItems(FXCollections.observableArrayList(PopularityDimension.values()));
+        dimensionInput.setConverter(FunctionalStringConverter.to(dimension -> (dimension == null) ? "" : dimension.getDisplayName()));
+        dimensionInput.setValue(PopularityDimension.BOOK);
+        dimensionInput.valueProperty().addListener((_, _, _) -> refresh());
+
+        setUpTable(allTimeTable);
+        setUpTable(last30DaysTable);
+        setUpTable(last7DaysTable);
+
+        refresh();
+        this.loanController.addLoanChangeListener((_, _, _) -> scheduleRefresh());
+    }
+
+    /**
+     * Adds the rank, name and loans columns to a ranking table.
+     *
+     * @param table the table
+     */
+    private void setUpTable(TableView<LeaderboardRow> table) {
+        TableColumn<LeaderboardRow, Integer> rankColumn = new TableColumn<>("#");
+        rankColumn.setCellValueFactory(param -> new SimpleIntegerProperty(param.getValue().rank()).asObject());
+
+        TableColumn<LeaderboardRow, String> nameColumn = new TableColumn<>("Name");
+        nameColumn.setCellValueFactory(param -> new SimpleStringProperty(param.getValue().name()));
+
+        TableColumn<LeaderboardRow, String> loansColumn = new TableColumn<>("Loans");
+        loansColumn.setCellValueFactory(param -> new SimpleStringProperty(param.getValue().loans()));
+
+        table.getColumns().addAll(rankColumn, nameColumn, loansColumn);
+        table.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY_ALL_COLUMNS);
+    }
+
+    /**
+     * Queues a refresh of the rankings on the FX thread, unless one is already queued.
+     */
+    private void scheduleRefresh() {
+        if (!this.refreshPending) {
+            this.refreshPending = true;
+            Platform.runLater(() -> {
+                this.refreshPending = false;
+                refresh();
+            });
+        }
+    }
+
+    /**
+     * Refreshes the three rankings for the chosen dimension.
+     */
+    private void refresh() {
+        PopularityDimension dimension = dimensionInput.getValue();
+        if (dimension == null) {
+            return;
+        }
+        showRanking(allTimeTable, dimension, this.loanController.getMostBorrowed(dimension, LIMIT).getData());
+        showRanking(last30DaysTable, dimension, this.loanController.getTrending(dimension, 30, LIMIT).getData());
+        showRanking(last7DaysTable, dimension, this.loanController.getTrending(dimension, 7, LIMIT).getData());
+    }
+
+    /**
+     * Fills a ranking table. Estimated counts are shown with the most they may be off by.
+     *
+     * @param table the table
+     * @param dimension what the entries are
+     * @param ranking the entries, most borrowed first
+     */
+    private void showRanking(TableView<LeaderboardRow> table, PopularityDimension dimension, List<RankedCount> ranking) {
+        List<LeaderboardRow> rows = new ArrayList<>(ranking.size());
+        for (RankedCount entry : ranking) {
+            String loans = entry.error() == 0
+                    ? String.valueOf(entry.loans())
+                    : String.format("%d (±%d)", entry.loans(), entry.error());
+            rows.add(new LeaderboardRow(rows.size() + 1,
+                    this.loanController.describePopularityKey(dimension, entry.id()), loans));
+        }
+        table.setItems(FXCollections.observableArrayList(rows));
+    }
+
+    /**
+     * A row of a ranking table.
+     *
+     * @param rank the rank of the entry, starting at 1
+     * @param name the title of the book or the name of the author or genre
+     * @param loans the number of loans, as displayed
+     */
+    public record LeaderboardRow(int rank, String name, String loans) {
+    }
+}
@@ -1,6 +1,11 @@
 package org.ardeu.librarymanagementsystem.ui.viewcontrollers.revenue;
 
+import io.github.palexdev.materialfx.utils.others.FunctionalStringConverter;
+import javafx.beans.property.SimpleDoubleProperty;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.collections.FXCollections;
 import javafx.collections.MapChangeListener;
+import javafx.collections.ObservableList;
 import javafx.collections.ObservableMap;
 import javafx.fxml.FXML;
 import javafx.geometry.Pos;
@@ -10,16 +15,27 @@ import javafx.scene.chart.BarChart;
 import javafx.scene.chart.CategoryAxis;
 import javafx.scene.chart.NumberAxis;
 import javafx.scene.chart.XYChart;
-import javafx.scene.control.Label;
+import javafx.scene.control.*;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.Priority;
 import javafx.scene.layout.VBox;
+import javafx.util.StringConverter;
+import org.ardeu.librarymanagementsystem.domain.controllers.GenreController;
 import org.ardeu.librarymanagementsystem.domain.controllers.LoanController;
+import org.ardeu.librarymanagementsystem.domain.entities.book.Book;
+import org.ardeu.librarymanagementsystem.domain.entities.genre.Genre;
 import org.ardeu.librarymanagementsystem.domain.entities.loan.Loan;
+import org.ardeu.librarymanagementsystem.domain.services.reporting.RevenueDimension;
+import org.ardeu.librarymanagementsystem.domain.services.reporting.RevenueQuery;
+import org.ardeu.librarymanagementsystem.domain.services.reporting.RevenueRow;
+import org.controlsfx.control.CheckComboBox;
 
 import java.time.LocalDate;
 import java.time.format.TextStyle;
 import java.util.*;
+import java.util.function.BiPredicate;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collectors;
 
 /**
  * RevenueViewController is responsible for managing and displaying revenue-related analytics in the application.
@@ -27,6 +43,7 @@ import java.util.*;
 public class RevenueViewController {
 
     private final LoanController loanController;
+    private final GenreController genreController;
     private final ObservableMap<UUID, Loan> loans;
     private final double[] monthlyRevenueFromCurrentYear;
     private final Map<Integer, Double> yearlyRevenue;
@@ -46,11 +63,36 @@ public class RevenueViewController {
     @FXML
     public Label revenuePerMonthLabel;
 
+    @FXML
+    public DatePicker pivotFromInput;
+
+    @FXML
+    public DatePicker pivotToInput;
+
+    @FXML
+    public ComboBox<RevenueDimension> pivotRowsInput;
+
+    @FXML
+    public ComboBox<RevenueDimension> pivotColumnsInput;
+
+    @FXML
+    public CheckComboBox<Genre> pivotGenresFilter;
+
+    @FXML
+    public Button pivotRunBtn;
+
+    @FXML
+    public Label pivotStatusLabel;
+
+    @FXML
+    public TableView<PivotRow> pivotTable;
+
     /**
      * Constructs a RevenueViewController and initializes the necessary data structures.
      */
     public RevenueViewController() {
         this.loanController = new LoanController();
+        this.genreController = new GenreController();
         this.loans = this.loanController.getAllLoans().getData();
         this.monthlyRevenueFromCurrentYear = new double[12];
         this.yearlyRevenue = new TreeMap<>();
@@ -63,6 +105,7 @@ public class RevenueViewController {
     public void initialize() {
         setUpRevenueData();
         this.loans.addListener((MapChangeListener<UUID, Loan>) _ -> setUpRevenueData());
+        setUpPivot();
     }
 
     /**
@@ -124,12 +167,8 @@ public class RevenueViewController {
      * Sets up the monthly revenue data and updates the monthly revenue grid.
      */
     private void setUpRevenuePerMonth() {
-        List<Loan> loans  = this.loanController.getLoansFrom(LocalDate.now().getYear()).getData();
-        Arrays.fill(this.monthlyRevenueFromCurrentYear, 0);
-        for (Loan loan : loans) {
-            int month = loan.getLoanDate().getMonthValue();
-            this.monthlyRevenueFromCurrentYear[month - 1] += loan.getPrice();
-        }
+        double[] revenue = this.loanController.getRevenuePerMonth(LocalDate.now().getYear()).getData();
+        System.arraycopy(revenue, 0, this.monthlyRevenueFromCurrentYear, 0, revenue.length);
         otherRevenueAnalyticsGrid.getChildren().removeIf(node -> {
             Integer columnIndex = GridPane.getColumnIndex(node);
             Integer rowIndex = GridPane.getRowIndex(node);
@@ -177,4 +216,161 @@ public class RevenueViewController {
         this.last30DaysRevenueLabel.setText(String.format("%.2f RON", this.loanController.getRevenueForLast30Days().getData()));
         this.pastYearRevenueLabel.setText(String.format("%.2f RON", this.loanController.getRevenueForPastYear().getData()));
     }
+
+    /**
+     * Sets up the pivot controls, defaulting to the revenue per genre and quarter of the current year.
+     */
+    private void setUpPivot() {
+        StringConverter<RevenueDimension> dimensionConverter =
+                FunctionalStringConverter.to(dimension -> (dimension == null) ? "None" : dimension.getDisplayName());
+        pivotRowsInput.setItems(FXCollections.observableArrayList(RevenueDimension.values()));
+        pivotRowsInput.setConverter(dimensionConverter);
+        pivotRowsInput.setValue(RevenueDimension.GENRE);
+
+        ObservableList<RevenueDimension> columnDimensions = FXCollections.observableArrayList(RevenueDimension.values());
+        columnDimensions.addFirst(null);
+        pivotColumnsInput.setItems(columnDimensions);
+        pivotColumnsInput.setConverter(dimensionConverter);
+        pivotColumnsInput.setValue(RevenueDimension.QUARTER);
+
+        pivotFromInput.setValue(LocalDate.now().withDayOfYear(1));
+        pivotToInput.setValue(LocalDate.now());
+
+        pivotGenresFilter.getItems().addAll(this.genreController.getAllGenres().getData().values());
+        pivotGenresFilter.setConverter(FunctionalStringConverter.to(genre -> (genre == null) ? "" : genre.getName()));
+
+        pivotRunBtn.setOnAction(_ -> runPivot());
+    }
+
+    /**
+     * Runs the revenue report chosen in the pivot controls and shows it in the pivot table.
+     * Only the checked genres are kept, or every loan if no genre is checked.
+     */
+    private void runPivot() {
+        LocalDate from = pivotFromInput.getValue();
+        LocalDate to = pivotToInput.getValue();
+        RevenueDimension rows = pivotRowsInput.getValue();
+        RevenueDimension columns = pivotColumnsInput.getValue() == rows ? null : pivotColumnsInput.getValue();
+        if (from == null || to == null || rows == null) {
+            pivotStatusLabel.setText("Choose a date range and the rows of the report");
+            return;
+        }
+        if (from.isAfter(to)) {
+            pivotStatusLabel.setText("The start date must not be after the end date");
+            return;
+        }
+
+        Set<UUID> genreIds = pivotGenresFilter.getCheckModel().getCheckedItems().stream()
+                .map(Genre::getId)
+                .collect(Collectors.toSet());
+        BiPredicate<Loan, Book> filter = genreIds.isEmpty()
+                ? null
+                : (_, book) -> book != null && genreIds.contains(book.getGenreId());
+        List<RevenueDimension> groupBy = columns == null ? List.of(rows) : List.of(rows, columns);
+
+        long start = System.nanoTime();
+        List<RevenueRow> report = this.loanController.queryRevenue(new RevenueQuery(from, to, filter, groupBy)).getData();
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        showPivot(report, rows, columns);
+        long loanCount = report.stream().mapToLong(RevenueRow::loans).sum();
+        pivotStatusLabel.setText(String.format("%d loans in %d groups, computed in %d ms", loanCount, report.size(), elapsedMillis));
+    }
+
+    /**
+     * Fills the pivot table with a report, one row per key of the rows dimension and one column per key
+     * of the columns dimension, plus a total column. Rows are ordered by total revenue, highest first.
+     *
+     * @param report the groups of the report
+     * @param rows the dimension of the rows
+     * @param columns the dimension of the columns, or null for the total column only
+     */
+    private void showPivot(List<RevenueRow> report, RevenueDimension rows, RevenueDimension columns) {
+        Map<Object, PivotRow> pivotRows = new HashMap<>();
+        Set<Object> columnKeys = columns == null ? new HashSet<>() : new TreeSet<>(keyComparator(columns));
+        for (RevenueRow row : report) {
+            PivotRow pivotRow = pivotRows.computeIfAbsent(row.key().get(0),
+                    key -> new PivotRow(this.loanController.describeRevenueKey(rows, key), new HashMap<>()));
+            Object columnKey = columns == null ? null : row.key().get(1);
+            pivotRow.revenue().merge(columnKey, row.revenue(), Double::sum);
+            columnKeys.add(columnKey);
+        }
+
+        pivotTable.getColumns().clear();
+        TableColumn<PivotRow, String> labelColumn = new TableColumn<>(rows.getDisplayName());
+        labelColumn.setCellValueFactory(param -> new SimpleStringProperty(param.getValue().label()));
+        pivotTable.getColumns().add(labelColumn);
+        if (columns != null) {
+            for (Object columnKey : columnKeys) {
+                pivotTable.getColumns().add(revenueColumn(this.loanController.describeRevenueKey(columns, columnKey),
+                        pivotRow -> pivotRow.revenue().getOrDefault(columnKey, 0.0)));
+            }
+        }
+        pivotTable.getColumns().add(revenueColumn("Total", PivotRow::total));
+
+        List<PivotRow> sortedRows = new ArrayList<>(pivotRows.values());
+        sortedRows.sort(Comparator.comparingDouble(PivotRow::total).reversed());
+        pivotTable.setItems(FXCollections.observableArrayList(sortedRows));
+    }
+
+    /**
+     * Creates a pivot table column showing a revenue with two decimals.
+     *
+     * @param title the title of the column
+     * @param revenue the revenue of a row in the column
+     * @return the column
+     */
+    private TableColumn<PivotRow, Double> revenueColumn(String title, ToDoubleFunction<PivotRow> revenue) {
+        TableColumn<PivotRow, Double> column = new TableColumn<>(title);
+        column.setCellValueFactory(param -> new SimpleDoubleProperty(revenue.applyAsDouble(param.getValue())).asObject());
+        column.setCellFactory(_ -> new TableCell<>() {
+
+            /**
+             * Shows the revenue with two decimals.
+             *
+             * @param item the revenue
+             * @param empty whether the cell is empty
+             */
+            @Override
+            protected void updateItem(Double item, boolean empty) {
+                super.updateItem(item, empty);
+                setText(empty || item == null ? null : String.format("%.2f", item));
+            }
+        });
+        return column;
+    }
+
+    /**
+     * Returns the order of the keys of a dimension in the pivot table: by name for genres, authors and books,
+     * in their natural order otherwise, unknown keys last.
+     *
+     * @param dimension the dimension
+     * @return the comparator of the keys
+     */
+    @SuppressWarnings("unchecked")
+    private Comparator<Object> keyComparator(RevenueDimension dimension) {
+        return switch (dimension) {
+            case GENRE, AUTHOR, BOOK -> Comparator.comparing(key -> this.loanController.describeRevenueKey(dimension, key));
+            default -> Comparator.nullsLast((a, b) -> ((Comparable<Object>) a).compareTo(b));
+        };
+    }
+
+    /**
+     * A row of the pivot table.
+     *
+     * @param label the description of the key of the row
+     * @param revenue the revenue of the row per key of the columns dimension, the null key standing for all
+     *                loans when there is no columns dimension
+     */
+    public record PivotRow(String label, Map<Object, Double> revenue) {
+
+        /**
+         * Returns the revenue of the row over all columns.
+         *
+         * @return the total revenue
+         */
+        public double total() {
+            return this.revenue.values().stream().mapToDouble(Double::doubleValue).sum();
+        }
+    }
 }
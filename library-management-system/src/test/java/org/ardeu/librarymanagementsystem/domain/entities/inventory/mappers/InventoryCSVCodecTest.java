@@ -0,0 +1,70 @@
+package org.ardeu.librarymanagementsystem.domain.entities.inventory.mappers;
+
+import org.ardeu.librarymanagementsystem.domain.entities.inventory.Inventory;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link InventoryCSVCodec}.
+ */
+class InventoryCSVCodecTest {
+
+    private final InventoryCSVCodec codec = new InventoryCSVCodec();
+
+    @Test
+    void encodesTheLegacyLineFormat() {
+        Inventory inventory = new Inventory(UUID.randomUUID(), UUID.randomUUID(), 3, 10, 4.75);
+
+        assertEquals(String.join(",", inventory.getId().toString(), inventory.getBookId().toString(), "3", "10", "4.75"),
+                encode(inventory));
+    }
+
+    @Test
+    void roundTripsThroughBytesAndText() {
+        Inventory inventory = new Inventory(UUID.randomUUID(), UUID.randomUUID(), 0, Integer.MAX_VALUE, 1.0E8);
+        String line = encode(inventory);
+        ByteBuffer buffer = ByteBuffer.wrap(line.getBytes(StandardCharsets.US_ASCII));
+
+        assertInventoryEquals(inventory, this.codec.decode(buffer, 0, buffer.limit()));
+        assertInventoryEquals(inventory, this.codec.decode(line, 0, line.length()));
+    }
+
+    @Test
+    void rejectsMalformedLines() {
+        String line = encode(new Inventory(UUID.randomUUID(), UUID.randomUUID(), 1, 1, 1.0));
+
+        assertThrows(IllegalArgumentException.class, () -> this.codec.decode(line + ",1", 0, line.length() + 2));
+        assertThrows(IllegalArgumentException.class, () -> this.codec.decode(line.replace(",1,", ",x,"), 0, line.length()));
+    }
+
+    /**
+     * Encodes an inventory entry to a string.
+     *
+     * @param inventory the inventory entry
+     * @return the encoded line
+     */
+    private String encode(Inventory inventory) {
+        ByteBuffer buffer = ByteBuffer.allocate(InventoryCSVCodec.MAX_LINE_LENGTH);
+        this.codec.encode(inventory, buffer);
+        return new String(buffer.array(), 0, buffer.position(), StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Checks that two inventory entries hold the same values.
+     *
+     * @param expected the expected entry
+     * @param actual the actual entry
+     */
+    private static void assertInventoryEquals(Inventory expected, Inventory actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getBookId(), actual.getBookId());
+        assertEquals(expected.getAvailableCopies(), actual.getAvailableCopies());
+        assertEquals(expected.getTotalCopies(), actual.getTotalCopies());
+        assertEquals(expected.getPrice(), actual.getPrice());
+    }
+}
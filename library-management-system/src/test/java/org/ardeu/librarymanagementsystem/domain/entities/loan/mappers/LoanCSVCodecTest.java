@@ -0,0 +1,118 @@
+package org.ardeu.librarymanagementsystem.domain.entities.loan.mappers;
+
+import org.ardeu.librarymanagementsystem.domain.entities.loan.Loan;
+import org.ardeu.librarymanagementsystem.domain.entities.loan.LoanStatus;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Objects;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link LoanCSVCodec}.
+ */
+class LoanCSVCodecTest {
+
+    private static final double[] PRICES = {0.0, 0.1, 2.5, 19.99, 1234.5678, 0.0001, 12345678.9, 1e-7};
+
+    private final LoanCSVCodec codec = new LoanCSVCodec();
+
+    @Test
+    void encodesTheLegacyLineFormat() {
+        for (double price : PRICES) {
+            Loan loan = loan(price, LocalDate.of(2024, 2, 29), LoanStatus.RETURNED);
+
+            assertEquals(legacyLine(loan), encode(loan));
+        }
+    }
+
+    @Test
+    void roundTripsThroughBytes() {
+        for (LoanStatus status : LoanStatus.values()) {
+            for (double price : PRICES) {
+                Loan loan = loan(price, status == LoanStatus.RETURNED ? LocalDate.of(2023, 1, 9) : null, status);
+                ByteBuffer buffer = ByteBuffer.allocate(LoanCSVCodec.MAX_LINE_LENGTH + 2);
+                buffer.put((byte) 'x');
+                this.codec.encode(loan, buffer);
+
+                assertLoanEquals(loan, this.codec.decode(buffer, 1, buffer.position()));
+            }
+        }
+    }
+
+    @Test
+    void roundTripsThroughText() {
+        Loan loan = loan(7.25, null, LoanStatus.OVERDUE);
+        String line = "  " + encode(loan);
+
+        assertLoanEquals(loan, this.codec.decode(line, 2, line.length()));
+    }
+
+    @Test
+    void rejectsMalformedLines() {
+        String line = encode(loan(1.5, null, LoanStatus.ACTIVE));
+
+        assertThrows(IllegalArgumentException.class, () -> this.codec.decode(line + ",extra", 0, line.length() + 6));
+        assertThrows(IllegalArgumentException.class, () -> this.codec.decode(line.replace("ACTIVE", "LOST"), 0, line.length() - 2));
+        assertThrows(IllegalArgumentException.class, () -> this.codec.decode(line.replace("2023-01-01", "2023-13-01"), 0, line.length()));
+    }
+
+    /**
+     * Encodes a loan to a string.
+     *
+     * @param loan the loan
+     * @return the encoded line
+     */
+    private String encode(Loan loan) {
+        ByteBuffer buffer = ByteBuffer.allocate(LoanCSVCodec.MAX_LINE_LENGTH);
+        this.codec.encode(loan, buffer);
+        return new String(buffer.array(), 0, buffer.position(), StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Formats a loan the way loans were written before the codec existed.
+     *
+     * @param loan the loan
+     * @return the line
+     */
+    private static String legacyLine(Loan loan) {
+        return String.join(",", loan.getId().toString(), loan.getMemberId().toString(), loan.getBookId().toString(),
+                String.valueOf(loan.getPrice()), loan.getLoanDate().toString(), loan.getDueDate().toString(),
+                Objects.isNull(loan.getReturnDate()) ? "" : loan.getReturnDate().toString(), loan.getStatus().name());
+    }
+
+    /**
+     * Checks that two loans hold the same values.
+     *
+     * @param expected the expected loan
+     * @param actual the actual loan
+     */
+    private static void assertLoanEquals(Loan expected, Loan actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getMemberId(), actual.getMemberId());
+        assertEquals(expected.getBookId(), actual.getBookId());
+        assertEquals(expected.getPrice(), actual.getPrice());
+        assertEquals(expected.getLoanDate(), actual.getLoanDate());
+        assertEquals(expected.getDueDate(), actual.getDueDate());
+        assertEquals(expected.getReturnDate(), actual.getReturnDate());
+        assertEquals(expected.getStatus(), actual.getStatus());
+    }
+
+    /**
+     * Creates a loan made on the first of January 2023.
+     *
+     * @param price the price of the loan
+     * @param returnDate the return date, or null
+     * @param status the status of the loan
+     * @return the loan
+     */
+    private static Loan loan(double price, LocalDate returnDate, LoanStatus status) {
+        LocalDate loanDate = LocalDate.of(2023, 1, 1);
+        return new Loan(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), price,
+                loanDate, loanDate.plusDays(14), returnDate, status);
+    }
+}
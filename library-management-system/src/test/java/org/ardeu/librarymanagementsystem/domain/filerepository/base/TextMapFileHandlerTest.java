@@ -0,0 +1,223 @@
+package org.ardeu.librarymanagementsystem.domain.filerepository.base;
+
+import org.ardeu.librarymanagementsystem.domain.entities.inventory.Inventory;
+import org.ardeu.librarymanagementsystem.domain.exceptions.file.DataFormatException;
+import org.ardeu.librarymanagementsystem.domain.filerepository.handlers.InventoryMapFileHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the segment format of {@link TextMapFileHandler}, through {@link InventoryMapFileHandler}.
+ */
+class TextMapFileHandlerTest {
+
+    @TempDir
+    Path directory;
+
+    private Path file;
+    private InventoryMapFileHandler handler;
+    private Map<UUID, Inventory> inventories;
+
+    /**
+     * Writes a file holding three inventories.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    @BeforeEach
+    void setUp() throws IOException {
+        this.file = this.directory.resolve("inventories.txt");
+        this.handler = new InventoryMapFileHandler(this.file.toString());
+        this.inventories = new HashMap<>();
+        for (int i = 0; i < 3; i++) {
+            put(inventory(i));
+        }
+        this.handler.writeToFile(this.inventories);
+    }
+
+    @Test
+    void fullWriteProducesSingleSegment() throws IOException {
+        assertEquals(1, segments());
+        assertReadsBack(this.inventories);
+    }
+
+    @Test
+    void incrementalSaveAppendsChangesAndTombstones() throws IOException {
+        Inventory added = inventory(7);
+        UUID removed = this.inventories.keySet().iterator().next();
+        put(added);
+        this.inventories.remove(removed);
+
+        this.handler.writeChanges(this.inventories, Set.of(added.getId()), Set.of(removed));
+
+        assertEquals(2, segments());
+        assertReadsBack(this.inventories);
+    }
+
+    @Test
+    void ignoresSegmentWithWrongChecksum() throws IOException {
+        Inventory stray = inventory(9);
+        append(TextMapFileHandler.SEGMENT_HEADER_PREFIX + "0000000001 00000000\n" + line(stray) + "\n");
+
+        assertReadsBack(this.inventories);
+    }
+
+    @Test
+    void ignoresSegmentLeftIncompleteByCrash() throws IOException {
+        append(TextMapFileHandler.SEGMENT_HEADER_PREFIX + "-000000001 00000000\n" + line(inventory(9)) + "\n");
+
+        assertReadsBack(this.inventories);
+    }
+
+    @Test
+    void ignoresSegmentCutShort() throws IOException {
+        append(TextMapFileHandler.SEGMENT_HEADER_PREFIX + "0000000002 00000000\n" + line(inventory(9)) + "\n");
+
+        assertReadsBack(this.inventories);
+    }
+
+    @Test
+    void rewritesDamagedFileOnNextSave() throws IOException {
+        append(TextMapFileHandler.SEGMENT_HEADER_PREFIX + "-000000001 00000000\n");
+        this.handler.readFromFile();
+        Inventory added = inventory(7);
+        put(added);
+
+        this.handler.writeChanges(this.inventories, Set.of(added.getId()), Collections.emptySet());
+
+        assertEquals(1, segments());
+        assertReadsBack(this.inventories);
+    }
+
+    @Test
+    void rejectsFileWhoseFirstSegmentIsDamaged() throws IOException {
+        Files.writeString(this.file, TextMapFileHandler.SEGMENT_HEADER_PREFIX + "0000000001 00000000\n"
+                + line(inventory(1)) + "\n");
+
+        assertThrows(DataFormatException.class, this.handler::readFromFile);
+    }
+
+    @Test
+    void readsLegacyFileWithoutSegments() throws IOException {
+        Inventory first = inventory(1);
+        Inventory second = inventory(2);
+        Files.writeString(this.file, line(first) + "\r\n" + line(second) + "\n");
+
+        Map<UUID, Inventory> read = this.handler.readFromFile();
+
+        assertEquals(Set.of(first.getId(), second.getId()), read.keySet());
+        assertInventoryEquals(second, read.get(second.getId()));
+    }
+
+    @Test
+    void compactsOnceAppendsOutgrowTheLiveEntries() throws IOException {
+        for (int i = 3; i < 100; i++) {
+            put(inventory(i));
+        }
+        this.handler.writeToFile(this.inventories);
+
+        int maxSegments = 0;
+        for (int round = 0; round < 12; round++) {
+            for (Inventory inventory : this.inventories.values()) {
+                inventory.setAvailableCopies(round);
+            }
+            this.handler.writeChanges(this.inventories, this.inventories.keySet(), Collections.emptySet());
+            maxSegments = Math.max(maxSegments, segments());
+        }
+
+        assertTrue(segments() < maxSegments);
+        assertReadsBack(this.inventories);
+    }
+
+    /**
+     * Checks that a fresh handler reads the expected inventories back from the file.
+     *
+     * @param expected the expected inventories
+     * @throws IOException if the file cannot be read
+     */
+    private void assertReadsBack(Map<UUID, Inventory> expected) throws IOException {
+        Map<UUID, Inventory> read = new InventoryMapFileHandler(this.file.toString()).readFromFile();
+        assertEquals(expected.keySet(), read.keySet());
+        expected.forEach((id, inventory) -> assertInventoryEquals(inventory, read.get(id)));
+    }
+
+    /**
+     * Checks that two inventories hold the same values.
+     *
+     * @param expected the expected inventory
+     * @param actual the actual inventory
+     */
+    private static void assertInventoryEquals(Inventory expected, Inventory actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getBookId(), actual.getBookId());
+        assertEquals(expected.getAvailableCopies(), actual.getAvailableCopies());
+        assertEquals(expected.getTotalCopies(), actual.getTotalCopies());
+        assertEquals(expected.getPrice(), actual.getPrice());
+    }
+
+    /**
+     * Counts the segment headers in the file.
+     *
+     * @return the number of segments
+     * @throws IOException if the file cannot be read
+     */
+    private int segments() throws IOException {
+        try (var lines = Files.lines(this.file)) {
+            return (int) lines.filter(line -> line.startsWith(TextMapFileHandler.SEGMENT_HEADER_PREFIX)).count();
+        }
+    }
+
+    /**
+     * Appends raw text to the file.
+     *
+     * @param text the text to append
+     * @throws IOException if the file cannot be written
+     */
+    private void append(String text) throws IOException {
+        Files.write(this.file, text.getBytes(StandardCharsets.US_ASCII), StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Adds an inventory to the expected map.
+     *
+     * @param inventory the inventory
+     */
+    private void put(Inventory inventory) {
+        this.inventories.put(inventory.getId(), inventory);
+    }
+
+    /**
+     * Formats an inventory as a CSV line.
+     *
+     * @param inventory the inventory
+     * @return the line, without line terminator
+     */
+    private static String line(Inventory inventory) {
+        return String.join(",", inventory.getId().toString(), inventory.getBookId().toString(),
+                String.valueOf(inventory.getAvailableCopies()), String.valueOf(inventory.getTotalCopies()),
+                String.valueOf(inventory.getPrice()));
+    }
+
+    /**
+     * Creates an inventory.
+     *
+     * @param seed the value the copies and price are derived from
+     * @return the inventory
+     */
+    private static Inventory inventory(int seed) {
+        return new Inventory(UUID.randomUUID(), UUID.randomUUID(), seed, seed + 5, seed + 0.25);
+    }
+}
@@ -0,0 +1,158 @@
+package org.ardeu.librarymanagementsystem.domain.filerepository.codecs;
+
+import org.ardeu.librarymanagementsystem.domain.entities.author.Author;
+import org.ardeu.librarymanagementsystem.domain.entities.book.Book;
+import org.ardeu.librarymanagementsystem.domain.entities.genre.Genre;
+import org.ardeu.librarymanagementsystem.domain.entities.inventory.Inventory;
+import org.ardeu.librarymanagementsystem.domain.entities.loan.Loan;
+import org.ardeu.librarymanagementsystem.domain.entities.loan.LoanStatus;
+import org.ardeu.librarymanagementsystem.domain.entities.member.Member;
+import org.ardeu.librarymanagementsystem.domain.exceptions.file.DataFormatException;
+import org.ardeu.librarymanagementsystem.domain.filerepository.base.BinaryCodec;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Round-trip tests for the {@link BinaryCodec} implementations.
+ */
+class BinaryCodecTest {
+
+    @Test
+    void roundTripsLoans() throws IOException {
+        LoanBinaryCodec codec = new LoanBinaryCodec();
+        for (LoanStatus status : LoanStatus.values()) {
+            LocalDate returnDate = status == LoanStatus.RETURNED ? LocalDate.of(2024, 3, 2) : null;
+            Loan loan = new Loan(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), 12.34,
+                    LocalDate.of(2024, 2, 20), LocalDate.of(2024, 3, 5), returnDate, status);
+
+            Loan read = roundTrip(codec, loan);
+
+            assertEquals(loan.getId(), read.getId());
+            assertEquals(loan.getMemberId(), read.getMemberId());
+            assertEquals(loan.getBookId(), read.getBookId());
+            assertEquals(loan.getPrice(), read.getPrice());
+            assertEquals(loan.getLoanDate(), read.getLoanDate());
+            assertEquals(loan.getDueDate(), read.getDueDate());
+            assertEquals(returnDate, read.getReturnDate());
+            assertEquals(status, read.getStatus());
+        }
+    }
+
+    @Test
+    void roundTripsBooks() throws IOException {
+        Book book = Book.builder()
+                .setId(UUID.randomUUID())
+                .setTitle("Ficciones")
+                .setDescription("Cuentos, 1944 — «El jardín de senderos que se bifurcan»")
+                .setAuthorId(UUID.randomUUID())
+                .setGenreId(UUID.randomUUID())
+                .setPublishDate(LocalDate.of(1944, 1, 1))
+                .build();
+
+        Book read = roundTrip(new BookBinaryCodec(), book);
+
+        assertEquals(book.getId(), read.getId());
+        assertEquals(book.getTitle(), read.getTitle());
+        assertEquals(book.getDescription(), read.getDescription());
+        assertEquals(book.getAuthorId(), read.getAuthorId());
+        assertEquals(book.getGenreId(), read.getGenreId());
+        assertEquals(book.getPublishDate(), read.getPublishDate());
+    }
+
+    @Test
+    void roundTripsAuthorsGenresAndMembers() throws IOException {
+        HashSet<UUID> ids = new HashSet<>(Set.of(UUID.randomUUID(), UUID.randomUUID()));
+        Author author = new Author(UUID.randomUUID(), "Jorge Luis Borges", ids);
+        Genre genre = new Genre(UUID.randomUUID(), "Short stories", new HashSet<>());
+        Member member = new Member(UUID.randomUUID(), "Ana Pop", "ana@example.com", ids);
+
+        Author readAuthor = roundTrip(new AuthorBinaryCodec(), author);
+        Genre readGenre = roundTrip(new GenreBinaryCodec(), genre);
+        Member readMember = roundTrip(new MemberBinaryCodec(), member);
+
+        assertEquals(author.getId(), readAuthor.getId());
+        assertEquals(author.getName(), readAuthor.getName());
+        assertEquals(ids, readAuthor.getBooks());
+        assertEquals(genre.getName(), readGenre.getName());
+        assertEquals(Set.of(), readGenre.getBooks());
+        assertEquals(member.getName(), readMember.getName());
+        assertEquals(member.getEmail(), readMember.getEmail());
+        assertEquals(ids, readMember.getLoans());
+    }
+
+    @Test
+    void roundTripsInventories() throws IOException {
+        Inventory inventory = new Inventory(UUID.randomUUID(), UUID.randomUUID(), 2, 7, 0.3);
+
+        Inventory read = roundTrip(new InventoryBinaryCodec(), inventory);
+
+        assertEquals(inventory.getId(), read.getId());
+        assertEquals(inventory.getBookId(), read.getBookId());
+        assertEquals(inventory.getAvailableCopies(), read.getAvailableCopies());
+        assertEquals(inventory.getTotalCopies(), read.getTotalCopies());
+        assertEquals(inventory.getPrice(), read.getPrice());
+    }
+
+    @Test
+    void roundTripsNullFields() throws IOException {
+        Member member = new Member(UUID.randomUUID(), null, null, null);
+
+        Member read = roundTrip(new MemberBinaryCodec(), member);
+
+        assertNull(read.getName());
+        assertNull(read.getEmail());
+        assertNull(read.getLoans());
+    }
+
+    @Test
+    void rejectsUnknownLoanStatus() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (int i = 0; i < 6; i++) {
+            out.writeLong(i);
+        }
+        out.writeDouble(1.0);
+        for (int i = 0; i < 3; i++) {
+            BinaryFields.writeDate(out, LocalDate.of(2024, 1, 1));
+        }
+        BinaryFields.writeString(out, "LOST");
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+
+        assertThrows(DataFormatException.class, () -> new LoanBinaryCodec().read(in));
+    }
+
+    @Test
+    void rejectsNegativeStringLength() {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(new byte[] {-1, -1, -1, -2}));
+
+        assertThrows(DataFormatException.class, () -> BinaryFields.readString(in));
+    }
+
+    /**
+     * Writes a value with a codec and reads it back.
+     *
+     * @param codec the codec
+     * @param value the value to write
+     * @param <T> the type of the value
+     * @return the value read back
+     * @throws IOException if the value cannot be encoded or decoded
+     */
+    private static <T> T roundTrip(BinaryCodec<T> codec, T value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        codec.write(out, value);
+        out.flush();
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        T read = codec.read(in);
+        assertEquals(0, in.available());
+        return read;
+    }
+}
@@ -0,0 +1,124 @@
+package org.ardeu.librarymanagementsystem.domain.filerepository.codecs;
+
+import org.ardeu.librarymanagementsystem.domain.entities.loan.Loan;
+import org.ardeu.librarymanagementsystem.domain.entities.loan.LoanStatus;
+import org.ardeu.librarymanagementsystem.domain.exceptions.file.DataFormatException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link LoanBlockCodec}.
+ */
+class LoanBlockCodecTest {
+
+    private final LoanBlockCodec codec = new LoanBlockCodec();
+
+    @Test
+    void roundTripsFixedPointPrices() throws IOException {
+        List<Loan> loans = loans(500, new double[] {0.0, 1.5, 2.25, 9.99, 0.0005, 120.0});
+
+        assertBlockRoundTrips(loans);
+    }
+
+    @Test
+    void roundTripsPricesWithoutExactDecimalScale() throws IOException {
+        List<Loan> loans = loans(50, new double[] {Math.PI, 1.5, 1e-9});
+
+        assertBlockRoundTrips(loans);
+    }
+
+    @Test
+    void headerHoldsTheLoanDateRange() throws IOException {
+        List<Loan> loans = loans(20, new double[] {1.0});
+        byte[] block = this.codec.encode(loans);
+
+        LoanBlockCodec.Header header = this.codec.readHeader(ByteBuffer.wrap(block));
+
+        LocalDate first = loans.getFirst().getLoanDate();
+        LocalDate last = loans.getLast().getLoanDate();
+        assertEquals(loans.size(), header.rowCount());
+        assertEquals(first.toEpochDay(), header.minLoanDay());
+        assertEquals(last.toEpochDay(), header.maxLoanDay());
+        assertTrue(header.overlaps(last, last.plusDays(10)));
+        assertFalse(header.overlaps(last.plusDays(1), last.plusDays(10)));
+        assertFalse(header.overlaps(first.minusDays(10), first.minusDays(1)));
+    }
+
+    @Test
+    void rejectsCorruptedBody() throws IOException {
+        byte[] block = this.codec.encode(loans(20, new double[] {1.0}));
+        block[block.length / 2] ^= 0x10;
+        ByteBuffer buffer = ByteBuffer.wrap(block);
+        LoanBlockCodec.Header header = this.codec.readHeader(buffer);
+
+        assertThrows(DataFormatException.class, () -> this.codec.decode(header, buffer));
+    }
+
+    @Test
+    void rejectsInconsistentHeader() {
+        ByteBuffer buffer = ByteBuffer.allocate(LoanBlockCodec.HEADER_LENGTH).putInt(0).putLong(0).putLong(0).putInt(0).putInt(0).flip();
+
+        assertThrows(DataFormatException.class, () -> this.codec.readHeader(buffer));
+    }
+
+    /**
+     * Encodes and decodes a block and checks that every loan comes back unchanged and in order.
+     *
+     * @param loans the loans of the block
+     * @throws IOException if the block cannot be decoded
+     */
+    private void assertBlockRoundTrips(List<Loan> loans) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(this.codec.encode(loans));
+        LoanBlockCodec.Header header = this.codec.readHeader(buffer);
+
+        List<Loan> decoded = this.codec.decode(header, buffer);
+
+        assertEquals(loans.size(), decoded.size());
+        for (int i = 0; i < loans.size(); i++) {
+            Loan expected = loans.get(i);
+            Loan actual = decoded.get(i);
+            assertEquals(expected.getId(), actual.getId());
+            assertEquals(expected.getMemberId(), actual.getMemberId());
+            assertEquals(expected.getBookId(), actual.getBookId());
+            assertEquals(expected.getPrice(), actual.getPrice());
+            assertEquals(expected.getLoanDate(), actual.getLoanDate());
+            assertEquals(expected.getDueDate(), actual.getDueDate());
+            assertEquals(expected.getReturnDate(), actual.getReturnDate());
+            assertEquals(expected.getStatus(), actual.getStatus());
+        }
+    }
+
+    /**
+     * Creates loans sorted by loan date, sharing a few members and books.
+     *
+     * @param count the number of loans
+     * @param prices the prices the loans cycle through
+     * @return the loans
+     */
+    private static List<Loan> loans(int count, double[] prices) {
+        Random random = new Random(count);
+        UUID[] members = {UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID()};
+        UUID[] books = {UUID.randomUUID(), UUID.randomUUID()};
+        LoanStatus[] statuses = LoanStatus.values();
+        List<Loan> loans = new ArrayList<>();
+        LocalDate loanDate = LocalDate.of(2022, 6, 1);
+        for (int i = 0; i < count; i++) {
+            loanDate = loanDate.plusDays(random.nextInt(3));
+            LoanStatus status = statuses[i % statuses.length];
+            LocalDate returnDate = status == LoanStatus.RETURNED ? loanDate.plusDays(random.nextInt(30)) : null;
+            loans.add(new Loan(UUID.randomUUID(), members[random.nextInt(members.length)],
+                    books[random.nextInt(books.length)], prices[i % prices.length],
+                    loanDate, loanDate.plusDays(14), returnDate, status));
+        }
+        return loans;
+    }
+}
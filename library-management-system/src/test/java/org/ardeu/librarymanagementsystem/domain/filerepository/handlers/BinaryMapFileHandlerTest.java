@@ -0,0 +1,100 @@
+package org.ardeu.librarymanagementsystem.domain.filerepository.handlers;
+
+import org.ardeu.librarymanagementsystem.domain.entities.genre.Genre;
+import org.ardeu.librarymanagementsystem.domain.exceptions.file.DataFormatException;
+import org.ardeu.librarymanagementsystem.domain.filerepository.codecs.GenreBinaryCodec;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link BinaryMapFileHandler}.
+ */
+class BinaryMapFileHandlerTest {
+
+    @TempDir
+    Path directory;
+
+    private Path file;
+    private BinaryMapFileHandler<Genre> handler;
+    private Map<UUID, Genre> genres;
+
+    /**
+     * Creates a handler and a map of two genres.
+     */
+    @BeforeEach
+    void setUp() {
+        this.file = this.directory.resolve("genres.bin");
+        this.handler = new BinaryMapFileHandler<>(this.file.toString(), new GenreBinaryCodec());
+        this.genres = new HashMap<>();
+        for (String name : new String[] {"Fantasy", "Poetry"}) {
+            Genre genre = new Genre(UUID.randomUUID(), name, new HashSet<>());
+            this.genres.put(genre.getId(), genre);
+        }
+    }
+
+    @Test
+    void readsBackWhatWasWritten() throws IOException {
+        this.handler.writeToFile(this.genres);
+
+        Map<UUID, Genre> read = this.handler.readFromFile();
+
+        assertEquals(this.genres.keySet(), read.keySet());
+        this.genres.forEach((id, genre) -> assertEquals(genre.getName(), read.get(id).getName()));
+    }
+
+    @Test
+    void readsEmptyFileAsEmptyMap() throws IOException {
+        Files.createFile(this.file);
+
+        assertTrue(this.handler.readFromFile().isEmpty());
+    }
+
+    @Test
+    void rejectsChecksumMismatch() throws IOException {
+        this.handler.writeToFile(this.genres);
+        byte[] bytes = Files.readAllBytes(this.file);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(this.file, bytes);
+
+        assertThrows(DataFormatException.class, this.handler::readFromFile);
+    }
+
+    @Test
+    void rejectsUnsupportedVersion() throws IOException {
+        this.handler.writeToFile(this.genres);
+        byte[] bytes = Files.readAllBytes(this.file);
+        bytes[Integer.BYTES] = 9;
+        Files.write(this.file, bytes);
+
+        assertThrows(DataFormatException.class, this.handler::readFromFile);
+    }
+
+    @Test
+    void readsJavaSerializedMapAndRewritesIt() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(new HashMap<>(this.genres));
+        }
+        Files.write(this.file, bytes.toByteArray());
+
+        Map<UUID, Genre> read = this.handler.readFromFile();
+        this.handler.writeToFile(read);
+
+        assertEquals(this.genres.keySet(), read.keySet());
+        assertEquals(this.genres.keySet(), this.handler.readFromFile().keySet());
+        assertTrue(Files.size(this.file) < bytes.size());
+    }
+}
@@ -0,0 +1,110 @@
+package org.ardeu.librarymanagementsystem.domain.filerepository.handlers;
+
+import org.ardeu.librarymanagementsystem.domain.entities.loan.Loan;
+import org.ardeu.librarymanagementsystem.domain.entities.loan.LoanStatus;
+import org.ardeu.librarymanagementsystem.domain.exceptions.file.DataFormatException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link ColumnarLoanFileHandler}.
+ */
+class ColumnarLoanFileHandlerTest {
+
+    @TempDir
+    Path directory;
+
+    private Path file;
+    private ColumnarLoanFileHandler handler;
+    private Map<UUID, Loan> loans;
+
+    /**
+     * Creates ten thousand loans over three years, enough for several blocks.
+     */
+    @BeforeEach
+    void setUp() {
+        this.file = this.directory.resolve("loans.bin");
+        this.handler = new ColumnarLoanFileHandler(this.file.toString());
+        this.loans = new HashMap<>();
+        Random random = new Random(7);
+        UUID[] books = {UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID()};
+        for (int i = 0; i < 10_000; i++) {
+            LocalDate loanDate = LocalDate.of(2021, 1, 1).plusDays(random.nextInt(3 * 365));
+            boolean returned = random.nextBoolean();
+            Loan loan = new Loan(UUID.randomUUID(), UUID.randomUUID(), books[random.nextInt(books.length)],
+                    random.nextInt(2000) / 100.0, loanDate, loanDate.plusDays(14),
+                    returned ? loanDate.plusDays(3) : null, returned ? LoanStatus.RETURNED : LoanStatus.OVERDUE);
+            this.loans.put(loan.getId(), loan);
+        }
+    }
+
+    @Test
+    void readsBackWhatWasWritten() throws IOException {
+        this.handler.writeToFile(this.loans);
+
+        Map<UUID, Loan> read = this.handler.readFromFile();
+
+        assertEquals(this.loans.keySet(), read.keySet());
+        this.loans.forEach((id, loan) -> {
+            Loan actual = read.get(id);
+            assertEquals(loan.getPrice(), actual.getPrice());
+            assertEquals(loan.getLoanDate(), actual.getLoanDate());
+            assertEquals(loan.getReturnDate(), actual.getReturnDate());
+            assertEquals(loan.getStatus(), actual.getStatus());
+        });
+    }
+
+    @Test
+    void readsOnlyTheLoansOfTheRequestedDates() throws IOException {
+        this.handler.writeToFile(this.loans);
+        LocalDate from = LocalDate.of(2022, 3, 10);
+        LocalDate to = LocalDate.of(2022, 4, 2);
+
+        List<Loan> read = this.handler.readLoans(from, to);
+
+        Set<UUID> expected = new HashSet<>();
+        this.loans.values().stream()
+                .filter(loan -> !loan.getLoanDate().isBefore(from) && !loan.getLoanDate().isAfter(to))
+                .forEach(loan -> expected.add(loan.getId()));
+        assertEquals(expected.size(), read.size());
+        read.forEach(loan -> assertTrue(expected.contains(loan.getId())));
+        for (int i = 1; i < read.size(); i++) {
+            assertFalse(read.get(i).getLoanDate().isBefore(read.get(i - 1).getLoanDate()));
+        }
+    }
+
+    @Test
+    void scansEveryLoanOnce() throws IOException {
+        this.handler.writeToFile(this.loans);
+        Set<UUID> scanned = new HashSet<>();
+
+        this.handler.forEachLoan(loan -> assertTrue(scanned.add(loan.getId())));
+
+        assertEquals(this.loans.keySet(), scanned);
+    }
+
+    @Test
+    void readsMissingFileAsEmpty() throws IOException {
+        assertTrue(this.handler.readFromFile().isEmpty());
+        assertTrue(this.handler.readLoans(LocalDate.MIN, LocalDate.MAX).isEmpty());
+    }
+
+    @Test
+    void rejectsCorruptedBlock() throws IOException {
+        this.handler.writeToFile(this.loans);
+        byte[] bytes = Files.readAllBytes(this.file);
+        bytes[bytes.length - 100] ^= 0x01;
+        Files.write(this.file, bytes);
+
+        assertThrows(DataFormatException.class, this.handler::readFromFile);
+    }
+}
@@ -0,0 +1,200 @@
+package org.ardeu.librarymanagementsystem.domain.filerepository.journal;
+
+import org.ardeu.librarymanagementsystem.domain.entities.genre.Genre;
+import org.ardeu.librarymanagementsystem.domain.exceptions.file.DataFormatException;
+import org.ardeu.librarymanagementsystem.domain.filerepository.codecs.GenreBinaryCodec;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link WriteAheadJournal}.
+ */
+class WriteAheadJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private Path file;
+    private WriteAheadJournal<Genre> journal;
+
+    /**
+     * Opens a journal on a fresh file.
+     *
+     * @throws IOException if the journal cannot be opened
+     */
+    @BeforeEach
+    void setUp() throws IOException {
+        this.file = this.directory.resolve("genres.wal");
+        this.journal = new WriteAheadJournal<>(this.file.toString(), new GenreBinaryCodec());
+        this.journal.open();
+    }
+
+    /**
+     * Closes the journal.
+     *
+     * @throws IOException if the journal cannot be closed
+     */
+    @AfterEach
+    void tearDown() throws IOException {
+        this.journal.close();
+    }
+
+    @Test
+    void replaysRecordsInAppendOrder() throws IOException {
+        Genre fantasy = genre("Fantasy");
+        Genre poetry = genre("Poetry");
+        this.journal.appendPut(fantasy.getId(), fantasy);
+        this.journal.appendPut(poetry.getId(), poetry);
+        this.journal.appendRemove(fantasy.getId());
+        this.journal.close();
+
+        List<JournalRecord<Genre>> records = replay();
+
+        assertEquals(3, records.size());
+        assertEquals(JournalOperation.PUT, records.get(0).operation());
+        assertEquals(fantasy.getId(), records.get(0).id());
+        assertEquals("Fantasy", records.get(0).value().getName());
+        assertEquals(poetry.getId(), records.get(1).id());
+        assertEquals(JournalOperation.REMOVE, records.get(2).operation());
+        assertEquals(fantasy.getId(), records.get(2).id());
+        assertNull(records.get(2).value());
+    }
+
+    @Test
+    void discardsTornRecordAtTheTail() throws IOException {
+        Genre fantasy = genre("Fantasy");
+        this.journal.appendPut(fantasy.getId(), fantasy);
+        this.journal.flush();
+        long intactSize = this.journal.size();
+        this.journal.appendPut(fantasy.getId(), genre("Poetry"));
+        this.journal.close();
+        try (FileChannel channel = FileChannel.open(this.file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        List<JournalRecord<Genre>> records = replay();
+
+        assertEquals(1, records.size());
+        assertEquals("Fantasy", records.get(0).value().getName());
+        assertEquals(intactSize, Files.size(this.file));
+    }
+
+    @Test
+    void discardsRecordWithBadChecksumAndEverythingAfterIt() throws IOException {
+        Genre fantasy = genre("Fantasy");
+        this.journal.appendPut(fantasy.getId(), fantasy);
+        this.journal.flush();
+        long intactSize = this.journal.size();
+        this.journal.appendPut(fantasy.getId(), genre("Poetry"));
+        this.journal.appendRemove(fantasy.getId());
+        this.journal.close();
+        try (FileChannel channel = FileChannel.open(this.file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer value = ByteBuffer.allocate(1);
+            channel.read(value, intactSize + 10);
+            value.put(0, (byte) ~value.get(0)).rewind();
+            channel.write(value, intactSize + 10);
+        }
+
+        assertEquals(1, replay().size());
+        assertEquals(intactSize, Files.size(this.file));
+    }
+
+    @Test
+    void appendsAfterTheTruncatedTail() throws IOException {
+        Genre fantasy = genre("Fantasy");
+        this.journal.appendPut(fantasy.getId(), fantasy);
+        this.journal.close();
+        try (FileChannel channel = FileChannel.open(this.file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {0, 0, 0, 42, 1}), channel.size());
+        }
+
+        WriteAheadJournal<Genre> reopened = new WriteAheadJournal<>(this.file.toString(), new GenreBinaryCodec());
+        assertEquals(1, reopened.replay(_ -> {}));
+        reopened.appendRemove(fantasy.getId());
+        reopened.close();
+
+        List<JournalRecord<Genre>> records = replay();
+        assertEquals(2, records.size());
+        assertEquals(JournalOperation.REMOVE, records.get(1).operation());
+    }
+
+    @Test
+    void truncateLeavesOnlyTheHeader() throws IOException {
+        Genre fantasy = genre("Fantasy");
+        this.journal.appendPut(fantasy.getId(), fantasy);
+        this.journal.truncate();
+        this.journal.close();
+
+        assertEquals(5, Files.size(this.file));
+        assertEquals(0, replay().size());
+    }
+
+    @Test
+    void writesHeaderToEmptyFile() throws IOException {
+        Path empty = Files.createFile(this.directory.resolve("empty.wal"));
+
+        WriteAheadJournal<Genre> opened = new WriteAheadJournal<>(empty.toString(), new GenreBinaryCodec());
+        opened.open();
+        opened.close();
+
+        assertEquals(5, Files.size(empty));
+        assertEquals(0, new WriteAheadJournal<>(empty.toString(), new GenreBinaryCodec()).replay(_ -> {}));
+    }
+
+    @Test
+    void rejectsFileWithoutHeader() throws IOException {
+        Path legacy = Files.write(this.directory.resolve("legacy.wal"), new byte[] {0, 0, 0, 17, 1, 2, 3, 4, 5});
+
+        WriteAheadJournal<Genre> opened = new WriteAheadJournal<>(legacy.toString(), new GenreBinaryCodec());
+
+        assertThrows(DataFormatException.class, opened::open);
+    }
+
+    @Test
+    void rejectsUnsupportedVersion() throws IOException {
+        Path future = Files.write(this.directory.resolve("future.wal"), new byte[] {'J', 'R', 'N', 'L', 2});
+
+        WriteAheadJournal<Genre> opened = new WriteAheadJournal<>(future.toString(), new GenreBinaryCodec());
+
+        assertThrows(DataFormatException.class, opened::open);
+    }
+
+    /**
+     * Replays the journal file into a list with a fresh journal.
+     *
+     * @return the replayed records
+     * @throws IOException if the journal cannot be read
+     */
+    private List<JournalRecord<Genre>> replay() throws IOException {
+        List<JournalRecord<Genre>> records = new ArrayList<>();
+        WriteAheadJournal<Genre> replayed = new WriteAheadJournal<>(this.file.toString(), new GenreBinaryCodec());
+        replayed.replay(records::add);
+        replayed.close();
+        return records;
+    }
+
+    /**
+     * Creates a genre without books.
+     *
+     * @param name the name of the genre
+     * @return the genre
+     */
+    private static Genre genre(String name) {
+        return new Genre(UUID.randomUUID(), name, new HashSet<>());
+    }
+}
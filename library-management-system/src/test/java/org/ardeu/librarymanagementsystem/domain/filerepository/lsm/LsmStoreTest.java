@@ -0,0 +1,216 @@
+package org.ardeu.librarymanagementsystem.domain.filerepository.lsm;
+
+import org.ardeu.librarymanagementsystem.domain.entities.genre.Genre;
+import org.ardeu.librarymanagementsystem.domain.exceptions.file.DataFormatException;
+import org.ardeu.librarymanagementsystem.domain.filerepository.codecs.GenreBinaryCodec;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link LsmStore}.
+ */
+class LsmStoreTest {
+
+    /**
+     * The number of writes that fills the memtable and triggers a flush.
+     */
+    private static final int FLUSH_SIZE = 16384;
+
+    @TempDir
+    Path directory;
+
+    private LsmStore<Genre> store;
+
+    /**
+     * Opens a store in an empty directory.
+     *
+     * @throws IOException if the store cannot be opened
+     */
+    @BeforeEach
+    void setUp() throws IOException {
+        this.store = open();
+    }
+
+    /**
+     * Closes the store.
+     *
+     * @throws IOException if the store cannot be closed
+     */
+    @AfterEach
+    void tearDown() throws IOException {
+        this.store.close();
+    }
+
+    @Test
+    void getsPutValuesAndForgetsDeletedOnes() throws IOException {
+        UUID kept = UUID.randomUUID();
+        UUID deleted = UUID.randomUUID();
+        this.store.put(kept, genre(kept, "Fantasy"));
+        this.store.put(deleted, genre(deleted, "Poetry"));
+        this.store.put(kept, genre(kept, "Fantasy fiction"));
+        this.store.delete(deleted);
+
+        assertEquals("Fantasy fiction", this.store.get(kept).getName());
+        assertNull(this.store.get(deleted));
+        assertNull(this.store.get(UUID.randomUUID()));
+        assertEquals(Map.of(kept, "Fantasy fiction"), names(this.store.readAll()));
+    }
+
+    @Test
+    void replaysTheJournalOnReopen() throws IOException {
+        UUID key = UUID.randomUUID();
+        this.store.put(key, genre(key, "Fantasy"));
+        this.store.sync();
+        this.store.close();
+
+        this.store = open();
+
+        assertEquals("Fantasy", this.store.get(key).getName());
+        assertEquals(0, this.store.getSegmentCount());
+    }
+
+    @Test
+    void flushesFullMemtableToSegment() throws IOException {
+        UUID[] keys = fill();
+
+        assertEquals(1, this.store.getSegmentCount());
+        assertEquals(5, Files.size(this.directory.resolve("journal.log")));
+        this.store.close();
+        this.store = open();
+        assertEquals(1, this.store.getSegmentCount());
+        assertEquals("0-" + keys[123], this.store.get(keys[123]).getName());
+        assertEquals(FLUSH_SIZE, this.store.readAll().size());
+    }
+
+    @Test
+    void tombstoneShadowsFlushedValue() throws IOException {
+        UUID[] keys = fill();
+        this.store.delete(keys[7]);
+        this.store.sync();
+        this.store.close();
+
+        this.store = open();
+
+        assertNull(this.store.get(keys[7]));
+        assertFalse(this.store.readAll().containsKey(keys[7]));
+        assertEquals(FLUSH_SIZE - 1, this.store.readAll().size());
+    }
+
+    @Test
+    void compactsSegmentsKeepingTheNewestValues() throws IOException {
+        UUID[] keys = fill();
+        for (int round = 1; round < 4; round++) {
+            for (int i = 0; i < FLUSH_SIZE; i++) {
+                UUID key = i % 2 == 0 ? keys[i] : UUID.randomUUID();
+                this.store.put(key, genre(key, round + "-" + key));
+            }
+        }
+        this.store.close();
+
+        this.store = open();
+
+        assertEquals(1, this.store.getSegmentCount());
+        assertEquals(1, segmentFiles());
+        assertEquals("3-" + keys[0], this.store.get(keys[0]).getName());
+        assertEquals("0-" + keys[1], this.store.get(keys[1]).getName());
+        assertEquals(FLUSH_SIZE + 3 * FLUSH_SIZE / 2, this.store.readAll().size());
+    }
+
+    @Test
+    void deletesSegmentsMissingFromTheManifest() throws IOException {
+        fill();
+        this.store.close();
+        Path stray = Files.createFile(this.directory.resolve("segment-99.seg"));
+
+        this.store = open();
+
+        assertFalse(Files.exists(stray));
+        assertEquals(1, segmentFiles());
+        assertEquals(FLUSH_SIZE, this.store.readAll().size());
+    }
+
+    @Test
+    void rejectsManifestListingInvalidSegment() throws IOException {
+        this.store.close();
+        Files.writeString(this.directory.resolve("MANIFEST"), "../elsewhere.seg\n");
+
+        LsmStore<Genre> reopened = new LsmStore<>(this.directory.toString(), new GenreBinaryCodec());
+
+        assertThrows(DataFormatException.class, reopened::open);
+        reopened.close();
+    }
+
+    /**
+     * Puts enough new keys to flush the memtable once, naming each value {@code 0-<key>}.
+     *
+     * @return the keys written, in order
+     * @throws IOException if a write fails
+     */
+    private UUID[] fill() throws IOException {
+        UUID[] keys = new UUID[FLUSH_SIZE];
+        for (int i = 0; i < FLUSH_SIZE; i++) {
+            keys[i] = UUID.randomUUID();
+            this.store.put(keys[i], genre(keys[i], "0-" + keys[i]));
+        }
+        return keys;
+    }
+
+    /**
+     * Opens a store on the test directory.
+     *
+     * @return the open store
+     * @throws IOException if the store cannot be opened
+     */
+    private LsmStore<Genre> open() throws IOException {
+        LsmStore<Genre> opened = new LsmStore<>(this.directory.toString(), new GenreBinaryCodec());
+        opened.open();
+        return opened;
+    }
+
+    /**
+     * Counts the segment files in the test directory.
+     *
+     * @return the number of segment files
+     * @throws IOException if the directory cannot be listed
+     */
+    private long segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(this.directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".seg")).count();
+        }
+    }
+
+    /**
+     * Maps the genres of a map to their names.
+     *
+     * @param genres the genres by key
+     * @return the names by key
+     */
+    private static Map<UUID, String> names(Map<UUID, Genre> genres) {
+        return genres.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().getName()));
+    }
+
+    /**
+     * Creates a genre without books.
+     *
+     * @param id the ID of the genre
+     * @param name the name of the genre
+     * @return the genre
+     */
+    private static Genre genre(UUID id, String name) {
+        return new Genre(id, name, new HashSet<>());
+    }
+}
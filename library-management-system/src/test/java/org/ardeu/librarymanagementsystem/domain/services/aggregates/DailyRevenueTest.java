@@ -0,0 +1,122 @@
+package org.ardeu.librarymanagementsystem.domain.services.aggregates;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link DailyRevenue}.
+ */
+class DailyRevenueTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 6, 1);
+
+    private final DailyRevenue revenue = new DailyRevenue();
+
+    @Test
+    void emptyRevenueIsZero() {
+        assertEquals(0.0, this.revenue.revenueBetween(null, null));
+        assertEquals(0.0, this.revenue.revenueBetween(START, START.plusDays(30)));
+    }
+
+    @Test
+    void sumsInclusiveRanges() {
+        this.revenue.add(START, 2.5);
+        this.revenue.add(START.plusDays(1), 4.0);
+        this.revenue.add(START.plusDays(1), 1.25);
+        this.revenue.add(START.plusDays(3), 10.0);
+
+        assertEquals(17.75, this.revenue.revenueBetween(null, null));
+        assertEquals(2.5, this.revenue.revenueBetween(START, START));
+        assertEquals(7.75, this.revenue.revenueBetween(START, START.plusDays(2)));
+        assertEquals(15.25, this.revenue.revenueBetween(START.plusDays(1), null));
+        assertEquals(7.75, this.revenue.revenueBetween(null, START.plusDays(1)));
+        assertEquals(0.0, this.revenue.revenueBetween(START.plusDays(3), START));
+    }
+
+    @Test
+    void clampsRangesOutsideTheCoveredDays() {
+        this.revenue.add(START, 3.0);
+
+        assertEquals(3.0, this.revenue.revenueBetween(LocalDate.of(1900, 1, 1), LocalDate.of(2100, 1, 1)));
+        assertEquals(0.0, this.revenue.revenueBetween(LocalDate.of(2100, 1, 1), null));
+        assertEquals(0.0, this.revenue.revenueBetween(null, LocalDate.of(1900, 1, 1)));
+    }
+
+    @Test
+    void growsToEarlierAndLaterDays() {
+        this.revenue.add(START, 1.0);
+        this.revenue.add(START.minusYears(20), 2.0);
+        this.revenue.add(START.plusYears(30), 4.0);
+        this.revenue.add(START.minusYears(21), 8.0);
+
+        assertEquals(15.0, this.revenue.revenueBetween(null, null));
+        assertEquals(10.0, this.revenue.revenueBetween(null, START.minusDays(1)));
+        assertEquals(5.0, this.revenue.revenueBetween(START, null));
+        assertEquals(2.0, this.revenue.revenueBetween(START.minusYears(20), START.minusYears(20)));
+    }
+
+    @Test
+    void removingTakesBackExactlyWhatWasAdded() {
+        for (int i = 0; i < 1000; i++) {
+            this.revenue.add(START.plusDays(i % 7), 0.1);
+        }
+        this.revenue.add(START, 19.99);
+        for (int i = 0; i < 1000; i++) {
+            this.revenue.remove(START.plusDays(i % 7), 0.1);
+        }
+
+        assertEquals(19.99, this.revenue.revenueBetween(null, null));
+        this.revenue.remove(START, 19.99);
+        assertEquals(0.0, this.revenue.revenueBetween(null, null));
+    }
+
+    @Test
+    void matchesNaiveSumsOverRandomRanges() {
+        Random random = new Random(42);
+        TreeMap<LocalDate, Long> expected = new TreeMap<>();
+        for (int i = 0; i < 5000; i++) {
+            LocalDate day = START.plusDays(random.nextInt(8000) - 4000);
+            long cents = random.nextInt(5000);
+            if (random.nextInt(4) == 0 && expected.containsKey(day)) {
+                cents = -Math.min(cents, expected.get(day));
+                this.revenue.remove(day, -cents / 100.0);
+            } else {
+                this.revenue.add(day, cents / 100.0);
+            }
+            expected.merge(day, cents, Long::sum);
+        }
+
+        for (int i = 0; i < 500; i++) {
+            LocalDate from = random.nextInt(10) == 0 ? null : START.plusDays(random.nextInt(9000) - 4500);
+            LocalDate to = random.nextInt(10) == 0 ? null : START.plusDays(random.nextInt(9000) - 4500);
+
+            assertEquals(naiveSum(expected, from, to) / 100.0, this.revenue.revenueBetween(from, to));
+        }
+    }
+
+    /**
+     * Sums the daily amounts between two dates one day at a time.
+     *
+     * @param daily the amounts in cents, by day
+     * @param from the first day, inclusive, or null for no lower bound
+     * @param to the last day, inclusive, or null for no upper bound
+     * @return the sum in cents
+     */
+    private static long naiveSum(TreeMap<LocalDate, Long> daily, LocalDate from, LocalDate to) {
+        long sum = 0;
+        for (Map.Entry<LocalDate, Long> entry : daily.entrySet()) {
+            LocalDate day = entry.getKey();
+            if ((Objects.isNull(from) || !day.isBefore(from)) && (Objects.isNull(to) || !day.isAfter(to))) {
+                sum += entry.getValue();
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,142 @@
+package org.ardeu.librarymanagementsystem.domain.services.aggregates;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link SpaceSaving}.
+ */
+class SpaceSavingTest {
+
+    private static final int CAPACITY = 20;
+
+    private final Random random = new Random(7);
+
+    @Test
+    void countsExactlyWhileKeysFit() {
+        SpaceSaving sketch = new SpaceSaving(CAPACITY);
+        Map<UUID, Long> frequencies = stream(sketch, CAPACITY);
+
+        assertEquals(0, sketch.uncountedBound());
+        for (RankedCount entry : sketch.entries()) {
+            assertEquals((long) frequencies.get(entry.id()), entry.loans());
+            assertEquals(0, entry.error());
+        }
+        assertEquals(CAPACITY, sketch.entries().size());
+    }
+
+    @Test
+    void boundsCountsOfSkewedStream() {
+        SpaceSaving sketch = new SpaceSaving(CAPACITY);
+        Map<UUID, Long> frequencies = stream(sketch, 500);
+
+        assertBounds(sketch, frequencies);
+        long total = frequencies.values().stream().mapToLong(Long::longValue).sum();
+        assertEquals(total, sketch.entries().stream().mapToLong(RankedCount::loans).sum());
+        frequencies.forEach((key, frequency) -> {
+            if (frequency > total / CAPACITY) {
+                assertTrue(sketch.count(key) > 0, "frequent key " + key + " is not counted");
+            }
+        });
+    }
+
+    @Test
+    void keepsBoundsWhenOccurrencesAreTakenBack() {
+        SpaceSaving sketch = new SpaceSaving(CAPACITY);
+        Map<UUID, Long> frequencies = stream(sketch, 500);
+        List<UUID> keys = new ArrayList<>(frequencies.keySet());
+
+        for (int i = 0; i < 2000; i++) {
+            UUID key = keys.get(this.random.nextInt(keys.size()));
+            if (frequencies.get(key) > 0) {
+                frequencies.merge(key, -1L, Long::sum);
+                sketch.remove(key);
+            }
+        }
+
+        assertBounds(sketch, frequencies);
+    }
+
+    @Test
+    void dropsCounterTakenBackToZero() {
+        SpaceSaving sketch = new SpaceSaving(CAPACITY);
+        UUID key = UUID.randomUUID();
+        sketch.add(key);
+        sketch.add(null);
+
+        sketch.remove(key);
+        sketch.remove(UUID.randomUUID());
+        sketch.remove(null);
+
+        assertEquals(0, sketch.count(key));
+        assertTrue(sketch.entries().isEmpty());
+    }
+
+    @Test
+    void listsMostFrequentFirst() {
+        SpaceSaving sketch = new SpaceSaving(CAPACITY);
+        stream(sketch, 500);
+
+        List<RankedCount> entries = sketch.entries();
+        for (int i = 1; i < entries.size(); i++) {
+            assertTrue(entries.get(i - 1).loans() >= entries.get(i).loans());
+        }
+    }
+
+    @Test
+    void rejectsNonPositiveCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new SpaceSaving(0));
+    }
+
+    /**
+     * Checks the Space-Saving guarantees: every counted key is counted at least its true frequency and at
+     * most its error above it, and no key that is not counted is more frequent than the uncounted bound.
+     *
+     * @param sketch the sketch
+     * @param frequencies the true frequencies, by key
+     */
+    private static void assertBounds(SpaceSaving sketch, Map<UUID, Long> frequencies) {
+        for (RankedCount entry : sketch.entries()) {
+            long frequency = frequencies.get(entry.id());
+            assertTrue(entry.loans() >= frequency, "count below the frequency of " + entry.id());
+            assertTrue(entry.loans() - entry.error() <= frequency, "error too small for " + entry.id());
+        }
+        frequencies.forEach((key, frequency) -> {
+            if (sketch.count(key) == 0) {
+                assertTrue(frequency <= sketch.uncountedBound(), "bound below the frequency of " + key);
+            }
+        });
+    }
+
+    /**
+     * Feeds the sketch a shuffled stream in which the i-th of the keys occurs about 1000 / (i + 1) times.
+     *
+     * @param sketch the sketch
+     * @param keyCount the number of distinct keys
+     * @return the true frequencies, by key
+     */
+    private Map<UUID, Long> stream(SpaceSaving sketch, int keyCount) {
+        Map<UUID, Long> frequencies = new HashMap<>();
+        List<UUID> occurrences = new ArrayList<>();
+        for (int i = 0; i < keyCount; i++) {
+            UUID key = UUID.randomUUID();
+            long frequency = 1 + 1000 / (i + 1);
+            frequencies.put(key, frequency);
+            for (long j = 0; j < frequency; j++) {
+                occurrences.add(key);
+            }
+        }
+        Collections.shuffle(occurrences, this.random);
+        occurrences.forEach(sketch::add);
+        return frequencies;
+    }
+}
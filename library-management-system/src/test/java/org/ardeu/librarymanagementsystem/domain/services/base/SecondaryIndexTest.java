@@ -0,0 +1,171 @@
+package org.ardeu.librarymanagementsystem.domain.services.base;
+
+import org.ardeu.librarymanagementsystem.domain.entities.member.Member;
+import org.ardeu.librarymanagementsystem.domain.exceptions.entity.DuplicateItemException;
+import org.ardeu.librarymanagementsystem.domain.filerepository.codecs.MemberBinaryCodec;
+import org.ardeu.librarymanagementsystem.domain.filerepository.handlers.BinaryMapFileHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link SecondaryIndex}, kept up to date by a {@link Service}.
+ */
+class SecondaryIndexTest {
+
+    @TempDir
+    Path directory;
+
+    private BinaryMapFileHandler<Member> fileHandler;
+    private Service<Member> service;
+    private SecondaryIndex<String, Member> byName;
+    private SecondaryIndex<String, Member> byEmail;
+
+    /**
+     * Creates a service with a name index and a unique email index.
+     */
+    @BeforeEach
+    void setUp() {
+        this.fileHandler = new BinaryMapFileHandler<>(this.directory.resolve("members.dat").toString(),
+                new MemberBinaryCodec());
+        this.service = new Service<>(this.fileHandler);
+        this.byName = this.service.addIndex("name", Member::getName);
+        this.byEmail = this.service.addUniqueIndex("email", member -> IndexKeys.normalize(member.getEmail()));
+    }
+
+    @Test
+    void indexesAddedItemsByKey() throws DuplicateItemException {
+        Member first = member("Ann", "ann@example.org");
+        Member second = member("Ann", "ann.lee@example.org");
+        Member third = member("Bob", "bob@example.org");
+        this.service.add(first);
+        this.service.add(second);
+        this.service.add(third);
+
+        assertEquals(2, this.byName.count("Ann"));
+        assertEquals(Set.of(first, second), Set.copyOf(this.byName.findAll("Ann")));
+        assertSame(third, this.byName.find("Bob"));
+        assertNull(this.byName.find("Cid"));
+        assertEquals(List.of(), this.byName.findAll("Cid"));
+        assertEquals(Set.of("Ann", "Bob"), this.byName.keys());
+        assertSame(this.byName, this.service.getIndex("name"));
+    }
+
+    @Test
+    void movesItemWhoseKeyChangedInPlace() throws DuplicateItemException {
+        Member first = member("Ann", "ann@example.org");
+        Member second = member("Ann", "ann.lee@example.org");
+        this.service.add(first);
+        this.service.add(second);
+
+        first.setName("Cid");
+        this.service.updateItem(first);
+
+        assertEquals(1, this.byName.count("Ann"));
+        assertSame(second, this.byName.find("Ann"));
+        assertSame(first, this.byName.find("Cid"));
+        assertEquals(Set.of("Ann", "Cid"), this.byName.keys());
+    }
+
+    @Test
+    void dropsKeyOfRemovedItem() throws DuplicateItemException {
+        Member member = member("Ann", "ann@example.org");
+        this.service.add(member);
+
+        this.service.removeItem(member.getId());
+
+        assertFalse(this.byName.contains("Ann"));
+        assertFalse(this.byEmail.contains("ann@example.org"));
+        assertEquals(0, this.byName.count("Ann"));
+    }
+
+    @Test
+    void skipsItemsWithoutKey() throws DuplicateItemException {
+        this.service.add(member("Ann", null));
+        this.service.add(member("Bob", "  "));
+
+        assertTrue(this.byEmail.keys().isEmpty());
+        assertEquals(2, this.byName.keys().size());
+    }
+
+    @Test
+    void rejectsItemWithTakenUniqueKey() throws DuplicateItemException {
+        Member member = member("Ann", "ann@example.org");
+        this.service.add(member);
+        Member duplicate = member("Other Ann", "  ANN@example.org ");
+
+        assertThrows(DuplicateItemException.class, () -> this.service.add(duplicate));
+        assertEquals(1, this.service.getItems().size());
+        assertFalse(this.byName.contains("Other Ann"));
+        assertSame(member, this.byEmail.find("ann@example.org"));
+    }
+
+    @Test
+    void uniqueKeyDoesNotConflictWithItsOwner() throws DuplicateItemException {
+        Member member = member("Ann", "ann@example.org");
+        this.service.add(member);
+
+        member.setName("Ann Lee");
+        this.service.updateItem(member);
+
+        assertFalse(this.byEmail.conflictsWith(member));
+        assertSame(member, this.byEmail.find("ann@example.org"));
+    }
+
+    @Test
+    void takenUniqueKeyIsFreedByKeyChange() throws DuplicateItemException {
+        Member member = member("Ann", "ann@example.org");
+        this.service.add(member);
+        member.setEmail("ann.lee@example.org");
+        this.service.updateItem(member);
+
+        this.service.add(member("Other Ann", "ann@example.org"));
+
+        assertEquals(Set.of("ann@example.org", "ann.lee@example.org"), this.byEmail.keys());
+    }
+
+    @Test
+    void indexesLoadedItemsSharingUniqueKey() throws IOException {
+        Member first = member("Ann", "ann@example.org");
+        Member second = member("Other Ann", "ann@example.org");
+        this.fileHandler.writeToFile(Map.of(first.getId(), first, second.getId(), second));
+
+        this.service.load();
+
+        assertEquals(2, this.byEmail.count("ann@example.org"));
+        assertTrue(this.byEmail.conflictsWith(first));
+        assertThrows(DuplicateItemException.class, () -> this.service.add(member("Third Ann", "ann@example.org")));
+    }
+
+    @Test
+    void indexRegisteredLateCoversExistingItems() throws DuplicateItemException {
+        Member member = member("Ann", "ann@example.org");
+        this.service.add(member);
+
+        SecondaryIndex<UUID, Member> byId = this.service.addIndex("id", Member::getId);
+
+        assertSame(member, byId.find(member.getId()));
+        assertThrows(IllegalArgumentException.class, () -> this.service.addIndex("name", Member::getEmail));
+    }
+
+    /**
+     * Creates a member without loans.
+     *
+     * @param name the name of the member
+     * @param email the email of the member
+     * @return the member
+     */
+    private static Member member(String name, String email) {
+        return new Member(UUID.randomUUID(), name, email, new HashSet<>());
+    }
+}